@@ -12,16 +12,18 @@ import java.util.Properties;
  */
 public class DBconfig {
     
-    private static Properties props = new Properties();
+    // 重新加载时整体替换引用，读取方不会看到清空到一半的配置
+    private static volatile Properties props;
     
     static {
-        loadConfig();
+        props = readConfig();
     }
     
     /**
-     * 加载配置文件
+     * 读取配置文件到新的 Properties，不影响当前生效的配置
      */
-    private static void loadConfig() {
+    public static Properties readConfig() {
+        Properties props = new Properties();
         InputStream input = null;
         try {
             // 从类路径加载配置文件
@@ -32,11 +34,12 @@ public class DBconfig {
                 props.load(input);
             } else {
                 // 如果文件不存在，使用默认配置
-                setDefaultConfig();
+                setDefaultConfig(props);
             }
         } catch (IOException e) {
             System.err.println("加载配置文件失败，使用默认配置");
-            setDefaultConfig();
+            props.clear();
+            setDefaultConfig(props);
         } finally {
             if (input != null) {
                 try {
@@ -46,12 +49,13 @@ public class DBconfig {
                 }
             }
         }
+        return props;
     }
     
     /**
      * 设置默认配置
      */
-    private static void setDefaultConfig() {
+    private static void setDefaultConfig(Properties props) {
         props.setProperty("db.url", "jdbc:mysql://localhost:3306/lab_management_system?useSSL=false&serverTimezone=Asia/Shanghai&characterEncoding=utf8");
         props.setProperty("db.username", "root");
         props.setProperty("db.password", "123456");
@@ -100,6 +104,15 @@ public class DBconfig {
         return Integer.parseInt(props.getProperty("db.max.connections", "10"));
     }
     
+    /**
+     * 获取任意配置项
+     * @param key 配置键
+     * @param defaultValue 未配置时的默认值
+     */
+    public static String getProperty(String key, String defaultValue) {
+        return props.getProperty(key, defaultValue);
+    }
+    
     /**
      * 检查配置是否有效
      */
@@ -132,8 +145,15 @@ public class DBconfig {
      * 重新加载配置（热更新用）
      */
     public static void reload() {
-        props.clear();
-        loadConfig();
+        replace(readConfig());
+    }
+    
+    /**
+     * 用已读取（并已由调用方校验）的配置整体替换当前配置
+     * @param newProps readConfig() 的返回值
+     */
+    public static void replace(Properties newProps) {
+        props = newProps;
         System.out.println("数据库配置已重新加载");
     }
 }
\ No newline at end of file
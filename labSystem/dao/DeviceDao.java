@@ -1,6 +1,7 @@
 package labSystem.dao;
 
 import labSystem.entity.Device;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -73,4 +74,12 @@ public interface DeviceDao extends BaseDao<Device, Integer> {
      * @throws SQLException
      */
     java.util.Map<String, Integer> countByStatus();
+    
+    /**
+     * 流式遍历所有未删除设备（按设备ID排序）
+     * 使用只进游标逐行读取，结果不在内存中累积
+     * @param handler 逐行回调
+     * @throws IOException 回调写出失败时抛出
+     */
+    void streamAll(RowHandler<Device> handler) throws IOException;
 }
\ No newline at end of file
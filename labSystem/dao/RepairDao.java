@@ -1,7 +1,9 @@
 package labSystem.dao;
 
 import labSystem.entity.Repair;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -97,4 +99,22 @@ public interface RepairDao extends BaseDao<Repair, Integer> {
      * @throws SQLException
      */
     java.util.Map<Integer, Integer> countByDevice();
+    
+    /**
+     * 统计关联了设备的报修数
+     * 与设备可靠性模型的计入口径一致，用于偏差检测
+     * @return 报修数
+     * @throws SQLException
+     */
+    long countWithDevice();
+    
+    /**
+     * 流式遍历报修记录（含设备、报修人、处理人信息，按报修ID排序）
+     * 使用只进游标逐行读取，结果不在内存中累积
+     * @param startTime 报修时间下限（含），null表示不限
+     * @param endTime 报修时间上限（不含），null表示不限
+     * @param handler 逐行回调
+     * @throws IOException 回调写出失败时抛出
+     */
+    void streamByCreatedTime(Date startTime, Date endTime, RowHandler<Repair> handler) throws IOException;
 }
\ No newline at end of file
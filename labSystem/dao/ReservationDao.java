@@ -1,6 +1,7 @@
 package labSystem.dao;
 
 import labSystem.entity.Reservation;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
@@ -99,4 +100,23 @@ public interface ReservationDao extends BaseDao<Reservation, Integer> {
      * @throws SQLException
      */
     int countUserReservations(int userId);
+    
+    /**
+     * 统计开始时间和设备都不为空、且状态在给定范围内的预约数
+     * 与统计汇总表的计入口径一致，用于偏差检测
+     * @param statuses 计入的状态
+     * @return 预约数
+     * @throws SQLException
+     */
+    long countWithStartAndDevice(java.util.Collection<String> statuses);
+    
+    /**
+     * 流式遍历预约记录（含用户、设备信息，按预约ID排序）
+     * 使用只进游标逐行读取，结果不在内存中累积，百万级导出也只占常量内存
+     * @param startTime 开始时间下限（含），null表示不限
+     * @param endTime 开始时间上限（不含），null表示不限
+     * @param handler 逐行回调
+     * @throws IOException 回调写出失败时抛出
+     */
+    void streamByStartTime(Date startTime, Date endTime, RowHandler<Reservation> handler) throws IOException;
 }
\ No newline at end of file
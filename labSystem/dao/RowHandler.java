@@ -0,0 +1,19 @@
+package labSystem.dao;
+
+import java.io.IOException;
+
+/**
+ * 流式查询的逐行回调
+ * DAO每读出一行就交给回调处理，不在内存中累积结果列表，用于导出等大结果集场景
+ * @param <T> 实体类型
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    /**
+     * 处理一行记录
+     * @param row 当前行实体（实现可复用对象，回调返回后不应再持有）
+     * @throws IOException 写出失败时抛出，DAO应立即停止读取并原样抛出
+     */
+    void handle(T row) throws IOException;
+}
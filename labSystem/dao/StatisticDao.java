@@ -4,10 +4,10 @@ import labSystem.entity.statisticData;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.Map;
-import java.util.List;
 
 /**
  * 统计DAO接口
+ * 列表类统计以 StatisticRows 列式行集返回，每种结果一个确定类型，实现逐行 add 基本类型值
  */
 public interface StatisticDao extends BaseDao<statisticData, Integer> {
     
@@ -22,58 +22,58 @@ public interface StatisticDao extends BaseDao<statisticData, Integer> {
      * 获取用户使用统计
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 统计列表
+     * @return 统计行集
      * @throws SQLException
      */
-    List<statisticData> getUserUsageStats(Date startDate, Date endDate);
+    StatisticRows.UserActivityRows getUserUsageStats(Date startDate, Date endDate);
     
     /**
      * 获取设备使用统计
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 统计列表
+     * @return 统计行集
      * @throws SQLException
      */
-    List<statisticData> getDeviceUsageStats(Date startDate, Date endDate);
+    StatisticRows.DeviceUsageRows getDeviceUsageStats(Date startDate, Date endDate);
     
     /**
      * 获取预约趋势统计（按天/周/月）
      * @param period 统计周期（day/week/month）
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 统计列表
+     * @return 统计行集
      * @throws SQLException
      */
-    List<statisticData> getReservationTrend(String period, Date startDate, Date endDate);
+    StatisticRows.TrendRows getReservationTrend(String period, Date startDate, Date endDate);
     
     /**
      * 获取报修统计
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 统计列表
+     * @return 统计行集
      * @throws SQLException
      */
-    List<statisticData> getRepairStats(Date startDate, Date endDate);
+    StatisticRows.RepairRows getRepairStats(Date startDate, Date endDate);
     
     /**
      * 获取最常用设备Top N
      * @param topN 前N名
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 设备统计列表
+     * @return 设备统计行集
      * @throws SQLException
      */
-    List<statisticData> getTopUsedDevices(int topN, Date startDate, Date endDate);
+    StatisticRows.DeviceUsageRows getTopUsedDevices(int topN, Date startDate, Date endDate);
     
     /**
      * 获取最活跃用户Top N
      * @param topN 前N名
      * @param startDate 开始日期
      * @param endDate 结束日期
-     * @return 用户统计列表
+     * @return 用户统计行集
      * @throws SQLException
      */
-    List<statisticData> getTopActiveUsers(int topN, Date startDate, Date endDate);
+    StatisticRows.UserActivityRows getTopActiveUsers(int topN, Date startDate, Date endDate);
     
     /**
      * 获取设备空闲率统计
@@ -104,10 +104,10 @@ public interface StatisticDao extends BaseDao<statisticData, Integer> {
     
     /**
      * 获取设备故障率统计
-     * @return 设备故障率列表
+     * @return 各设备报修统计行集
      * @throws SQLException
      */
-    List<statisticData> getDeviceFailureRate() ;
+    StatisticRows.RepairRows getDeviceFailureRate();
     
     /**
      * 获取资源利用率统计
@@ -118,6 +118,16 @@ public interface StatisticDao extends BaseDao<statisticData, Integer> {
      */
     Map<String, Object> getResourceUtilization(Date startDate, Date endDate);
     
+    /**
+     * 按开始时间的小时统计预约数
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param deviceType 设备分类，为null时统计全部设备
+     * @return 长度为24的数组，下标为开始时间的小时（0-23）
+     * @throws SQLException
+     */
+    long[] countReservationsByStartHour(Date startDate, Date endDate, String deviceType);
+    
     /**
      * 清空统计缓存
      * @return 影响的行数
@@ -0,0 +1,480 @@
+package labSystem.dao;
+
+import labSystem.entity.statisticData;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 统计查询结果的列式行集
+ * 每列一个基本类型数组，DAO 逐行 add，聚合代码按行号读取基本类型值，不产生包装对象；
+ * 展示层通过 asList 一次性转为实体列表。
+ * 缺失值：int 列为 NULL_INT，double 列为 NaN，时间列为 NULL_TIME，视图中对应字段为 null
+ */
+public final class StatisticRows {
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_TIME = Long.MIN_VALUE;
+
+    private StatisticRows() {}
+
+    /**
+     * 行集公共部分：行数、扩容、按主键定位行号、转为实体列表
+     * @param <T> 视图中的元素类型
+     */
+    public abstract static class Rows<T> implements Serializable {
+        private static final long serialVersionUID = 1L;
+        protected int size;
+        // 主键 -> 行号索引，首次 indexOf 时按主键排序建立，add 后失效
+        private transient volatile int[][] index;
+
+        public int size() { return size; }
+        public boolean isEmpty() { return size == 0; }
+
+        /**
+         * 按主键（设备ID或用户ID）查找行号
+         * @return 不存在时返回-1；主键重复时返回其中任一行
+         */
+        public int indexOf(int key) {
+            int[][] current = index;
+            if (current == null) {
+                current = buildIndex();
+                index = current;
+            }
+            int pos = Arrays.binarySearch(current[0], key);
+            return pos >= 0 ? current[1][pos] : -1;
+        }
+
+        /** 逐行转为实体，返回可修改、可排序的新列表 */
+        public List<T> asList() {
+            List<T> list = new ArrayList<>(size);
+            for (int row = 0; row < size; row++) {
+                list.add(toEntity(row));
+            }
+            return list;
+        }
+
+        /** 第 row 行的主键 */
+        protected abstract int key(int row);
+
+        /** 第 row 行转为展示用实体 */
+        protected abstract T toEntity(int row);
+
+        protected abstract int capacity();
+
+        protected abstract void grow(int capacity);
+
+        // 追加一行前调用
+        protected final int nextRow() {
+            if (size == capacity()) {
+                grow(Math.max(16, capacity() * 2));
+            }
+            index = null;
+            return size++;
+        }
+
+        private int[][] buildIndex() {
+            long[] packed = new long[size];
+            for (int row = 0; row < size; row++) {
+                packed[row] = ((long) key(row) << 32) | row;
+            }
+            Arrays.sort(packed);
+            int[] keys = new int[size];
+            int[] rows = new int[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = (int) (packed[i] >> 32);
+                rows[i] = (int) packed[i];
+            }
+            return new int[][]{keys, rows};
+        }
+    }
+
+    // === 设备使用统计 ===
+
+    public static final class DeviceUsageRows extends Rows<statisticData.DeviceUsageStats> {
+        private static final long serialVersionUID = 1L;
+        private int[] deviceId;
+        private String[] deviceCode;
+        private String[] deviceName;
+        private String[] categoryName;
+        private int[] uniqueUsers;
+        private int[] totalReservations;
+        private double[] totalHours;
+        private double[] avgHoursPerUse;
+        private double[] usageRate;
+        private double[] usagePerDay;
+
+        public DeviceUsageRows() {
+            this(16);
+        }
+
+        public DeviceUsageRows(int expectedRows) {
+            grow(Math.max(1, expectedRows));
+        }
+
+        /** 追加一行，返回行号；唯一用户数、平均时长等可随后用 set 方法补充 */
+        public int add(int deviceId, String deviceCode, String deviceName, String categoryName, int totalReservations, double totalHours) {
+            int row = nextRow();
+            this.deviceId[row] = deviceId;
+            this.deviceCode[row] = deviceCode;
+            this.deviceName[row] = deviceName;
+            this.categoryName[row] = categoryName;
+            this.uniqueUsers[row] = NULL_INT;
+            this.totalReservations[row] = totalReservations;
+            this.totalHours[row] = totalHours;
+            this.avgHoursPerUse[row] = Double.NaN;
+            this.usageRate[row] = Double.NaN;
+            this.usagePerDay[row] = Double.NaN;
+            return row;
+        }
+
+        public void setUniqueUsers(int row, int value) { uniqueUsers[row] = value; }
+        public void setAvgHoursPerUse(int row, double value) { avgHoursPerUse[row] = value; }
+        public void setUsageRate(int row, double value) { usageRate[row] = value; }
+        public void setUsagePerDay(int row, double value) { usagePerDay[row] = value; }
+
+        public int deviceId(int row) { return deviceId[row]; }
+        public String deviceCode(int row) { return deviceCode[row]; }
+        public String deviceName(int row) { return deviceName[row]; }
+        public String categoryName(int row) { return categoryName[row]; }
+        public int uniqueUsers(int row) { return uniqueUsers[row]; }
+        public int totalReservations(int row) { return totalReservations[row]; }
+        public double totalHours(int row) { return totalHours[row]; }
+
+        @Override
+        protected int key(int row) {
+            return deviceId[row];
+        }
+
+        @Override
+        protected statisticData.DeviceUsageStats toEntity(int row) {
+            statisticData.DeviceUsageStats stats = new statisticData.DeviceUsageStats(deviceId[row], deviceCode[row],
+                    deviceName[row], boxInt(totalReservations[row]), boxDouble(totalHours[row]));
+            stats.setCategoryName(categoryName[row]);
+            stats.setUniqueUsers(boxInt(uniqueUsers[row]));
+            stats.setAvgHoursPerUse(boxDouble(avgHoursPerUse[row]));
+            stats.setUsageRate(boxDouble(usageRate[row]));
+            stats.setUsagePerDay(boxDouble(usagePerDay[row]));
+            return stats;
+        }
+
+        @Override
+        protected int capacity() {
+            return deviceId.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            deviceId = copy(deviceId, capacity);
+            deviceCode = copy(deviceCode, capacity);
+            deviceName = copy(deviceName, capacity);
+            categoryName = copy(categoryName, capacity);
+            uniqueUsers = copy(uniqueUsers, capacity);
+            totalReservations = copy(totalReservations, capacity);
+            totalHours = copy(totalHours, capacity);
+            avgHoursPerUse = copy(avgHoursPerUse, capacity);
+            usageRate = copy(usageRate, capacity);
+            usagePerDay = copy(usagePerDay, capacity);
+        }
+    }
+
+    // === 预约趋势 ===
+
+    public static final class TrendRows extends Rows<statisticData.ReservationTrend> {
+        private static final long serialVersionUID = 1L;
+        private String[] period;
+        private long[] startTime;
+        private long[] endTime;
+        private int[] totalReservations;
+        private int[] approvedCount;
+        private int[] rejectedCount;
+        private int[] pendingCount;
+        private double[] avgDuration;
+
+        public TrendRows() {
+            this(16);
+        }
+
+        public TrendRows(int expectedRows) {
+            grow(Math.max(1, expectedRows));
+        }
+
+        /**
+         * 追加一个周期
+         * @param startTime 周期起点毫秒数，未知时传 NULL_TIME
+         * @param endTime 周期终点毫秒数，未知时传 NULL_TIME
+         * @param avgDuration 平均时长（小时），未知时传 NaN
+         * @return 行号
+         */
+        public int add(String period, long startTime, long endTime, int total, int approved, int rejected, int pending, double avgDuration) {
+            int row = nextRow();
+            this.period[row] = period;
+            this.startTime[row] = startTime;
+            this.endTime[row] = endTime;
+            this.totalReservations[row] = total;
+            this.approvedCount[row] = approved;
+            this.rejectedCount[row] = rejected;
+            this.pendingCount[row] = pending;
+            this.avgDuration[row] = avgDuration;
+            return row;
+        }
+
+        public String period(int row) { return period[row]; }
+        public int totalReservations(int row) { return totalReservations[row]; }
+        public int approvedCount(int row) { return approvedCount[row]; }
+        public int rejectedCount(int row) { return rejectedCount[row]; }
+        public int pendingCount(int row) { return pendingCount[row]; }
+
+        /** 批准率 = 批准数 / (批准数 + 拒绝数) */
+        public double approvalRate(int row) {
+            int approved = Math.max(0, approvedCount[row]);
+            int decided = approved + Math.max(0, rejectedCount[row]);
+            return decided > 0 ? (double) approved / decided : 0.0;
+        }
+
+        // 趋势行没有数值主键，按行号定位
+        @Override
+        protected int key(int row) {
+            return row;
+        }
+
+        @Override
+        protected statisticData.ReservationTrend toEntity(int row) {
+            statisticData.ReservationTrend trend = new statisticData.ReservationTrend();
+            trend.setPeriod(period[row]);
+            trend.setStartDate(toDate(startTime[row]));
+            trend.setEndDate(toDate(endTime[row]));
+            trend.setTotalReservations(boxInt(totalReservations[row]));
+            trend.setApprovedCount(boxInt(approvedCount[row]));
+            trend.setRejectedCount(boxInt(rejectedCount[row]));
+            trend.setPendingCount(boxInt(pendingCount[row]));
+            trend.setApprovalRate(approvalRate(row));
+            trend.setAvgDuration(boxDouble(avgDuration[row]));
+            return trend;
+        }
+
+        @Override
+        protected int capacity() {
+            return period.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            period = copy(period, capacity);
+            startTime = copy(startTime, capacity);
+            endTime = copy(endTime, capacity);
+            totalReservations = copy(totalReservations, capacity);
+            approvedCount = copy(approvedCount, capacity);
+            rejectedCount = copy(rejectedCount, capacity);
+            pendingCount = copy(pendingCount, capacity);
+            avgDuration = copy(avgDuration, capacity);
+        }
+    }
+
+    // === 报修统计 ===
+
+    public static final class RepairRows extends Rows<statisticData.RepairStats> {
+        private static final long serialVersionUID = 1L;
+        private int[] deviceId;
+        private String[] deviceName;
+        private int[] totalRepairs;
+        private int[] pendingCount;
+        private int[] processingCount;
+        private int[] resolvedCount;
+        private int[] closedCount;
+        private double[] avgResolutionTime;
+
+        public RepairRows() {
+            this(16);
+        }
+
+        public RepairRows(int expectedRows) {
+            grow(Math.max(1, expectedRows));
+        }
+
+        /**
+         * 追加一台设备的报修统计
+         * @param avgResolutionTime 平均解决时间（小时），没有已解决报修时传 NaN
+         * @return 行号
+         */
+        public int add(int deviceId, String deviceName, int total, int pending, int processing, int resolved, int closed, double avgResolutionTime) {
+            int row = nextRow();
+            this.deviceId[row] = deviceId;
+            this.deviceName[row] = deviceName;
+            this.totalRepairs[row] = total;
+            this.pendingCount[row] = pending;
+            this.processingCount[row] = processing;
+            this.resolvedCount[row] = resolved;
+            this.closedCount[row] = closed;
+            this.avgResolutionTime[row] = avgResolutionTime;
+            return row;
+        }
+
+        public int deviceId(int row) { return deviceId[row]; }
+        public String deviceName(int row) { return deviceName[row]; }
+        public int totalRepairs(int row) { return totalRepairs[row]; }
+
+        @Override
+        protected int key(int row) {
+            return deviceId[row];
+        }
+
+        @Override
+        protected statisticData.RepairStats toEntity(int row) {
+            statisticData.RepairStats stats = new statisticData.RepairStats();
+            stats.setDeviceId(deviceId[row]);
+            stats.setDeviceName(deviceName[row]);
+            stats.setTotalRepairs(boxInt(totalRepairs[row]));
+            stats.setPendingCount(boxInt(pendingCount[row]));
+            stats.setProcessingCount(boxInt(processingCount[row]));
+            stats.setResolvedCount(boxInt(resolvedCount[row]));
+            stats.setClosedCount(boxInt(closedCount[row]));
+            stats.setAvgResolutionTime(boxDouble(avgResolutionTime[row]));
+            return stats;
+        }
+
+        @Override
+        protected int capacity() {
+            return deviceId.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            deviceId = copy(deviceId, capacity);
+            deviceName = copy(deviceName, capacity);
+            totalRepairs = copy(totalRepairs, capacity);
+            pendingCount = copy(pendingCount, capacity);
+            processingCount = copy(processingCount, capacity);
+            resolvedCount = copy(resolvedCount, capacity);
+            closedCount = copy(closedCount, capacity);
+            avgResolutionTime = copy(avgResolutionTime, capacity);
+        }
+    }
+
+    // === 用户活跃度 ===
+
+    public static final class UserActivityRows extends Rows<statisticData.UserActivityStats> {
+        private static final long serialVersionUID = 1L;
+        private int[] userId;
+        private String[] username;
+        private String[] realName;
+        private String[] userRole;
+        private String[] department;
+        private int[] devicesUsed;
+        private int[] totalReservations;
+        private int[] repairReports;
+        private long[] lastReservationTime;
+        private long[] lastLoginTime;
+
+        public UserActivityRows() {
+            this(16);
+        }
+
+        public UserActivityRows(int expectedRows) {
+            grow(Math.max(1, expectedRows));
+        }
+
+        /**
+         * 追加一个用户的活跃度
+         * @param lastReservationTime 最后预约时间毫秒数，没有时传 NULL_TIME
+         * @param lastLoginTime 最后登录时间毫秒数，没有时传 NULL_TIME
+         * @return 行号
+         */
+        public int add(int userId, String username, String realName, String userRole, String department,
+                       int devicesUsed, int totalReservations, int repairReports, long lastReservationTime, long lastLoginTime) {
+            int row = nextRow();
+            this.userId[row] = userId;
+            this.username[row] = username;
+            this.realName[row] = realName;
+            this.userRole[row] = userRole;
+            this.department[row] = department;
+            this.devicesUsed[row] = devicesUsed;
+            this.totalReservations[row] = totalReservations;
+            this.repairReports[row] = repairReports;
+            this.lastReservationTime[row] = lastReservationTime;
+            this.lastLoginTime[row] = lastLoginTime;
+            return row;
+        }
+
+        public void setDevicesUsed(int row, int value) { devicesUsed[row] = value; }
+
+        public int userId(int row) { return userId[row]; }
+        public String userRole(int row) { return userRole[row]; }
+        public int devicesUsed(int row) { return devicesUsed[row]; }
+        public int totalReservations(int row) { return totalReservations[row]; }
+        public int repairReports(int row) { return repairReports[row]; }
+
+        @Override
+        protected int key(int row) {
+            return userId[row];
+        }
+
+        @Override
+        protected statisticData.UserActivityStats toEntity(int row) {
+            statisticData.UserActivityStats stats = new statisticData.UserActivityStats();
+            stats.setUserId(userId[row]);
+            stats.setUsername(username[row]);
+            stats.setRealName(realName[row]);
+            stats.setUserRole(userRole[row]);
+            stats.setDepartment(department[row]);
+            stats.setDevicesUsed(boxInt(devicesUsed[row]));
+            stats.setTotalReservations(boxInt(totalReservations[row]));
+            stats.setRepairReports(boxInt(repairReports[row]));
+            stats.setLastReservationTime(toDate(lastReservationTime[row]));
+            stats.setLastLoginTime(toDate(lastLoginTime[row]));
+            return stats;
+        }
+
+        @Override
+        protected int capacity() {
+            return userId.length;
+        }
+
+        @Override
+        protected void grow(int capacity) {
+            userId = copy(userId, capacity);
+            username = copy(username, capacity);
+            realName = copy(realName, capacity);
+            userRole = copy(userRole, capacity);
+            department = copy(department, capacity);
+            devicesUsed = copy(devicesUsed, capacity);
+            totalReservations = copy(totalReservations, capacity);
+            repairReports = copy(repairReports, capacity);
+            lastReservationTime = copy(lastReservationTime, capacity);
+            lastLoginTime = copy(lastLoginTime, capacity);
+        }
+    }
+
+    // === 辅助方法 ===
+
+    private static Integer boxInt(int value) {
+        return value == NULL_INT ? null : value;
+    }
+
+    private static Double boxDouble(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static Date toDate(long time) {
+        return time == NULL_TIME ? null : new Date(time);
+    }
+
+    private static int[] copy(int[] column, int capacity) {
+        return column == null ? new int[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private static long[] copy(long[] column, int capacity) {
+        return column == null ? new long[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private static double[] copy(double[] column, int capacity) {
+        return column == null ? new double[capacity] : Arrays.copyOf(column, capacity);
+    }
+
+    private static String[] copy(String[] column, int capacity) {
+        return column == null ? new String[capacity] : Arrays.copyOf(column, capacity);
+    }
+}
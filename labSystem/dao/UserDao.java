@@ -2,6 +2,7 @@ package labSystem.dao;
 
 import labSystem.entity.User;
 import java.sql.SQLException;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +37,7 @@ public interface UserDao extends BaseDao<User, Integer> {
     
     /**
      * 用户登录验证
+     * 仅适用于旧的MD5摘要；带盐摘要需按用户名查询后由 PasswordHasher 校验
      * @param username 用户名
      * @param password 密码（MD5加密后的）
      * @return 用户对象，验证失败返回null
@@ -59,6 +61,14 @@ public interface UserDao extends BaseDao<User, Integer> {
      * @throws SQLException
      */
     int updateLastLogin(int userId) ;
+
+    /**
+     * 批量更新最后登录时间（合并为一条 UPDATE ... SET last_login_time = CASE user_id ... END WHERE user_id IN (...)）
+     * @param lastLoginTimes 用户ID -> 最后登录时间
+     * @return 影响的行数
+     * @throws SQLException
+     */
+    int batchUpdateLastLogin(Map<Integer, Date> lastLoginTimes);
     
     /**
      * 修改密码
@@ -68,6 +78,17 @@ public interface UserDao extends BaseDao<User, Integer> {
      * @throws SQLException
      */
     int changePassword(int userId, String newPassword);
+
+    /**
+     * 仅当当前密码摘要仍为 expectedPassword 时改写（UPDATE ... WHERE user_id = ? AND password = ?）
+     * 用于登录后在后台升级摘要，期间密码已被修改时不覆盖
+     * @param userId 用户ID
+     * @param expectedPassword 读取时的密码摘要
+     * @param newPassword 新的密码摘要
+     * @return 影响的行数，密码已被修改时为0
+     * @throws SQLException
+     */
+    int updatePasswordIfMatches(int userId, String expectedPassword, String newPassword);
     
     /**
      * 搜索用户（用户名、姓名模糊搜索）
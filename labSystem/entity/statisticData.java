@@ -1,5 +1,6 @@
 package labSystem.entity;
 
+import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
 
@@ -7,10 +8,12 @@ import java.util.List;
  * 统计数据实体类
  * 用于封装各种统计查询结果
  */
-public class statisticData {
+public class statisticData implements Serializable {
+    private static final long serialVersionUID = 1L;
     
     // === 设备使用统计 ===
-    public static class DeviceUsageStats {
+    public static class DeviceUsageStats implements Serializable {
+        private static final long serialVersionUID = 1L;
         private Integer deviceId;
         private String deviceCode;
         private String deviceName;
@@ -84,7 +87,8 @@ public class statisticData {
     }
     
     // === 预约趋势统计 ===
-    public static class ReservationTrend {
+    public static class ReservationTrend implements Serializable {
+        private static final long serialVersionUID = 1L;
         private String period;          // 时间段：2024-01, 2024-01-15, 周一等
         private Date startDate;
         private Date endDate;
@@ -152,7 +156,8 @@ public class statisticData {
     }
     
     // === 报修统计 ===
-    public static class RepairStats {
+    public static class RepairStats implements Serializable {
+        private static final long serialVersionUID = 1L;
         private String deviceName;
         private Integer deviceId;
         private Integer totalRepairs;       // 总报修数
@@ -220,8 +225,257 @@ public class statisticData {
         }
     }
     
+    // === 设备可靠性统计 ===
+    public static class DeviceReliability implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Integer deviceId;
+        private Integer failureCount;         // 累计故障（报修）次数
+        private Integer resolvedCount;        // 已修复次数
+        private Double usageHours;            // 累计使用小时数
+        private Double mtbfHours;             // 平均故障间隔（使用小时/故障次数）
+        private Double mttrHours;             // 平均修复时间（小时）
+        private Double failuresPerUsageHour;  // 每使用小时故障数
+        private Integer recentFailures;       // 近90天故障次数
+        private Double recentFailureRate;     // 近90天日均故障次数
+
+        // Getter和Setter
+        public Integer getDeviceId() { return deviceId; }
+        public void setDeviceId(Integer deviceId) { this.deviceId = deviceId; }
+
+        public Integer getFailureCount() { return failureCount; }
+        public void setFailureCount(Integer failureCount) { this.failureCount = failureCount; }
+
+        public Integer getResolvedCount() { return resolvedCount; }
+        public void setResolvedCount(Integer resolvedCount) { this.resolvedCount = resolvedCount; }
+
+        public Double getUsageHours() { return usageHours; }
+        public void setUsageHours(Double usageHours) { this.usageHours = usageHours; }
+
+        public Double getMtbfHours() { return mtbfHours; }
+        public void setMtbfHours(Double mtbfHours) { this.mtbfHours = mtbfHours; }
+
+        public Double getMttrHours() { return mttrHours; }
+        public void setMttrHours(Double mttrHours) { this.mttrHours = mttrHours; }
+
+        public Double getFailuresPerUsageHour() { return failuresPerUsageHour; }
+        public void setFailuresPerUsageHour(Double failuresPerUsageHour) { this.failuresPerUsageHour = failuresPerUsageHour; }
+
+        public Integer getRecentFailures() { return recentFailures; }
+        public void setRecentFailures(Integer recentFailures) { this.recentFailures = recentFailures; }
+
+        public Double getRecentFailureRate() { return recentFailureRate; }
+        public void setRecentFailureRate(Double recentFailureRate) { this.recentFailureRate = recentFailureRate; }
+
+        // 显示方法
+        public String getFormattedMtbf() {
+            if (mtbfHours == null) return "无故障记录";
+            return String.format("%.1f小时", mtbfHours);
+        }
+
+        public String getFormattedMttr() {
+            if (mttrHours == null) return "无数据";
+            if (mttrHours < 24) return String.format("%.1f小时", mttrHours);
+            return String.format("%.1f天", mttrHours / 24);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("设备%d: %d次故障，MTBF %s，MTTR %s",
+                deviceId, failureCount, getFormattedMtbf(), getFormattedMttr());
+        }
+    }
+
+    // === 预约时段热力图（周几 x 小时） ===
+    public static class ReservationHeatmap implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public static final String[] DAY_NAMES = {"周一", "周二", "周三", "周四", "周五", "周六", "周日"};
+
+        private Integer deviceId;           // 为空表示按分类或全部设备汇总
+        private String categoryName;
+        private Date startDate;
+        private Date endDate;
+        private Integer deviceCount;        // 参与统计的设备数
+        private double[][] occupiedHours;   // [7][24] 占用小时数，下标0为周一
+        private double[][] occupancyRate;   // [7][24] 占用率 = 占用小时数 / (该时段总小时数 * 设备数)
+        private long[][] reservationStarts; // [7][24] 在该时段开始的预约数
+
+        // Getter和Setter
+        public Integer getDeviceId() { return deviceId; }
+        public void setDeviceId(Integer deviceId) { this.deviceId = deviceId; }
+
+        public String getCategoryName() { return categoryName; }
+        public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
+
+        public Date getStartDate() { return startDate; }
+        public void setStartDate(Date startDate) { this.startDate = startDate; }
+
+        public Date getEndDate() { return endDate; }
+        public void setEndDate(Date endDate) { this.endDate = endDate; }
+
+        public Integer getDeviceCount() { return deviceCount; }
+        public void setDeviceCount(Integer deviceCount) { this.deviceCount = deviceCount; }
+
+        public double[][] getOccupiedHours() { return occupiedHours; }
+        public void setOccupiedHours(double[][] occupiedHours) { this.occupiedHours = occupiedHours; }
+
+        public double[][] getOccupancyRate() { return occupancyRate; }
+        public void setOccupancyRate(double[][] occupancyRate) { this.occupancyRate = occupancyRate; }
+
+        public long[][] getReservationStarts() { return reservationStarts; }
+        public void setReservationStarts(long[][] reservationStarts) { this.reservationStarts = reservationStarts; }
+
+        // 占用率最高的时段，如 "周三 14:00"
+        public String getPeakSlot() {
+            if (occupancyRate == null) return null;
+            int peakDay = 0, peakHour = 0;
+            for (int day = 0; day < occupancyRate.length; day++) {
+                for (int hour = 0; hour < occupancyRate[day].length; hour++) {
+                    if (occupancyRate[day][hour] > occupancyRate[peakDay][peakHour]) {
+                        peakDay = day;
+                        peakHour = hour;
+                    }
+                }
+            }
+            return String.format("%s %02d:00", DAY_NAMES[peakDay], peakHour);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s时段热力图：%d台设备，高峰 %s",
+                deviceId != null ? "设备" + deviceId : (categoryName != null ? categoryName : "全部设备"),
+                deviceCount, getPeakSlot());
+        }
+    }
+
+    // === 设备利用率（忙闲时长、最长空闲、峰值并发） ===
+    public static class UtilizationReport implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private Integer deviceId;               // 为空表示全部设备
+        private Date startDate;
+        private Date endDate;
+        private int deviceCount;
+        private double capacityHours;           // 设备数 x 区间小时
+        private double busyHours;               // 重叠预约合并后的实际占用小时
+        private double longestIdleHours;        // 最长连续空闲（全部设备时指没有任何设备在用）
+        private Date longestIdleStart;
+        private int peakConcurrentDevices;      // 同时在用的最多设备数
+        private Date peakAt;
+        private List<UtilizationReport> deviceReports;  // 全部设备时的逐设备明细
+
+        // Getter和Setter
+        public Integer getDeviceId() { return deviceId; }
+        public void setDeviceId(Integer deviceId) { this.deviceId = deviceId; }
+
+        public Date getStartDate() { return startDate; }
+        public void setStartDate(Date startDate) { this.startDate = startDate; }
+
+        public Date getEndDate() { return endDate; }
+        public void setEndDate(Date endDate) { this.endDate = endDate; }
+
+        public int getDeviceCount() { return deviceCount; }
+        public void setDeviceCount(int deviceCount) { this.deviceCount = deviceCount; }
+
+        public double getCapacityHours() { return capacityHours; }
+        public void setCapacityHours(double capacityHours) { this.capacityHours = capacityHours; }
+
+        public double getBusyHours() { return busyHours; }
+        public void setBusyHours(double busyHours) { this.busyHours = busyHours; }
+
+        public double getLongestIdleHours() { return longestIdleHours; }
+        public void setLongestIdleHours(double longestIdleHours) { this.longestIdleHours = longestIdleHours; }
+
+        public Date getLongestIdleStart() { return longestIdleStart; }
+        public void setLongestIdleStart(Date longestIdleStart) { this.longestIdleStart = longestIdleStart; }
+
+        public int getPeakConcurrentDevices() { return peakConcurrentDevices; }
+        public void setPeakConcurrentDevices(int peakConcurrentDevices) { this.peakConcurrentDevices = peakConcurrentDevices; }
+
+        public Date getPeakAt() { return peakAt; }
+        public void setPeakAt(Date peakAt) { this.peakAt = peakAt; }
+
+        public List<UtilizationReport> getDeviceReports() { return deviceReports; }
+        public void setDeviceReports(List<UtilizationReport> deviceReports) { this.deviceReports = deviceReports; }
+
+        // 计算字段
+        public double getIdleHours() {
+            return Math.max(0, capacityHours - busyHours);
+        }
+
+        public double getUtilizationRate() {
+            return capacityHours > 0 ? busyHours / capacityHours : 0.0;
+        }
+
+        public double getIdleRate() {
+            return capacityHours > 0 ? 1 - getUtilizationRate() : 0.0;
+        }
+
+        public String getFormattedUtilizationRate() {
+            return String.format("%.1f%%", getUtilizationRate() * 100);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s：占用%.1f/%.1f小时，利用率%s，峰值%d台",
+                deviceId != null ? "设备" + deviceId : "全部设备",
+                busyHours, capacityHours, getFormattedUtilizationRate(), peakConcurrentDevices);
+        }
+    }
+
+    // === 时长分位数（预约使用时长、超时时长、报修解决时长） ===
+    public static class DurationPercentiles implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private String metric;          // duration, overrun, repair
+        private Integer deviceId;
+        private String categoryName;
+        private long count;             // 样本数
+        private Double meanHours;
+        private Double minHours;
+        private Double p50Hours;
+        private Double p90Hours;
+        private Double p99Hours;
+        private Double maxHours;
+
+        // Getter和Setter
+        public String getMetric() { return metric; }
+        public void setMetric(String metric) { this.metric = metric; }
+
+        public Integer getDeviceId() { return deviceId; }
+        public void setDeviceId(Integer deviceId) { this.deviceId = deviceId; }
+
+        public String getCategoryName() { return categoryName; }
+        public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+
+        public Double getMeanHours() { return meanHours; }
+        public void setMeanHours(Double meanHours) { this.meanHours = meanHours; }
+
+        public Double getMinHours() { return minHours; }
+        public void setMinHours(Double minHours) { this.minHours = minHours; }
+
+        public Double getP50Hours() { return p50Hours; }
+        public void setP50Hours(Double p50Hours) { this.p50Hours = p50Hours; }
+
+        public Double getP90Hours() { return p90Hours; }
+        public void setP90Hours(Double p90Hours) { this.p90Hours = p90Hours; }
+
+        public Double getP99Hours() { return p99Hours; }
+        public void setP99Hours(Double p99Hours) { this.p99Hours = p99Hours; }
+
+        public Double getMaxHours() { return maxHours; }
+        public void setMaxHours(Double maxHours) { this.maxHours = maxHours; }
+
+        @Override
+        public String toString() {
+            if (count == 0) return metric + "：无数据";
+            return String.format("%s：%d条，P50 %.1f小时，P90 %.1f小时，P99 %.1f小时", metric, count, p50Hours, p90Hours, p99Hours);
+        }
+    }
+
     // === 用户活跃度统计 ===
-    public static class UserActivityStats {
+    public static class UserActivityStats implements Serializable {
+        private static final long serialVersionUID = 1L;
         private Integer userId;
         private String username;
         private String realName;
@@ -321,7 +575,8 @@ public class statisticData {
     }
     
     // === 系统概况统计 ===
-    public static class SystemOverview {
+    public static class SystemOverview implements Serializable {
+        private static final long serialVersionUID = 1L;
         private Integer totalUsers;           // 总用户数
         private Integer activeUsers;          // 活跃用户数
         private Integer totalDevices;         // 总设备数
@@ -413,7 +668,8 @@ public class statisticData {
     }
     
     // === 时间段统计请求 ===
-    public static class TimeRangeRequest {
+    public static class TimeRangeRequest implements Serializable {
+        private static final long serialVersionUID = 1L;
         private Date startDate;
         private Date endDate;
         private String groupBy;  // day, week, month, year
@@ -449,7 +705,8 @@ public class statisticData {
     }
     
     // === 统计结果包装 ===
-    public static class StatisticsResult<T> {
+    public static class StatisticsResult<T> implements Serializable {
+        private static final long serialVersionUID = 1L;
         private boolean success;
         private String message;
         private List<T> data;
@@ -512,7 +769,8 @@ public class statisticData {
     }
     
     // === 图表数据点 ===
-    public static class ChartDataPoint {
+    public static class ChartDataPoint implements Serializable {
+        private static final long serialVersionUID = 1L;
         private String label;      // X轴标签
         private Number value;      // Y轴数值
         private String category;   // 分类（用于多系列图表）
@@ -561,7 +819,8 @@ public class statisticData {
     }
     
     // === 饼图数据 ===
-    public static class PieChartData {
+    public static class PieChartData implements Serializable {
+        private static final long serialVersionUID = 1L;
         private String name;     // 名称
         private Number value;    // 数值
         private Double percentage; // 百分比
@@ -617,4 +876,30 @@ public class statisticData {
     public void setSystemOverview(SystemOverview systemOverview) {
         this.systemOverview = systemOverview;
     }
+
+    // 新增：月度/年度报告的各组成部分（并行查询后合并）
+    private List<DeviceUsageStats> deviceUsageStats;
+    private List<ReservationTrend> reservationTrends;
+    private List<RepairStats> repairStats;
+    private List<UserActivityStats> userActivityStats;
+    private List<String> missingParts;   // 超时或失败而缺失的部分，为空表示报告完整
+
+    public List<DeviceUsageStats> getDeviceUsageStats() { return deviceUsageStats; }
+    public void setDeviceUsageStats(List<DeviceUsageStats> deviceUsageStats) { this.deviceUsageStats = deviceUsageStats; }
+
+    public List<ReservationTrend> getReservationTrends() { return reservationTrends; }
+    public void setReservationTrends(List<ReservationTrend> reservationTrends) { this.reservationTrends = reservationTrends; }
+
+    public List<RepairStats> getRepairStats() { return repairStats; }
+    public void setRepairStats(List<RepairStats> repairStats) { this.repairStats = repairStats; }
+
+    public List<UserActivityStats> getUserActivityStats() { return userActivityStats; }
+    public void setUserActivityStats(List<UserActivityStats> userActivityStats) { this.userActivityStats = userActivityStats; }
+
+    public List<String> getMissingParts() { return missingParts; }
+    public void setMissingParts(List<String> missingParts) { this.missingParts = missingParts; }
+
+    public boolean isPartial() {
+        return missingParts != null && !missingParts.isEmpty();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package labSystem.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * CSV 流式写出（RFC 4180）
+ * UTF-8 带 BOM，Excel 直接打开不会出现中文乱码；含逗号、引号、换行的值加引号转义，
+ * 以 = + - @ 开头的文本前加单引号，防止在表格软件中被当作公式执行。
+ * 日期按 yyyy-MM-dd HH:mm:ss 输出，同一天内只计算一次日期部分
+ */
+public class CsvTableWriter implements TableWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final String LINE_END = "\r\n";
+
+    private final Writer out;
+    private final TimeZone timeZone;
+    private final Calendar calendar;
+    private final char[] dateText = "0000-00-00 00:00:00".toCharArray();
+    private long cachedDay = Long.MIN_VALUE;
+
+    private int tables;
+    private boolean firstCell;
+    private long rowCount;
+
+    public CsvTableWriter(OutputStream out) throws IOException {
+        this(out, TimeZone.getDefault());
+    }
+
+    public CsvTableWriter(OutputStream out, TimeZone timeZone) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.timeZone = timeZone;
+        this.calendar = Calendar.getInstance(timeZone);
+        this.out.write('\uFEFF');
+    }
+
+    @Override
+    public void startTable(String name, String... columns) throws IOException {
+        // 第一张表只写表头，便于程序读取；之后的表以空行和表名分隔
+        if (tables++ > 0) {
+            out.write(LINE_END);
+            writeText(name);
+            out.write(LINE_END);
+        }
+        beginRow();
+        for (String column : columns) {
+            writeCell(column);
+        }
+        out.write(LINE_END);
+    }
+
+    @Override
+    public void beginRow() {
+        firstCell = true;
+    }
+
+    @Override
+    public void writeCell(String value) throws IOException {
+        separator();
+        if (value != null) {
+            writeText(value);
+        }
+    }
+
+    @Override
+    public void writeCell(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+    }
+
+    @Override
+    public void writeCell(double value) throws IOException {
+        separator();
+        if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+            out.write(value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value));
+        }
+    }
+
+    @Override
+    public void writeCell(Date value) throws IOException {
+        separator();
+        if (value != null) {
+            formatDateTime(value.getTime());
+            out.write(dateText);
+        }
+    }
+
+    @Override
+    public void writeBlank() throws IOException {
+        separator();
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write(LINE_END);
+        rowCount++;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (firstCell) {
+            firstCell = false;
+        } else {
+            out.write(',');
+        }
+    }
+
+    private void writeText(String value) throws IOException {
+        boolean formula = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote && !formula) {
+            out.write(value);
+            return;
+        }
+        if (quote) out.write('"');
+        if (formula) out.write('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        if (quote) out.write('"');
+    }
+
+    // 填充 dateText；日期部分按天缓存，时分秒直接由偏移量计算
+    private void formatDateTime(long millis) {
+        long local = millis + timeZone.getOffset(millis);
+        long day = Math.floorDiv(local, DAY_MILLIS);
+        if (day != cachedDay) {
+            calendar.setTimeInMillis(millis);
+            putDigits(0, calendar.get(Calendar.YEAR), 4);
+            putDigits(5, calendar.get(Calendar.MONTH) + 1, 2);
+            putDigits(8, calendar.get(Calendar.DAY_OF_MONTH), 2);
+            cachedDay = day;
+        }
+        int seconds = (int) (Math.floorMod(local, DAY_MILLIS) / 1000);
+        putDigits(11, seconds / 3600, 2);
+        putDigits(14, seconds / 60 % 60, 2);
+        putDigits(17, seconds % 60, 2);
+    }
+
+    private void putDigits(int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            dateText[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package labSystem.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 导出文件格式
+ */
+public enum ExportFormat {
+
+    CSV("text/csv; charset=UTF-8", ".csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ".xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * 创建写出器
+     * 写出器关闭时会一并关闭输出流
+     */
+    public TableWriter open(OutputStream out) throws IOException {
+        return this == CSV ? new CsvTableWriter(out) : new XlsxTableWriter(out);
+    }
+
+    public String getContentType() { return contentType; }
+    public String getExtension() { return extension; }
+}
@@ -0,0 +1,25 @@
+package labSystem.export;
+
+/**
+ * 可导出的统计报表
+ * 与 StatisticService 的查询一一对应；月度、年度报告另有专门的导出方法
+ */
+public enum ExportReport {
+    SYSTEM_OVERVIEW,                // 系统概览
+    DEVICE_USAGE,                   // 设备使用统计
+    RESERVATION_TREND,              // 预约趋势（按 request 的 groupBy 分组）
+    REPAIR_STATS,                   // 报修统计
+    USER_ACTIVITY,                  // 用户活跃度
+    TOP_DEVICES,                    // 使用最多的设备
+    TOP_USERS,                      // 最活跃用户
+    DEVICE_IDLE_RATE,               // 单台设备空闲率（需要 deviceId）
+    RESOURCE_UTILIZATION,           // 资源利用率（含逐设备明细）
+    DEVICE_FAILURE_RATE,            // 设备故障率
+    DEVICE_RELIABILITY,             // 设备可靠性（全部设备）
+    USAGE_BY_DEVICE_TYPE,           // 按设备类型的使用占比
+    RESERVATION_TIME_DISTRIBUTION,  // 预约时段分布
+    RESERVATION_HEATMAP,            // 预约热力图（deviceId 可选）
+    DURATION_PERCENTILES,           // 时长分位数（deviceId 可选）
+    DEVICE_COMPARISON,              // 设备性能对比（全部设备）
+    USER_RESERVATION_BEHAVIOR       // 用户预约行为
+}
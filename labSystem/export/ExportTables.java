@@ -0,0 +1,278 @@
+package labSystem.export;
+
+import labSystem.entity.Device;
+import labSystem.entity.Repair;
+import labSystem.entity.Reservation;
+import labSystem.entity.statisticData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 导出表格定义
+ * 每类实体/报表的表头和逐行写出集中在这里，CSV 和 XLSX 共用
+ */
+public final class ExportTables {
+
+    private ExportTables() {
+    }
+
+    // === 明细 ===
+
+    public static void startDevices(TableWriter writer) throws IOException {
+        writer.startTable("设备", "设备ID", "设备编号", "设备名称", "分类", "型号", "品牌", "存放位置", "状态",
+                "购买日期", "价格", "保修期（月）", "管理员", "总使用次数", "总使用时长（小时）", "创建时间");
+    }
+
+    public static void writeDevice(TableWriter writer, Device device) throws IOException {
+        writer.beginRow();
+        writer.writeCell(device.getDeviceId());
+        writer.writeCell(device.getDeviceCode());
+        writer.writeCell(device.getDeviceName());
+        writer.writeCell(device.getCategoryName());
+        writer.writeCell(device.getModel());
+        writer.writeCell(device.getBrand());
+        writer.writeCell(device.getLocation());
+        writer.writeCell(device.getStatus());
+        writer.writeCell(device.getPurchaseDate());
+        writer.writeCell(device.getPrice());
+        writer.writeCell(device.getWarrantyMonths());
+        writer.writeCell(device.getManagerName());
+        writer.writeCell(device.getTotalUsageCount());
+        writer.writeCell(device.getTotalUsageHours());
+        writer.writeCell(device.getCreatedAt());
+        writer.endRow();
+    }
+
+    public static void startReservations(TableWriter writer) throws IOException {
+        writer.startTable("预约记录", "预约ID", "用户名", "姓名", "设备编号", "设备名称", "设备位置", "使用目的",
+                "开始时间", "结束时间", "状态", "实际开始时间", "实际结束时间", "用户备注", "管理员备注", "创建时间");
+    }
+
+    public static void writeReservation(TableWriter writer, Reservation reservation) throws IOException {
+        writer.beginRow();
+        writer.writeCell(reservation.getReservationId());
+        writer.writeCell(reservation.getUserName());
+        writer.writeCell(reservation.getUserRealName());
+        writer.writeCell(reservation.getDeviceCode());
+        writer.writeCell(reservation.getDeviceName());
+        writer.writeCell(reservation.getDeviceLocation());
+        writer.writeCell(reservation.getPurpose());
+        writer.writeCell(reservation.getStartTime());
+        writer.writeCell(reservation.getEndTime());
+        writer.writeCell(reservation.getStatus());
+        writer.writeCell(reservation.getActualStartTime());
+        writer.writeCell(reservation.getActualEndTime());
+        writer.writeCell(reservation.getUserNotes());
+        writer.writeCell(reservation.getAdminNotes());
+        writer.writeCell(reservation.getCreatedAt());
+        writer.endRow();
+    }
+
+    public static void startRepairs(TableWriter writer) throws IOException {
+        writer.startTable("报修记录", "报修ID", "设备编号", "设备名称", "报修人", "报修人姓名", "标题", "问题描述",
+                "严重程度", "状态", "处理人", "维修说明", "报修时间", "解决时间");
+    }
+
+    public static void writeRepair(TableWriter writer, Repair repair) throws IOException {
+        writer.beginRow();
+        writer.writeCell(repair.getRepairId());
+        writer.writeCell(repair.getDeviceCode());
+        writer.writeCell(repair.getDeviceName());
+        writer.writeCell(repair.getUserName());
+        writer.writeCell(repair.getUserRealName());
+        writer.writeCell(repair.getTitle());
+        writer.writeCell(repair.getDescription());
+        writer.writeCell(repair.getSeverity());
+        writer.writeCell(repair.getStatus());
+        writer.writeCell(repair.getResolverName());
+        writer.writeCell(repair.getRepairNotes());
+        writer.writeCell(repair.getCreatedAt());
+        writer.writeCell(repair.getResolvedAt());
+        writer.endRow();
+    }
+
+    // === 统计报表 ===
+
+    public static void writeSystemOverview(TableWriter writer, statisticData.SystemOverview overview) throws IOException {
+        writer.startTable("系统概览", "指标", "数值");
+        if (overview == null) return;
+        writer.writeRow("用户总数", overview.getTotalUsers());
+        writer.writeRow("活跃用户数", overview.getActiveUsers());
+        writer.writeRow("设备总数", overview.getTotalDevices());
+        writer.writeRow("可用设备数", overview.getAvailableDevices());
+        writer.writeRow("今日预约数", overview.getTodayReservations());
+        writer.writeRow("待审批预约数", overview.getPendingReservations());
+        writer.writeRow("未处理报修数", overview.getOpenRepairs());
+        writer.writeRow("近期预约数", overview.getRecentReservations());
+        writer.writeRow("近期报修数", overview.getRecentRepairs());
+        writer.writeRow("设备可用率（%）", overview.getDeviceAvailabilityRate());
+        writer.writeRow("用户活跃率（%）", overview.getUserActivityRate());
+        writer.writeRow("生成时间", overview.getGeneratedAt());
+    }
+
+    public static void writeDeviceUsage(TableWriter writer, String name, List<statisticData.DeviceUsageStats> stats) throws IOException {
+        writer.startTable(name, "设备ID", "设备编号", "设备名称", "分类", "使用人数", "预约次数", "总使用时长（小时）",
+                "平均单次时长（小时）", "使用率（%）", "日均使用（小时）");
+        if (stats == null) return;
+        for (statisticData.DeviceUsageStats s : stats) {
+            writer.writeRow(s.getDeviceId(), s.getDeviceCode(), s.getDeviceName(), s.getCategoryName(), s.getUniqueUsers(),
+                    s.getTotalReservations(), s.getTotalHours(), s.getAvgHoursPerUse(), s.getUsageRate(), s.getUsagePerDay());
+        }
+    }
+
+    public static void writeReservationTrend(TableWriter writer, List<statisticData.ReservationTrend> trends) throws IOException {
+        writer.startTable("预约趋势", "周期", "开始日期", "预约总数", "已批准", "已拒绝", "待审批", "已完成",
+                "批准率（%）", "平均时长（小时）");
+        if (trends == null) return;
+        for (statisticData.ReservationTrend t : trends) {
+            writer.writeRow(t.getPeriod(), t.getStartDate(), t.getTotalReservations(), t.getApprovedCount(), t.getRejectedCount(),
+                    t.getPendingCount(), t.getCompletedCount(), t.getApprovalRate(), t.getAvgDuration());
+        }
+    }
+
+    public static void writeRepairStats(TableWriter writer, List<statisticData.RepairStats> stats) throws IOException {
+        writer.startTable("报修统计", "设备ID", "设备名称", "报修总数", "待处理", "处理中", "已解决", "已关闭",
+                "平均解决时长（小时）", "解决率（%）");
+        if (stats == null) return;
+        for (statisticData.RepairStats s : stats) {
+            writer.writeRow(s.getDeviceId(), s.getDeviceName(), s.getTotalRepairs(), s.getPendingCount(), s.getProcessingCount(),
+                    s.getResolvedCount(), s.getClosedCount(), s.getAvgResolutionTime(), s.getResolutionRate());
+        }
+    }
+
+    public static void writeUserActivity(TableWriter writer, String name, List<statisticData.UserActivityStats> stats) throws IOException {
+        writer.startTable(name, "用户ID", "用户名", "姓名", "角色", "院系", "使用设备数", "预约次数", "报修次数",
+                "最近预约时间", "最近登录时间", "活跃度");
+        if (stats == null) return;
+        for (statisticData.UserActivityStats s : stats) {
+            writer.writeRow(s.getUserId(), s.getUsername(), s.getRealName(), s.getRoleDisplayName(), s.getDepartment(),
+                    s.getDevicesUsed(), s.getTotalReservations(), s.getRepairReports(), s.getLastReservationTime(),
+                    s.getLastLoginTime(), s.getActivityLevel());
+        }
+    }
+
+    public static void writeReliability(TableWriter writer, List<statisticData.DeviceReliability> stats) throws IOException {
+        writer.startTable("设备可靠性", "设备ID", "故障次数", "已修复次数", "使用时长（小时）", "MTBF（小时）", "MTTR（小时）",
+                "每使用小时故障数", "近期故障次数", "近期故障率");
+        if (stats == null) return;
+        for (statisticData.DeviceReliability s : stats) {
+            writer.writeRow(s.getDeviceId(), s.getFailureCount(), s.getResolvedCount(), s.getUsageHours(), s.getMtbfHours(),
+                    s.getMttrHours(), s.getFailuresPerUsageHour(), s.getRecentFailures(), s.getRecentFailureRate());
+        }
+    }
+
+    /** 利用率报告：汇总一行，全部设备时附逐设备明细 */
+    public static void writeUtilization(TableWriter writer, statisticData.UtilizationReport report) throws IOException {
+        writer.startTable("资源利用率", "设备ID", "开始时间", "结束时间", "设备数", "可用时长（小时）", "占用时长（小时）",
+                "空闲时长（小时）", "利用率（%）", "最长空闲（小时）", "最长空闲开始", "峰值同时使用设备数", "峰值时间");
+        if (report == null) return;
+        writeUtilizationRow(writer, report);
+        if (report.getDeviceReports() != null) {
+            for (statisticData.UtilizationReport device : report.getDeviceReports()) {
+                writeUtilizationRow(writer, device);
+            }
+        }
+    }
+
+    private static void writeUtilizationRow(TableWriter writer, statisticData.UtilizationReport r) throws IOException {
+        writer.writeRow(r.getDeviceId(), r.getStartDate(), r.getEndDate(), r.getDeviceCount(), r.getCapacityHours(), r.getBusyHours(),
+                r.getIdleHours(), r.getUtilizationRate() * 100, r.getLongestIdleHours(), r.getLongestIdleStart(),
+                r.getPeakConcurrentDevices(), r.getPeakAt());
+    }
+
+    /** 热力图展开为 星期 x 小时 的长表，便于透视 */
+    public static void writeHeatmap(TableWriter writer, statisticData.ReservationHeatmap heatmap) throws IOException {
+        writer.startTable("预约热力图", "星期", "小时", "占用时长（小时）", "占用率", "预约开始次数");
+        if (heatmap == null) return;
+        double[][] occupied = heatmap.getOccupiedHours();
+        double[][] rate = heatmap.getOccupancyRate();
+        long[][] starts = heatmap.getReservationStarts();
+        for (int day = 0; day < statisticData.ReservationHeatmap.DAY_NAMES.length; day++) {
+            for (int hour = 0; hour < 24; hour++) {
+                writer.beginRow();
+                writer.writeCell(statisticData.ReservationHeatmap.DAY_NAMES[day]);
+                writer.writeCell(hour);
+                writer.writeCell(occupied != null ? occupied[day][hour] : Double.NaN);
+                writer.writeCell(rate != null ? rate[day][hour] : Double.NaN);
+                if (starts != null) writer.writeCell(starts[day][hour]); else writer.writeBlank();
+                writer.endRow();
+            }
+        }
+    }
+
+    public static void writePercentiles(TableWriter writer, List<statisticData.DurationPercentiles> percentiles) throws IOException {
+        writer.startTable("时长分位数", "指标", "设备ID", "分类", "样本数", "平均（小时）", "最小（小时）",
+                "P50（小时）", "P90（小时）", "P99（小时）", "最大（小时）");
+        for (statisticData.DurationPercentiles p : percentiles) {
+            writer.writeRow(p.getMetric(), p.getDeviceId(), p.getCategoryName(), p.getCount(), p.getMeanHours(), p.getMinHours(),
+                    p.getP50Hours(), p.getP90Hours(), p.getP99Hours(), p.getMaxHours());
+        }
+    }
+
+    public static void writePieChart(TableWriter writer, String name, List<statisticData.PieChartData> data) throws IOException {
+        writer.startTable(name, "名称", "数值", "占比（%）");
+        if (data == null) return;
+        for (statisticData.PieChartData d : data) {
+            writer.writeRow(d.getName(), d.getValue(), d.getPercentage());
+        }
+    }
+
+    public static void writeChartPoints(TableWriter writer, String name, List<statisticData.ChartDataPoint> points) throws IOException {
+        writer.startTable(name, "标签", "数值", "类别");
+        if (points == null) return;
+        for (statisticData.ChartDataPoint p : points) {
+            writer.writeRow(p.getLabel(), p.getValue(), p.getCategory());
+        }
+    }
+
+    /** 以 Map 表示的报表（设备对比、用户预约行为）：列为所有行键的并集，按首次出现顺序 */
+    public static void writeMaps(TableWriter writer, String name, List<Map<String, Object>> rows) throws IOException {
+        Set<String> keys = new LinkedHashSet<>();
+        if (rows != null) {
+            for (Map<String, Object> row : rows) {
+                keys.addAll(row.keySet());
+            }
+        }
+        writer.startTable(name, keys.toArray(new String[0]));
+        if (rows == null) return;
+        for (Map<String, Object> row : rows) {
+            writer.beginRow();
+            for (String key : keys) {
+                Object value = row.get(key);
+                writer.writeCell(value instanceof Collection ? String.join(",", toStrings((Collection<?>) value)) : value);
+            }
+            writer.endRow();
+        }
+    }
+
+    /** 月度/年度报告：每个组成部分一张表，缺失部分单独列出 */
+    public static void writePeriodReport(TableWriter writer, statisticData report) throws IOException {
+        if (report.getSystemOverview() != null) {
+            writeSystemOverview(writer, report.getSystemOverview());
+        }
+        writeDeviceUsage(writer, "设备使用", report.getDeviceUsageStats());
+        writeReservationTrend(writer, report.getReservationTrends());
+        writeRepairStats(writer, report.getRepairStats());
+        writeUserActivity(writer, "用户活跃度", report.getUserActivityStats());
+        if (report.isPartial()) {
+            writer.startTable("缺失部分", "名称");
+            for (String part : report.getMissingParts()) {
+                writer.writeRow(part);
+            }
+        }
+    }
+
+    private static List<String> toStrings(Collection<?> values) {
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object value : values) {
+            strings.add(String.valueOf(value));
+        }
+        return strings;
+    }
+}
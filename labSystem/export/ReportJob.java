@@ -0,0 +1,129 @@
+package labSystem.export;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 异步报表任务
+ * 状态、进度由执行线程更新，轮询方随时读取；结果文件在任务完成后保留一段时间
+ */
+public class ReportJob {
+
+    public enum Status {
+        QUEUED("排队中"),
+        RUNNING("生成中"),
+        SUCCEEDED("已完成"),
+        FAILED("失败");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() { return description; }
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED;
+        }
+    }
+
+    private final String jobId;
+    private final String dedupKey;
+    private final String description;
+    private final ExportFormat format;
+    private final Path resultFile;
+    private final Date submittedAt = new Date();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final List<ReportJobListener> listeners = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Date startedAt;
+    private volatile Date finishedAt;
+    private volatile long rowCount;
+    private volatile String errorMessage;
+
+    ReportJob(String jobId, String dedupKey, String description, ExportFormat format, Path resultFile) {
+        this.jobId = jobId;
+        this.dedupKey = dedupKey;
+        this.description = description;
+        this.format = format;
+        this.resultFile = resultFile;
+    }
+
+    // === 由任务队列调用 ===
+
+    void markRunning() {
+        startedAt = new Date();
+        status = Status.RUNNING;
+    }
+
+    void markSucceeded(long rows) {
+        rowCount = rows;
+        finishedAt = new Date();
+        status = Status.SUCCEEDED;
+    }
+
+    void markFailed(String message) {
+        errorMessage = message;
+        finishedAt = new Date();
+        status = Status.FAILED;
+    }
+
+    void addProgress(long bytes) {
+        bytesWritten.addAndGet(bytes);
+    }
+
+    // 与队列的去重表在同一把锁下调用，保证完成后不会再漏加回调
+    void addListener(ReportJobListener listener) {
+        if (listener != null) {
+            synchronized (listeners) {
+                listeners.add(listener);
+            }
+        }
+    }
+
+    List<ReportJobListener> drainListeners() {
+        synchronized (listeners) {
+            List<ReportJobListener> drained = new ArrayList<>(listeners);
+            listeners.clear();
+            return drained;
+        }
+    }
+
+    String getDedupKey() { return dedupKey; }
+    Path getResultFile() { return resultFile; }
+
+    // === 查询 ===
+
+    public String getJobId() { return jobId; }
+    public String getDescription() { return description; }
+    public ExportFormat getFormat() { return format; }
+    public Status getStatus() { return status; }
+    public Date getSubmittedAt() { return submittedAt; }
+    public Date getStartedAt() { return startedAt; }
+    public Date getFinishedAt() { return finishedAt; }
+
+    /** 已写出的字节数，生成过程中持续增长，可作为进度展示 */
+    public long getBytesWritten() { return bytesWritten.get(); }
+
+    /** 导出的行数，任务成功后有效 */
+    public long getRowCount() { return rowCount; }
+
+    /** 失败原因，任务失败后有效 */
+    public String getErrorMessage() { return errorMessage; }
+
+    @Override
+    public String toString() {
+        return "ReportJob{" +
+                "jobId='" + jobId + '\'' +
+                ", description='" + description + '\'' +
+                ", status=" + status +
+                ", bytesWritten=" + getBytesWritten() +
+                ", rowCount=" + rowCount +
+                '}';
+    }
+}
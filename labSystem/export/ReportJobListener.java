@@ -0,0 +1,9 @@
+package labSystem.export;
+
+/**
+ * 报表任务完成回调
+ * 在任务执行线程中调用，应尽快返回；成功和失败都会回调一次
+ */
+public interface ReportJobListener {
+    void onFinished(ReportJob job);
+}
@@ -0,0 +1,300 @@
+package labSystem.export;
+
+import labSystem.config.DBconfig;
+import labSystem.exception.BusinessException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 异步报表任务队列
+ * 耗时报表提交后立即返回任务ID，由有界线程池在后台生成并写入本地文件；
+ * 相同请求在执行中时只生成一次，后来的提交共用同一任务。
+ * 完成的任务（含失败）保留到 TTL 到期，由后台定时清理任务记录和结果文件。
+ * 每个进程写入配置目录下以进程号命名的子目录，多个进程共用同一配置目录时互不干扰
+ */
+public class ReportJobQueue {
+
+    public static final String DIR_KEY = "statistic.job.dir";
+    public static final String THREADS_KEY = "statistic.job.threads";
+    public static final String QUEUE_CAPACITY_KEY = "statistic.job.queue.capacity";
+    public static final String RESULT_TTL_MINUTES_KEY = "statistic.job.result.ttl.minutes";
+
+    private static final String PART_SUFFIX = ".part";
+    // 本类写出的文件：32位十六进制任务ID加后缀，其余文件一律不动
+    private static final Pattern JOB_FILE = Pattern.compile("[0-9a-f]{32}\\.(part|csv|xlsx)");
+    private static final Pattern PROCESS_DIR = Pattern.compile("[0-9]+");
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    /** 报表生成过程，把结果写入 out 并返回行数，返回前应关闭 out */
+    public interface Task {
+        long run(OutputStream out) throws IOException;
+    }
+
+    private final Path directory;
+    private final long resultTtlMillis;
+    private final ThreadPoolExecutor pool;
+    private final ScheduledExecutorService sweeper;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    // 执行中（排队或生成中）的任务，按去重键索引；读写都在自身锁内
+    private final Map<String, ReportJob> inFlight = new HashMap<>();
+
+    /**
+     * @param directory 结果文件根目录，实际写入其下以本进程号命名的子目录；
+     *                  启动时清除已退出进程的子目录中遗留的任务文件
+     * @param threads 同时生成的报表数（每份报表内部还会占用统计执行器和数据库连接）
+     * @param queueCapacity 排队上限，超出时拒绝提交
+     * @param resultTtlMillis 任务完成后结果保留时长
+     */
+    public ReportJobQueue(Path directory, int threads, int queueCapacity, long resultTtlMillis) {
+        this.directory = directory.resolve(String.valueOf(ProcessHandle.current().pid()));
+        this.resultTtlMillis = resultTtlMillis;
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "report-job-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, Math.min(SWEEP_INTERVAL_MILLIS, resultTtlMillis));
+        this.sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+        deleteLeftovers(directory);
+    }
+
+    /** 按配置创建（默认目录 data/report-jobs，2个线程，排队32个，结果保留60分钟） */
+    public static ReportJobQueue fromConfig() {
+        String dir = DBconfig.getProperty(DIR_KEY, "data/report-jobs").trim();
+        int threads = Integer.parseInt(DBconfig.getProperty(THREADS_KEY, "2").trim());
+        int capacity = Integer.parseInt(DBconfig.getProperty(QUEUE_CAPACITY_KEY, "32").trim());
+        int ttlMinutes = Integer.parseInt(DBconfig.getProperty(RESULT_TTL_MINUTES_KEY, "60").trim());
+        return new ReportJobQueue(Paths.get(dir), threads, capacity, TimeUnit.MINUTES.toMillis(ttlMinutes));
+    }
+
+    /**
+     * 提交任务
+     * @param dedupKey 去重键，参数完全相同的请求应得到相同的键
+     * @param description 任务说明
+     * @param format 结果文件格式
+     * @param task 生成过程
+     * @param listener 完成回调，可为空
+     * @return 新建的任务，或执行中的相同任务
+     * @throws BusinessException 排队已满时抛出
+     */
+    public ReportJob submit(String dedupKey, String description, ExportFormat format, Task task, ReportJobListener listener) throws BusinessException {
+        synchronized (inFlight) {
+            ReportJob existing = inFlight.get(dedupKey);
+            if (existing != null) {
+                existing.addListener(listener);
+                return existing;
+            }
+
+            String jobId = UUID.randomUUID().toString().replace("-", "");
+            ReportJob job = new ReportJob(jobId, dedupKey, description, format,
+                    directory.resolve(jobId + format.getExtension()));
+            job.addListener(listener);
+            try {
+                pool.execute(() -> run(job, task));
+            } catch (RejectedExecutionException e) {
+                throw new BusinessException("报表任务过多，请稍后再试！");
+            }
+            inFlight.put(dedupKey, job);
+            jobs.put(jobId, job);
+            return job;
+        }
+    }
+
+    /**
+     * 查询任务
+     * @return 任务不存在或已过期时返回null
+     */
+    public ReportJob get(String jobId) {
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+
+    /**
+     * 打开已完成任务的结果文件
+     * @throws BusinessException 任务不存在、已过期或尚未成功完成时抛出
+     */
+    public InputStream openResult(String jobId) throws BusinessException, IOException {
+        ReportJob job = get(jobId);
+        if (job == null) {
+            throw new BusinessException("报表任务不存在或结果已过期！");
+        }
+        if (job.getStatus() == ReportJob.Status.FAILED) {
+            throw new BusinessException("报表生成失败：" + job.getErrorMessage());
+        }
+        if (job.getStatus() != ReportJob.Status.SUCCEEDED) {
+            throw new BusinessException("报表尚未生成完毕！");
+        }
+        return Files.newInputStream(job.getResultFile());
+    }
+
+    /** 排队中的任务数 */
+    public int getQueuedCount() {
+        return pool.getQueue().size();
+    }
+
+    /** 生成中的任务数 */
+    public int getRunningCount() {
+        return pool.getActiveCount();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+        sweeper.shutdownNow();
+    }
+
+    // === 执行 ===
+
+    private void run(ReportJob job, Task task) {
+        job.markRunning();
+        Path part = directory.resolve(job.getJobId() + PART_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            long rows;
+            try (OutputStream out = new ProgressOutputStream(Files.newOutputStream(part), job)) {
+                rows = task.run(out);
+            }
+            try {
+                Files.move(part, job.getResultFile(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part, job.getResultFile(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            job.markSucceeded(rows);
+        } catch (BusinessException e) {
+            delete(part);
+            job.markFailed(e.getMessage());
+        } catch (Exception e) {
+            delete(part);
+            System.err.println("报表任务失败: " + job.getDescription() + " - " + e.getMessage());
+            job.markFailed("报表生成出错，请稍后重试");
+        }
+        finish(job);
+    }
+
+    private void finish(ReportJob job) {
+        List<ReportJobListener> listeners;
+        synchronized (inFlight) {
+            inFlight.remove(job.getDedupKey(), job);
+            listeners = job.drainListeners();
+        }
+        for (ReportJobListener listener : listeners) {
+            try {
+                listener.onFinished(job);
+            } catch (RuntimeException e) {
+                System.err.println("报表任务回调失败: " + job.getJobId() + " - " + e.getMessage());
+            }
+        }
+    }
+
+    // === 清理 ===
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<ReportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ReportJob job = iterator.next();
+            if (job.getStatus().isFinished() && job.getFinishedAt().getTime() + resultTtlMillis <= now) {
+                iterator.remove();
+                delete(job.getResultFile());
+            }
+        }
+    }
+
+    // 任务记录只在内存中，已退出的进程（含本进程号的上一次运行）留下的任务文件已无法访问；
+    // 只删除符合任务文件命名的文件，目录清空后一并删除
+    private void deleteLeftovers(Path root) {
+        if (!Files.isDirectory(root)) return;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root)) {
+            for (Path dir : dirs) {
+                String name = dir.getFileName().toString();
+                if (!Files.isDirectory(dir) || !PROCESS_DIR.matcher(name).matches()) continue;
+                if (!dir.equals(directory) && isAlive(name)) continue;
+                deleteJobFiles(dir);
+            }
+        } catch (IOException e) {
+            System.err.println("清理报表任务目录失败: " + root + " - " + e.getMessage());
+        }
+    }
+
+    private static boolean isAlive(String pid) {
+        try {
+            return ProcessHandle.of(Long.parseLong(pid)).map(ProcessHandle::isAlive).orElse(false);
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static void deleteJobFiles(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && JOB_FILE.matcher(file.getFileName().toString()).matches()) {
+                    delete(file);
+                }
+            }
+        }
+        try (DirectoryStream<Path> rest = Files.newDirectoryStream(dir)) {
+            if (!rest.iterator().hasNext()) delete(dir);
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("删除报表文件失败: " + path + " - " + e.getMessage());
+        }
+    }
+
+    // 统计写出字节数作为进度
+    private static final class ProgressOutputStream extends FilterOutputStream {
+        private final ReportJob job;
+
+        ProgressOutputStream(OutputStream out, ReportJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.addProgress(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            job.addProgress(len);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package labSystem.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * 表格流式写出接口
+ * 逐行、逐单元格写出，写出器只持有固定大小的缓冲区，行数不影响内存占用。
+ * 用法：startTable 开始一张表（写表头），之后每行 beginRow、若干 writeCell、endRow；
+ * 一个文件可以包含多张表（XLSX 为多个工作表，CSV 以空行和表名分隔）
+ */
+public interface TableWriter extends Closeable {
+
+    /**
+     * 开始一张新表并写出表头
+     * @param name 表名（XLSX 工作表名）
+     * @param columns 列名
+     */
+    void startTable(String name, String... columns) throws IOException;
+
+    void beginRow() throws IOException;
+
+    void writeCell(String value) throws IOException;
+
+    void writeCell(long value) throws IOException;
+
+    void writeCell(double value) throws IOException;
+
+    void writeCell(Date value) throws IOException;
+
+    /** 写出空单元格 */
+    void writeBlank() throws IOException;
+
+    void endRow() throws IOException;
+
+    /** 已写出的数据行数（不含表头） */
+    long getRowCount();
+
+    /** 按值类型分派，null 写为空单元格 */
+    default void writeCell(Object value) throws IOException {
+        if (value == null) {
+            writeBlank();
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeCell(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            writeCell(((Number) value).doubleValue());
+        } else if (value instanceof Date) {
+            writeCell((Date) value);
+        } else {
+            writeCell(value.toString());
+        }
+    }
+
+    /** 写出一整行（报表等小结果集使用，大结果集请逐单元格写出） */
+    default void writeRow(Object... values) throws IOException {
+        beginRow();
+        for (Object value : values) {
+            writeCell(value);
+        }
+        endRow();
+    }
+}
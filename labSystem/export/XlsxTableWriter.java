@@ -0,0 +1,312 @@
+package labSystem.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX 流式写出
+ * 工作表 XML 边生成边压缩写入 zip，文本使用内联字符串而不是共享字符串表，因此不需要在内存中保留任何行；
+ * 工作簿、关系、样式等元数据体积很小，在关闭时最后写入（zip 条目顺序不影响读取）。
+ * 单个工作表超过 Excel 行数上限时自动续写到新工作表并重复表头
+ */
+public class XlsxTableWriter implements TableWriter {
+
+    public static final int MAX_ROWS_PER_SHEET = 1_048_576;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SHEET_NAME = 31;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final double EXCEL_EPOCH_DAYS = 25569;   // 1970-01-01 的 Excel 日期序号
+    private static final int DATE_STYLE = 1;
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final TimeZone timeZone;
+
+    private final List<String> sheetNames = new ArrayList<>();
+    private final Set<String> usedNames = new HashSet<>();
+    private String tableName;
+    private String[] columns;
+    private boolean sheetOpen;
+    private int sheetRow;       // 当前工作表已写行数（含表头）
+    private int column;
+    private long rowCount;
+    private final StringBuilder cellRef = new StringBuilder(16);
+
+    public XlsxTableWriter(OutputStream out) {
+        this(out, TimeZone.getDefault());
+    }
+
+    public XlsxTableWriter(OutputStream out, TimeZone timeZone) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        // 导出以吞吐为主，最快压缩级别即可把 XML 压到原来的十分之一左右
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.timeZone = timeZone;
+    }
+
+    @Override
+    public void startTable(String name, String... columns) throws IOException {
+        this.tableName = name;
+        this.columns = columns.clone();
+        openSheet(name);
+    }
+
+    @Override
+    public void beginRow() throws IOException {
+        if (!sheetOpen) {
+            openSheet("Sheet1");
+        }
+        if (sheetRow == MAX_ROWS_PER_SHEET) {
+            openSheet(tableName + " (" + (sheetNames.size() + 1) + ")");
+        }
+        sheetRow++;
+        column = 0;
+        out.write("<row r=\"");
+        out.write(Integer.toString(sheetRow));
+        out.write("\">");
+    }
+
+    @Override
+    public void writeCell(String value) throws IOException {
+        if (value == null) {
+            column++;
+            return;
+        }
+        startCell(null, "inlineStr");
+        out.write("<is><t xml:space=\"preserve\">");
+        escape(value);
+        out.write("</t></is></c>");
+    }
+
+    @Override
+    public void writeCell(long value) throws IOException {
+        startCell(null, null);
+        out.write("<v>");
+        out.write(Long.toString(value));
+        out.write("</v></c>");
+    }
+
+    @Override
+    public void writeCell(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            column++;
+            return;
+        }
+        startCell(null, null);
+        out.write("<v>");
+        out.write(Double.toString(value));
+        out.write("</v></c>");
+    }
+
+    @Override
+    public void writeCell(Date value) throws IOException {
+        if (value == null) {
+            column++;
+            return;
+        }
+        long millis = value.getTime();
+        double serial = EXCEL_EPOCH_DAYS + (double) (millis + timeZone.getOffset(millis)) / DAY_MILLIS;
+        startCell(DATE_STYLE, null);
+        out.write("<v>");
+        out.write(Double.toString(serial));
+        out.write("</v></c>");
+    }
+
+    @Override
+    public void writeBlank() {
+        column++;
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        out.write("</row>");
+        rowCount++;
+    }
+
+    @Override
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!sheetOpen) {
+            openSheet("Sheet1");
+        }
+        closeSheet();
+        writeEntry("[Content_Types].xml", contentTypes());
+        writeEntry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", workbook());
+        writeEntry("xl/_rels/workbook.xml.rels", workbookRels());
+        writeEntry("xl/styles.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                + "<numFmts count=\"1\"><numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/></numFmts>"
+                + "<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+                + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+                + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+                + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+                + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+                + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>"
+                + "</styleSheet>");
+        out.flush();
+        zip.close();
+    }
+
+    // === 工作表 ===
+
+    private void openSheet(String name) throws IOException {
+        if (sheetOpen) {
+            closeSheet();
+        }
+        sheetNames.add(uniqueSheetName(name));
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetNames.size() + ".xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        sheetOpen = true;
+        sheetRow = 0;
+        if (columns != null) {
+            // 表头不计入数据行数
+            long rows = rowCount;
+            beginRow();
+            for (String header : columns) {
+                writeCell(header);
+            }
+            endRow();
+            rowCount = rows;
+        }
+    }
+
+    private void closeSheet() throws IOException {
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+        sheetOpen = false;
+    }
+
+    private String uniqueSheetName(String name) {
+        StringBuilder clean = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            clean.append("[]:*?/\\".indexOf(c) >= 0 ? '_' : c);
+        }
+        String base = clean.length() == 0 ? "Sheet" : clean.toString();
+        if (base.length() > MAX_SHEET_NAME) base = base.substring(0, MAX_SHEET_NAME);
+        String candidate = base;
+        for (int n = 2; !usedNames.add(candidate.toLowerCase()); n++) {
+            String suffix = "~" + n;
+            candidate = base.substring(0, Math.min(base.length(), MAX_SHEET_NAME - suffix.length())) + suffix;
+        }
+        return candidate;
+    }
+
+    // === 单元格 ===
+
+    private void startCell(Integer style, String type) throws IOException {
+        cellRef.setLength(0);
+        for (int c = column; c >= 0; c = c / 26 - 1) {
+            cellRef.insert(0, (char) ('A' + c % 26));
+        }
+        cellRef.append(sheetRow);
+        column++;
+        out.write("<c r=\"");
+        out.append(cellRef);
+        out.write('"');
+        if (style != null) {
+            out.write(" s=\"");
+            out.write(Integer.toString(style));
+            out.write('"');
+        }
+        if (type != null) {
+            out.write(" t=\"");
+            out.write(type);
+            out.write('"');
+        }
+        out.write('>');
+    }
+
+    // XML 转义；XML 1.0 不允许的控制字符直接丢弃
+    private void escape(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<': out.write("&lt;"); break;
+                case '>': out.write("&gt;"); break;
+                case '&': out.write("&amp;"); break;
+                case '"': out.write("&quot;"); break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        if (c != 0xFFFE && c != 0xFFFF) out.write(c);
+                    }
+            }
+        }
+    }
+
+    // === 元数据 ===
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        out.write(content);
+        out.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetNames.size(); i++) {
+            xml.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return xml.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        for (int i = 0; i < sheetNames.size(); i++) {
+            xml.append("<sheet name=\"").append(escapeAttribute(sheetNames.get(i)))
+                    .append("\" sheetId=\"").append(i + 1).append("\" r:id=\"rId").append(i + 1).append("\"/>");
+        }
+        return xml.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        int i = 1;
+        for (; i <= sheetNames.size(); i++) {
+            xml.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+        }
+        xml.append("<Relationship Id=\"rId").append(i)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>");
+        return xml.append("</Relationships>").toString();
+    }
+
+    private static String escapeAttribute(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -4,6 +4,7 @@ import labSystem.entity.User;
 import labSystem.exception.AuthException;
 import labSystem.exception.BusinessException;
 import labSystem.exception.DAOException;
+import labSystem.session.Permission;
 
 /**
  * 认证服务接口
@@ -30,6 +31,17 @@ public interface AuthService {
      */
     String login(String username, String password);
 
+    /**
+     * 用户登录，并按来源限流
+     * @param username 用户输入的用户名。
+     * @param password 用户输入的明文密码。
+     * @param clientId 客户端标识（如IP地址），为null时只按用户名限流。
+     * @return 登录成功后生成的唯一会话令牌（Token）。
+     * @throws AuthException 如果登录尝试过于频繁或处于锁定期，用户名不存在、密码错误，或者用户账号状态异常。
+     * @throws DAOException  如果在数据库操作过程中发生错误。
+     */
+    String login(String username, String password, String clientId);
+
     /**
      * 用户退出
      * @param token 登录时获取的会话令牌。
@@ -46,11 +58,19 @@ public interface AuthService {
 
     /**
      * 校验用户权限
-     * @param token        会话令牌
-     * @param requiredRole 执行操作所需的角色
-     * @throws AuthException 如果用户未登录，或已登录但角色不满足要求
+     * @param token      会话令牌
+     * @param permission 执行操作所需的权限
+     * @return 当前登录用户
+     * @throws AuthException 如果用户未登录，或已登录但角色没有该权限
      */
-    void checkPermission(String token, String requiredRole);
+    User checkPermission(String token, Permission permission);
+
+    /**
+     * 判断已登录用户是否拥有权限（用于"有权限或本人"之类的组合判断）
+     * @param user       checkLogin 返回的用户
+     * @param permission 权限
+     */
+    boolean hasPermission(User user, Permission permission);
     
     /**
      * 修改用户密码
@@ -62,4 +82,11 @@ public interface AuthService {
      * @throws DAOException    如果在数据库更新密码过程中发生错误
      */
     void changePassword(String token, String oldPassword, String newPassword);
-}
\ No newline at end of file
+
+    /**
+     * 用户信息（状态、角色、资料、密码）变更后调用
+     * 该用户现有会话中缓存的用户信息在下次校验登录时从数据库重新加载，未变更用户的会话不受影响
+     * @param userId 发生变更的用户ID
+     */
+    void invalidateUser(int userId);
+}
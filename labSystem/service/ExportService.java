@@ -0,0 +1,87 @@
+package labSystem.service;
+
+import labSystem.entity.statisticData;
+import labSystem.exception.BusinessException;
+import labSystem.exception.DAOException;
+import labSystem.export.ExportFormat;
+import labSystem.export.ExportReport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 导出服务接口
+ * 明细数据从数据库游标逐行读取后直接写入输出流，不在内存中构建结果列表；
+ * 方法返回时输出流已关闭
+ */
+public interface ExportService {
+
+    /**
+     * 导出设备清单
+     * @param adminToken 管理员的token
+     * @param format 导出格式
+     * @param out 输出流
+     * @return 导出的行数
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     * @throws IOException 写出失败时抛出
+     */
+    long exportDevices(String adminToken, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException;
+
+    /**
+     * 导出预约记录
+     * @param adminToken 管理员的token
+     * @param request 按预约开始时间筛选的时间范围，为null时导出全部
+     * @param format 导出格式
+     * @param out 输出流
+     * @return 导出的行数
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     * @throws IOException 写出失败时抛出
+     */
+    long exportReservations(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException;
+
+    /**
+     * 导出报修记录
+     * @param adminToken 管理员的token
+     * @param request 按报修时间筛选的时间范围，为null时导出全部
+     * @param format 导出格式
+     * @param out 输出流
+     * @return 导出的行数
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     * @throws IOException 写出失败时抛出
+     */
+    long exportRepairs(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException;
+
+    /**
+     * 导出统计报表
+     * @param adminToken 管理员的token
+     * @param report 报表类型
+     * @param deviceId 设备ID（仅空闲率、热力图、时长分位数使用，可为空）
+     * @param request 时间范围等查询条件（系统概览、故障率不需要）
+     * @param format 导出格式
+     * @param out 输出流
+     * @return 导出的行数
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     * @throws IOException 写出失败时抛出
+     */
+    long exportReport(String adminToken, ExportReport report, Integer deviceId, statisticData.TimeRangeRequest request, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException;
+
+    /**
+     * 导出月度报告（每个组成部分一张表）
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     * @throws IOException 写出失败时抛出
+     */
+    long exportMonthlyReport(String adminToken, int year, int month, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException;
+
+    /**
+     * 导出年度报告（每个组成部分一张表）
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     * @throws IOException 写出失败时抛出
+     */
+    long exportYearlyReport(String adminToken, int year, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException;
+}
@@ -0,0 +1,81 @@
+package labSystem.service;
+
+import labSystem.entity.statisticData;
+import labSystem.exception.BusinessException;
+import labSystem.export.ExportFormat;
+import labSystem.export.ExportReport;
+import labSystem.export.ReportJob;
+import labSystem.export.ReportJobListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 异步报表任务服务接口
+ * 年度报告、设备对比、明细导出等耗时操作改为提交任务：立即返回任务ID，
+ * 之后轮询状态或等待完成回调，完成后读取结果文件。参数完全相同的请求在执行中时共用一个任务
+ */
+public interface ReportJobService {
+
+    /**
+     * 提交统计报表导出任务
+     * @param adminToken 管理员的token
+     * @param report 报表类型
+     * @param deviceId 设备ID（仅空闲率、热力图、时长分位数使用，可为空）
+     * @param request 时间范围等查询条件
+     * @param format 导出格式
+     * @param listener 完成回调，可为空
+     * @return 任务ID
+     * @throws BusinessException 业务规则不满足或任务排队已满时抛出
+     */
+    String submitReport(String adminToken, ExportReport report, Integer deviceId, statisticData.TimeRangeRequest request, ExportFormat format, ReportJobListener listener) throws BusinessException;
+
+    /**
+     * 提交月度报告导出任务
+     * @return 任务ID
+     * @throws BusinessException 业务规则不满足或任务排队已满时抛出
+     */
+    String submitMonthlyReport(String adminToken, int year, int month, ExportFormat format, ReportJobListener listener) throws BusinessException;
+
+    /**
+     * 提交年度报告导出任务
+     * @return 任务ID
+     * @throws BusinessException 业务规则不满足或任务排队已满时抛出
+     */
+    String submitYearlyReport(String adminToken, int year, ExportFormat format, ReportJobListener listener) throws BusinessException;
+
+    /**
+     * 提交预约记录导出任务
+     * @param request 按预约开始时间筛选的时间范围，为null时导出全部
+     * @return 任务ID
+     * @throws BusinessException 业务规则不满足或任务排队已满时抛出
+     */
+    String submitReservationExport(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, ReportJobListener listener) throws BusinessException;
+
+    /**
+     * 提交报修记录导出任务
+     * @param request 按报修时间筛选的时间范围，为null时导出全部
+     * @return 任务ID
+     * @throws BusinessException 业务规则不满足或任务排队已满时抛出
+     */
+    String submitRepairExport(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, ReportJobListener listener) throws BusinessException;
+
+    /**
+     * 查询任务状态和进度
+     * @param adminToken 管理员的token
+     * @param jobId 任务ID
+     * @return 任务信息
+     * @throws BusinessException 任务不存在或已过期时抛出
+     */
+    ReportJob getJob(String adminToken, String jobId) throws BusinessException;
+
+    /**
+     * 读取已完成任务的结果文件，调用方负责关闭
+     * @param adminToken 管理员的token
+     * @param jobId 任务ID
+     * @return 结果文件内容
+     * @throws BusinessException 任务不存在、已过期、失败或尚未完成时抛出
+     * @throws IOException 读取失败时抛出
+     */
+    InputStream openResult(String adminToken, String jobId) throws BusinessException, IOException;
+}
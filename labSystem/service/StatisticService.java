@@ -90,30 +90,40 @@ public interface StatisticService {
      * @param adminToken 管理员的token
      * @param deviceId 设备ID（null表示所有设备）
      * @param request 包含时间范围的请求对象
-     * @return 空闲率数据，通常包含总时长、空闲时长和空闲率
+     * @return 利用率报告，包含占用时长（重叠预约已合并）、空闲率、最长空闲段，全部设备时另含峰值并发设备数和逐设备明细
      * @throws BusinessException 业务规则不满足时抛出
      * @throws DAOException 数据访问失败时抛出
      */
-    Map<String, Object> getDeviceIdleRate(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException;
+    statisticData.UtilizationReport getDeviceIdleRate(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException;
 
     /**
      * 获取设备故障率统计
      * @param adminToken 管理员的token
-     * @return 设备故障率列表
+     * @return 设备故障率列表，每台设备一项
      * @throws BusinessException 业务规则不满足时抛出
      * @throws DAOException 数据访问失败时抛出
      */
-    List<statisticData> getDeviceFailureRate(String adminToken) throws BusinessException, DAOException;
+    List<statisticData.RepairStats> getDeviceFailureRate(String adminToken) throws BusinessException, DAOException;
+
+    /**
+     * 获取设备可靠性指标（MTBF、MTTR、每使用小时故障数、近90天故障率）
+     * 数据来自增量维护的可靠性模型，不访问数据库
+     * @param adminToken 管理员的token
+     * @param deviceIds 要查询的设备ID列表
+     * @return 与设备ID一一对应的可靠性数据列表
+     * @throws BusinessException 业务规则不满足或未启用可靠性模型时抛出
+     */
+    List<statisticData.DeviceReliability> getDeviceReliability(String adminToken, List<Integer> deviceIds) throws BusinessException;
 
     /**
      * 获取资源利用率统计
      * @param adminToken 管理员的token
      * @param request 包含时间范围的请求对象
-     * @return 利用率数据，通常包含总容量、已用容量和利用率
+     * @return 利用率报告，包含总容量、已用时长、利用率、峰值并发设备数和逐设备明细
      * @throws BusinessException 业务规则不满足时抛出
      * @throws DAOException 数据访问失败时抛出
      */
-    Map<String, Object> getResourceUtilization(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException;
+    statisticData.UtilizationReport getResourceUtilization(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException;
 
     /**
      * 获取月度报告
@@ -137,7 +147,17 @@ public interface StatisticService {
     statisticData getYearlyReport(String adminToken, int year) throws BusinessException, DAOException;
 
     /**
-     * 清空统计缓存
+     * 回填报表快照
+     * 为起始年份至今所有已结束且尚无快照的月份、年份并行生成报告快照，之后这些报告直接读取快照
+     * @param adminToken 管理员的token
+     * @param fromYear 起始年份
+     * @return 新生成的快照数
+     * @throws BusinessException 参数无效或未配置快照目录时抛出
+     */
+    int backfillReportSnapshots(String adminToken, int fromYear) throws BusinessException;
+
+    /**
+     * 清空统计缓存（内存聚合和已保存的报表快照）
      * @param adminToken 管理员的token
      * @return 影响的行数
      * @throws BusinessException 业务规则不满足时抛出
@@ -147,10 +167,19 @@ public interface StatisticService {
 
     /**
      * 更新统计缓存（定时任务调用）
+     * 统计聚合由业务事件增量维护，此方法只在检测到偏差时才全量重建
      * @throws DAOException 数据访问失败时抛出
      */
     void updateStatisticsCache() throws DAOException;
 
+    /**
+     * 立即全量重建统计缓存
+     * @param adminToken 管理员的token
+     * @throws BusinessException 业务规则不满足时抛出
+     * @throws DAOException 数据访问失败时抛出
+     */
+    void rebuildStatisticsCache(String adminToken) throws BusinessException, DAOException;
+
     /**
      * 按设备类型统计使用情况
      * 此方法用于分析不同类型设备的使用分布，非常适合生成饼图或柱状图
@@ -175,6 +204,31 @@ public interface StatisticService {
      */
     List<statisticData.ChartDataPoint> getReservationTimeDistribution(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException;
 
+    /**
+     * 获取预约占用热力图（周几 x 小时）
+     * 统计查询范围内每个周几、每个小时的设备占用时长、占用率和预约开始次数，
+     * 跨越整点的预约按实际占用分摊到各小时，用于安排值班和开放时间
+     * @param adminToken 管理员的token
+     * @param deviceId 设备ID，为空时按 request 中的设备类型汇总，类型也为空则汇总全部设备
+     * @param request 包含时间范围和可选设备类型的请求对象
+     * @return 热力图数据 {@link statisticData.ReservationHeatmap}
+     * @throws BusinessException 业务规则不满足或预约明细统计未加载时抛出
+     * @throws DAOException 数据访问失败时抛出
+     */
+    statisticData.ReservationHeatmap getReservationHeatmap(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException;
+
+    /**
+     * 获取时长分位数
+     * 用于容量规划：平均值会被少数超长预约拉高，P50/P90/P99 更能反映实际占用和排队情况
+     * @param adminToken 管理员的token
+     * @param metric 指标：duration（预约使用时长）、overrun（超时时长，提前结束为负）、repair（报修解决时长）
+     * @param deviceId 设备ID，为空时按 request 中的设备类型汇总，类型也为空则汇总全部设备
+     * @param request 包含时间范围和可选设备类型的请求对象
+     * @return 分位数统计 {@link statisticData.DurationPercentiles}
+     * @throws BusinessException 参数无效或分位数统计未加载时抛出
+     */
+    statisticData.DurationPercentiles getDurationPercentiles(String adminToken, String metric, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException;
+
     /**
      * 对比多个设备的性能指标
      * 此方法用于横向比较指定设备列表的关键性能指标，如使用率和故障率
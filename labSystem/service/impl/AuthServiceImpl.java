@@ -5,24 +5,110 @@
     import labSystem.exception.AuthException;
     import labSystem.exception.BusinessException;
     import labSystem.service.AuthService;
-    import labSystem.util.MD5Util;
+    import labSystem.session.LastLoginWriteBehind;
+    import labSystem.session.LoginThrottle;
+    import labSystem.session.PasswordHasher;
+    import labSystem.session.Permission;
+    import labSystem.session.RolePermissions;
+    import labSystem.session.SessionStore;
+    import labSystem.session.SharedSessionStore;
+    import labSystem.session.TokenRevocationList;
+    import labSystem.session.TokenSigner;
+    import labSystem.session.UserVersionTable;
+    import labSystem.statistic.StatisticEvent;
+    import labSystem.statistic.StatisticEventBus;
     import labSystem.util.ValidationUtil;
 
     import java.util.Date;
-    import java.util.Map;
 
     //生成唯一token
     import java.util.UUID;
 
-    import java.util.concurrent.ConcurrentHashMap;
-
     public class AuthServiceImpl implements AuthService {
 
-        private static final Map<String, User> SESSION_STORE = new ConcurrentHashMap<>();
-        private final UserDao userDao;
+        //会话存储（session.store 选择本进程或同机共享；空闲/绝对超时、容量上限见配置）
+        private static final SessionStore SESSION_STORE = SessionStore.fromConfig();
+        //配置启用签名令牌时的签名器，未启用时为null
+        private static final TokenSigner TOKEN_SIGNER = TokenSigner.fromConfig();
+        //使用共享存储时吊销记录也写入共享文件
+        private static final TokenRevocationList REVOKED_TOKENS = SESSION_STORE instanceof SharedSessionStore
+                ? new TokenRevocationList((SharedSessionStore) SESSION_STORE) : new TokenRevocationList();
+        //用户版本号，与会话存储同在本进程或共享文件中
+        private static final UserVersionTable USER_VERSIONS = SESSION_STORE instanceof SharedSessionStore
+                ? new UserVersionTable((SharedSessionStore) SESSION_STORE) : new UserVersionTable();
+
+        //角色权限表，修改配置后调用 getRolePermissions().reload() 生效
+        private static final RolePermissions ROLE_PERMISSIONS = RolePermissions.fromConfig();
+        //登录限流（按用户名和来源），进程内共享
+        private static final LoginThrottle LOGIN_THROTTLE = LoginThrottle.fromConfig();
 
+        private final UserDao userDao;
+        private final SessionStore sessionStore;
+        private final TokenSigner tokenSigner;
+        private final TokenRevocationList revokedTokens;
+        private final UserVersionTable userVersions;
+        private final RolePermissions rolePermissions;
+        private final LoginThrottle loginThrottle;
+        private final LastLoginWriteBehind lastLoginWriter;
+        private final PasswordHasher passwordHasher;
+        private final StatisticEventBus eventBus;
+
+        //按配置选择会话模式：session.token.mode=signed 时使用签名令牌，否则使用本地会话
         public AuthServiceImpl(UserDao userDao) {
+            this(userDao, (StatisticEventBus) null);
+        }
+
+        //同上，注册新用户时向统计事件总线发布用户变化事件
+        public AuthServiceImpl(UserDao userDao, StatisticEventBus eventBus) {
+            this(userDao, SESSION_STORE, TOKEN_SIGNER, REVOKED_TOKENS, USER_VERSIONS, ROLE_PERMISSIONS, LOGIN_THROTTLE,
+                    LastLoginWriteBehind.shared(userDao), PasswordHasher.shared(), eventBus);
+        }
+
+        //会话表模式（本地或共享存储）
+        public AuthServiceImpl(UserDao userDao, SessionStore sessionStore, UserVersionTable userVersions) {
+            this(userDao, sessionStore, null, null, userVersions, ROLE_PERMISSIONS, LOGIN_THROTTLE,
+                    LastLoginWriteBehind.shared(userDao), PasswordHasher.shared(), null);
+        }
+
+        //签名令牌模式：令牌自带用户身份，任何节点都可校验
+        public AuthServiceImpl(UserDao userDao, TokenSigner tokenSigner, TokenRevocationList revokedTokens) {
+            this(userDao, null, tokenSigner, revokedTokens, null, ROLE_PERMISSIONS, LOGIN_THROTTLE,
+                    LastLoginWriteBehind.shared(userDao), PasswordHasher.shared(), null);
+        }
+
+        private AuthServiceImpl(UserDao userDao, SessionStore sessionStore, TokenSigner tokenSigner,
+                                TokenRevocationList revokedTokens, UserVersionTable userVersions,
+                                RolePermissions rolePermissions, LoginThrottle loginThrottle,
+                                LastLoginWriteBehind lastLoginWriter, PasswordHasher passwordHasher,
+                                StatisticEventBus eventBus) {
             this.userDao = userDao;
+            this.sessionStore = sessionStore;
+            this.tokenSigner = tokenSigner;
+            this.revokedTokens = revokedTokens;
+            this.userVersions = userVersions;
+            this.rolePermissions = rolePermissions;
+            this.loginThrottle = loginThrottle;
+            this.lastLoginWriter = lastLoginWriter;
+            this.passwordHasher = passwordHasher;
+            this.eventBus = eventBus;
+        }
+
+        //最后登录时间的延迟写入（可供 UserServiceImpl 共用）
+        public LastLoginWriteBehind getLastLoginWriter() {
+            return lastLoginWriter;
+        }
+
+        public LoginThrottle getLoginThrottle() {
+            return loginThrottle;
+        }
+
+        public RolePermissions getRolePermissions() {
+            return rolePermissions;
+        }
+
+        //会话数、淘汰和过期计数（签名令牌模式下为null）
+        public SessionStore getSessionStore() {
+            return sessionStore;
         }
 
         //注册（面向非管理，初始为学生）
@@ -51,7 +137,7 @@
             }
 
             //准备用户数据
-            user.setPassword(MD5Util.encrypt(user.getPassword()));
+            user.setPassword(passwordHasher.hash(user.getPassword()));
             // 如果角色未提供或无效，则设置默认角色
             if (!ValidationUtil.isValidUserRole(user.getUserRole())) {
                 user.setUserRole("student");
@@ -68,6 +154,10 @@
                 throw new BusinessException("注册失败，数据库插入失败！");
             }
             user.setUserId(newUserId);
+            //统计结果缓存中依赖用户表的结果随之失效
+            if (eventBus != null) {
+                eventBus.publish(StatisticEvent.userChanged(newUserId, user.getUserRole()));
+            }
 
             return user;
         }
@@ -75,30 +165,67 @@
         //登录，返回token
         @Override
         public String login(String username, String password){
+            return login(username, password, null);
+        }
+
+        //登录（按用户名和来源限流），返回token
+        @Override
+        public String login(String username, String password, String clientId){
             //使用 ValidationUtil 进行参数校验
             if (ValidationUtil.isEmpty(username) || ValidationUtil.isEmpty(password)) {
                 throw new AuthException("用户名和密码不能为空！");
             }
 
-            //登录验证（查找对应用户）
-            User user = userDao.login(username, MD5Util.encrypt(password));
+            //限流在查库之前：过于频繁或处于锁定期的尝试直接拒绝
+            loginThrottle.acquire(username, clientId);
+
+            //签名令牌的签发时间取查库之前：查库后才生效的用户级吊销同样作废这枚令牌
+            long readAt = System.currentTimeMillis();
+
+            //登录验证：摘要带盐，不能再交给数据库比较，按用户名查出后在专用线程池中校验
+            //用户名不存在时同样做一次校验，响应时间不泄露用户名是否存在
+            User user = userDao.findByUsername(username);
+            String storedHash = user != null ? user.getPassword() : null;
 
             //处理登录结果
-            if (user == null) {
+            if (!passwordHasher.verify(password, storedHash)) {
+                loginThrottle.recordFailure(username, clientId);
                 throw new AuthException("用户名或密码错误！");
             }
+            loginThrottle.recordSuccess(username);
+
+            //旧MD5摘要或迭代次数过低的摘要在后台改写，登录不等待；只在摘要未被修改时写入，不覆盖期间修改的密码
+            if (passwordHasher.needsRehash(storedHash)) {
+                int userId = user.getUserId();
+                passwordHasher.rehashAsync(password, newHash -> userDao.updatePasswordIfMatches(userId, storedHash, newHash));
+            }
+
+            //会话表模式：先取版本号再按ID重新读取用户（与统计结果缓存先取版本再查询同理），
+            //按用户名查出之后发生的修改要么已读到，要么使版本号前进，会话在下次校验时重新加载
+            long version = 0L;
+            if (tokenSigner == null) {
+                version = userVersions.current(user.getUserId());
+                user = userDao.findById(user.getUserId());
+                if (user == null) {
+                    throw new AuthException("用户名或密码错误！");
+                }
+            }
 
             //登录时检查状态
             if (!"active".equals(user.getStatus())) {
                 throw new AuthException("账号状态异常：" + user.getStatusDisplayName());
             }
 
-            //更新用户最后登录时间
-            userDao.updateLastLogin(user.getUserId());
+            //记下最后登录时间，由后台批量写入，登录不等待写库
+            lastLoginWriter.record(user.getUserId(), System.currentTimeMillis());
 
             //生成并返回Token
+            if (tokenSigner != null) {
+                return tokenSigner.sign(user.getUserId(), user.getUserRole(), user.getUsername(), readAt);
+            }
+            //记录读取用户之前的版本号，之后对该用户的修改会使会话在校验时重新加载
             String token = UUID.randomUUID().toString();
-            SESSION_STORE.put(token, user);
+            sessionStore.put(token, user, version);
             return token;
         }
 
@@ -121,54 +248,133 @@
                 throw new BusinessException("新密码不能与旧密码相同！");
             }
 
-            //验证旧密码是否正确（用户输入旧密码加密后的和数据库中加密过的相比较）
+            //验证旧密码是否正确（兼容旧的MD5摘要）
             User dbUser = userDao.findById(currentUser.getUserId());
-            if (dbUser == null || !MD5Util.verify(oldPassword, dbUser.getPassword())) {
+            if (dbUser == null || !passwordHasher.verify(oldPassword, dbUser.getPassword())) {
                 throw new AuthException("旧密码错误！");
             }
 
             //调用DAO层更新密码
-            int rows = userDao.changePassword(currentUser.getUserId(), MD5Util.encrypt(newPassword));
+            int rows = userDao.changePassword(currentUser.getUserId(), passwordHasher.hash(newPassword));
             if (rows <= 0) {
                 throw new BusinessException("密码修改失败！");
             }
 
-            //修改成功后强制登出
+            //修改成功后强制登出，该用户的其他会话重新加载（签名令牌模式下其他令牌一并作废）
             logout(token);
+            invalidateUser(currentUser.getUserId());
         }
 
         //登出
         @Override
         public void logout(String token) {
 
-            if (token == null || !SESSION_STORE.containsKey(token)) {
-                throw new AuthException("Token无效，登出失败！");
+            //签名令牌无法收回，记入吊销表直到其过期
+            if (tokenSigner != null) {
+                TokenSigner.Claims claims = verifySigned(token);
+                if (claims == null) {
+                    throw new AuthException("Token无效，登出失败！");
+                }
+                revokedTokens.revoke(claims.getTokenId(), claims.getExpiresAt());
+                return;
             }
 
-            //销毁token
-            SESSION_STORE.remove(token);
+            //销毁token（已过期的token同样视为无效）
+            if (!sessionStore.remove(token)) {
+                throw new AuthException("Token无效，登出失败！");
+            }
         }
 
         //验证是否已经登录
         @Override
         public User checkLogin(String token) {
 
-            //根据token查找用户
-            User user = SESSION_STORE.get(token);
+            //签名令牌：只校验签名、有效期和吊销表，不访问会话表和数据库
+            if (tokenSigner != null) {
+                TokenSigner.Claims claims = verifySigned(token);
+                if (claims == null) {
+                    throw new AuthException("登录已失效，请重新登录！");
+                }
+                return toUser(claims);
+            }
+
+            //根据token查找用户，同时顺延空闲超时
+            SessionStore.Entry session = sessionStore.get(token);
 
+            if (session == null) {
+                throw new AuthException("登录已失效，请重新登录！");
+            }
+
+            //用户信息登录后被修改过才查库重新加载
+            User user = session.getUser();
+            long version = userVersions.current(user.getUserId());
+            if (version != session.getUserVersion()) {
+                return reloadUser(token, user.getUserId(), version);
+            }
+            return user;
+        }
+
+        //会话中的用户信息已过时：重新查库，用户已删除或被停用时结束会话
+        private User reloadUser(String token, int userId, long version) {
+            User user = userDao.findById(userId);
             if (user == null) {
+                sessionStore.remove(token);
                 throw new AuthException("登录已失效，请重新登录！");
             }
+            if (!"active".equals(user.getStatus())) {
+                sessionStore.remove(token);
+                throw new AuthException("账号状态异常：" + user.getStatusDisplayName());
+            }
+            sessionStore.refresh(token, user, version);
+            return user;
+        }
+
+        //用户信息变更：会话表模式只递增版本号，各会话在下次校验时自行重新加载；
+        //签名令牌无法重新加载，此前签发给该用户的令牌全部作废，需重新登录
+        @Override
+        public void invalidateUser(int userId) {
+            if (userVersions != null) {
+                userVersions.bump(userId);
+            }
+            if (tokenSigner != null) {
+                long now = System.currentTimeMillis();
+                revokedTokens.revokeUserBefore(userId, now, now + tokenSigner.getTtlMillis());
+            }
+        }
 
+        //校验签名令牌，已吊销的（含用户级吊销之前签发的）视为无效
+        private TokenSigner.Claims verifySigned(String token) {
+            TokenSigner.Claims claims = tokenSigner.verify(token);
+            if (claims == null || revokedTokens.isRevoked(claims.getTokenId())
+                    || claims.getIssuedAt() < revokedTokens.notBefore(claims.getUserId())) {
+                return null;
+            }
+            return claims;
+        }
+
+        //签名令牌只携带身份信息，其余字段需要时由调用方查库；
+        //用户被停用或角色变更时令牌已被用户级吊销，能通过校验的令牌签发后用户未变更过
+        private static User toUser(TokenSigner.Claims claims) {
+            User user = new User();
+            user.setUserId(claims.getUserId());
+            user.setUsername(claims.getUsername());
+            user.setUserRole(claims.getUserRole());
+            user.setStatus("active");
             return user;
         }
 
-        //权限校验
+        //权限校验：按角色查预先算好的权限位集
         @Override
-        public void checkPermission(String token, String requiredRole) {
+        public User checkPermission(String token, Permission permission) {
             User user = checkLogin(token);
-            if (!requiredRole.equals(user.getUserRole())) {
+            if (!rolePermissions.has(user.getUserRole(), permission)) {
                 throw new AuthException("权限不足，无法执行此操作！");
             }
+            return user;
+        }
+
+        @Override
+        public boolean hasPermission(User user, Permission permission) {
+            return user != null && rolePermissions.has(user.getUserRole(), permission);
         }
     }
\ No newline at end of file
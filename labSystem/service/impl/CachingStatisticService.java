@@ -0,0 +1,281 @@
+package labSystem.service.impl;
+
+import labSystem.entity.statisticData;
+import labSystem.exception.BusinessException;
+import labSystem.exception.DAOException;
+import labSystem.service.AuthService;
+import labSystem.service.StatisticService;
+import labSystem.session.Permission;
+import labSystem.statistic.StatisticEngine;
+import labSystem.statistic.StatisticResultCache;
+import labSystem.statistic.StatisticResultCache.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 带结果缓存的统计服务
+ * 包装 StatisticServiceImpl：以请求的原始时间范围和过滤条件作为缓存键，范围完全相同的重复请求共用一份结果。
+ * 权限和时间范围每次都检查，缓存命中也不例外。
+ * 返回的结果在多个调用方之间共享：列表和映射为只读视图，需要排序或修改时先复制；其中的实体对象调用方不应修改
+ */
+public class CachingStatisticService implements StatisticService {
+
+    private static final EnumSet<Table> ALL_TABLES = EnumSet.allOf(Table.class);
+    private static final EnumSet<Table> RESERVATIONS = EnumSet.of(Table.RESERVATION);
+    private static final EnumSet<Table> RESERVATIONS_DEVICES = EnumSet.of(Table.RESERVATION, Table.DEVICE);
+    private static final EnumSet<Table> RESERVATIONS_USERS = EnumSet.of(Table.RESERVATION, Table.USER);
+    private static final EnumSet<Table> REPAIRS_DEVICES = EnumSet.of(Table.REPAIR, Table.DEVICE);
+    private static final EnumSet<Table> RESERVATIONS_REPAIRS_DEVICES = EnumSet.of(Table.RESERVATION, Table.REPAIR, Table.DEVICE);
+    private static final EnumSet<Table> RESERVATIONS_REPAIRS_USERS = EnumSet.of(Table.RESERVATION, Table.REPAIR, Table.USER);
+
+    private final StatisticService delegate;
+    private final AuthService authService;
+    private final StatisticResultCache cache;
+
+    /** 使用统计引擎自带的结果缓存，该缓存已注册到引擎的事件总线 */
+    public CachingStatisticService(StatisticService delegate, AuthService authService, StatisticEngine engine) {
+        this(delegate, authService, engine.getResultCache());
+    }
+
+    public CachingStatisticService(StatisticService delegate, AuthService authService, StatisticResultCache cache) {
+        this.delegate = delegate;
+        this.authService = authService;
+        this.cache = cache;
+    }
+
+    /** 各方法命中率等缓存指标 */
+    public List<StatisticResultCache.MethodStats> getCacheStats(String adminToken) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        return cache.getStats();
+    }
+
+    @Override
+    public statisticData.SystemOverview getSystemOverview(String adminToken) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        return cache.get("getSystemOverview", null, ALL_TABLES, Collections.emptyList(),
+                () -> delegate.getSystemOverview(adminToken));
+    }
+
+    @Override
+    public List<statisticData.DeviceUsageStats> getDeviceUsageStats(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getDeviceUsageStats", adminToken, request, RESERVATIONS_DEVICES, Collections.emptyList(),
+                exact -> delegate.getDeviceUsageStats(adminToken, exact));
+    }
+
+    @Override
+    public List<statisticData.ReservationTrend> getReservationTrend(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getReservationTrend", adminToken, request, RESERVATIONS, Collections.emptyList(),
+                exact -> delegate.getReservationTrend(adminToken, exact));
+    }
+
+    @Override
+    public List<statisticData.RepairStats> getRepairStats(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getRepairStats", adminToken, request, REPAIRS_DEVICES, Collections.emptyList(),
+                exact -> delegate.getRepairStats(adminToken, exact));
+    }
+
+    @Override
+    public List<statisticData.UserActivityStats> getUserActivityStats(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getUserActivityStats", adminToken, request, RESERVATIONS_REPAIRS_USERS, Collections.emptyList(),
+                exact -> delegate.getUserActivityStats(adminToken, exact));
+    }
+
+    @Override
+    public List<statisticData.DeviceUsageStats> getTopUsedDevices(String adminToken, int topN, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getTopUsedDevices", adminToken, request, RESERVATIONS_DEVICES, Collections.singletonList(topN),
+                exact -> delegate.getTopUsedDevices(adminToken, topN, exact));
+    }
+
+    @Override
+    public List<statisticData.UserActivityStats> getTopActiveUsers(String adminToken, int topN, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getTopActiveUsers", adminToken, request, RESERVATIONS_USERS, Collections.singletonList(topN),
+                exact -> delegate.getTopActiveUsers(adminToken, topN, exact));
+    }
+
+    @Override
+    public statisticData.UtilizationReport getDeviceIdleRate(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getDeviceIdleRate", adminToken, request, RESERVATIONS_DEVICES, Collections.singletonList(deviceId),
+                exact -> delegate.getDeviceIdleRate(adminToken, deviceId, exact));
+    }
+
+    @Override
+    public List<statisticData.RepairStats> getDeviceFailureRate(String adminToken) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        return cache.get("getDeviceFailureRate", null, REPAIRS_DEVICES, Collections.emptyList(),
+                readOnly(() -> delegate.getDeviceFailureRate(adminToken)));
+    }
+
+    @Override
+    public List<statisticData.DeviceReliability> getDeviceReliability(String adminToken, List<Integer> deviceIds) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        if (deviceIds == null) {
+            return delegate.getDeviceReliability(adminToken, null);
+        }
+        List<Integer> ids = new ArrayList<>(deviceIds);
+        return cache.get("getDeviceReliability", null, REPAIRS_DEVICES, ids,
+                readOnly(() -> delegate.getDeviceReliability(adminToken, ids)));
+    }
+
+    @Override
+    public statisticData.UtilizationReport getResourceUtilization(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getResourceUtilization", adminToken, request, RESERVATIONS_DEVICES, Collections.emptyList(),
+                exact -> delegate.getResourceUtilization(adminToken, exact));
+    }
+
+    @Override
+    public statisticData getMonthlyReport(String adminToken, int year, int month) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month, 1);
+        return cache.get("getMonthlyReport", cal.getTime(), ALL_TABLES, Arrays.asList(year, month),
+                () -> delegate.getMonthlyReport(adminToken, year, month));
+    }
+
+    @Override
+    public statisticData getYearlyReport(String adminToken, int year) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year + 1, Calendar.JANUARY, 1);
+        return cache.get("getYearlyReport", cal.getTime(), ALL_TABLES, Collections.singletonList(year),
+                () -> delegate.getYearlyReport(adminToken, year));
+    }
+
+    @Override
+    public int backfillReportSnapshots(String adminToken, int fromYear) throws BusinessException {
+        return delegate.backfillReportSnapshots(adminToken, fromYear);
+    }
+
+    @Override
+    public int clearStatisticsCache(String adminToken) throws BusinessException, DAOException {
+        int affected = delegate.clearStatisticsCache(adminToken);
+        cache.clear();
+        return affected;
+    }
+
+    @Override
+    public void updateStatisticsCache() throws DAOException {
+        delegate.updateStatisticsCache();
+    }
+
+    @Override
+    public void rebuildStatisticsCache(String adminToken) throws BusinessException, DAOException {
+        delegate.rebuildStatisticsCache(adminToken);
+        cache.clear();
+    }
+
+    @Override
+    public List<statisticData.PieChartData> getUsageByDeviceType(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getUsageByDeviceType", adminToken, request, RESERVATIONS_DEVICES, Collections.emptyList(),
+                exact -> delegate.getUsageByDeviceType(adminToken, exact));
+    }
+
+    @Override
+    public List<statisticData.ChartDataPoint> getReservationTimeDistribution(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getReservationTimeDistribution", adminToken, request, RESERVATIONS_DEVICES, Collections.emptyList(),
+                exact -> delegate.getReservationTimeDistribution(adminToken, exact));
+    }
+
+    @Override
+    public statisticData.ReservationHeatmap getReservationHeatmap(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getReservationHeatmap", adminToken, request, RESERVATIONS_DEVICES, Collections.singletonList(deviceId),
+                exact -> delegate.getReservationHeatmap(adminToken, deviceId, exact));
+    }
+
+    @Override
+    public statisticData.DurationPercentiles getDurationPercentiles(String adminToken, String metric, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException {
+        return cached("getDurationPercentiles", adminToken, request, RESERVATIONS_REPAIRS_DEVICES, Arrays.asList(metric, deviceId),
+                exact -> delegate.getDurationPercentiles(adminToken, metric, deviceId, exact));
+    }
+
+    @Override
+    public List<Map<String, Object>> compareDevicesPerformance(String adminToken, List<Integer> deviceIds, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        if (deviceIds == null) {
+            return delegate.compareDevicesPerformance(adminToken, null, request);
+        }
+        List<Integer> ids = new ArrayList<>(deviceIds);
+        return cached("compareDevicesPerformance", adminToken, request, RESERVATIONS_REPAIRS_DEVICES, ids,
+                exact -> delegate.compareDevicesPerformance(adminToken, ids, exact));
+    }
+
+    @Override
+    public List<Map<String, Object>> getUserReservationBehavior(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        return cached("getUserReservationBehavior", adminToken, request, RESERVATIONS_USERS, Collections.emptyList(),
+                exact -> delegate.getUserReservationBehavior(adminToken, exact));
+    }
+
+    // === 辅助方法 ===
+
+    private interface RangeQuery<T> {
+        T query(statisticData.TimeRangeRequest request);
+    }
+
+    /**
+     * 按原始时间范围缓存
+     * 时间范围不完整或跨度超过一年时不走缓存，交给被包装的服务校验（一年限制取决于其聚合是否就绪）
+     */
+    private <T> T cached(String method, String adminToken, statisticData.TimeRangeRequest request, EnumSet<Table> tables,
+                         List<?> extraKey, RangeQuery<T> query) {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        if (request == null || request.getStartDate() == null || request.getEndDate() == null || exceedsOneYear(request)) {
+            return query.query(request);
+        }
+        if (request.getStartDate().after(request.getEndDate())) {
+            throw new BusinessException("开始时间不能晚于结束时间！");
+        }
+        statisticData.TimeRangeRequest exact = copy(request);
+        List<Object> key = new ArrayList<>(extraKey.size() + 5);
+        key.add(exact.getStartDate().getTime());
+        key.add(exact.getEndDate().getTime());
+        key.add(exact.getGroupBy());
+        key.add(exact.getDeviceType());
+        key.add(exact.getUserRole());
+        key.addAll(extraKey);
+        return cache.get(method, exact.getEndDate(), tables, key, readOnly(() -> query.query(exact)));
+    }
+
+    // 结果放入缓存前转为只读：列表和映射包装为只读视图，列表中的映射同样只读
+    private static <T> Supplier<T> readOnly(Supplier<T> loader) {
+        return () -> freeze(loader.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof List) {
+            List<Object> items = new ArrayList<>((List<?>) value);
+            items.replaceAll(item -> item instanceof Map ? Collections.unmodifiableMap((Map<?, ?>) item) : item);
+            return (T) Collections.unmodifiableList(items);
+        }
+        if (value instanceof Map) {
+            return (T) Collections.unmodifiableMap((Map<?, ?>) value);
+        }
+        return value;
+    }
+
+    private static boolean exceedsOneYear(statisticData.TimeRangeRequest request) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(request.getStartDate());
+        cal.add(Calendar.YEAR, 1);
+        return request.getEndDate().after(cal.getTime());
+    }
+
+    // 复制请求，避免调用方在查询期间修改
+    private static statisticData.TimeRangeRequest copy(statisticData.TimeRangeRequest request) {
+        statisticData.TimeRangeRequest copy = new statisticData.TimeRangeRequest();
+        copy.setStartDate(new Date(request.getStartDate().getTime()));
+        copy.setEndDate(new Date(request.getEndDate().getTime()));
+        copy.setGroupBy(request.getGroupBy());
+        copy.setDeviceType(request.getDeviceType());
+        copy.setUserRole(request.getUserRole());
+        return copy;
+    }
+}
@@ -7,6 +7,9 @@ import labSystem.exception.BusinessException;
 
 import labSystem.service.AuthService;
 import labSystem.service.DeviceService;
+import labSystem.session.Permission;
+import labSystem.statistic.StatisticEvent;
+import labSystem.statistic.StatisticEventBus;
 import labSystem.util.ValidationUtil;
 
 import java.util.Date;
@@ -20,10 +23,34 @@ public class DeviceServiceImpl implements DeviceService {
 
     private final DeviceDao deviceDao;
     private final AuthService authService;
+    private final StatisticEventBus eventBus;
 
     public DeviceServiceImpl(DeviceDao deviceDao, AuthService authService) {
+        this(deviceDao, authService, null);
+    }
+
+    public DeviceServiceImpl(DeviceDao deviceDao, AuthService authService, StatisticEventBus eventBus) {
         this.deviceDao = deviceDao;
         this.authService = authService;
+        this.eventBus = eventBus;
+    }
+
+    // 辅助方法：发布设备状态变化事件
+    private void publishStatusChange(Device device, String oldStatus) {
+        if (eventBus != null) {
+            eventBus.publish(StatisticEvent.deviceStatusChanged(device, oldStatus));
+        }
+    }
+
+    // 辅助方法：设备资料（名称、分类等）变化后重新读取并发布状态未变的事件，统计层据此刷新设备信息
+    private void publishDeviceChange(Integer deviceId) {
+        if (eventBus == null) {
+            return;
+        }
+        Device device = deviceDao.findById(deviceId);
+        if (device != null) {
+            publishStatusChange(device, device.getStatus());
+        }
     }
 
     // 辅助方法
@@ -82,7 +109,7 @@ public class DeviceServiceImpl implements DeviceService {
 
     @Override
     public List<Device> findAllDevicesByPage(String adminToken, int page, int pageSize) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_DEVICES);
         if (!ValidationUtil.isValidPageNumber(page, pageSize)) {
             throw new BusinessException("页码和每页大小必须大于0！");
         }
@@ -103,7 +130,7 @@ public class DeviceServiceImpl implements DeviceService {
     //管理员添加设备
     @Override
     public Device addDevice(String adminToken, Device newDevice) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_DEVICES);
 
         if (!ValidationUtil.isValidDeviceCode(newDevice.getDeviceCode())) {
             throw new BusinessException("设备编号格式错误！");
@@ -140,13 +167,14 @@ public class DeviceServiceImpl implements DeviceService {
             throw new BusinessException("添加设备失败！");
         }
         newDevice.setDeviceId(newDeviceId);
+        publishStatusChange(newDevice, null);
         
         return newDevice;
     }
 
     @Override
     public void updateDevice(String adminToken, Device deviceToUpdate) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_DEVICES);
 
         if (!ValidationUtil.isPositiveInteger(deviceToUpdate.getDeviceId())) {
             throw new BusinessException("设备ID无效！");
@@ -172,12 +200,13 @@ public class DeviceServiceImpl implements DeviceService {
         if (rows <= 0) {
             throw new BusinessException("更新设备信息失败！");
         }
+        publishDeviceChange(dbDevice.getDeviceId());
     }
 
     //设置设备为报废状态
     @Override
     public void scrapDevice(String adminToken, Integer deviceId) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_DEVICES);
         if (!ValidationUtil.isPositiveInteger(deviceId)) {
             throw new BusinessException("设备ID无效！");
         }
@@ -194,6 +223,7 @@ public class DeviceServiceImpl implements DeviceService {
         }
 
         //更改状态
+        String oldStatus = device.getStatus();
         device.setStatus("scrapped");
 
         //软删除
@@ -204,6 +234,7 @@ public class DeviceServiceImpl implements DeviceService {
         if (rows <= 0) {
             throw new BusinessException("报废设备失败！");
         }
+        publishStatusChange(device, oldStatus);
     }
 
     //设备送修
@@ -211,7 +242,7 @@ public class DeviceServiceImpl implements DeviceService {
     @Override
     public void sendDeviceForRepair(String operatorToken, Integer deviceId) {
         User operator = authService.checkLogin(operatorToken);
-        if (!"admin".equals(operator.getUserRole()) && !"teacher".equals(operator.getUserRole())) {
+        if (!authService.hasPermission(operator, Permission.SEND_FOR_REPAIR)) {
             throw new BusinessException("权限不足，只有管理员和教师可以送修设备！");
         }
         if (!ValidationUtil.isPositiveInteger(deviceId)) {
@@ -229,13 +260,15 @@ public class DeviceServiceImpl implements DeviceService {
         if (rows <= 0) {
             throw new BusinessException("送修设备失败！");
         }
+        device.setStatus("maintenance");
+        publishStatusChange(device, "available");
     }
 
     //设备维修完成
     @Override
     public void returnDeviceFromRepair(String operatorToken, Integer deviceId){
         User operator = authService.checkLogin(operatorToken);
-        if (!"admin".equals(operator.getUserRole()) && !"teacher".equals(operator.getUserRole())) {
+        if (!authService.hasPermission(operator, Permission.SEND_FOR_REPAIR)) {
             throw new BusinessException("权限不足，只有管理员和教师可以完成维修！");
         }
         if (!ValidationUtil.isPositiveInteger(deviceId)) {
@@ -253,19 +286,21 @@ public class DeviceServiceImpl implements DeviceService {
         if (rows <= 0) {
             throw new BusinessException("完成设备维修失败！");
         }
+        device.setStatus("available");
+        publishStatusChange(device, "maintenance");
     }
 
     //管理员获取设备状态统计
     @Override
     public Map<String, Integer> getDeviceStatusStatistics(String adminToken) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         return deviceDao.countByStatus();
     }
 
     //管理员恢复报废设备
     @Override
     public void restoreScrappedDevice(String adminToken, Integer deviceId) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_DEVICES);
         if (!ValidationUtil.isPositiveInteger(deviceId)) {
             throw new BusinessException("设备ID无效！");
         }
@@ -286,6 +321,7 @@ public class DeviceServiceImpl implements DeviceService {
         if (rows <= 0) {
             throw new BusinessException("恢复报废设备失败！");
         }
+        publishStatusChange(device, "scrapped");
     }
 
     @Override
@@ -302,7 +338,7 @@ public class DeviceServiceImpl implements DeviceService {
     public void updateDeviceUsageStats(String operatorToken, Integer deviceId, Double usageHours) {
         // 权限校验：管理员/教师可操作
         User operator = authService.checkLogin(operatorToken);
-        if (!"admin".equals(operator.getUserRole()) && !"teacher".equals(operator.getUserRole())) {
+        if (!authService.hasPermission(operator, Permission.UPDATE_DEVICE_USAGE)) {
             throw new BusinessException("权限不足，只有管理员和教师可更新设备使用统计！");
         }
         
@@ -327,6 +363,10 @@ public class DeviceServiceImpl implements DeviceService {
         if (rows <= 0) {
             throw new BusinessException("更新设备使用统计失败！");
         }
+
+        if (eventBus != null) {
+            eventBus.publish(StatisticEvent.deviceUsage(deviceId, usageHours));
+        }
     }
 
     //检查设备是否可预约
@@ -347,7 +387,7 @@ public class DeviceServiceImpl implements DeviceService {
     //管理员批量更新设备存放位置
     @Override
     public void batchUpdateDeviceLocation(String adminToken, List<Integer> deviceIds, String newLocation) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_DEVICES);
         
         // 参数校验
         if (deviceIds == null || deviceIds.isEmpty()) {
@@ -373,6 +413,8 @@ public class DeviceServiceImpl implements DeviceService {
                 device.setLocation(newLocation);
                 device.setUpdatedAt(new Date());
                 deviceDao.update(device);
+                // 只改了位置，刚读取的设备信息即为最新
+                publishStatusChange(device, device.getStatus());
             } catch (Exception e) {
                 failCount++;
             }
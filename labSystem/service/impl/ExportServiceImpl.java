@@ -0,0 +1,236 @@
+package labSystem.service.impl;
+
+import labSystem.dao.DeviceDao;
+import labSystem.dao.RepairDao;
+import labSystem.dao.ReservationDao;
+import labSystem.entity.statisticData;
+import labSystem.exception.BusinessException;
+import labSystem.exception.DAOException;
+import labSystem.export.ExportFormat;
+import labSystem.export.ExportReport;
+import labSystem.export.ExportTables;
+import labSystem.export.TableWriter;
+import labSystem.service.AuthService;
+import labSystem.service.ExportService;
+import labSystem.service.StatisticService;
+import labSystem.session.Permission;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+public class ExportServiceImpl implements ExportService {
+
+    // 导出排行榜时的条数
+    private static final int EXPORT_TOP_N = 100;
+
+    private final DeviceDao deviceDao;
+    private final ReservationDao reservationDao;
+    private final RepairDao repairDao;
+    private final StatisticService statisticService;
+    private final AuthService authService;
+
+    public ExportServiceImpl(DeviceDao deviceDao, ReservationDao reservationDao, RepairDao repairDao,
+                             StatisticService statisticService, AuthService authService) {
+        this.deviceDao = deviceDao;
+        this.reservationDao = reservationDao;
+        this.repairDao = repairDao;
+        this.statisticService = statisticService;
+        this.authService = authService;
+    }
+
+    @Override
+    public long exportDevices(String adminToken, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        try (TableWriter writer = format.open(out)) {
+            ExportTables.startDevices(writer);
+            deviceDao.streamAll(device -> ExportTables.writeDevice(writer, device));
+            return writer.getRowCount();
+        }
+    }
+
+    @Override
+    public long exportReservations(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        checkOptionalRange(request);
+        try (TableWriter writer = format.open(out)) {
+            ExportTables.startReservations(writer);
+            reservationDao.streamByStartTime(startOf(request), endOf(request), reservation -> ExportTables.writeReservation(writer, reservation));
+            return writer.getRowCount();
+        }
+    }
+
+    @Override
+    public long exportRepairs(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        checkOptionalRange(request);
+        try (TableWriter writer = format.open(out)) {
+            ExportTables.startRepairs(writer);
+            repairDao.streamByCreatedTime(startOf(request), endOf(request), repair -> ExportTables.writeRepair(writer, repair));
+            return writer.getRowCount();
+        }
+    }
+
+    /**
+     * 导出统计报表
+     * 报表本身是聚合结果，行数与设备、用户数同阶，先查询再写出；权限和参数校验由统计服务完成
+     */
+    @Override
+    public long exportReport(String adminToken, ExportReport report, Integer deviceId, statisticData.TimeRangeRequest request, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        if (report == null) {
+            throw new BusinessException("报表类型不能为空！");
+        }
+        // 先完成查询，查询失败时不产生半个文件
+        ReportContent content = query(adminToken, report, deviceId, request);
+        try (TableWriter writer = format.open(out)) {
+            content.writeTo(writer);
+            return writer.getRowCount();
+        }
+    }
+
+    @Override
+    public long exportMonthlyReport(String adminToken, int year, int month, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException {
+        checkFormat(format);
+        statisticData report = statisticService.getMonthlyReport(adminToken, year, month);
+        try (TableWriter writer = format.open(out)) {
+            ExportTables.writePeriodReport(writer, report);
+            return writer.getRowCount();
+        }
+    }
+
+    @Override
+    public long exportYearlyReport(String adminToken, int year, ExportFormat format, OutputStream out) throws BusinessException, DAOException, IOException {
+        checkFormat(format);
+        statisticData report = statisticService.getYearlyReport(adminToken, year);
+        try (TableWriter writer = format.open(out)) {
+            ExportTables.writePeriodReport(writer, report);
+            return writer.getRowCount();
+        }
+    }
+
+    // 已查询好的报表内容，写出时不再访问数据库
+    private interface ReportContent {
+        void writeTo(TableWriter writer) throws IOException;
+    }
+
+    private ReportContent query(String token, ExportReport report, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        switch (report) {
+            case SYSTEM_OVERVIEW: {
+                statisticData.SystemOverview overview = statisticService.getSystemOverview(token);
+                return writer -> ExportTables.writeSystemOverview(writer, overview);
+            }
+            case DEVICE_USAGE: {
+                List<statisticData.DeviceUsageStats> stats = statisticService.getDeviceUsageStats(token, request);
+                return writer -> ExportTables.writeDeviceUsage(writer, "设备使用", stats);
+            }
+            case RESERVATION_TREND: {
+                List<statisticData.ReservationTrend> trends = statisticService.getReservationTrend(token, request);
+                return writer -> ExportTables.writeReservationTrend(writer, trends);
+            }
+            case REPAIR_STATS: {
+                List<statisticData.RepairStats> stats = statisticService.getRepairStats(token, request);
+                return writer -> ExportTables.writeRepairStats(writer, stats);
+            }
+            case USER_ACTIVITY: {
+                List<statisticData.UserActivityStats> stats = statisticService.getUserActivityStats(token, request);
+                return writer -> ExportTables.writeUserActivity(writer, "用户活跃度", stats);
+            }
+            case TOP_DEVICES: {
+                List<statisticData.DeviceUsageStats> stats = statisticService.getTopUsedDevices(token, EXPORT_TOP_N, request);
+                return writer -> ExportTables.writeDeviceUsage(writer, "使用最多的设备", stats);
+            }
+            case TOP_USERS: {
+                List<statisticData.UserActivityStats> stats = statisticService.getTopActiveUsers(token, EXPORT_TOP_N, request);
+                return writer -> ExportTables.writeUserActivity(writer, "最活跃用户", stats);
+            }
+            case DEVICE_IDLE_RATE: {
+                if (deviceId == null) {
+                    throw new BusinessException("设备ID不能为空！");
+                }
+                statisticData.UtilizationReport utilization = statisticService.getDeviceIdleRate(token, deviceId, request);
+                return writer -> ExportTables.writeUtilization(writer, utilization);
+            }
+            case RESOURCE_UTILIZATION: {
+                statisticData.UtilizationReport utilization = statisticService.getResourceUtilization(token, request);
+                return writer -> ExportTables.writeUtilization(writer, utilization);
+            }
+            case DEVICE_FAILURE_RATE: {
+                List<statisticData.RepairStats> stats = statisticService.getDeviceFailureRate(token);
+                return writer -> ExportTables.writeRepairStats(writer, stats);
+            }
+            case DEVICE_RELIABILITY: {
+                List<statisticData.DeviceReliability> stats = statisticService.getDeviceReliability(token, allDeviceIds());
+                return writer -> ExportTables.writeReliability(writer, stats);
+            }
+            case USAGE_BY_DEVICE_TYPE: {
+                List<statisticData.PieChartData> data = statisticService.getUsageByDeviceType(token, request);
+                return writer -> ExportTables.writePieChart(writer, "设备类型使用占比", data);
+            }
+            case RESERVATION_TIME_DISTRIBUTION: {
+                List<statisticData.ChartDataPoint> points = statisticService.getReservationTimeDistribution(token, request);
+                return writer -> ExportTables.writeChartPoints(writer, "预约时段分布", points);
+            }
+            case RESERVATION_HEATMAP: {
+                statisticData.ReservationHeatmap heatmap = statisticService.getReservationHeatmap(token, deviceId, request);
+                return writer -> ExportTables.writeHeatmap(writer, heatmap);
+            }
+            case DURATION_PERCENTILES: {
+                List<statisticData.DurationPercentiles> percentiles = new ArrayList<>();
+                for (String metric : new String[]{"duration", "overrun", "repair"}) {
+                    percentiles.add(statisticService.getDurationPercentiles(token, metric, deviceId, request));
+                }
+                return writer -> ExportTables.writePercentiles(writer, percentiles);
+            }
+            case DEVICE_COMPARISON: {
+                List<Map<String, Object>> rows = statisticService.compareDevicesPerformance(token, allDeviceIds(), request);
+                return writer -> ExportTables.writeMaps(writer, "设备性能对比", rows);
+            }
+            case USER_RESERVATION_BEHAVIOR: {
+                List<Map<String, Object>> rows = statisticService.getUserReservationBehavior(token, request);
+                return writer -> ExportTables.writeMaps(writer, "用户预约行为", rows);
+            }
+            default:
+                throw new BusinessException("不支持的报表类型！");
+        }
+    }
+
+    private List<Integer> allDeviceIds() throws DAOException {
+        List<Integer> ids = new ArrayList<>();
+        try {
+            deviceDao.streamAll(device -> ids.add(device.getDeviceId()));
+        } catch (IOException e) {
+            // 回调只收集ID，不会写出
+            throw new DAOException("读取设备列表失败", e);
+        }
+        return ids;
+    }
+
+    private static void checkFormat(ExportFormat format) throws BusinessException {
+        if (format == null) {
+            throw new BusinessException("导出格式不能为空！");
+        }
+    }
+
+    private static void checkOptionalRange(statisticData.TimeRangeRequest request) throws BusinessException {
+        if (request != null && request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().after(request.getEndDate())) {
+            throw new BusinessException("开始时间不能晚于结束时间！");
+        }
+    }
+
+    private static Date startOf(statisticData.TimeRangeRequest request) {
+        return request != null ? request.getStartDate() : null;
+    }
+
+    private static Date endOf(statisticData.TimeRangeRequest request) {
+        return request != null ? request.getEndDate() : null;
+    }
+}
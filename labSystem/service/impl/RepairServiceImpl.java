@@ -10,6 +10,9 @@ import labSystem.exception.BusinessException;
 import labSystem.exception.DAOException;
 import labSystem.service.AuthService;
 import labSystem.service.RepairService;
+import labSystem.session.Permission;
+import labSystem.statistic.StatisticEvent;
+import labSystem.statistic.StatisticEventBus;
 import labSystem.util.ValidationUtil;
 
 import java.util.*;
@@ -21,12 +24,19 @@ public class RepairServiceImpl implements RepairService {
     private final DeviceDao deviceDao;
     private final UserDao userDao;
     private final AuthService authService;
+    private final StatisticEventBus eventBus;
 
     public RepairServiceImpl(RepairDao repairDao, DeviceDao deviceDao, UserDao userDao, AuthService authService) {
+        this(repairDao, deviceDao, userDao, authService, null);
+    }
+
+    public RepairServiceImpl(RepairDao repairDao, DeviceDao deviceDao, UserDao userDao, AuthService authService,
+                             StatisticEventBus eventBus) {
         this.repairDao = repairDao;
         this.deviceDao = deviceDao;
         this.userDao = userDao;
         this.authService = authService;
+        this.eventBus = eventBus;
     }
 
     //辅助方法 ：填充一张报修单关联数据（设备信息、报修人、处理人）
@@ -69,8 +79,14 @@ public class RepairServiceImpl implements RepairService {
 
         //插入数据，返回报修id
         int newRepairId = repairDao.insert(repair);
+        Repair created = getRepairById(userToken, newRepairId);
+
+        //发布统计事件：使用读回的记录，带报修ID和数据库生成的创建时间（重建期间据ID去重）
+        if (eventBus != null) {
+            eventBus.publish(StatisticEvent.repairCreated(created));
+        }
 
-        return getRepairById(userToken, newRepairId);
+        return created;
     }
 
     // 根据报修id查询报修单
@@ -80,7 +96,7 @@ public class RepairServiceImpl implements RepairService {
         Repair repair = repairDao.findById(repairId);
         if (repair == null) throw new BusinessException("报修单不存在");
 
-        if (!"admin".equals(operator.getUserRole()) && !operator.getUserId().equals(repair.getUserId()) && (repair.getResolvedBy() == null || !operator.getUserId().equals(repair.getResolvedBy()))) {
+        if (!authService.hasPermission(operator, Permission.MANAGE_REPAIRS) && !operator.getUserId().equals(repair.getUserId()) && (repair.getResolvedBy() == null || !operator.getUserId().equals(repair.getResolvedBy()))) {
             throw new BusinessException("权限不足，无法查看此报修单");
         }
 
@@ -115,7 +131,7 @@ public class RepairServiceImpl implements RepairService {
     // 管理员查询所有报修单列表（分页）
     @Override
     public List<Repair> getAllRepairs(String adminToken, int page, int pageSize) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_REPAIRS);
         if (page <= 0 || pageSize <= 0) throw new BusinessException("页码或每页大小无效");
         return repairDao.findByPage(page, pageSize);
     }
@@ -126,7 +142,7 @@ public class RepairServiceImpl implements RepairService {
         User technician = authService.checkLogin(technicianToken);
 
         //User暂时没有technician，后续可以拓展
-        if (!"admin".equals(technician.getUserRole()) && !"technician".equals(technician.getUserRole())) {
+        if (!authService.hasPermission(technician, Permission.PROCESS_REPAIR)) {
             throw new BusinessException("权限不足，只有技术员或管理员可以处理报修单");
         }
 
@@ -144,7 +160,7 @@ public class RepairServiceImpl implements RepairService {
     @Override
     public void resolveRepair(String technicianToken, int repairId, String repairNotes) throws BusinessException, DAOException {
         User technician = authService.checkLogin(technicianToken);
-        if (!"admin".equals(technician.getUserRole()) && !"technician".equals(technician.getUserRole())) {
+        if (!authService.hasPermission(technician, Permission.PROCESS_REPAIR)) {
             throw new BusinessException("权限不足，只有技术员或管理员可以解决报修单");
         }
 
@@ -161,6 +177,10 @@ public class RepairServiceImpl implements RepairService {
         repair.setUpdatedAt(new Date());
 
         repairDao.update(repair);
+
+        if (eventBus != null) {
+            eventBus.publish(StatisticEvent.repairResolved(repair));
+        }
     }
 
     // 管理员关闭报修单
@@ -170,7 +190,7 @@ public class RepairServiceImpl implements RepairService {
         Repair repair = repairDao.findById(repairId);
         if (repair == null) throw new BusinessException("报修单不存在");
 
-        if (!"admin".equals(operator.getUserRole()) && !operator.getUserId().equals(repair.getUserId())) {
+        if (!authService.hasPermission(operator, Permission.MANAGE_REPAIRS) && !operator.getUserId().equals(repair.getUserId())) {
             throw new BusinessException("权限不足，只有管理员或报修人可以关闭此报修单");
         }
         if (!repair.canBeClosed()) throw new BusinessException("当前报修单状态为【" + repair.getStatusDisplayName() + "】，无法关闭");
@@ -183,7 +203,7 @@ public class RepairServiceImpl implements RepairService {
     // 管理员查询报修单状态统计
     @Override
     public Map<String, Integer> getRepairStatusStatistics(String adminToken) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         return repairDao.countByStatus();
     }
 
@@ -195,7 +215,7 @@ public class RepairServiceImpl implements RepairService {
         if (page <= 0 || pageSize <= 0) throw new BusinessException("页码或每页大小无效");
 
         List<Repair> allRepairs;
-        if ("admin".equals(operator.getUserRole()) || "technician".equals(operator.getUserRole())) {
+        if (authService.hasPermission(operator, Permission.VIEW_REPAIR_QUEUE)) {
             allRepairs = repairDao.findAll();
         } 
         // 普通用户只能查看自己的报修单
@@ -222,7 +242,7 @@ public class RepairServiceImpl implements RepairService {
     @Override
     public List<Repair> getMyAssignedRepairs(String technicianToken) throws BusinessException, DAOException {
         User technician = authService.checkLogin(technicianToken);
-        if (!"technician".equals(technician.getUserRole()) && !"admin".equals(technician.getUserRole())) {
+        if (!authService.hasPermission(technician, Permission.PROCESS_REPAIR)) {
             throw new BusinessException("权限不足，仅技术员或管理员可查看指派的报修单");
         }
 
@@ -235,7 +255,7 @@ public class RepairServiceImpl implements RepairService {
     // 管理员更新报修单严重程度
     @Override
     public void updateRepairSeverity(String adminToken, int repairId, String severity) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_REPAIRS);
         if (!List.of("low", "medium", "high", "critical").contains(severity)) {
             throw new BusinessException("严重程度值无效");
         }
@@ -255,7 +275,7 @@ public class RepairServiceImpl implements RepairService {
         Repair repair = repairDao.findById(repairId);
         if (repair == null) throw new BusinessException("报修单不存在");
 
-        if (!"admin".equals(operator.getUserRole()) && !operator.getUserId().equals(repair.getUserId())) {
+        if (!authService.hasPermission(operator, Permission.MANAGE_REPAIRS) && !operator.getUserId().equals(repair.getUserId())) {
             throw new BusinessException("权限不足，仅报修人或管理员可取消报修单");
         }
         if (!repair.isPending()) {
@@ -273,7 +293,7 @@ public class RepairServiceImpl implements RepairService {
         User operator = authService.checkLogin(operatorToken);
 
         List<Repair> allRepairs;
-        if ("admin".equals(operator.getUserRole()) || "technician".equals(operator.getUserRole())) {
+        if (authService.hasPermission(operator, Permission.VIEW_REPAIR_QUEUE)) {
             allRepairs = repairDao.findAll();
         } else {
             allRepairs = repairDao.findByUserId(operator.getUserId());
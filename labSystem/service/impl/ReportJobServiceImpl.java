@@ -0,0 +1,131 @@
+package labSystem.service.impl;
+
+import labSystem.entity.statisticData;
+import labSystem.exception.BusinessException;
+import labSystem.export.ExportFormat;
+import labSystem.export.ExportReport;
+import labSystem.export.ReportJob;
+import labSystem.export.ReportJobListener;
+import labSystem.export.ReportJobQueue;
+import labSystem.service.AuthService;
+import labSystem.service.ExportService;
+import labSystem.service.ReportJobService;
+import labSystem.session.Permission;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+
+public class ReportJobServiceImpl implements ReportJobService {
+
+    private final ExportService exportService;
+    private final AuthService authService;
+    private final ReportJobQueue queue;
+
+    public ReportJobServiceImpl(ExportService exportService, AuthService authService) {
+        this(exportService, authService, ReportJobQueue.fromConfig());
+    }
+
+    public ReportJobServiceImpl(ExportService exportService, AuthService authService, ReportJobQueue queue) {
+        this.exportService = exportService;
+        this.authService = authService;
+        this.queue = queue;
+    }
+
+    /**
+     * 提交统计报表导出任务
+     * 任务在后台以提交者的token执行，导出服务会再次校验权限和参数
+     */
+    @Override
+    public String submitReport(String adminToken, ExportReport report, Integer deviceId, statisticData.TimeRangeRequest request, ExportFormat format, ReportJobListener listener) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        if (report == null) {
+            throw new BusinessException("报表类型不能为空！");
+        }
+        checkOptionalRange(request);
+        String key = "report|" + report + "|" + deviceId + "|" + rangeKey(request) + "|" + format;
+        return queue.submit(key, "统计报表 " + report, format,
+                out -> exportService.exportReport(adminToken, report, deviceId, request, format, out), listener).getJobId();
+    }
+
+    @Override
+    public String submitMonthlyReport(String adminToken, int year, int month, ExportFormat format, ReportJobListener listener) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        String key = "monthly|" + year + "|" + month + "|" + format;
+        return queue.submit(key, "月度报告 " + year + "-" + month, format,
+                out -> exportService.exportMonthlyReport(adminToken, year, month, format, out), listener).getJobId();
+    }
+
+    @Override
+    public String submitYearlyReport(String adminToken, int year, ExportFormat format, ReportJobListener listener) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        String key = "yearly|" + year + "|" + format;
+        return queue.submit(key, "年度报告 " + year, format,
+                out -> exportService.exportYearlyReport(adminToken, year, format, out), listener).getJobId();
+    }
+
+    @Override
+    public String submitReservationExport(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, ReportJobListener listener) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        checkOptionalRange(request);
+        String key = "reservations|" + rangeKey(request) + "|" + format;
+        return queue.submit(key, "预约记录导出", format,
+                out -> exportService.exportReservations(adminToken, request, format, out), listener).getJobId();
+    }
+
+    @Override
+    public String submitRepairExport(String adminToken, statisticData.TimeRangeRequest request, ExportFormat format, ReportJobListener listener) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        checkFormat(format);
+        checkOptionalRange(request);
+        String key = "repairs|" + rangeKey(request) + "|" + format;
+        return queue.submit(key, "报修记录导出", format,
+                out -> exportService.exportRepairs(adminToken, request, format, out), listener).getJobId();
+    }
+
+    @Override
+    public ReportJob getJob(String adminToken, String jobId) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        ReportJob job = queue.get(jobId);
+        if (job == null) {
+            throw new BusinessException("报表任务不存在或结果已过期！");
+        }
+        return job;
+    }
+
+    @Override
+    public InputStream openResult(String adminToken, String jobId) throws BusinessException, IOException {
+        authService.checkPermission(adminToken, Permission.EXPORT_REPORTS);
+        return queue.openResult(jobId);
+    }
+
+    // === 辅助方法 ===
+
+    private static void checkFormat(ExportFormat format) throws BusinessException {
+        if (format == null) {
+            throw new BusinessException("导出格式不能为空！");
+        }
+    }
+
+    private static void checkOptionalRange(statisticData.TimeRangeRequest request) throws BusinessException {
+        if (request != null && request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().after(request.getEndDate())) {
+            throw new BusinessException("开始时间不能晚于结束时间！");
+        }
+    }
+
+    // 去重键中的查询条件部分
+    private static String rangeKey(statisticData.TimeRangeRequest request) {
+        if (request == null) return "-";
+        return millis(request.getStartDate()) + "|" + millis(request.getEndDate()) + "|" + request.getGroupBy()
+                + "|" + request.getDeviceType() + "|" + request.getUserRole();
+    }
+
+    private static String millis(Date date) {
+        return date != null ? String.valueOf(date.getTime()) : "-";
+    }
+}
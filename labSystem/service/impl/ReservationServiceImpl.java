@@ -10,6 +10,9 @@ import labSystem.exception.BusinessException;
 import labSystem.exception.DAOException;
 import labSystem.service.AuthService;
 import labSystem.service.ReservationService;
+import labSystem.session.Permission;
+import labSystem.statistic.StatisticEvent;
+import labSystem.statistic.StatisticEventBus;
 import labSystem.util.ValidationUtil;
 import labSystem.util.DateUtil; 
 
@@ -22,12 +25,30 @@ public class ReservationServiceImpl implements ReservationService {
     private final DeviceDao deviceDao;
     private final UserDao userDao;
     private final AuthService authService;
+    private final StatisticEventBus eventBus;
 
     public ReservationServiceImpl(ReservationDao reservationDao, DeviceDao deviceDao, UserDao userDao, AuthService authService) {
+        this(reservationDao, deviceDao, userDao, authService, null);
+    }
+
+    public ReservationServiceImpl(ReservationDao reservationDao, DeviceDao deviceDao, UserDao userDao, AuthService authService,
+                                  StatisticEventBus eventBus) {
         this.reservationDao = reservationDao;
         this.deviceDao = deviceDao;
         this.userDao = userDao;
         this.authService = authService;
+        this.eventBus = eventBus;
+    }
+
+    //辅助方法：发布预约状态变化事件，由统计层增量更新聚合
+    private void applyStatusChange(Reservation reservation, String oldStatus) {
+        applyStatusChange(reservation, oldStatus, null, null);
+    }
+
+    private void applyStatusChange(Reservation reservation, String oldStatus, Device device, String userRole) {
+        if (eventBus != null) {
+            eventBus.publish(StatisticEvent.reservationChanged(reservation, oldStatus, device, userRole));
+        }
     }
 
     @Override
@@ -59,6 +80,8 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setUpdatedAt(new Date());
 
         int newReservationId = reservationDao.insert(reservation);
+        reservation.setReservationId(newReservationId);
+        applyStatusChange(reservation, null, device, currentUser.getUserRole());
         return getReservationById(userToken, newReservationId);
     }
 
@@ -70,7 +93,7 @@ public class ReservationServiceImpl implements ReservationService {
             throw new BusinessException("预约不存在");
         }
 
-        if (!"admin".equals(operator.getUserRole()) && !operator.getUserId().equals(reservation.getUserId())) {
+        if (!authService.hasPermission(operator, Permission.MANAGE_RESERVATIONS) && !operator.getUserId().equals(reservation.getUserId())) {
             throw new BusinessException("权限不足，无法查看此预约");
         }
         return reservation;
@@ -93,7 +116,7 @@ public class ReservationServiceImpl implements ReservationService {
 
     @Override
     public List<Reservation> getAllReservations(String adminToken, int page, int pageSize) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_RESERVATIONS);
         if (!ValidationUtil.isValidPageNumber(page, pageSize)) {
             throw new BusinessException("页码或每页大小无效");
         }
@@ -102,7 +125,7 @@ public class ReservationServiceImpl implements ReservationService {
 
     @Override
     public void reviewReservation(String adminToken, int reservationId, boolean isApproved, String adminNotes) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.REVIEW_RESERVATION);
         Reservation reservation = reservationDao.findById(reservationId);
         if (reservation == null) {
             throw new BusinessException("预约不存在");
@@ -116,6 +139,7 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setAdminNotes(adminNotes);
         reservation.setUpdatedAt(new Date());
         reservationDao.update(reservation);
+        applyStatusChange(reservation, "pending");
     }
 
     @Override
@@ -134,10 +158,12 @@ public class ReservationServiceImpl implements ReservationService {
             throw new BusinessException("当前预约状态为【" + reservation.getStatus() + "】，无法取消");
         }
 
+        String oldStatus = reservation.getStatus();
         reservation.setStatus("cancelled");
         reservation.setUserNotes(userNotes);
         reservation.setUpdatedAt(new Date());
         reservationDao.update(reservation);
+        applyStatusChange(reservation, oldStatus);
     }
 
     @Override
@@ -160,6 +186,7 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setActualEndTime(new Date());
         reservation.setUpdatedAt(new Date());
         reservationDao.update(reservation);
+        applyStatusChange(reservation, "approved");
     }
 
     @Override
@@ -189,9 +216,11 @@ public class ReservationServiceImpl implements ReservationService {
             activeReservations = reservationDao.findByPage(page, pageSize);
             for (Reservation r : activeReservations) {
                 if (("pending".equals(r.getStatus()) || "approved".equals(r.getStatus())) && r.getEndTime().before(now)) {
+                    String oldStatus = r.getStatus();
                     r.setStatus("expired");
                     r.setUpdatedAt(now);
                     reservationDao.update(r);
+                    applyStatusChange(r, oldStatus);
                 }
             }
             page++;
@@ -200,7 +229,7 @@ public class ReservationServiceImpl implements ReservationService {
 
     @Override
     public void batchReviewReservations(String adminToken, List<Integer> reservationIds, boolean isApproved, String adminNotes) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.REVIEW_RESERVATION);
         if (reservationIds == null || reservationIds.isEmpty()) {
             throw new BusinessException("请选择需要审核的预约");
         }
@@ -222,6 +251,7 @@ public class ReservationServiceImpl implements ReservationService {
             reservation.setAdminNotes(adminNotes);
             reservation.setUpdatedAt(now);
             reservationDao.update(reservation);
+            applyStatusChange(reservation, "pending");
         }
     }
 
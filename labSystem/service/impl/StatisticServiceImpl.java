@@ -1,141 +1,418 @@
 package labSystem.service.impl;
 
 import labSystem.dao.StatisticDao;
+import labSystem.dao.StatisticRows;
+import labSystem.entity.Device;
+import labSystem.entity.User;
 import labSystem.entity.statisticData;
 import labSystem.exception.BusinessException;
 import labSystem.exception.DAOException;
 import labSystem.service.AuthService;
 import labSystem.service.StatisticService;
+import labSystem.session.Permission;
+import labSystem.statistic.DeviceIntervals;
+import labSystem.statistic.DeviceReliabilityModel;
+import labSystem.statistic.DurationPercentileStore;
+import labSystem.statistic.HeavyHitterSketch;
+import labSystem.statistic.HourOfWeekHeatmap;
+import labSystem.statistic.ReportExecutor;
+import labSystem.statistic.ReportSnapshotBackfillJob;
+import labSystem.statistic.ReportSnapshotStore;
+import labSystem.statistic.ReservationFactStore;
+import labSystem.statistic.StatisticEngine;
+import labSystem.statistic.TopNStore;
+import labSystem.statistic.UtilizationEngine;
+import labSystem.statistic.UsageRollupStore;
 import labSystem.util.ValidationUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
 
 public class StatisticServiceImpl implements StatisticService {
 
+    // 占用设备的预约状态（热力图只统计这些状态的占用时长）
+    private static final List<String> OCCUPYING_STATUSES = Arrays.asList("approved", "completed");
+
     private final StatisticDao statisticDao;
     private final AuthService authService;
+    private final StatisticEngine engine;
+    private final DeviceReliabilityModel reliabilityModel;
+    private final UsageRollupStore rollupStore;
+    private final ReservationFactStore factStore;
+    private final TopNStore topNStore;
+    private final DurationPercentileStore percentileStore;
+    private final ReportExecutor reportExecutor;
+    private final ReportSnapshotStore snapshotStore;
 
     public StatisticServiceImpl(StatisticDao statisticDao, AuthService authService) {
+        this(statisticDao, authService, null);
+    }
+
+    public StatisticServiceImpl(StatisticDao statisticDao, AuthService authService, StatisticEngine engine) {
+        this(statisticDao, authService, engine, new ReportExecutor());
+    }
+
+    public StatisticServiceImpl(StatisticDao statisticDao, AuthService authService, StatisticEngine engine, ReportExecutor reportExecutor) {
+        this(statisticDao, authService, engine, reportExecutor, ReportSnapshotStore.fromConfig());
+    }
+
+    /**
+     * @param snapshotStore 已结束周期的报表快照，为null时月度/年度报告每次实时计算
+     */
+    public StatisticServiceImpl(StatisticDao statisticDao, AuthService authService, StatisticEngine engine, ReportExecutor reportExecutor, ReportSnapshotStore snapshotStore) {
         this.statisticDao = statisticDao;
         this.authService = authService;
+        this.engine = engine;
+        this.reliabilityModel = engine != null ? engine.getReliabilityModel() : null;
+        this.rollupStore = engine != null ? engine.getRollupStore() : null;
+        this.factStore = engine != null ? engine.getFactStore() : null;
+        this.topNStore = engine != null ? engine.getTopNStore() : null;
+        this.percentileStore = engine != null ? engine.getPercentileStore() : null;
+        this.reportExecutor = reportExecutor;
+        this.snapshotStore = snapshotStore;
+    }
+
+    //汇总表已加载时，使用量类统计直接走汇总表
+    private boolean rollupReady() {
+        return rollupStore != null && rollupStore.isLoaded();
+    }
+
+    //预约事实表已加载时，按分类/时段/角色的分析查询直接扫描列存
+    private boolean factsReady() {
+        return factStore != null && factStore.isLoaded();
+    }
+
+    //Top-N摘要已加载时，排行查询由摘要合并得出（小范围精确计数）
+    private boolean topNReady() {
+        return topNStore != null && topNStore.isLoaded();
     }
 
     @Override
     public statisticData.SystemOverview getSystemOverview(String adminToken) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         statisticData data = statisticDao.getSystemOverview();
-        return data.getSystemOverview();
+        statisticData.SystemOverview overview = data.getSystemOverview();
+        // 设备状态计数由事件实时维护，比数据库统计缓存更新
+        if (overview != null && engine != null && engine.isLoaded()) {
+            int scrapped = engine.getDeviceStatusCounter().get("scrapped");
+            overview.setTotalDevices(engine.getDeviceStatusCounter().total() - scrapped);
+            overview.setAvailableDevices(engine.getDeviceStatusCounter().get("available"));
+        }
+        return overview;
     }
 
     @Override
     public List<statisticData.DeviceUsageStats> getDeviceUsageStats(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
-        List<statisticData> dataList = statisticDao.getDeviceUsageStats(request.getStartDate(), request.getEndDate());
-        return convertToDeviceUsageStatsList(dataList);
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !rollupReady());
+        return loadDeviceUsageStats(request.getStartDate(), request.getEndDate()).asList();
     }
 
     @Override
     public List<statisticData.ReservationTrend> getReservationTrend(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !rollupReady());
         if (request.getGroupBy() == null || (!"day".equals(request.getGroupBy()) && !"week".equals(request.getGroupBy()) && !"month".equals(request.getGroupBy()))) {
             throw new BusinessException("无效的分组方式！请使用 'day', 'week', 或 'month'。");
         }
-        List<statisticData> dataList = statisticDao.getReservationTrend(request.getGroupBy(), request.getStartDate(), request.getEndDate());
-        return convertToReservationTrendList(dataList);
+        return loadReservationTrend(request.getGroupBy(), request.getStartDate(), request.getEndDate()).asList();
     }
 
     @Override
     public List<statisticData.RepairStats> getRepairStats(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         validateTimeRangeRequest(request);
-        List<statisticData> dataList = statisticDao.getRepairStats(request.getStartDate(), request.getEndDate());
-        return convertToRepairStatsList(dataList);
+        return loadRepairStats(request.getStartDate(), request.getEndDate()).asList();
     }
 
     @Override
     public List<statisticData.UserActivityStats> getUserActivityStats(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         validateTimeRangeRequest(request);
-        List<statisticData> dataList = statisticDao.getUserUsageStats(request.getStartDate(), request.getEndDate());
-        return convertToUserActivityStatsList(dataList);
+        return loadUserActivityStats(request.getStartDate(), request.getEndDate()).asList();
     }
 
     @Override
     public List<statisticData.DeviceUsageStats> getTopUsedDevices(String adminToken, int topN, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         if (topN <= 0 || topN > 100) {
             throw new BusinessException("无效的Top N值！请在1到100之间。");
         }
-        validateTimeRangeRequest(request);
-        List<statisticData> dataList = statisticDao.getTopUsedDevices(topN, request.getStartDate(), request.getEndDate());
-        return convertToDeviceUsageStatsList(dataList);
+        validateTimeRangeRequest(request, !topNReady());
+        if (topNReady()) {
+            List<statisticData.DeviceUsageStats> resultList = new ArrayList<>();
+            for (HeavyHitterSketch.HeavyHitter hitter : topNStore.topDevices(request.getStartDate(), request.getEndDate(), topN)) {
+                Device device = topNStore.getDevice(hitter.getItem());
+                statisticData.DeviceUsageStats stats = new statisticData.DeviceUsageStats(hitter.getItem(),
+                        device != null ? device.getDeviceCode() : null,
+                        device != null ? device.getDeviceName() : null,
+                        (int) hitter.getCount(), null);
+                stats.setCategoryName(device != null ? device.getCategoryName() : null);
+                resultList.add(stats);
+            }
+            return resultList;
+        }
+        StatisticRows.DeviceUsageRows rows = statisticDao.getTopUsedDevices(topN, request.getStartDate(), request.getEndDate());
+        return rows != null ? rows.asList() : new ArrayList<>();
     }
 
     @Override
     public List<statisticData.UserActivityStats> getTopActiveUsers(String adminToken, int topN, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         if (topN <= 0 || topN > 100) {
             throw new BusinessException("无效的Top N值！请在1到100之间。");
         }
-        validateTimeRangeRequest(request);
-        List<statisticData> dataList = statisticDao.getTopActiveUsers(topN, request.getStartDate(), request.getEndDate());
-        return convertToUserActivityStatsList(dataList);
+        validateTimeRangeRequest(request, !topNReady());
+        if (topNReady()) {
+            List<statisticData.UserActivityStats> resultList = new ArrayList<>();
+            for (HeavyHitterSketch.HeavyHitter hitter : topNStore.topUsers(request.getStartDate(), request.getEndDate(), topN)) {
+                User user = topNStore.getUser(hitter.getItem());
+                statisticData.UserActivityStats stats = new statisticData.UserActivityStats();
+                stats.setUserId(hitter.getItem());
+                if (user != null) {
+                    stats.setUsername(user.getUsername());
+                    stats.setRealName(user.getRealName());
+                    stats.setUserRole(user.getUserRole());
+                    stats.setDepartment(user.getDepartment());
+                }
+                stats.setTotalReservations((int) hitter.getCount());
+                resultList.add(stats);
+            }
+            return resultList;
+        }
+        StatisticRows.UserActivityRows rows = statisticDao.getTopActiveUsers(topN, request.getStartDate(), request.getEndDate());
+        return rows != null ? rows.asList() : new ArrayList<>();
     }
 
     @Override
-    public Map<String, Object> getDeviceIdleRate(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
-        return statisticDao.getDeviceIdleRate(deviceId, request.getStartDate(), request.getEndDate());
+    public statisticData.UtilizationReport getDeviceIdleRate(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !factsReady());
+        if (factsReady()) {
+            return computeUtilization(deviceId, request);
+        }
+        Map<String, Object> data = statisticDao.getDeviceIdleRate(deviceId, request.getStartDate(), request.getEndDate());
+        return toUtilizationReport(data, deviceId, request);
     }
 
     @Override
-    public List<statisticData> getDeviceFailureRate(String adminToken) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        return statisticDao.getDeviceFailureRate();
+    public List<statisticData.RepairStats> getDeviceFailureRate(String adminToken) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        StatisticRows.RepairRows rows = statisticDao.getDeviceFailureRate();
+        return rows != null ? rows.asList() : new ArrayList<>();
     }
 
     @Override
-    public Map<String, Object> getResourceUtilization(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
-        return statisticDao.getResourceUtilization(request.getStartDate(), request.getEndDate());
+    public List<statisticData.DeviceReliability> getDeviceReliability(String adminToken, List<Integer> deviceIds) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            throw new BusinessException("设备ID列表不能为空！");
+        }
+        if (reliabilityModel == null) {
+            throw new BusinessException("设备可靠性模型未启用！");
+        }
+        return reliabilityModel.query(deviceIds);
+    }
+
+    @Override
+    public statisticData.UtilizationReport getResourceUtilization(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !factsReady() && !rollupReady());
+        if (factsReady()) {
+            return computeUtilization(null, request);
+        }
+        if (rollupReady()) {
+            return rollupStore.resourceUtilization(request.getStartDate(), request.getEndDate());
+        }
+        Map<String, Object> data = statisticDao.getResourceUtilization(request.getStartDate(), request.getEndDate());
+        return toUtilizationReport(data, null, request);
+    }
+
+    /**
+     * 基于预约事实表计算利用率
+     * 取与区间有交集的已批准/已完成预约，交给扫描线引擎合并重叠区间
+     */
+    private statisticData.UtilizationReport computeUtilization(Integer deviceId, statisticData.TimeRangeRequest request) {
+        int[] rows = factStore.selectOverlapping(request.getStartDate(), request.getEndDate());
+        int deviceCount;
+        if (deviceId != null) {
+            rows = factStore.filterDevice(rows, deviceId);
+            deviceCount = 1;
+        } else {
+            deviceCount = factStore.deviceCount(null);
+        }
+        DeviceIntervals intervals = factStore.occupiedIntervals(rows, OCCUPYING_STATUSES, request.getStartDate(), request.getEndDate());
+        return UtilizationEngine.compute(intervals, deviceId, deviceCount, request.getStartDate(), request.getEndDate());
+    }
+
+    /** 数据库返回的利用率 Map 转为 UtilizationReport（兼容两种键名） */
+    private statisticData.UtilizationReport toUtilizationReport(Map<String, Object> data, Integer deviceId, statisticData.TimeRangeRequest request) {
+        statisticData.UtilizationReport report = new statisticData.UtilizationReport();
+        report.setDeviceId(deviceId);
+        report.setStartDate(request.getStartDate());
+        report.setEndDate(request.getEndDate());
+        if (data == null) {
+            return report;
+        }
+        report.setDeviceCount((int) numberOf(data, "deviceCount", deviceId != null ? 1 : 0));
+        report.setCapacityHours(numberOf(data, "totalCapacityHours", numberOf(data, "totalHours", 0)));
+        double idleHours = numberOf(data, "idleHours", -1);
+        double busyHours = numberOf(data, "usedHours", idleHours >= 0 ? report.getCapacityHours() - idleHours : 0);
+        report.setBusyHours(busyHours);
+        return report;
+    }
+
+    private static double numberOf(Map<String, Object> data, String key, double defaultValue) {
+        Object value = data.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
     }
 
     @Override
     public statisticData getMonthlyReport(String adminToken, int year, int month) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         if (year < 2000 || year > 2100 || month < 1 || month > 12) {
             throw new BusinessException("无效的年份或月份！");
         }
-        return statisticDao.getMonthlyReport(year, month);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month, 1);
+        return snapshotOrBuild(ReportSnapshotStore.monthlyKey(year, month), cal.getTime(), () -> buildMonthlyReport(year, month));
     }
 
     @Override
     public statisticData getYearlyReport(String adminToken, int year) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         if (year < 2000 || year > 2100) {
             throw new BusinessException("无效的年份！");
         }
-        return statisticDao.getYearlyReport(year);
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year + 1, Calendar.JANUARY, 1);
+        return snapshotOrBuild(ReportSnapshotStore.yearlyKey(year), cal.getTime(), () -> buildYearlyReport(year));
+    }
+
+    @Override
+    public int backfillReportSnapshots(String adminToken, int fromYear) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.MANAGE_STATS);
+        if (fromYear < 2000 || fromYear > 2100) {
+            throw new BusinessException("无效的年份！");
+        }
+        if (snapshotStore == null) {
+            throw new BusinessException("未配置报表快照目录！");
+        }
+        ReportSnapshotBackfillJob job = new ReportSnapshotBackfillJob(snapshotStore, new ReportSnapshotBackfillJob.ReportSource() {
+            @Override
+            public statisticData monthly(int year, int month) {
+                return buildMonthlyReport(year, month);
+            }
+
+            @Override
+            public statisticData yearly(int year) {
+                return buildYearlyReport(year);
+            }
+        }, fromYear);
+        job.run();
+        return job.getGenerated();
+    }
+
+    /**
+     * 已结束的周期优先读取快照，没有快照时实时计算并保存；进行中的周期始终实时计算
+     * @param periodEnd 周期结束时间（不含）
+     */
+    private statisticData snapshotOrBuild(String key, Date periodEnd, Supplier<statisticData> builder) {
+        if (snapshotStore == null || !snapshotStore.isClosed(periodEnd)) {
+            return builder.get();
+        }
+        statisticData snapshot = snapshotStore.load(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        statisticData report = builder.get();
+        snapshotStore.save(key, report);
+        return report;
+    }
+
+    private statisticData buildMonthlyReport(int year, int month) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, month - 1, 1);
+        Date start = cal.getTime();
+        cal.add(Calendar.MONTH, 1);
+        return buildReport(() -> statisticDao.getMonthlyReport(year, month), "day", start, cal.getTime());
+    }
+
+    private statisticData buildYearlyReport(int year) {
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(year, Calendar.JANUARY, 1);
+        Date start = cal.getTime();
+        cal.add(Calendar.YEAR, 1);
+        return buildReport(() -> statisticDao.getYearlyReport(year), "month", start, cal.getTime());
+    }
+
+    /**
+     * 并行生成月度/年度报告
+     * DAO汇总报告与设备使用、预约趋势、报修、用户活跃度各部分并发查询后合并，
+     * 超时或失败的部分记入 missingParts，其余部分照常返回
+     */
+    private statisticData buildReport(Callable<statisticData> summaryQuery, String trendPeriod, Date start, Date end) {
+        ReportExecutor.Batch batch = reportExecutor.newBatch();
+        ReportExecutor.Part<statisticData> summary = batch.add("summary", summaryQuery);
+        ReportExecutor.Part<StatisticRows.DeviceUsageRows> usage = batch.add("deviceUsage", () -> loadDeviceUsageStats(start, end));
+        ReportExecutor.Part<StatisticRows.TrendRows> trend = batch.add("reservationTrend", () -> loadReservationTrend(trendPeriod, start, end));
+        ReportExecutor.Part<StatisticRows.RepairRows> repairs = batch.add("repairStats", () -> loadRepairStats(start, end));
+        ReportExecutor.Part<StatisticRows.UserActivityRows> users = batch.add("userActivity", () -> loadUserActivityStats(start, end));
+        batch.await();
+
+        statisticData report = summary.get() != null ? summary.get() : new statisticData();
+        report.setDeviceUsageStats(usage.get() != null ? usage.get().asList() : null);
+        report.setReservationTrends(trend.get() != null ? trend.get().asList() : null);
+        report.setRepairStats(repairs.get() != null ? repairs.get().asList() : null);
+        report.setUserActivityStats(users.get() != null ? users.get().asList() : null);
+        report.setMissingParts(new ArrayList<>(batch.getMissingParts()));
+        return report;
     }
 
     @Override
     public int clearStatisticsCache(String adminToken) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_STATS);
+        if (engine != null) {
+            engine.clear();
+        }
+        if (snapshotStore != null) {
+            snapshotStore.clear();
+        }
         return statisticDao.clearStatisticsCache();
     }
 
+    /**
+     * 定时任务调用
+     * 启用统计引擎后，聚合已由事件实时维护，这里只做偏差检测，发现偏差才全量重建
+     */
     @Override
     public void updateStatisticsCache() throws DAOException {
+        if (engine == null) {
+            statisticDao.updateStatisticsCache();
+            return;
+        }
+        if (engine.refreshIfDrifted()) {
+            statisticDao.updateStatisticsCache();
+        }
+    }
+
+    @Override
+    public void rebuildStatisticsCache(String adminToken) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.MANAGE_STATS);
+        if (engine != null) {
+            engine.rebuild();
+        }
         statisticDao.updateStatisticsCache();
     }
 
@@ -143,36 +420,50 @@ public class StatisticServiceImpl implements StatisticService {
      * 按设备类型统计使用情况
      * 实现逻辑：
      * 1. 调用DAO获取所有设备的使用统计
-     * 2. 使用Java Stream API按设备类型对统计数据进行分组
-     * 3. 对每个分组，汇总使用次数，并计算其占总使用次数的百分比
-     * 4. 将结果封装到 PieChartData 对象中返回
+     * 2. 逐行按设备类型汇总使用次数，同时累计总使用次数
+     * 3. 计算每种类型占总使用次数的百分比，封装到 PieChartData 对象中返回
      */
     @Override
     public List<statisticData.PieChartData> getUsageByDeviceType(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !rollupReady() && !factsReady());
+
+        if (factsReady()) {
+            int[] rows = factStore.selectByStart(request.getStartDate(), request.getEndDate());
+            long[] counts = factStore.countBy(ReservationFactStore.Column.CATEGORY, rows);
+            List<statisticData.PieChartData> resultList = new ArrayList<>();
+            for (int code = 0; code < counts.length; code++) {
+                if (counts[code] == 0) continue;
+                statisticData.PieChartData dataPoint = new statisticData.PieChartData();
+                dataPoint.setName(factStore.decode(ReservationFactStore.Column.CATEGORY, code));
+                dataPoint.setValue(counts[code]);
+                dataPoint.setPercentage((double) counts[code] / rows.length * 100);
+                resultList.add(dataPoint);
+            }
+            return resultList;
+        }
 
         // 1. 从DAO获取所有设备的使用统计
-        List<statisticData.DeviceUsageStats> statsList = getDeviceUsageStats(adminToken, request);
-
-        // 2. 按设备类型分组并汇总
-        Map<String, Integer> typeUsageMap = statsList.stream()
-                .collect(Collectors.groupingBy(
-                        statisticData.DeviceUsageStats::getCategoryName,
-                        Collectors.summingInt(statisticData.DeviceUsageStats::getTotalReservations)
-                ));
-
-        // 3. 计算总数以计算百分比
-        int totalUsage = typeUsageMap.values().stream().mapToInt(Integer::intValue).sum();
+        StatisticRows.DeviceUsageRows rows = loadDeviceUsageStats(request.getStartDate(), request.getEndDate());
+
+        // 2. 按设备类型分组并汇总，同时累计总数以计算百分比
+        Map<String, long[]> typeUsageMap = new HashMap<>();
+        long totalUsage = 0;
+        for (int row = 0; row < rows.size(); row++) {
+            int reservations = Math.max(0, rows.totalReservations(row));
+            typeUsageMap.computeIfAbsent(rows.categoryName(row), k -> new long[1])[0] += reservations;
+            totalUsage += reservations;
+        }
 
-        // 4. 转换为 PieChartData 列表
+        // 3. 转换为 PieChartData 列表
         List<statisticData.PieChartData> resultList = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : typeUsageMap.entrySet()) {
+        for (Map.Entry<String, long[]> entry : typeUsageMap.entrySet()) {
+            long usage = entry.getValue()[0];
             statisticData.PieChartData dataPoint = new statisticData.PieChartData();
             dataPoint.setName(entry.getKey());
-            dataPoint.setValue(entry.getValue());
+            dataPoint.setValue(usage);
             if (totalUsage > 0) {
-                dataPoint.setPercentage((double) entry.getValue() / totalUsage * 100);
+                dataPoint.setPercentage((double) usage / totalUsage * 100);
             } else {
                 dataPoint.setPercentage(0.0);
             }
@@ -185,113 +476,169 @@ public class StatisticServiceImpl implements StatisticService {
     /**
      * 统计用户预约时段分布
      * 实现逻辑：
-     * 1. 调用DAO获取按天分组的预约趋势数据。
-     * 2. 遍历每个预约记录，根据开始时间的小时数判断其所属时段。
-     * 3. 对每个时段的预约数进行累加。
-     * 4. 将结果封装到 ChartDataPoint 对象中返回。
+     * 1. 统计开始时间落在查询范围内的预约按开始小时的分布：预约事实表已加载时扫描列存，否则由DAO按小时分组统计。
+     * 2. 按每条预约自身开始时间的小时数统计（按天的趋势数据只有日期起点，无法区分时段）。
+     * 3. 每6小时合并为一个时段，按时段顺序封装到 ChartDataPoint 对象中返回。
      */
     @Override
     public List<statisticData.ChartDataPoint> getReservationTimeDistribution(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
-
-        // 确保按天分组，以便获取更细粒度的数据
-        request.setGroupBy("day");
-        List<statisticData.ReservationTrend> trendList = getReservationTrend(adminToken, request);
-
-        // 时段计数器
-        Map<String, Integer> timeSlotCounter = new HashMap<>();
-        timeSlotCounter.put("00:00-06:00", 0);
-        timeSlotCounter.put("06:00-12:00", 0);
-        timeSlotCounter.put("12:00-18:00", 0);
-        timeSlotCounter.put("18:00-24:00", 0);
-
-        // 遍历预约数据，统计时段
-        for (statisticData.ReservationTrend trend : trendList) {
-            Date startTime = trend.getStartDate();
-            if (startTime == null) continue;
-
-            Calendar cal = Calendar.getInstance();
-            cal.setTime(startTime);
-            int hour = cal.get(Calendar.HOUR_OF_DAY);
-
-            String timeSlot;
-            if (hour >= 0 && hour < 6) {
-                timeSlot = "00:00-06:00";
-            } else if (hour >= 6 && hour < 12) {
-                timeSlot = "06:00-12:00";
-            } else if (hour >= 12 && hour < 18) {
-                timeSlot = "12:00-18:00";
-            } else {
-                timeSlot = "18:00-24:00";
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !factsReady());
+
+        String category = ValidationUtil.isNotEmpty(request.getDeviceType()) ? request.getDeviceType() : null;
+        long[] hourCounts;
+        if (factsReady()) {
+            int[] rows = factStore.selectByStart(request.getStartDate(), request.getEndDate());
+            if (category != null) {
+                rows = factStore.filter(rows, ReservationFactStore.Column.CATEGORY, category);
             }
-            timeSlotCounter.put(timeSlot, timeSlotCounter.get(timeSlot) + trend.getTotalReservations());
+            hourCounts = factStore.countByStartHour(rows);
+        } else {
+            hourCounts = statisticDao.countReservationsByStartHour(request.getStartDate(), request.getEndDate(), category);
         }
 
-        // 转换为 ChartDataPoint 列表
-        List<statisticData.ChartDataPoint> resultList = new ArrayList<>();
-        for (Map.Entry<String, Integer> entry : timeSlotCounter.entrySet()) {
-            statisticData.ChartDataPoint dataPoint = new statisticData.ChartDataPoint();
-            dataPoint.setLabel(entry.getKey());
-            dataPoint.setValue(entry.getValue());
-            resultList.add(dataPoint);
+        String[] timeSlots = {"00:00-06:00", "06:00-12:00", "12:00-18:00", "18:00-24:00"};
+        long[] slotCounts = new long[timeSlots.length];
+        for (int hour = 0; hour < 24; hour++) {
+            slotCounts[hour / 6] += hourCounts[hour];
         }
 
+        List<statisticData.ChartDataPoint> resultList = new ArrayList<>();
+        for (int i = 0; i < timeSlots.length; i++) {
+            resultList.add(new statisticData.ChartDataPoint(timeSlots[i], (int) slotCounts[i]));
+        }
         return resultList;
     }
 
+    /**
+     * 获取周几 x 小时的预约占用热力图
+     * 实现逻辑：
+     * 1. 从预约事实表中选出开始时间落在查询范围内的预约，再按设备或设备类型过滤。
+     * 2. 一次扫描：每条预约计入开始时段；已批准/已完成的预约按整点切分后计入占用时长。
+     * 3. 用同一时间范围的各时段总时长乘以设备数作为容量，计算占用率。
+     */
+    @Override
+    public statisticData.ReservationHeatmap getReservationHeatmap(String adminToken, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, false);
+        requireFacts();
+
+        String category = ValidationUtil.isNotEmpty(request.getDeviceType()) ? request.getDeviceType() : null;
+        int[] rows = factStore.selectByStart(request.getStartDate(), request.getEndDate());
+        int deviceCount;
+        if (deviceId != null) {
+            rows = factStore.filterDevice(rows, deviceId);
+            deviceCount = 1;
+        } else {
+            if (category != null) {
+                rows = factStore.filter(rows, ReservationFactStore.Column.CATEGORY, category);
+            }
+            deviceCount = factStore.deviceCount(category);
+        }
+
+        HourOfWeekHeatmap heatmap = factStore.hourOfWeek(rows, OCCUPYING_STATUSES, request.getStartDate(), request.getEndDate());
+        HourOfWeekHeatmap capacity = new HourOfWeekHeatmap(factStore.getZone());
+        capacity.addInterval(request.getStartDate().getTime(), request.getEndDate().getTime());
+
+        statisticData.ReservationHeatmap result = new statisticData.ReservationHeatmap();
+        result.setDeviceId(deviceId);
+        result.setCategoryName(deviceId == null ? category : null);
+        result.setStartDate(request.getStartDate());
+        result.setEndDate(request.getEndDate());
+        result.setDeviceCount(deviceCount);
+        result.setOccupiedHours(heatmap.toOccupiedHours());
+        result.setOccupancyRate(heatmap.toOccupancyRate(capacity, deviceCount));
+        result.setReservationStarts(heatmap.toStarts());
+        return result;
+    }
+
+    @Override
+    public statisticData.DurationPercentiles getDurationPercentiles(String adminToken, String metric, Integer deviceId, statisticData.TimeRangeRequest request) throws BusinessException {
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, false);
+        DurationPercentileStore.Metric parsed;
+        try {
+            parsed = DurationPercentileStore.Metric.valueOf(String.valueOf(metric).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的指标！请使用 'duration', 'overrun', 或 'repair'。");
+        }
+        if (percentileStore == null || !percentileStore.isLoaded()) {
+            throw new BusinessException("时长分位数统计未加载，请先重建统计缓存！");
+        }
+        String category = ValidationUtil.isNotEmpty(request.getDeviceType()) ? request.getDeviceType() : null;
+        return percentileStore.percentiles(parsed, deviceId, category, request.getStartDate(), request.getEndDate());
+    }
+
+    private void requireFacts() throws BusinessException {
+        if (!factsReady()) {
+            throw new BusinessException("预约明细统计未加载，请先重建统计缓存！");
+        }
+    }
+
     /**
      * 对比多个设备的性能指标
      * 实现逻辑：
      * 1. 对输入的设备ID列表进行非空校验。
-     * 2. 分别调用DAO获取这些设备的使用统计和报修统计。
-     * 3. 遍历每个设备ID，从两个统计列表中查找对应数据。
+     * 2. 并行调用DAO获取这些设备的使用统计和报修统计，超时的部分记入 missingParts。
+     * 3. 遍历每个设备ID，在两个统计行集中按设备ID定位对应行。
      * 4. 计算使用率（使用时长/总时长）和故障率（报修次数/使用次数）。
-     * 5. 将计算结果封装到Map中并返回
+     * 5. 若启用了可靠性模型，附加MTBF、MTTR等累计可靠性指标。
+     * 6. 将计算结果封装到Map中并返回
      */
     @Override
     public List<Map<String, Object>> compareDevicesPerformance(String adminToken, List<Integer> deviceIds, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
         if (deviceIds == null || deviceIds.isEmpty()) {
             throw new BusinessException("设备ID列表不能为空！");
         }
         validateTimeRangeRequest(request);
 
-        // 1. 获取设备使用和报修的原始数据
-        List<statisticData.DeviceUsageStats> usageStatsList = getDeviceUsageStats(adminToken, request);
-        List<statisticData.RepairStats> repairStatsList = getRepairStats(adminToken, request);
-
-        // 2. 转换为Map以便快速查找
-        Map<Integer, statisticData.DeviceUsageStats> usageMap = usageStatsList.stream()
-                .collect(Collectors.toMap(statisticData.DeviceUsageStats::getDeviceId, s -> s));
-        Map<Integer, statisticData.RepairStats> repairMap = repairStatsList.stream()
-                .collect(Collectors.toMap(statisticData.RepairStats::getDeviceId, s -> s));
+        // 1. 并行获取设备使用和报修的原始数据，缺失的部分按空数据处理
+        ReportExecutor.Batch batch = reportExecutor.newBatch();
+        ReportExecutor.Part<StatisticRows.DeviceUsageRows> usagePart = batch.add("deviceUsage", () -> loadDeviceUsageStats(request.getStartDate(), request.getEndDate()));
+        ReportExecutor.Part<StatisticRows.RepairRows> repairPart = batch.add("repairStats", () -> loadRepairStats(request.getStartDate(), request.getEndDate()));
+        batch.await();
+        StatisticRows.DeviceUsageRows usageRows = usagePart.get() != null ? usagePart.get() : new StatisticRows.DeviceUsageRows(0);
+        StatisticRows.RepairRows repairRows = repairPart.get() != null ? repairPart.get() : new StatisticRows.RepairRows(0);
 
-        // 3. 计算并构建结果
+        // 2. 按设备ID定位行号，计算并构建结果
+        long totalHoursInPeriod = (request.getEndDate().getTime() - request.getStartDate().getTime()) / (1000 * 60 * 60);
         List<Map<String, Object>> resultList = new ArrayList<>();
         for (Integer deviceId : deviceIds) {
-            statisticData.DeviceUsageStats usageStats = usageMap.get(deviceId);
-            statisticData.RepairStats repairStats = repairMap.get(deviceId);
+            int usageRow = deviceId != null ? usageRows.indexOf(deviceId) : -1;
+            int repairRow = deviceId != null ? repairRows.indexOf(deviceId) : -1;
 
             Map<String, Object> devicePerformance = new HashMap<>();
             devicePerformance.put("deviceId", deviceId);
-            devicePerformance.put("deviceName", usageStats != null ? usageStats.getDeviceName() : "未知设备");
+            devicePerformance.put("deviceName", usageRow >= 0 ? usageRows.deviceName(usageRow) : "未知设备");
 
             // 计算使用率 (使用小时数 / 总可用小时数)
             double usageRate = 0.0;
-            long totalHoursInPeriod = (request.getEndDate().getTime() - request.getStartDate().getTime()) / (1000 * 60 * 60);
-            if (usageStats != null && totalHoursInPeriod > 0) {
-                usageRate = (usageStats.getTotalHours() != null ? usageStats.getTotalHours() : 0.0) / totalHoursInPeriod;
+            if (usageRow >= 0 && totalHoursInPeriod > 0 && !Double.isNaN(usageRows.totalHours(usageRow))) {
+                usageRate = usageRows.totalHours(usageRow) / totalHoursInPeriod;
             }
             devicePerformance.put("usageRate", usageRate);
 
             // 计算故障率 (报修次数 / 使用次数)
             double failureRate = 0.0;
-            if (usageStats != null && usageStats.getTotalReservations() != null && usageStats.getTotalReservations() > 0) {
-                int repairCount = (repairStats != null && repairStats.getTotalRepairs() != null) ? repairStats.getTotalRepairs() : 0;
-                failureRate = (double) repairCount / usageStats.getTotalReservations();
+            if (usageRow >= 0 && usageRows.totalReservations(usageRow) > 0) {
+                int repairCount = repairRow >= 0 ? Math.max(0, repairRows.totalRepairs(repairRow)) : 0;
+                failureRate = (double) repairCount / usageRows.totalReservations(usageRow);
             }
             devicePerformance.put("failureRate", failureRate);
+            if (!batch.isComplete()) {
+                devicePerformance.put("missingParts", batch.getMissingParts());
+            }
+
+            // 累计可靠性指标直接取自模型，不再额外查询
+            if (reliabilityModel != null) {
+                statisticData.DeviceReliability reliability = reliabilityModel.get(deviceId);
+                if (reliability != null) {
+                    devicePerformance.put("mtbfHours", reliability.getMtbfHours());
+                    devicePerformance.put("mttrHours", reliability.getMttrHours());
+                    devicePerformance.put("recentFailureRate", reliability.getRecentFailureRate());
+                }
+            }
 
             resultList.add(devicePerformance);
         }
@@ -303,73 +650,142 @@ public class StatisticServiceImpl implements StatisticService {
      * 获取用户预约行为统计
      * 实现逻辑：
      * 1. 调用DAO获取用户活跃度统计数据
-     * 2. 按用户角色对数据进行分组
-     * 3. 对每个角色分组，计算平均预约次数、平均使用设备数等指标
+     * 2. 逐行按用户角色累计用户数、预约数、使用设备数和活跃用户数
+     * 3. 对每个角色，计算平均预约次数、平均使用设备数等指标
      * 4. 将计算结果封装到Map中并返回
      */
     @Override
     public List<Map<String, Object>> getUserReservationBehavior(String adminToken, statisticData.TimeRangeRequest request) throws BusinessException, DAOException {
-        authService.checkPermission(adminToken, "admin");
-        validateTimeRangeRequest(request);
-
-        // 1. 获取用户活跃度原始数据
-        List<statisticData.UserActivityStats> userStatsList = getUserActivityStats(adminToken, request);
+        authService.checkPermission(adminToken, Permission.VIEW_STATS);
+        validateTimeRangeRequest(request, !factsReady());
 
-        // 如果有角色过滤，则先过滤
-        if (ValidationUtil.isNotEmpty(request.getUserRole())) {
-            userStatsList = userStatsList.stream()
-                    .filter(stat -> request.getUserRole().equals(stat.getUserRole()))
-                    .collect(Collectors.toList());
+        if (factsReady()) {
+            return getUserReservationBehaviorFromFacts(request);
         }
 
-        // 2. 按用户角色分组
-        Map<String, List<statisticData.UserActivityStats>> roleGroupMap = userStatsList.stream()
-                .collect(Collectors.groupingBy(statisticData.UserActivityStats::getUserRole));
+        // 1. 获取用户活跃度原始数据
+        StatisticRows.UserActivityRows rows = loadUserActivityStats(request.getStartDate(), request.getEndDate());
+
+        // 2. 按用户角色分组累计：[用户数, 预约数, 使用设备数, 活跃用户数]，如有角色过滤则跳过其他角色
+        Map<String, long[]> roleGroupMap = new HashMap<>();
+        for (int row = 0; row < rows.size(); row++) {
+            String role = rows.userRole(row);
+            if (ValidationUtil.isNotEmpty(request.getUserRole()) && !request.getUserRole().equals(role)) continue;
+            long[] acc = roleGroupMap.computeIfAbsent(role, k -> new long[4]);
+            int reservations = Math.max(0, rows.totalReservations(row));
+            acc[0]++;
+            acc[1] += reservations;
+            acc[2] += Math.max(0, rows.devicesUsed(row));
+            // 活跃用户：预约数 > 0
+            if (reservations > 0) acc[3]++;
+        }
 
         // 3. 计算每个角色的行为指标
         List<Map<String, Object>> resultList = new ArrayList<>();
-        for (Map.Entry<String, List<statisticData.UserActivityStats>> entry : roleGroupMap.entrySet()) {
+        for (Map.Entry<String, long[]> entry : roleGroupMap.entrySet()) {
             String role = entry.getKey();
-            List<statisticData.UserActivityStats> statsInRole = entry.getValue();
+            long[] acc = entry.getValue();
 
             Map<String, Object> behaviorStats = new HashMap<>();
             behaviorStats.put("userRole", role);
             behaviorStats.put("userRoleDisplayName", getRoleDisplayName(role));
-            behaviorStats.put("userCount", statsInRole.size());
-
-            // 计算平均值
-            double avgReservations = statsInRole.stream()
-                    .mapToInt(s -> s.getTotalReservations() != null ? s.getTotalReservations() : 0)
-                    .average()
-                    .orElse(0.0);
-            behaviorStats.put("avgReservations", avgReservations);
-
-            double avgDevicesUsed = statsInRole.stream()
-                    .mapToInt(s -> s.getDevicesUsed() != null ? s.getDevicesUsed() : 0)
-                    .average()
-                    .orElse(0.0);
-            behaviorStats.put("avgDevicesUsed", avgDevicesUsed);
-            
-            // 计算活跃用户数 (例如，预约数 > 0)
-            long activeUserCount = statsInRole.stream()
-                    .filter(s -> s.getTotalReservations() != null && s.getTotalReservations() > 0)
-                    .count();
-            behaviorStats.put("activeUserCount", activeUserCount);
-            behaviorStats.put("activityRate", statsInRole.size() > 0 ? (double) activeUserCount / statsInRole.size() : 0.0);
-
+            behaviorStats.put("userCount", (int) acc[0]);
+            behaviorStats.put("avgReservations", (double) acc[1] / acc[0]);
+            behaviorStats.put("avgDevicesUsed", (double) acc[2] / acc[0]);
+            behaviorStats.put("activeUserCount", acc[3]);
+            behaviorStats.put("activityRate", (double) acc[3] / acc[0]);
             resultList.add(behaviorStats);
         }
 
         return resultList;
     }
 
+    /**
+     * 基于预约事实表计算各角色的用户行为指标
+     * 用户数取已登记的该角色用户总数，与DAO路径的口径一致
+     */
+    private List<Map<String, Object>> getUserReservationBehaviorFromFacts(statisticData.TimeRangeRequest request) {
+        int[] rows = factStore.selectByStart(request.getStartDate(), request.getEndDate());
+        long[][] activity = factStore.userActivityByRole(rows);
+        long[] registered = factStore.registeredUsersByRole();
+
+        List<Map<String, Object>> resultList = new ArrayList<>();
+        for (int code = 0; code < registered.length; code++) {
+            String role = factStore.decode(ReservationFactStore.Column.ROLE, code);
+            if (ValidationUtil.isNotEmpty(request.getUserRole()) && !request.getUserRole().equals(role)) continue;
+            long[] stats = code < activity.length ? activity[code] : new long[3];
+            long userCount = Math.max(registered[code], stats[0]);
+            if (userCount == 0) continue;
+
+            Map<String, Object> behaviorStats = new HashMap<>();
+            behaviorStats.put("userRole", role);
+            behaviorStats.put("userRoleDisplayName", getRoleDisplayName(role));
+            behaviorStats.put("userCount", (int) userCount);
+            behaviorStats.put("avgReservations", (double) stats[2] / userCount);
+            behaviorStats.put("avgDevicesUsed", (double) stats[1] / userCount);
+            behaviorStats.put("activeUserCount", stats[0]);
+            behaviorStats.put("activityRate", (double) stats[0] / userCount);
+            resultList.add(behaviorStats);
+        }
+        return resultList;
+    }
+
+    // === 数据加载（不做权限校验，供公开方法和并行报表复用） ===
+
+    private StatisticRows.DeviceUsageRows loadDeviceUsageStats(Date start, Date end) {
+        if (rollupReady()) {
+            return rollupStore.deviceUsage(start, end);
+        }
+        StatisticRows.DeviceUsageRows rows = statisticDao.getDeviceUsageStats(start, end);
+        return rows != null ? rows : new StatisticRows.DeviceUsageRows(0);
+    }
+
+    private StatisticRows.TrendRows loadReservationTrend(String period, Date start, Date end) {
+        if (rollupReady()) {
+            return rollupStore.trend(period, start, end);
+        }
+        StatisticRows.TrendRows rows = statisticDao.getReservationTrend(period, start, end);
+        return rows != null ? rows : new StatisticRows.TrendRows(0);
+    }
+
+    private StatisticRows.RepairRows loadRepairStats(Date start, Date end) {
+        StatisticRows.RepairRows rows = statisticDao.getRepairStats(start, end);
+        return rows != null ? rows : new StatisticRows.RepairRows(0);
+    }
+
+    private StatisticRows.UserActivityRows loadUserActivityStats(Date start, Date end) {
+        StatisticRows.UserActivityRows rows = statisticDao.getUserUsageStats(start, end);
+        if (rows == null) {
+            return new StatisticRows.UserActivityRows(0);
+        }
+        if (rollupReady()) {
+            // 使用设备数取自汇总表的 HyperLogLog 摘要
+            Map<Integer, Integer> devicesUsed = rollupStore.devicesUsedByUser(start, end);
+            for (int row = 0; row < rows.size(); row++) {
+                rows.setDevicesUsed(row, devicesUsed.getOrDefault(rows.userId(row), 0));
+            }
+        }
+        return rows;
+    }
+
     private void validateTimeRangeRequest(statisticData.TimeRangeRequest request) throws BusinessException {
+        validateTimeRangeRequest(request, true);
+    }
+
+    /**
+     * 校验时间范围
+     * @param limitToOneYear 是否限制查询跨度不超过一年（直接聚合原始预约的查询才需要限制）
+     */
+    private void validateTimeRangeRequest(statisticData.TimeRangeRequest request, boolean limitToOneYear) throws BusinessException {
         if (request == null || request.getStartDate() == null || request.getEndDate() == null) {
             throw new BusinessException("开始时间和结束时间不能为空！");
         }
         if (request.getStartDate().after(request.getEndDate())) {
             throw new BusinessException("开始时间不能晚于结束时间！");
         }
+        if (!limitToOneYear) {
+            return;
+        }
         Calendar cal = Calendar.getInstance();
         cal.setTime(request.getStartDate());
         cal.add(Calendar.YEAR, 1);
@@ -378,30 +794,6 @@ public class StatisticServiceImpl implements StatisticService {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<statisticData.DeviceUsageStats> convertToDeviceUsageStatsList(List<statisticData> dataList) {
-        if (dataList == null) return new ArrayList<>();
-        return (List<statisticData.DeviceUsageStats>) (List<?>) dataList;
-    }
-
-    @SuppressWarnings("unchecked")
-    private List<statisticData.ReservationTrend> convertToReservationTrendList(List<statisticData> dataList) {
-        if (dataList == null) return new ArrayList<>();
-        return (List<statisticData.ReservationTrend>) (List<?>) dataList;
-    }
-
-    @SuppressWarnings("unchecked")
-    private List<statisticData.RepairStats> convertToRepairStatsList(List<statisticData> dataList) {
-        if (dataList == null) return new ArrayList<>();
-        return (List<statisticData.RepairStats>) (List<?>) dataList;
-    }
-
-    @SuppressWarnings("unchecked")
-    private List<statisticData.UserActivityStats> convertToUserActivityStatsList(List<statisticData> dataList) {
-        if (dataList == null) return new ArrayList<>();
-        return (List<statisticData.UserActivityStats>) (List<?>) dataList;
-    }
-    
     /**
      * 辅助方法：将角色代码转换为显示名称。
      * @param role 角色代码 (e.g., "admin", "teacher")
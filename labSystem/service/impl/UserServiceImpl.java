@@ -7,7 +7,11 @@ import labSystem.exception.BusinessException;
 
 import labSystem.service.AuthService;
 import labSystem.service.UserService;
-import labSystem.util.MD5Util;
+import labSystem.session.LastLoginWriteBehind;
+import labSystem.session.PasswordHasher;
+import labSystem.session.Permission;
+import labSystem.statistic.StatisticEvent;
+import labSystem.statistic.StatisticEventBus;
 import labSystem.util.ValidationUtil;
 
 import java.util.Date;
@@ -18,10 +22,34 @@ public class UserServiceImpl implements UserService {
 
     private final UserDao userDao;
     private final AuthService authService;
+    private final StatisticEventBus eventBus;
+    private final LastLoginWriteBehind lastLoginWriter;
+    private final PasswordHasher passwordHasher;
 
     public UserServiceImpl(UserDao userDao, AuthService authService) {
+        this(userDao, authService, null);
+    }
+
+    public UserServiceImpl(UserDao userDao, AuthService authService, StatisticEventBus eventBus) {
+        this(userDao, authService, eventBus, null, PasswordHasher.shared());
+    }
+
+    // lastLoginWriter 为空时同步写库
+    public UserServiceImpl(UserDao userDao, AuthService authService, StatisticEventBus eventBus,
+                           LastLoginWriteBehind lastLoginWriter, PasswordHasher passwordHasher) {
         this.userDao = userDao;
         this.authService = authService;
+        this.eventBus = eventBus;
+        this.lastLoginWriter = lastLoginWriter;
+        this.passwordHasher = passwordHasher;
+    }
+
+    // 辅助方法：发布用户变化事件（统计结果缓存据此失效），并使该用户的现有会话重新加载用户信息
+    private void publishUserChange(User user) {
+        authService.invalidateUser(user.getUserId());
+        if (eventBus != null) {
+            eventBus.publish(StatisticEvent.userChanged(user.getUserId(), user.getUserRole()));
+        }
     }
 
     //根据id查找用户
@@ -52,7 +80,7 @@ public class UserServiceImpl implements UserService {
     public List<User> findUsersByRole(String operatorToken, String role) {
 
         //校验管理员身份
-        authService.checkPermission(operatorToken, "admin");
+        authService.checkPermission(operatorToken, Permission.MANAGE_USERS);
 
         //校验入参
         validateRole(role);
@@ -63,7 +91,7 @@ public class UserServiceImpl implements UserService {
     //分页查询
     @Override
     public List<User> findUsersByPage(String operatorToken, int page, int pageSize) {
-        authService.checkPermission(operatorToken, "admin");
+        authService.checkPermission(operatorToken, Permission.MANAGE_USERS);
         if (page <= 0 || pageSize <= 0) {
             throw new BusinessException("页码或每页大小无效！");
         }
@@ -77,7 +105,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public List<User> searchUsers(String operatorToken, Map<String, String> searchCriteria) {
 
-        authService.checkPermission(operatorToken, "admin");
+        authService.checkPermission(operatorToken, Permission.MANAGE_USERS);
         
         //移除所有值为空的条件，确保Map中都是有效的查询条件
         if (searchCriteria != null) {
@@ -96,14 +124,14 @@ public class UserServiceImpl implements UserService {
     //统计用户总数
     @Override
     public long countUsers(String operatorToken){
-        authService.checkPermission(operatorToken, "admin");
+        authService.checkPermission(operatorToken, Permission.MANAGE_USERS);
         return userDao.count();
     }
 
     //管理员创建用户（面向开发者一方创建，与注册用户区分）
     @Override
     public User createUser(String adminToken, User newUser) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_USERS);
         
         if (ValidationUtil.isEmpty(newUser.getUsername()) || ValidationUtil.isEmpty(newUser.getPassword()) ||
             ValidationUtil.isEmpty(newUser.getRealName()) || ValidationUtil.isEmpty(newUser.getUserRole())) {
@@ -127,7 +155,7 @@ public class UserServiceImpl implements UserService {
         }
 
         //密码加密
-        newUser.setPassword(MD5Util.encrypt(newUser.getPassword()));
+        newUser.setPassword(passwordHasher.hash(newUser.getPassword()));
 
         //初始化状态：初始状态为空则置active，否则根据输入填充
         newUser.setStatus(ValidationUtil.isEmpty(newUser.getStatus()) ? "active" : newUser.getStatus());
@@ -141,6 +169,7 @@ public class UserServiceImpl implements UserService {
 
         //返回自增主键（如果daoimpl写好了返回受影响行数，就不能这么写，否则daoimpl做出对应更改）
         newUser.setUserId(newUserId);
+        publishUserChange(newUser);
         
         //返回创建的用户信息，但密码字段清空，防止泄露
         newUser.setPassword(null);
@@ -161,12 +190,12 @@ public class UserServiceImpl implements UserService {
         }
 
         // 权限判断：只能修改自己，或者管理员可以修改任何人
-        if (!"admin".equals(operator.getUserRole()) && operator.getUserId() != dbUser.getUserId()) {
+        if (!authService.hasPermission(operator, Permission.MANAGE_USERS) && operator.getUserId() != dbUser.getUserId()) {
             throw new BusinessException("权限不足，无法修改他人信息！");
         }
 
         // 非管理员不能修改角色和状态
-        if (!"admin".equals(operator.getUserRole())) {
+        if (!authService.hasPermission(operator, Permission.MANAGE_USERS)) {
             userToUpdate.setUserRole(null); // 清空角色，防止被普通用户修改
             userToUpdate.setStatus(null);   // 清空状态，防止被普通用户修改
         }
@@ -191,12 +220,13 @@ public class UserServiceImpl implements UserService {
         
         dbUser.setUpdatedAt(new Date());
         userDao.update(dbUser);
+        publishUserChange(dbUser);
     }
 
     //管理员更改用户状态
     @Override
     public void changeUserStatus(String adminToken, int userId, String newStatus) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_USERS);
         if (userId <= 0 || ValidationUtil.isEmpty(newStatus)) {
             throw new BusinessException("用户ID或状态不能为空！");
         }
@@ -214,12 +244,13 @@ public class UserServiceImpl implements UserService {
         user.setStatus(newStatus);
         user.setUpdatedAt(new Date());
         userDao.update(user);
+        publishUserChange(user);
     }
 
     //管理员重置用户密码
     @Override
     public void resetUserPassword(String adminToken, int userId, String newPassword) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_USERS);
         if (userId <= 0 || ValidationUtil.isEmpty(newPassword)) {
             throw new BusinessException("用户ID或新密码不能为空！");
         }
@@ -234,11 +265,12 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("用户不存在！");
         }
         
-        user.setPassword(MD5Util.encrypt(newPassword));
+        user.setPassword(passwordHasher.hash(newPassword));
         
         user.setUpdatedAt(new Date());
 
         userDao.update(user);
+        authService.invalidateUser(user.getUserId());
     }
 
     //更改自己的密码
@@ -263,19 +295,20 @@ public class UserServiceImpl implements UserService {
             throw new BusinessException("用户不存在！");
         }
 
-        if (!dbUser.getPassword().equals(MD5Util.encrypt(oldPassword))) {
+        if (!passwordHasher.verify(oldPassword, dbUser.getPassword())) {
             throw new BusinessException("原密码错误！");
         }
         
-        dbUser.setPassword(MD5Util.encrypt(newPassword));
+        dbUser.setPassword(passwordHasher.hash(newPassword));
         dbUser.setUpdatedAt(new Date());
         userDao.update(dbUser);
+        authService.invalidateUser(dbUser.getUserId());
     }
 
     //管理员删除用户
     @Override
     public void deleteUser(String adminToken, int userId) {
-        authService.checkPermission(adminToken, "admin");
+        authService.checkPermission(adminToken, Permission.MANAGE_USERS);
         if (userId <= 0) {
             throw new BusinessException("用户ID无效！");
         }
@@ -291,6 +324,7 @@ public class UserServiceImpl implements UserService {
         }
         
         userDao.deleteById(userId);
+        publishUserChange(userToDelete);
     }
 
     //更新用户最后登录时间
@@ -303,6 +337,10 @@ public class UserServiceImpl implements UserService {
         if (user == null) {
             throw new BusinessException("用户不存在！");
         }
+        if (lastLoginWriter != null) {
+            lastLoginWriter.record(user.getUserId(), System.currentTimeMillis());
+            return;
+        }
         user.setLastLoginTime(new Date());
         user.setUpdatedAt(new Date());
         userDao.update(user);
@@ -366,6 +404,7 @@ public class UserServiceImpl implements UserService {
         
         dbUser.setUpdatedAt(new Date());
         userDao.update(dbUser);
+        publishUserChange(dbUser);
     }
     
     /**
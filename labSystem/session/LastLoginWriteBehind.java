@@ -0,0 +1,142 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+import labSystem.dao.UserDao;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 最后登录时间的延迟批量写入
+ * 登录时只在内存中记下时间，同一用户多次登录只保留最新的一次；
+ * 后台每隔几秒把积攒的记录合并成批量 UPDATE 写入，进程退出时再写一次。
+ * 写库失败的记录保留到下一轮重试；刷新期间又有新的登录时，较新的时间留在表中，不会被本轮覆盖掉
+ */
+public class LastLoginWriteBehind {
+
+    public static final String INTERVAL_SECONDS_KEY = "login.writebehind.interval.seconds";
+    public static final String BATCH_SIZE_KEY = "login.writebehind.batch.size";
+
+    private static final Map<UserDao, LastLoginWriteBehind> SHARED = new ConcurrentHashMap<>();
+
+    private final UserDao userDao;
+    private final int batchSize;
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook = new Thread(this::flushQuietly, "last-login-final-flush");
+
+    private final Map<Integer, Long> pending = new ConcurrentHashMap<>();  // 用户ID -> 最后登录时间
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    /**
+     * @param userDao 写入目标
+     * @param intervalMillis 刷新间隔
+     * @param batchSize 每条 UPDATE 最多包含的用户数
+     */
+    public LastLoginWriteBehind(UserDao userDao, long intervalMillis, int batchSize) {
+        this.userDao = userDao;
+        this.batchSize = batchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "last-login-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /** 按配置创建（默认每5秒刷新一次，每批最多500个用户） */
+    public static LastLoginWriteBehind fromConfig(UserDao userDao) {
+        int seconds = Integer.parseInt(DBconfig.getProperty(INTERVAL_SECONDS_KEY, "5").trim());
+        int batchSize = Integer.parseInt(DBconfig.getProperty(BATCH_SIZE_KEY, "500").trim());
+        return new LastLoginWriteBehind(userDao, TimeUnit.SECONDS.toMillis(seconds), batchSize);
+    }
+
+    /**
+     * 进程内共享的实例，每个 UserDao 一个（按配置创建）
+     * 每个实例都有一个刷新线程和一个退出钩子，各服务应共用而不是各自创建
+     */
+    public static LastLoginWriteBehind shared(UserDao userDao) {
+        return SHARED.computeIfAbsent(userDao, LastLoginWriteBehind::fromConfig);
+    }
+
+    /** 记录登录时间，较早的时间不会覆盖已记录的较新时间 */
+    public void record(int userId, long loginTime) {
+        pending.merge(userId, loginTime, Math::max);
+        recorded.increment();
+    }
+
+    /**
+     * 立即写入积攒的记录
+     * 刷新在自身锁内串行执行；某一批写库失败时抛出异常，该批及之后的记录留待下次
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        Map<Integer, Date> batch = new HashMap<>();
+        Map<Integer, Long> taken = new HashMap<>();
+        for (Map.Entry<Integer, Long> entry : pending.entrySet()) {
+            batch.put(entry.getKey(), new Date(entry.getValue()));
+            taken.put(entry.getKey(), entry.getValue());
+            if (batch.size() >= batchSize) {
+                write(batch, taken);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch, taken);
+        }
+    }
+
+    private void write(Map<Integer, Date> batch, Map<Integer, Long> taken) {
+        userDao.batchUpdateLastLogin(batch);
+        written.add(batch.size());
+        // 只移除已写入的值；刷新期间新记录的更晚时间保留到下一轮
+        for (Map.Entry<Integer, Long> entry : taken.entrySet()) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        batch.clear();
+        taken.clear();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("写入最后登录时间失败，稍后重试: " + e.getMessage());
+        }
+    }
+
+    /** 停止后台刷新并写入剩余记录；共享实例停止后，下次 shared 调用会重新创建 */
+    public void shutdown() {
+        SHARED.remove(userDao, this);
+        flusher.shutdownNow();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // 进程已在退出，钩子会自行刷新
+        }
+        flushQuietly();
+    }
+
+    // === 指标 ===
+
+    /** 尚未写入的用户数 */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /** 累计记录的登录次数 */
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    /** 累计写入的行数（合并后） */
+    public long getWritten() {
+        return written.sum();
+    }
+}
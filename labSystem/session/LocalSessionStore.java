@@ -0,0 +1,174 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+import labSystem.entity.User;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地会话存储（单进程）
+ * 会话有两种过期：空闲超时（每次访问后顺延）和绝对超时（自登录起计算，不顺延）。
+ * 容量有上限，超出时淘汰最久未访问的会话。
+ * 按访问顺序排列，最久未访问的会话总在队首，因此每次读写时顺带检查队首几个会话即可清掉空闲过期的，
+ * 不需要全表扫描；绝对超时在访问该会话时检查
+ */
+public class LocalSessionStore implements SessionStore {
+
+    public static final String IDLE_TIMEOUT_MINUTES_KEY = "session.idle.timeout.minutes";
+    public static final String ABSOLUTE_TIMEOUT_HOURS_KEY = "session.absolute.timeout.hours";
+    public static final String MAX_SESSIONS_KEY = "session.max.sessions";
+
+    // 每次读写最多顺带清理的过期会话数
+    private static final int EXPIRE_BATCH = 4;
+
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    private final int maxSessions;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private final LinkedHashMap<String, Session> sessions;
+
+    /**
+     * @param idleTimeoutMillis 空闲超时
+     * @param absoluteTimeoutMillis 绝对超时，应不小于空闲超时
+     * @param maxSessions 会话数上限
+     */
+    public LocalSessionStore(long idleTimeoutMillis, long absoluteTimeoutMillis, int maxSessions) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.absoluteTimeoutMillis = absoluteTimeoutMillis;
+        this.maxSessions = maxSessions;
+        this.sessions = new LinkedHashMap<String, Session>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                if (size() > LocalSessionStore.this.maxSessions) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** 按配置创建（默认空闲30分钟、绝对12小时、最多10000个会话） */
+    public static LocalSessionStore fromConfig() {
+        int idleMinutes = Integer.parseInt(DBconfig.getProperty(IDLE_TIMEOUT_MINUTES_KEY, "30").trim());
+        int absoluteHours = Integer.parseInt(DBconfig.getProperty(ABSOLUTE_TIMEOUT_HOURS_KEY, "12").trim());
+        int maxSessions = Integer.parseInt(DBconfig.getProperty(MAX_SESSIONS_KEY, "10000").trim());
+        return new LocalSessionStore(TimeUnit.MINUTES.toMillis(idleMinutes), TimeUnit.HOURS.toMillis(absoluteHours), maxSessions);
+    }
+
+    @Override
+    public void put(String token, User user, long userVersion) {
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            expireEldest(now);
+            sessions.put(token, new Session(new Entry(user, userVersion), now));
+        }
+    }
+
+    @Override
+    public Entry get(String token) {
+        if (token == null) return null;
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            expireEldest(now);
+            Session session = sessions.get(token);
+            if (session == null) {
+                return null;
+            }
+            if (session.isExpired(now, idleTimeoutMillis, absoluteTimeoutMillis)) {
+                sessions.remove(token);
+                expirations.increment();
+                return null;
+            }
+            session.lastAccessAt = now;
+            return session.entry;
+        }
+    }
+
+    @Override
+    public boolean refresh(String token, User user, long userVersion) {
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            Session session = sessions.get(token);
+            if (session == null || session.isExpired(now, idleTimeoutMillis, absoluteTimeoutMillis)) {
+                return false;
+            }
+            session.entry = new Entry(user, userVersion);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(String token) {
+        if (token == null) return false;
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            Session session = sessions.remove(token);
+            if (session == null) return false;
+            if (session.isExpired(now, idleTimeoutMillis, absoluteTimeoutMillis)) {
+                expirations.increment();
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // 队首是最久未访问的会话；遇到第一个未空闲过期的即停止
+    private void expireEldest(long now) {
+        Iterator<Session> iterator = sessions.values().iterator();
+        for (int i = 0; i < EXPIRE_BATCH && iterator.hasNext(); i++) {
+            Session eldest = iterator.next();
+            if (now - eldest.lastAccessAt < idleTimeoutMillis) {
+                return;
+            }
+            iterator.remove();
+            expirations.increment();
+        }
+    }
+
+    // === 指标 ===
+
+    @Override
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    private static final class Session {
+        Entry entry;
+        final long createdAt;
+        long lastAccessAt;
+
+        Session(Entry entry, long now) {
+            this.entry = entry;
+            this.createdAt = now;
+            this.lastAccessAt = now;
+        }
+
+        boolean isExpired(long now, long idleTimeoutMillis, long absoluteTimeoutMillis) {
+            return now - lastAccessAt >= idleTimeoutMillis || now - createdAt >= absoluteTimeoutMillis;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+import labSystem.exception.AuthException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录限流
+ * 按用户名和按来源（客户端标识）各维护一个令牌桶，每次登录尝试消耗一个令牌，令牌按固定速率补充；
+ * 连续失败达到阈值后锁定，锁定时长随失败次数指数增长（有上限），登录成功后清零。
+ * 检查在查库之前进行，被拒绝的尝试不会访问数据库。
+ * 每个桶只有几个基本类型字段；桶按访问顺序保存，数量有上限，长时间未使用且未锁定的桶从队首顺带清理，
+ * 与 LocalSessionStore 的做法相同
+ */
+public class LoginThrottle {
+
+    public static final String USER_CAPACITY_KEY = "login.throttle.user.capacity";
+    public static final String USER_REFILL_KEY = "login.throttle.user.refill.per.minute";
+    public static final String CLIENT_CAPACITY_KEY = "login.throttle.client.capacity";
+    public static final String CLIENT_REFILL_KEY = "login.throttle.client.refill.per.minute";
+    public static final String LOCKOUT_THRESHOLD_KEY = "login.throttle.lockout.threshold";
+    public static final String LOCKOUT_BASE_SECONDS_KEY = "login.throttle.lockout.base.seconds";
+    public static final String LOCKOUT_MAX_MINUTES_KEY = "login.throttle.lockout.max.minutes";
+    public static final String MAX_ENTRIES_KEY = "login.throttle.max.entries";
+    public static final String IDLE_MINUTES_KEY = "login.throttle.idle.minutes";
+
+    // 令牌以千分之一为单位计数，补充速率不必是整数
+    private static final int SCALE = 1000;
+    // 每次检查最多顺带清理的空闲桶数
+    private static final int EXPIRE_BATCH = 4;
+
+    private final Limits userLimits;
+    private final Limits clientLimits;
+    private final int lockoutThreshold;
+    private final long lockoutBaseMillis;
+    private final long lockoutMaxMillis;
+    private final long idleMillis;
+
+    private final Buckets users;
+    private final Buckets clients;
+
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+
+    /**
+     * @param userCapacity 每个用户名的令牌桶容量（允许的突发尝试次数）
+     * @param userRefillPerMinute 每个用户名每分钟补充的令牌数
+     * @param clientCapacity 每个来源的令牌桶容量
+     * @param clientRefillPerMinute 每个来源每分钟补充的令牌数
+     * @param lockoutThreshold 连续失败多少次后开始锁定
+     * @param lockoutBaseMillis 首次锁定时长，之后每多失败一次翻倍
+     * @param lockoutMaxMillis 锁定时长上限
+     * @param maxEntries 用户名桶和来源桶各自的数量上限
+     * @param idleMillis 桶闲置多久后可清理（应不小于补满令牌所需的时间）
+     */
+    public LoginThrottle(int userCapacity, double userRefillPerMinute, int clientCapacity, double clientRefillPerMinute,
+                         int lockoutThreshold, long lockoutBaseMillis, long lockoutMaxMillis, int maxEntries, long idleMillis) {
+        this.userLimits = new Limits(userCapacity, userRefillPerMinute);
+        this.clientLimits = new Limits(clientCapacity, clientRefillPerMinute);
+        this.lockoutThreshold = lockoutThreshold;
+        this.lockoutBaseMillis = lockoutBaseMillis;
+        this.lockoutMaxMillis = lockoutMaxMillis;
+        this.idleMillis = idleMillis;
+        this.users = new Buckets(maxEntries);
+        this.clients = new Buckets(maxEntries);
+    }
+
+    /** 按配置创建（默认每个用户名突发5次、每分钟补5次；每个来源突发20次、每分钟补20次；失败5次起锁定30秒，最长15分钟） */
+    public static LoginThrottle fromConfig() {
+        return new LoginThrottle(
+                intProperty(USER_CAPACITY_KEY, "5"),
+                Double.parseDouble(DBconfig.getProperty(USER_REFILL_KEY, "5").trim()),
+                intProperty(CLIENT_CAPACITY_KEY, "20"),
+                Double.parseDouble(DBconfig.getProperty(CLIENT_REFILL_KEY, "20").trim()),
+                intProperty(LOCKOUT_THRESHOLD_KEY, "5"),
+                TimeUnit.SECONDS.toMillis(intProperty(LOCKOUT_BASE_SECONDS_KEY, "30")),
+                TimeUnit.MINUTES.toMillis(intProperty(LOCKOUT_MAX_MINUTES_KEY, "15")),
+                intProperty(MAX_ENTRIES_KEY, "100000"),
+                TimeUnit.MINUTES.toMillis(intProperty(IDLE_MINUTES_KEY, "30")));
+    }
+
+    private static int intProperty(String key, String defaultValue) {
+        return Integer.parseInt(DBconfig.getProperty(key, defaultValue).trim());
+    }
+
+    /**
+     * 登录前调用：用户名或来源处于锁定期、令牌已用完时拒绝
+     * @param clientId 客户端标识（如IP），为null时只按用户名限流
+     * @throws AuthException 尝试被拒绝
+     */
+    public void acquire(String username, String clientId) {
+        long now = System.currentTimeMillis();
+        String userKey = normalize(username);
+        synchronized (this) {
+            Bucket user = users.bucket(userKey, userLimits, now);
+            Bucket client = clientId != null ? clients.bucket(clientId, clientLimits, now) : null;
+            long lockedFor = Math.max(user.lockedUntil, client != null ? client.lockedUntil : 0L) - now;
+            if (lockedFor > 0) {
+                rejections.increment();
+                throw new AuthException("登录失败次数过多，请" + ((lockedFor + 999) / 1000) + "秒后再试！");
+            }
+            // 两个桶都有令牌才放行，避免一个桶被扣而另一个拒绝
+            if (!user.hasToken(userLimits, now) || (client != null && !client.hasToken(clientLimits, now))) {
+                rejections.increment();
+                throw new AuthException("登录尝试过于频繁，请稍后再试！");
+            }
+            user.take();
+            if (client != null) client.take();
+        }
+    }
+
+    /** 用户名或密码错误时调用，连续失败达到阈值后锁定 */
+    public void recordFailure(String username, String clientId) {
+        long now = System.currentTimeMillis();
+        String userKey = normalize(username);
+        synchronized (this) {
+            fail(users.bucket(userKey, userLimits, now), now);
+            if (clientId != null) {
+                fail(clients.bucket(clientId, clientLimits, now), now);
+            }
+        }
+    }
+
+    /** 登录成功后清零该用户名的连续失败次数；来源的失败次数不清零，避免撞库脚本用一个有效账号洗白 */
+    public void recordSuccess(String username) {
+        String userKey = normalize(username);
+        synchronized (this) {
+            Bucket user = users.map.get(userKey);
+            if (user != null) {
+                user.failures = 0;
+                user.lockedUntil = 0L;
+            }
+        }
+    }
+
+    private void fail(Bucket bucket, long now) {
+        if (bucket.failures < Short.MAX_VALUE) bucket.failures++;
+        int over = bucket.failures - lockoutThreshold;
+        if (over >= 0) {
+            long lockout = over >= 30 ? lockoutMaxMillis : Math.min(lockoutMaxMillis, lockoutBaseMillis << over);
+            bucket.lockedUntil = now + lockout;
+            lockouts.increment();
+        }
+    }
+
+    // 用户名不区分大小写，防止变换大小写绕过限流
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // === 指标 ===
+
+    /** 被拒绝的登录尝试数 */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /** 触发锁定的次数 */
+    public long getLockouts() {
+        return lockouts.sum();
+    }
+
+    public synchronized int size() {
+        return users.map.size() + clients.map.size();
+    }
+
+    private static final class Limits {
+        final int capacity;          // 按 SCALE 放大
+        final double refillPerMilli; // 按 SCALE 放大
+
+        Limits(int capacity, double refillPerMinute) {
+            this.capacity = capacity * SCALE;
+            this.refillPerMilli = refillPerMinute * SCALE / TimeUnit.MINUTES.toMillis(1);
+        }
+    }
+
+    // 按访问顺序排列的有界桶表；调用方持有 LoginThrottle 的锁
+    private final class Buckets {
+        final LinkedHashMap<String, Bucket> map;
+
+        Buckets(int maxEntries) {
+            this.map = new LinkedHashMap<String, Bucket>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        Bucket bucket(String key, Limits limits, long now) {
+            expireEldest(now);
+            Bucket bucket = map.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(limits.capacity, now);
+                map.put(key, bucket);
+            }
+            return bucket;
+        }
+
+        // 队首是最久未使用的桶；闲置够久且未锁定的可以丢弃（重新创建时令牌是满的，与补满后等价）
+        private void expireEldest(long now) {
+            Iterator<Bucket> iterator = map.values().iterator();
+            for (int i = 0; i < EXPIRE_BATCH && iterator.hasNext(); i++) {
+                Bucket eldest = iterator.next();
+                if (now - eldest.updatedAt < idleMillis || eldest.lockedUntil > now) {
+                    return;
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Bucket {
+        int tokens;        // 按 SCALE 放大
+        long updatedAt;    // 上次补充令牌的时间
+        long lockedUntil;
+        short failures;
+
+        Bucket(int tokens, long now) {
+            this.tokens = tokens;
+            this.updatedAt = now;
+        }
+
+        // 补充令牌取整后，补充时间只推进到产生这些整数令牌为止，余下的零头留到下次累计；补满时不再累计
+        boolean hasToken(Limits limits, long now) {
+            long elapsed = now - updatedAt;
+            if (elapsed > 0) {
+                long added = (long) (elapsed * limits.refillPerMilli);
+                if (tokens + added >= limits.capacity) {
+                    tokens = limits.capacity;
+                    updatedAt = now;
+                } else if (added > 0) {
+                    tokens += (int) added;
+                    updatedAt += (long) (added / limits.refillPerMilli);
+                }
+            }
+            return tokens >= SCALE;
+        }
+
+        void take() {
+            tokens -= SCALE;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+import labSystem.exception.AuthException;
+import labSystem.util.MD5Util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 密码摘要
+ * 新密码使用 PBKDF2-HmacSHA256，算法、迭代次数和盐随摘要一起保存：pbkdf2-sha256$迭代次数$base64盐$base64摘要；
+ * 旧的32位MD5摘要仍可校验，登录成功后在后台改写为新格式。
+ * 摘要计算较慢，全部放在专用的有界线程池中执行，占满时直接拒绝，不会拖垮处理请求的线程。
+ * 迭代次数未配置时启动时校准：按本机速度取单次校验约耗时 password.hash.target.millis 的次数
+ */
+public class PasswordHasher {
+
+    public static final String ITERATIONS_KEY = "password.hash.iterations";
+    public static final String TARGET_MILLIS_KEY = "password.hash.target.millis";
+    public static final String THREADS_KEY = "password.hash.threads";
+    public static final String QUEUE_CAPACITY_KEY = "password.hash.queue.capacity";
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    // 校准结果不低于此值
+    private static final int MIN_ITERATIONS = 10_000;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int iterations;
+    private final ThreadPoolExecutor pool;
+    private final SecureRandom random = new SecureRandom();
+    // 用户名不存在时拿它做一次等价的校验，响应时间不泄露用户名是否存在
+    private final String dummyHash;
+
+    private final LongAdder legacyVerified = new LongAdder();
+    private final LongAdder rehashed = new LongAdder();
+
+    /**
+     * @param iterations PBKDF2 迭代次数
+     * @param threads 同时计算摘要的线程数
+     * @param queueCapacity 排队上限，超出时拒绝
+     */
+    public PasswordHasher(int iterations, int threads, int queueCapacity) {
+        this.iterations = iterations;
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.dummyHash = compute("dummy-password", iterations);
+    }
+
+    /** 按配置创建（默认线程数为CPU核数的一半、排队64个；迭代次数未配置时按目标耗时50毫秒校准） */
+    public static PasswordHasher fromConfig() {
+        String configured = DBconfig.getProperty(ITERATIONS_KEY, "").trim();
+        int iterations;
+        if (configured.isEmpty()) {
+            long targetMillis = Long.parseLong(DBconfig.getProperty(TARGET_MILLIS_KEY, "50").trim());
+            iterations = calibrate(targetMillis);
+            System.out.println("密码摘要迭代次数校准为 " + iterations + "（目标耗时 " + targetMillis + " 毫秒）");
+        } else {
+            iterations = Integer.parseInt(configured);
+        }
+        String threadsValue = DBconfig.getProperty(THREADS_KEY, "").trim();
+        int threads = threadsValue.isEmpty()
+                ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : Integer.parseInt(threadsValue);
+        int capacity = Integer.parseInt(DBconfig.getProperty(QUEUE_CAPACITY_KEY, "64").trim());
+        return new PasswordHasher(iterations, threads, capacity);
+    }
+
+    /** 进程内共享的实例（按配置创建，首次使用时校准） */
+    public static PasswordHasher shared() {
+        return Holder.INSTANCE;
+    }
+
+    private static final class Holder {
+        static final PasswordHasher INSTANCE = fromConfig();
+    }
+
+    /**
+     * 测出单次摘要耗时约为 targetMillis 的迭代次数
+     * 先预热，再以翻倍的迭代次数试算，直到单次耗时足以准确计时，按比例换算
+     */
+    public static int calibrate(long targetMillis) {
+        calibrationRound("calibration", MIN_ITERATIONS);
+        int trial = MIN_ITERATIONS;
+        long elapsed;
+        while (true) {
+            long start = System.nanoTime();
+            calibrationRound("calibration", trial);
+            elapsed = System.nanoTime() - start;
+            if (elapsed >= TimeUnit.MILLISECONDS.toNanos(10) || trial >= Integer.MAX_VALUE / 2) break;
+            trial *= 2;
+        }
+        long iterations = trial * TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(1, elapsed);
+        return (int) Math.max(MIN_ITERATIONS, Math.min(Integer.MAX_VALUE, iterations));
+    }
+
+    // === 摘要与校验 ===
+
+    /** 计算新密码的摘要（在专用线程池中执行） */
+    public String hash(String password) {
+        return await(submit(() -> compute(password, iterations)));
+    }
+
+    /**
+     * 校验密码（在专用线程池中执行），比较以常量时间进行
+     * @param stored 保存的摘要，新格式或旧的MD5；为null时同样耗费一次校验的时间后返回false
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null) return false;
+        String target = stored != null ? stored : dummyHash;
+        boolean ok = await(submit(() -> matches(password, target)));
+        return ok && stored != null;
+    }
+
+    /** 摘要是否需要改写：旧的MD5摘要，或迭代次数低于当前设置 */
+    public boolean needsRehash(String stored) {
+        if (stored == null) return false;
+        if (!stored.startsWith(PREFIX + "$")) return true;
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 在后台以当前设置重新计算摘要，完成后交给 onHashed 保存；不阻塞调用方
+     * 线程池已满时放弃本次改写，下次登录再试
+     */
+    public void rehashAsync(String password, Consumer<String> onHashed) {
+        try {
+            pool.execute(() -> {
+                try {
+                    onHashed.accept(compute(password, iterations));
+                    rehashed.increment();
+                } catch (RuntimeException e) {
+                    System.err.println("改写密码摘要失败: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 忙时跳过，不影响登录
+        }
+    }
+
+    private boolean matches(String password, String stored) {
+        if (!stored.startsWith(PREFIX + "$")) {
+            legacyVerified.increment();
+            return MD5Util.verify(password, stored);
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = DECODER.decode(parts[2]);
+            byte[] expected = DECODER.decode(parts[3]);
+            return MessageDigest.isEqual(derive(password, salt, storedIterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String compute(String password, int rounds) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return PREFIX + "$" + rounds + "$" + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(derive(password, salt, rounds));
+    }
+
+    // 供校准使用，不需要随机盐
+    private static void calibrationRound(String password, int rounds) {
+        derive(password, new byte[SALT_BYTES], rounds);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("计算密码摘要失败", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // 线程池占满时拒绝，由调用方提示稍后再试
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new AuthException("系统繁忙，请稍后再试！");
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthException("登录处理被中断，请重试！");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        }
+    }
+
+    // === 指标 ===
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /** 按旧MD5格式校验的次数，降到0说明迁移基本完成 */
+    public long getLegacyVerified() {
+        return legacyVerified.sum();
+    }
+
+    public long getRehashed() {
+        return rehashed.sum();
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
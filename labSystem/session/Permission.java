@@ -0,0 +1,37 @@
+package labSystem.session;
+
+/**
+ * 权限
+ * 每个权限占一位，角色拥有的权限合成一个 long 位集（见 RolePermissions），校验只需一次位运算
+ */
+public enum Permission {
+
+    MANAGE_USERS("管理用户"),
+    MANAGE_DEVICES("管理设备"),
+    SEND_FOR_REPAIR("送修设备"),
+    UPDATE_DEVICE_USAGE("更新设备使用统计"),
+    MANAGE_RESERVATIONS("查看所有预约"),
+    REVIEW_RESERVATION("审核预约"),
+    MANAGE_REPAIRS("管理维修单"),
+    VIEW_REPAIR_QUEUE("查看维修队列"),
+    PROCESS_REPAIR("处理维修"),
+    VIEW_STATS("查看统计"),
+    EXPORT_REPORTS("导出报表"),
+    MANAGE_STATS("维护统计数据");  // 清空、重建统计聚合和回填报表快照
+
+    private final String displayName;
+    private final long bit;
+
+    Permission(String displayName) {
+        this.displayName = displayName;
+        this.bit = 1L << ordinal();
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public long bit() {
+        return bit;
+    }
+}
@@ -0,0 +1,114 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BinaryOperator;
+
+/**
+ * 角色 -> 权限位集
+ * 映射在加载时预先算好，校验时只查一次表再做一次位运算。
+ * 配置项 permission.role.&lt;角色&gt; 为逗号分隔的权限名，"*" 表示全部权限；未配置的角色按内置默认值。
+ * 修改配置后调用 reload() 即可生效，无需重启：新表整体构建完成后一次性替换，校验过程中不会看到半新半旧的映射；
+ * 配置有误时保留原表，全局配置也不替换
+ */
+public class RolePermissions {
+
+    public static final String ROLE_KEY_PREFIX = "permission.role.";
+    public static final String ROLES_KEY = "permission.roles";
+
+    private static final String ALL = "*";
+
+    // 内置默认值，与引入权限模型之前各服务中的角色判断一致
+    private static final Map<String, String> DEFAULTS = new HashMap<>();
+
+    static {
+        DEFAULTS.put("admin", ALL);
+        DEFAULTS.put("teacher", "SEND_FOR_REPAIR,UPDATE_DEVICE_USAGE");
+        DEFAULTS.put("technician", "VIEW_REPAIR_QUEUE,PROCESS_REPAIR");
+        DEFAULTS.put("student", "");
+    }
+
+    private volatile Map<String, Long> masks;
+
+    public RolePermissions(Map<String, Long> masks) {
+        this.masks = Collections.unmodifiableMap(new HashMap<>(masks));
+    }
+
+    /** 按当前配置创建 */
+    public static RolePermissions fromConfig() {
+        return new RolePermissions(loadMasks(DBconfig::getProperty));
+    }
+
+    /**
+     * 重新读取配置文件并替换映射
+     * 先在新读取的配置上构建并校验映射，通过后才替换全局配置和映射
+     * @throws IllegalStateException 配置中有未知权限名时抛出，全局配置和原映射均不变
+     */
+    public void reload() {
+        Properties next = DBconfig.readConfig();
+        Map<String, Long> nextMasks = loadMasks(next::getProperty);
+        DBconfig.replace(next);
+        this.masks = Collections.unmodifiableMap(nextMasks);
+    }
+
+    /** 角色是否拥有权限；未知角色没有任何权限 */
+    public boolean has(String role, Permission permission) {
+        return (mask(role) & permission.bit()) != 0;
+    }
+
+    /** 角色的权限位集 */
+    public long mask(String role) {
+        if (role == null) return 0L;
+        Long mask = masks.get(role);
+        return mask != null ? mask : 0L;
+    }
+
+    /** 角色拥有的权限（展示用） */
+    public Set<Permission> permissionsOf(String role) {
+        long mask = mask(role);
+        Set<Permission> result = EnumSet.noneOf(Permission.class);
+        for (Permission permission : Permission.values()) {
+            if ((mask & permission.bit()) != 0) result.add(permission);
+        }
+        return result;
+    }
+
+    // 角色列表：permission.roles 中列出的加上内置的；lookup 为 (键, 默认值) -> 配置值
+    private static Map<String, Long> loadMasks(BinaryOperator<String> lookup) {
+        Map<String, String> specs = new HashMap<>(DEFAULTS);
+        for (String role : lookup.apply(ROLES_KEY, "").split(",")) {
+            role = role.trim();
+            if (!role.isEmpty()) specs.putIfAbsent(role, "");
+        }
+        Map<String, Long> masks = new HashMap<>();
+        for (Map.Entry<String, String> entry : specs.entrySet()) {
+            String role = entry.getKey();
+            masks.put(role, parse(role, lookup.apply(ROLE_KEY_PREFIX + role, entry.getValue())));
+        }
+        return masks;
+    }
+
+    private static long parse(String role, String spec) {
+        long mask = 0L;
+        for (String name : spec.split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+            if (ALL.equals(name)) {
+                for (Permission permission : Permission.values()) mask |= permission.bit();
+                continue;
+            }
+            try {
+                mask |= Permission.valueOf(name).bit();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("角色 " + role + " 配置了未知权限: " + name);
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,72 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+import labSystem.entity.User;
+
+/**
+ * 会话存储
+ * 会话有空闲超时（访问后顺延）和绝对超时，存储容量有上限；
+ * 实现：LocalSessionStore（单进程内存）、SharedSessionStore（同机多进程共享）
+ */
+public interface SessionStore {
+
+    String STORE_KEY = "session.store";
+
+    /** 按配置选择实现：session.store=shared 时为同机共享存储，否则为本地存储 */
+    static SessionStore fromConfig() {
+        String store = DBconfig.getProperty(STORE_KEY, "local").trim();
+        return "shared".equalsIgnoreCase(store) ? SharedSessionStore.fromConfig() : LocalSessionStore.fromConfig();
+    }
+
+    /**
+     * 保存新会话
+     * @param userVersion 加载用户信息时该用户的版本号（见 UserVersionTable）
+     */
+    void put(String token, User user, long userVersion);
+
+    /**
+     * 读取会话并顺延空闲超时
+     * @return 会话不存在或已过期时返回null
+     */
+    Entry get(String token);
+
+    /**
+     * 替换会话中缓存的用户信息，过期时间不变
+     * @return 会话不存在或已过期时返回false
+     */
+    boolean refresh(String token, User user, long userVersion);
+
+    /**
+     * 删除会话
+     * @return 会话是否存在（已过期的视为不存在）
+     */
+    boolean remove(String token);
+
+    /** 当前会话数（可能含尚未清理的过期会话） */
+    int size();
+
+    /** 因容量已满被淘汰的会话数 */
+    long getEvictions();
+
+    /** 因空闲或绝对超时被清除的会话数 */
+    long getExpirations();
+
+    /** 会话内容：登录用户及加载时的用户版本号，不可变 */
+    final class Entry {
+        private final User user;
+        private final long userVersion;
+
+        public Entry(User user, long userVersion) {
+            this.user = user;
+            this.userVersion = userVersion;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public long getUserVersion() {
+            return userVersion;
+        }
+    }
+}
@@ -0,0 +1,656 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+import labSystem.entity.User;
+import labSystem.exception.AuthException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同机多进程共享的会话存储
+ * 会话保存在内存映射文件中的定长槽位哈希表里，同一台机器上的多个应用进程映射同一个文件即可互相看到会话。
+ * 写入（登录、登出、空闲时间回写）在进程内锁加文件锁下进行；读取不加锁，以槽位版本号做一致性校验。
+ * 每个进程有一层近端缓存：命中时只需比对共享槽位的版本号，任一进程覆盖或删除该槽位都会使版本号变化，
+ * 其他进程的近端缓存随之失效。
+ * 容量即槽位数；插入时在探测窗口内复用空槽或已过期槽，都没有时淘汰窗口内最久未访问的会话，
+ * 未过期的吊销记录和用户版本号不会被淘汰。
+ * 另外保存签名令牌的吊销记录（按令牌或按用户）和用户版本号，供各进程共享
+ */
+public class SharedSessionStore implements SessionStore {
+
+    public static final String FILE_KEY = "session.shared.file";
+    public static final String SLOTS_KEY = "session.shared.slots";
+
+    private static final int MAGIC = 0x4C534553;   // "LSES"
+    private static final int LAYOUT_VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 512;
+    private static final int PROBE_WINDOW = 32;
+
+    // 槽位内偏移
+    private static final int VERSION = 0;          // long，写入期间为奇数
+    private static final int CREATED_AT = 8;       // long
+    private static final int LAST_ACCESS_AT = 16;  // long，不受版本号保护，单独原子读写
+    private static final int EXPIRES_AT = 24;      // long，绝对过期时间
+    private static final int KEY_HASH = 32;        // int
+    private static final int STATE = 36;           // byte
+    private static final int KEY_LENGTH = 38;      // short
+    private static final int VALUE_LENGTH = 40;    // short
+    private static final int KEY = 42;
+    private static final int MAX_KEY_BYTES = 96;
+    private static final int VALUE = KEY + MAX_KEY_BYTES;
+    private static final int MAX_VALUE_BYTES = SLOT_SIZE - VALUE;
+
+    private static final byte EMPTY = 0;
+    private static final byte SESSION = 1;
+    private static final byte REVOKED = 2;
+    private static final byte USER_VERSION = 3;  // 不过期，不淘汰
+    private static final byte USER_NOT_BEFORE = 4;  // 用户级吊销：此前签发的令牌无效，保留到这些令牌过期
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // 同一JVM内对同一文件的写锁（FileLock 只在进程间互斥）
+    private static final Map<Path, Object> JVM_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final Object writeLock;
+
+    private final long idleTimeoutMillis;
+    private final long absoluteTimeoutMillis;
+    // 空闲时间回写间隔：命中时若共享的最后访问时间早于此间隔才回写，避免每次命中都写共享内存
+    private final long touchIntervalMillis;
+
+    private final Map<String, Cached> nearCache = new ConcurrentHashMap<>();
+    private final int maxNearCacheEntries;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder nearHits = new LongAdder();
+
+    /**
+     * 打开或创建共享会话文件
+     * 文件已存在时沿用其中的槽位数，保证所有进程布局一致
+     * @param file 共享文件路径
+     * @param slots 新建文件时的槽位数（向上取整为2的幂）
+     * @param idleTimeoutMillis 空闲超时
+     * @param absoluteTimeoutMillis 绝对超时
+     */
+    public SharedSessionStore(Path file, int slots, long idleTimeoutMillis, long absoluteTimeoutMillis) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.absoluteTimeoutMillis = absoluteTimeoutMillis;
+        this.touchIntervalMillis = Math.max(1, Math.min(idleTimeoutMillis / 10, TimeUnit.MINUTES.toMillis(1)));
+        this.writeLock = JVM_LOCKS.computeIfAbsent(this.file, path -> new Object());
+
+        if (this.file.getParent() != null) {
+            Files.createDirectories(this.file.getParent());
+        }
+        int requested = Integer.highestOneBit(Math.max(PROBE_WINDOW, slots - 1)) << 1;
+        this.channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int count;
+        synchronized (writeLock) {
+            FileLock lock = channel.lock();
+            try {
+                count = initialize(channel, requested);
+            } finally {
+                lock.release();
+            }
+        }
+        this.slotCount = count;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) count * SLOT_SIZE);
+        this.maxNearCacheEntries = count;
+    }
+
+    /** 按配置创建（默认 data/sessions.map，16384个槽位，超时设置与本地会话相同） */
+    public static SharedSessionStore fromConfig() {
+        String path = DBconfig.getProperty(FILE_KEY, "data/sessions.map").trim();
+        int slots = Integer.parseInt(DBconfig.getProperty(SLOTS_KEY, "16384").trim());
+        int idleMinutes = Integer.parseInt(DBconfig.getProperty(LocalSessionStore.IDLE_TIMEOUT_MINUTES_KEY, "30").trim());
+        int absoluteHours = Integer.parseInt(DBconfig.getProperty(LocalSessionStore.ABSOLUTE_TIMEOUT_HOURS_KEY, "12").trim());
+        try {
+            return new SharedSessionStore(Paths.get(path), slots, TimeUnit.MINUTES.toMillis(idleMinutes), TimeUnit.HOURS.toMillis(absoluteHours));
+        } catch (IOException e) {
+            throw new IllegalStateException("打开共享会话文件失败: " + path, e);
+        }
+    }
+
+    // 文件为空或头部不符时按请求的槽位数初始化，否则读出已有槽位数
+    private static int initialize(FileChannel channel, int requestedSlots) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() >= HEADER_SIZE) {
+            channel.read(header, 0);
+            header.flip();
+            int slots = header.getInt(8);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == LAYOUT_VERSION && header.getInt(12) == SLOT_SIZE
+                    && slots > 0 && Integer.bitCount(slots) == 1 && channel.size() >= HEADER_SIZE + (long) slots * SLOT_SIZE) {
+                return slots;
+            }
+        }
+        channel.truncate(0);
+        long size = HEADER_SIZE + (long) requestedSlots * SLOT_SIZE;
+        channel.write(ByteBuffer.allocate(1), size - 1);
+        header.clear();
+        header.putInt(0, MAGIC).putInt(4, LAYOUT_VERSION).putInt(8, requestedSlots).putInt(12, SLOT_SIZE);
+        header.limit(HEADER_SIZE);
+        channel.write(header, 0);
+        return requestedSlots;
+    }
+
+    // === 会话 ===
+
+    @Override
+    public void put(String token, User user, long userVersion) {
+        byte[] key = keyBytes(token);
+        byte[] value = encodeSession(user, userVersion);
+        long now = System.currentTimeMillis();
+        Cached cached = write(key, SESSION, value, now, now + absoluteTimeoutMillis);
+        nearCache.remove(token);
+        cacheLocally(token, new Cached(cached.slot, cached.version, SESSION, new Entry(user, userVersion), now + absoluteTimeoutMillis));
+    }
+
+    @Override
+    public Entry get(String token) {
+        if (token == null) return null;
+        Cached cached = lookup(token, SESSION);
+        return cached != null ? cached.entry : null;
+    }
+
+    // 只改写槽位中的用户信息，创建、访问和过期时间不变；版本号变化使各进程的近端缓存失效
+    @Override
+    public boolean refresh(String token, User user, long userVersion) {
+        if (token == null) return false;
+        nearCache.remove(token);
+        byte[] key = keyBytes(token);
+        byte[] value = encodeSession(user, userVersion);
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    int slot = findSlot(key, hash(key));
+                    if (slot < 0 || buffer.get(offset(slot) + STATE) != SESSION || isExpired(slot, now)) {
+                        return false;
+                    }
+                    int base = offset(slot);
+                    long version = versionAt(slot);
+                    LONGS.setVolatile(buffer, base + VERSION, version + 1);
+                    buffer.putShort(base + VALUE_LENGTH, (short) value.length);
+                    buffer.put(base + VALUE, value);
+                    LONGS.setVolatile(buffer, base + VERSION, version + 2);
+                    return true;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("写共享会话文件失败: " + file, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(String token) {
+        if (token == null) return false;
+        nearCache.remove(token);
+        byte[] key = keyBytes(token);
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    int slot = findSlot(key, hash(key));
+                    if (slot < 0) return false;
+                    boolean live = !isExpired(slot, now);
+                    if (!live) expirations.increment();
+                    clearSlot(slot);
+                    return live;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("写共享会话文件失败: " + file, e);
+            }
+        }
+    }
+
+    // === 令牌吊销 ===
+
+    /** 记录吊销的签名令牌，保留到令牌过期 */
+    public void revoke(String tokenId, long expiresAt) {
+        byte[] key = keyBytes(tokenId);
+        Cached cached = write(key, REVOKED, new byte[0], System.currentTimeMillis(), expiresAt);
+        cacheLocally(tokenId, new Cached(cached.slot, cached.version, REVOKED, null, expiresAt));
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && lookup(tokenId, REVOKED) != null;
+    }
+
+    /**
+     * 记录用户级吊销：该用户签发时间早于 notBefore 的令牌一律无效
+     * @param expiresAt 此前签发的令牌都已过期的时间，之后记录可以清除
+     */
+    public void revokeUserBefore(int userId, long notBefore, long expiresAt) {
+        String token = userNotBeforeKey(userId);
+        byte[] value = ByteBuffer.allocate(Long.BYTES).putLong(notBefore).array();
+        Cached cached = write(keyBytes(token), USER_NOT_BEFORE, value, System.currentTimeMillis(), expiresAt);
+        cacheLocally(token, new Cached(cached.slot, cached.version, USER_NOT_BEFORE, new Entry(null, notBefore), expiresAt));
+    }
+
+    /** 用户级吊销的截止时间，没有记录时为0 */
+    public long userNotBefore(int userId) {
+        Cached cached = lookup(userNotBeforeKey(userId), USER_NOT_BEFORE);
+        return cached != null ? cached.entry.getUserVersion() : 0L;
+    }
+
+    private static String userNotBeforeKey(int userId) {
+        return "n:" + userId;
+    }
+
+    // === 用户版本号 ===
+
+    /** 用户当前版本号，从未变更过的为0 */
+    public long userVersion(int userId) {
+        Cached cached = lookup(userVersionKey(userId), USER_VERSION);
+        return cached != null ? cached.entry.getUserVersion() : 0L;
+    }
+
+    /**
+     * 用户版本号加一
+     * @return 新版本号
+     */
+    public long bumpUserVersion(int userId) {
+        String token = userVersionKey(userId);
+        byte[] key = keyBytes(token);
+        int hash = hash(key);
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    int slot = findSlot(key, hash);
+                    long next = (slot >= 0 ? buffer.getLong(offset(slot) + VALUE) : 0L) + 1;
+                    byte[] value = ByteBuffer.allocate(Long.BYTES).putLong(next).array();
+                    slot = chooseSlot(key, hash, USER_VERSION, now);
+                    long version = writeSlot(slot, key, hash, USER_VERSION, value, now, Long.MAX_VALUE);
+                    cacheLocally(token, new Cached(slot, version, USER_VERSION, new Entry(null, next), Long.MAX_VALUE));
+                    return next;
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("写共享会话文件失败: " + file, e);
+            }
+        }
+    }
+
+    private static String userVersionKey(int userId) {
+        return "u:" + userId;
+    }
+
+    // === 读取 ===
+
+    // 先查近端缓存并以版本号校验，未命中再探测共享表
+    private Cached lookup(String token, byte state) {
+        long now = System.currentTimeMillis();
+        Cached cached = nearCache.get(token);
+        if (cached != null) {
+            if (versionAt(cached.slot) == cached.version) {
+                if (isExpired(cached.slot, now)) {
+                    remove(token);
+                    return null;
+                }
+                nearHits.increment();
+                touchIfStale(cached, now);
+                return cached.state == state ? cached : null;
+            }
+            nearCache.remove(token, cached);
+        }
+
+        byte[] key = keyBytes(token);
+        int hash = hash(key);
+        int mask = slotCount - 1;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (hash + i) & mask;
+            Cached found = readSlot(slot, key, hash);
+            if (found == null) continue;
+            if (isExpired(slot, now)) {
+                remove(token);
+                return null;
+            }
+            cacheLocally(token, found);
+            touchIfStale(found, now);
+            return found.state == state ? found : null;
+        }
+        return null;
+    }
+
+    // 以版本号做一致性校验读取槽位；键不符、空槽或读取期间被改写（重试仍不一致）时返回null
+    private Cached readSlot(int slot, byte[] key, int hash) {
+        int base = offset(slot);
+        for (int attempt = 0; attempt < 8; attempt++) {
+            long version = (long) LONGS.getVolatile(buffer, base + VERSION);
+            if ((version & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            byte state = buffer.get(base + STATE);
+            if (state == EMPTY || buffer.getInt(base + KEY_HASH) != hash || !keyEquals(base, key)) {
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getVolatile(buffer, base + VERSION) == version) return null;
+                continue;
+            }
+            long expiresAt = buffer.getLong(base + EXPIRES_AT);
+            int valueLength = buffer.getShort(base + VALUE_LENGTH);
+            byte[] value = new byte[Math.max(0, Math.min(valueLength, MAX_VALUE_BYTES))];
+            buffer.get(base + VALUE, value);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getVolatile(buffer, base + VERSION) != version) continue;
+            return new Cached(slot, version, state, decodeEntry(state, value), expiresAt);
+        }
+        return null;
+    }
+
+    private boolean keyEquals(int base, byte[] key) {
+        if (buffer.getShort(base + KEY_LENGTH) != key.length) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(base + KEY + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private boolean isExpired(int slot, long now) {
+        int base = offset(slot);
+        byte state = buffer.get(base + STATE);
+        if (now >= buffer.getLong(base + EXPIRES_AT)) return true;
+        return state == SESSION && now - (long) LONGS.getVolatile(buffer, base + LAST_ACCESS_AT) >= idleTimeoutMillis;
+    }
+
+    // 空闲时间按间隔回写共享槽位；不改版本号，其他进程的近端缓存不受影响
+    private void touchIfStale(Cached cached, long now) {
+        if (cached.state != SESSION) return;
+        int base = offset(cached.slot);
+        if (now - (long) LONGS.getVolatile(buffer, base + LAST_ACCESS_AT) < touchIntervalMillis) return;
+        synchronized (writeLock) {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    if (versionAt(cached.slot) == cached.version) {
+                        LONGS.setVolatile(buffer, base + LAST_ACCESS_AT, now);
+                    }
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("写共享会话文件失败: " + file, e);
+            }
+        }
+    }
+
+    // === 写入 ===
+
+    private Cached write(byte[] key, byte state, byte[] value, long now, long expiresAt) {
+        int hash = hash(key);
+        synchronized (writeLock) {
+            try {
+                FileLock lock = channel.lock();
+                try {
+                    int slot = chooseSlot(key, hash, state, now);
+                    long version = writeSlot(slot, key, hash, state, value, now, expiresAt);
+                    return new Cached(slot, version, state, null, expiresAt);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("写共享会话文件失败: " + file, e);
+            }
+        }
+    }
+
+    // 持有写锁时调用，返回写入后的槽位版本号
+    private long writeSlot(int slot, byte[] key, int hash, byte state, byte[] value, long now, long expiresAt) {
+        int base = offset(slot);
+        long version = versionAt(slot);
+        LONGS.setVolatile(buffer, base + VERSION, version + 1);
+        buffer.putLong(base + CREATED_AT, now);
+        buffer.putLong(base + EXPIRES_AT, expiresAt);
+        buffer.putInt(base + KEY_HASH, hash);
+        buffer.put(base + STATE, state);
+        buffer.putShort(base + KEY_LENGTH, (short) key.length);
+        buffer.put(base + KEY, key);
+        buffer.putShort(base + VALUE_LENGTH, (short) value.length);
+        buffer.put(base + VALUE, value);
+        LONGS.setVolatile(buffer, base + LAST_ACCESS_AT, now);
+        LONGS.setVolatile(buffer, base + VERSION, version + 2);
+        return version + 2;
+    }
+
+    // 同键槽位 > 空槽 > 已过期槽 > 窗口内最久未访问的会话（淘汰）。
+    // 未过期的吊销记录和用户版本号一律不淘汰：前者丢失会让被吊销的令牌重新生效，
+    // 后者丢失后版本号回到0，版本号变更前登录的会话会重新显得有效。
+    // 都不可用时拒绝写入：新会话拒绝登录，其余记录抛出异常
+    private int chooseSlot(byte[] key, int hash, byte state, long now) {
+        int existing = findSlot(key, hash);
+        if (existing >= 0) return existing;
+        int mask = slotCount - 1;
+        int expired = -1;
+        int eldestSession = -1;
+        long eldestAccess = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (hash + i) & mask;
+            int base = offset(slot);
+            byte slotState = buffer.get(base + STATE);
+            if (slotState == EMPTY) return slot;
+            if (expired < 0 && isExpired(slot, now)) expired = slot;
+            if (slotState == SESSION) {
+                long access = buffer.getLong(base + LAST_ACCESS_AT);
+                if (access < eldestAccess) {
+                    eldestAccess = access;
+                    eldestSession = slot;
+                }
+            }
+        }
+        if (expired >= 0) {
+            expirations.increment();
+            return expired;
+        }
+        if (eldestSession >= 0) {
+            evictions.increment();
+            return eldestSession;
+        }
+        if (state == SESSION) {
+            throw new AuthException("登录人数过多，请稍后再试！");
+        }
+        throw new IllegalStateException("共享会话文件探测窗口已满，无法写入吊销记录或用户版本号: " + file);
+    }
+
+    // 持有写锁时调用，读取不会与写入交错
+    private int findSlot(byte[] key, int hash) {
+        int mask = slotCount - 1;
+        for (int i = 0; i < PROBE_WINDOW; i++) {
+            int slot = (hash + i) & mask;
+            int base = offset(slot);
+            if (buffer.get(base + STATE) != EMPTY && buffer.getInt(base + KEY_HASH) == hash && keyEquals(base, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void clearSlot(int slot) {
+        int base = offset(slot);
+        long version = versionAt(slot);
+        LONGS.setVolatile(buffer, base + VERSION, version + 1);
+        buffer.put(base + STATE, EMPTY);
+        buffer.putShort(base + KEY_LENGTH, (short) 0);
+        LONGS.setVolatile(buffer, base + VERSION, version + 2);
+    }
+
+    // === 辅助方法 ===
+
+    private void cacheLocally(String token, Cached cached) {
+        // 近端缓存超过槽位数说明积累了大量已失效条目，整体清空重建
+        if (nearCache.size() >= maxNearCacheEntries) {
+            nearCache.clear();
+        }
+        nearCache.put(token, cached);
+    }
+
+    private long versionAt(int slot) {
+        return (long) LONGS.getVolatile(buffer, offset(slot) + VERSION);
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static byte[] keyBytes(String token) {
+        byte[] key = token.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("会话键过长: " + key.length);
+        }
+        return key;
+    }
+
+    private static int hash(byte[] key) {
+        int h = Arrays.hashCode(key) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 会话只保存用户版本号、身份和展示字段，不写入密码摘要；字段过长放不下时只保留ID、用户名、角色和状态
+     */
+    private static byte[] encodeSession(User user, long userVersion) {
+        byte[] full = encodeSession(user, userVersion, true);
+        return full.length <= MAX_VALUE_BYTES ? full : encodeSession(user, userVersion, false);
+    }
+
+    private static byte[] encodeSession(User user, long userVersion, boolean withProfile) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(userVersion);
+            out.writeInt(user.getUserId() != null ? user.getUserId() : -1);
+            writeString(out, user.getUsername());
+            writeString(out, user.getUserRole());
+            writeString(out, user.getStatus());
+            writeString(out, withProfile ? user.getRealName() : null);
+            writeString(out, withProfile ? user.getDepartment() : null);
+            writeString(out, withProfile ? user.getEmail() : null);
+            writeString(out, withProfile ? user.getPhone() : null);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // 用户版本号和用户级吊销截止时间都只有一个 long，借 Entry 的 userVersion 字段携带
+    private static Entry decodeEntry(byte state, byte[] value) {
+        if (state == USER_VERSION || state == USER_NOT_BEFORE) {
+            return new Entry(null, ByteBuffer.wrap(value).getLong());
+        }
+        if (state != SESSION) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+            long userVersion = in.readLong();
+            User user = new User();
+            int userId = in.readInt();
+            user.setUserId(userId >= 0 ? userId : null);
+            user.setUsername(readString(in));
+            user.setUserRole(readString(in));
+            user.setStatus(readString(in));
+            user.setRealName(readString(in));
+            user.setDepartment(readString(in));
+            user.setEmail(readString(in));
+            user.setPhone(readString(in));
+            return new Entry(user, userVersion);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    // === 指标 ===
+
+    /** 统计共享表中的会话数（遍历全部槽位，仅供监控使用） */
+    @Override
+    public int size() {
+        int count = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (buffer.get(offset(slot) + STATE) == SESSION) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /** 近端缓存命中次数 */
+    public long getNearCacheHits() {
+        return nearHits.sum();
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    public void close() throws IOException {
+        nearCache.clear();
+        channel.close();
+    }
+
+    // 近端缓存条目：槽位、读取时的版本号和解码后的内容（令牌吊销记录为null）
+    private static final class Cached {
+        final int slot;
+        final long version;
+        final byte state;
+        final Entry entry;
+        final long expiresAt;
+
+        Cached(int slot, long version, byte state, Entry entry, long expiresAt) {
+            this.slot = slot;
+            this.version = version;
+            this.state = state;
+            this.entry = entry;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package labSystem.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 已吊销的签名令牌
+ * 签名令牌在过期前始终有效，登出时把令牌ID记入此表；修改密码、用户被停用或资料变更时记录该用户的截止时间，
+ * 此前签发给该用户的令牌全部无效。
+ * 条目只需保留到相关令牌过期，因此表的大小约等于有效期内的登出和用户变更次数。
+ * 以共享会话存储构造时吊销记录写入共享文件，同机各进程都能看到
+ */
+public class TokenRevocationList {
+
+    // 每记录这么多次吊销清理一次已过期的条目
+    private static final int PRUNE_INTERVAL = 64;
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();  // 令牌ID -> 令牌过期时间
+    private final Map<Integer, long[]> userCutoffs = new ConcurrentHashMap<>();  // 用户ID -> {截止时间, 记录过期时间}
+    private final AtomicInteger sincePrune = new AtomicInteger();
+    private final SharedSessionStore shared;
+
+    /** 仅本进程可见的吊销表 */
+    public TokenRevocationList() {
+        this(null);
+    }
+
+    /** 吊销记录保存在共享会话存储中 */
+    public TokenRevocationList(SharedSessionStore shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * 吊销令牌
+     * @param tokenId 令牌ID
+     * @param expiresAt 令牌过期时间，之后条目可以清除
+     */
+    public void revoke(String tokenId, long expiresAt) {
+        if (shared != null) {
+            shared.revoke(tokenId, expiresAt);
+            return;
+        }
+        revoked.put(tokenId, expiresAt);
+        if (sincePrune.incrementAndGet() >= PRUNE_INTERVAL) {
+            sincePrune.set(0);
+            prune(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 吊销用户在 notBefore 之前签发的全部令牌
+     * @param expiresAt 此前签发的令牌都已过期的时间（notBefore 加令牌有效期），之后条目可以清除
+     */
+    public void revokeUserBefore(int userId, long notBefore, long expiresAt) {
+        if (shared != null) {
+            shared.revokeUserBefore(userId, notBefore, expiresAt);
+            return;
+        }
+        userCutoffs.merge(userId, new long[]{notBefore, expiresAt},
+                (old, next) -> new long[]{Math.max(old[0], next[0]), Math.max(old[1], next[1])});
+        if (sincePrune.incrementAndGet() >= PRUNE_INTERVAL) {
+            sincePrune.set(0);
+            prune(System.currentTimeMillis());
+        }
+    }
+
+    /** 用户级吊销截止时间，签发时间早于它的令牌无效；没有记录时为0 */
+    public long notBefore(int userId) {
+        if (shared != null) {
+            return shared.userNotBefore(userId);
+        }
+        long[] cutoff = userCutoffs.get(userId);
+        return cutoff != null ? cutoff[0] : 0L;
+    }
+
+    public boolean isRevoked(String tokenId) {
+        if (shared != null) {
+            return shared.isRevoked(tokenId);
+        }
+        return revoked.containsKey(tokenId);
+    }
+
+    //本进程内存中的记录数，含用户级记录（共享模式下记录在共享文件中，不计入）
+    public int size() {
+        return revoked.size() + userCutoffs.size();
+    }
+
+    private void prune(long now) {
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        userCutoffs.values().removeIf(cutoff -> cutoff[1] <= now);
+    }
+}
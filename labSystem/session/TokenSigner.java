@@ -0,0 +1,222 @@
+package labSystem.session;
+
+import labSystem.config.DBconfig;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名令牌
+ * 令牌自带用户ID、角色、用户名、签发/过期时间和密钥编号，以 HMAC-SHA256 签名，
+ * 校验只需本地计算，不查会话表也不查数据库，任何节点都能校验其他节点签发的令牌。
+ * 支持多把密钥轮换：用当前密钥签发，配置中的所有密钥都可用于校验；从配置中移除的密钥签发的令牌随即失效。
+ * 格式：base64url(载荷) + "." + base64url(签名)，载荷为 "v1|密钥编号|令牌ID|用户ID|角色|签发时间|过期时间|用户名"
+ */
+public class TokenSigner {
+
+    public static final String MODE_KEY = "session.token.mode";
+    public static final String KEYS_KEY = "session.token.keys";
+    public static final String ACTIVE_KEY_KEY = "session.token.active.key";
+    public static final String TTL_MINUTES_KEY = "session.token.ttl.minutes";
+
+    private static final String VERSION = "v1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final int FIELD_COUNT = 8;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Map<String, SigningKey> keys;
+    private final String activeKeyId;
+    private final SigningKey activeKey;
+    private final long ttlMillis;
+
+    /**
+     * @param secrets 密钥编号 -> 密钥（至少32字节）
+     * @param activeKeyId 签发新令牌使用的密钥编号
+     * @param ttlMillis 令牌有效期
+     */
+    public TokenSigner(Map<String, byte[]> secrets, String activeKeyId, long ttlMillis) {
+        Map<String, SigningKey> built = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : secrets.entrySet()) {
+            String keyId = entry.getKey();
+            if (keyId.isEmpty() || keyId.indexOf('|') >= 0) {
+                throw new IllegalArgumentException("密钥编号无效: " + keyId);
+            }
+            if (entry.getValue().length < MIN_SECRET_BYTES) {
+                throw new IllegalArgumentException("密钥 " + keyId + " 长度不足" + MIN_SECRET_BYTES + "字节");
+            }
+            built.put(keyId, new SigningKey(entry.getValue()));
+        }
+        this.keys = Collections.unmodifiableMap(built);
+        this.activeKey = keys.get(activeKeyId);
+        if (activeKey == null) {
+            throw new IllegalArgumentException("当前密钥不存在: " + activeKeyId);
+        }
+        this.activeKeyId = activeKeyId;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * 按配置创建
+     * session.token.keys 格式为 "编号:base64密钥,编号:base64密钥"
+     * @return 未启用签名令牌（session.token.mode 不是 signed）时返回null
+     */
+    public static TokenSigner fromConfig() {
+        String mode = DBconfig.getProperty(MODE_KEY, "local").trim();
+        if (!"signed".equalsIgnoreCase(mode)) {
+            return null;
+        }
+        Map<String, byte[]> secrets = new LinkedHashMap<>();
+        for (String item : DBconfig.getProperty(KEYS_KEY, "").split(",")) {
+            item = item.trim();
+            if (item.isEmpty()) continue;
+            int colon = item.indexOf(':');
+            if (colon <= 0) {
+                throw new IllegalStateException("令牌密钥配置格式错误，应为 编号:base64密钥");
+            }
+            secrets.put(item.substring(0, colon).trim(), Base64.getDecoder().decode(item.substring(colon + 1).trim()));
+        }
+        if (secrets.isEmpty()) {
+            throw new IllegalStateException("已启用签名令牌，但未配置 " + KEYS_KEY);
+        }
+        String active = DBconfig.getProperty(ACTIVE_KEY_KEY, "").trim();
+        if (active.isEmpty()) {
+            active = secrets.keySet().iterator().next();
+        }
+        int ttlMinutes = Integer.parseInt(DBconfig.getProperty(TTL_MINUTES_KEY, "720").trim());
+        return new TokenSigner(secrets, active, TimeUnit.MINUTES.toMillis(ttlMinutes));
+    }
+
+    /** 签发令牌 */
+    public String sign(int userId, String userRole, String username) {
+        return sign(userId, userRole, username, System.currentTimeMillis());
+    }
+
+    /**
+     * 签发令牌
+     * @param issuedAt 签发时间，取读取用户信息之前的时间，之后的用户级吊销对该令牌同样生效；有效期从此时算起
+     */
+    public String sign(int userId, String userRole, String username, long issuedAt) {
+        String tokenId = UUID.randomUUID().toString().replace("-", "");
+        String payload = VERSION + "|" + activeKeyId + "|" + tokenId + "|" + userId + "|" + nullToEmpty(userRole)
+                + "|" + issuedAt + "|" + (issuedAt + ttlMillis) + "|" + nullToEmpty(username);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(activeKey.mac(payloadBytes));
+    }
+
+    /**
+     * 校验令牌
+     * 签名以常量时间比较
+     * @return 令牌格式错误、密钥未知、签名不符或已过期时返回null
+     */
+    public Claims verify(String token) {
+        if (token == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) return null;
+
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", FIELD_COUNT);
+        if (fields.length != FIELD_COUNT || !VERSION.equals(fields[0])) return null;
+
+        SigningKey key = keys.get(fields[1]);
+        if (key == null || !MessageDigest.isEqual(key.mac(payloadBytes), signature)) return null;
+
+        Claims claims;
+        try {
+            claims = new Claims(fields[1], fields[2], Integer.parseInt(fields[3]), emptyToNull(fields[4]),
+                    Long.parseLong(fields[5]), Long.parseLong(fields[6]), emptyToNull(fields[7]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return claims.getExpiresAt() > System.currentTimeMillis() ? claims : null;
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    // Mac 实例不是线程安全的，每个线程各持有一个
+    private static final class SigningKey {
+        private final SecretKeySpec spec;
+        private final ThreadLocal<Mac> mac;
+
+        SigningKey(byte[] secret) {
+            this.spec = new SecretKeySpec(secret.clone(), ALGORITHM);
+            this.mac = ThreadLocal.withInitial(this::newMac);
+            newMac();  // 尽早暴露算法或密钥问题
+        }
+
+        private Mac newMac() {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(spec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化令牌签名失败", e);
+            }
+        }
+
+        byte[] mac(byte[] data) {
+            return mac.get().doFinal(data);
+        }
+    }
+
+    /** 令牌内容 */
+    public static final class Claims {
+        private final String keyId;
+        private final String tokenId;
+        private final int userId;
+        private final String userRole;
+        private final long issuedAt;
+        private final long expiresAt;
+        private final String username;
+
+        Claims(String keyId, String tokenId, int userId, String userRole, long issuedAt, long expiresAt, String username) {
+            this.keyId = keyId;
+            this.tokenId = tokenId;
+            this.userId = userId;
+            this.userRole = userRole;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.username = username;
+        }
+
+        public String getKeyId() { return keyId; }
+        public String getTokenId() { return tokenId; }
+        public int getUserId() { return userId; }
+        public String getUserRole() { return userRole; }
+        public long getIssuedAt() { return issuedAt; }
+        public long getExpiresAt() { return expiresAt; }
+        public String getUsername() { return username; }
+    }
+}
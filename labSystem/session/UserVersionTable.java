@@ -0,0 +1,47 @@
+package labSystem.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户版本号
+ * 用户信息每次变更版本号加一，会话记录登录（或重新加载）时的版本号；
+ * 校验登录时两者不一致说明会话中的用户信息已过时，需要从数据库重新加载。
+ * 从未变更过的用户版本号为0，表中只保存变更过的用户。
+ * 以共享会话存储构造时版本号写入共享文件，任一进程的变更对所有进程可见
+ */
+public class UserVersionTable {
+
+    private final Map<Integer, Long> versions = new ConcurrentHashMap<>();
+    private final SharedSessionStore shared;
+
+    /** 仅本进程可见的版本表 */
+    public UserVersionTable() {
+        this(null);
+    }
+
+    /** 版本号保存在共享会话存储中 */
+    public UserVersionTable(SharedSessionStore shared) {
+        this.shared = shared;
+    }
+
+    /** 当前版本号 */
+    public long current(int userId) {
+        if (shared != null) {
+            return shared.userVersion(userId);
+        }
+        Long version = versions.get(userId);
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * 用户信息变更，版本号加一
+     * @return 新版本号
+     */
+    public long bump(int userId) {
+        if (shared != null) {
+            return shared.bumpUserVersion(userId);
+        }
+        return versions.merge(userId, 1L, Long::sum);
+    }
+}
@@ -0,0 +1,68 @@
+package labSystem.statistic;
+
+/**
+ * Count-Min 计数摘要
+ * depth 行 x width 列的计数矩阵，每行用独立哈希定位一列累加，估计值取各行最小值；
+ * 只会高估，误差不超过 总数 * e / width（概率 1 - e^-depth）。相同尺寸的摘要逐格相加即可合并
+ */
+public final class CountMinSketch {
+
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C, 0xFD7046C5, 0xB55A4F09};
+
+    private final int depth;
+    private final int width;
+    private final int mask;
+    private final int[] table;
+
+    /**
+     * @param depth 行数（不超过8）
+     * @param width 列数，向上取整为2的幂
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("depth 必须在1到" + SEEDS.length + "之间");
+        }
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.mask = this.width - 1;
+        this.table = new int[depth * this.width];
+    }
+
+    public void add(int item, int weight) {
+        for (int row = 0; row < depth; row++) {
+            table[row * width + index(item, row)] += weight;
+        }
+    }
+
+    public long estimate(int item) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + index(item, row)]);
+        }
+        return min;
+    }
+
+    /** 合并尺寸相同的摘要 */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Count-Min 摘要尺寸不一致，无法合并");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+    }
+
+    public CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(depth, width);
+        System.arraycopy(table, 0, copy.table, 0, table.length);
+        return copy;
+    }
+
+    private int index(int item, int row) {
+        int h = item * SEEDS[row];
+        h ^= h >>> 15;
+        h *= 0x2C1B3C6D;
+        h ^= h >>> 12;
+        return h & mask;
+    }
+}
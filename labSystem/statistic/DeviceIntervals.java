@@ -0,0 +1,30 @@
+package labSystem.statistic;
+
+/**
+ * 按设备分组的占用区间（CSR 布局）
+ * 第 g 组设备的区间位于 starts/ends 的 [offsets[g], offsets[g + 1])，组内未排序
+ */
+public final class DeviceIntervals {
+
+    final int[] deviceIds;
+    final int[] offsets;
+    final long[] starts;
+    final long[] ends;
+
+    DeviceIntervals(int[] deviceIds, int[] offsets, long[] starts, long[] ends) {
+        this.deviceIds = deviceIds;
+        this.offsets = offsets;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /** 有占用记录的设备数 */
+    public int groupCount() {
+        return deviceIds.length;
+    }
+
+    /** 区间总数 */
+    public int size() {
+        return starts.length;
+    }
+}
@@ -0,0 +1,206 @@
+package labSystem.statistic;
+
+import labSystem.entity.statisticData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 设备可靠性模型
+ * 按设备增量维护故障次数、修复时长和使用时长，
+ * 由报修创建、报修解决和设备使用事件驱动，查询时无需访问数据库
+ */
+public class DeviceReliabilityModel implements StatisticEventListener {
+
+    // 滚动故障率窗口（天）
+    public static final int WINDOW_DAYS = 90;
+
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private volatile Map<Integer, DeviceState> states = new ConcurrentHashMap<>();
+
+    // === 事件入口 ===
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        switch (event.getType()) {
+            case REPAIR_CREATED:
+                onRepairCreated(event.getDeviceId(), event.getRepair().getCreatedAt());
+                break;
+            case REPAIR_RESOLVED:
+                onRepairResolved(event.getDeviceId(), event.getRepair().getCreatedAt(), event.getRepair().getResolvedAt());
+                break;
+            case DEVICE_USAGE:
+                onUsage(event.getDeviceId(), event.getUsageHours());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** 报修创建：记一次故障 */
+    public void onRepairCreated(int deviceId, Date createdAt) {
+        long time = createdAt != null ? createdAt.getTime() : System.currentTimeMillis();
+        stateOf(deviceId).recordFailure(time);
+    }
+
+    /** 报修解决：累计修复时长 */
+    public void onRepairResolved(int deviceId, Date createdAt, Date resolvedAt) {
+        if (createdAt == null || resolvedAt == null || resolvedAt.before(createdAt)) {
+            return;
+        }
+        double hours = (double) (resolvedAt.getTime() - createdAt.getTime()) / HOUR_MILLIS;
+        stateOf(deviceId).recordRepair(hours);
+    }
+
+    /** 设备使用：累计使用时长 */
+    public void onUsage(int deviceId, double hours) {
+        if (hours <= 0) return;
+        stateOf(deviceId).addUsage(hours);
+    }
+
+    /** 直接设置设备累计使用时长（回填时使用 Device.totalUsageHours） */
+    public void setUsageHours(int deviceId, double totalHours) {
+        stateOf(deviceId).setUsage(Math.max(0, totalHours));
+    }
+
+    // === 查询 ===
+
+    /**
+     * 查询单个设备的可靠性指标
+     * @return 可靠性数据，设备无任何记录时返回null
+     */
+    public statisticData.DeviceReliability get(int deviceId) {
+        DeviceState state = states.get(deviceId);
+        if (state == null) return null;
+        return state.snapshot(deviceId, currentDay());
+    }
+
+    /**
+     * 批量查询设备可靠性指标
+     * 无记录的设备返回全零指标，保证结果与入参一一对应
+     */
+    public List<statisticData.DeviceReliability> query(Collection<Integer> deviceIds) {
+        List<statisticData.DeviceReliability> resultList = new ArrayList<>(deviceIds.size());
+        long today = currentDay();
+        Map<Integer, DeviceState> current = states;
+        for (Integer deviceId : deviceIds) {
+            if (deviceId == null) continue;
+            DeviceState state = current.get(deviceId);
+            resultList.add(state != null ? state.snapshot(deviceId, today) : new DeviceState().snapshot(deviceId, today));
+        }
+        return resultList;
+    }
+
+    /** 模型中累计的故障总数（用于与数据库报修数比对） */
+    public long totalFailures() {
+        long total = 0;
+        for (DeviceState state : states.values()) {
+            total += state.failureCount();
+        }
+        return total;
+    }
+
+    /** 已建模的设备数 */
+    public int size() {
+        return states.size();
+    }
+
+    /** 清空模型 */
+    public void clear() {
+        states = new ConcurrentHashMap<>();
+    }
+
+    /** 用另一个模型（通常为回填结果）整体替换当前数据 */
+    public void replaceWith(DeviceReliabilityModel rebuilt) {
+        this.states = rebuilt.states;
+    }
+
+    private DeviceState stateOf(int deviceId) {
+        return states.computeIfAbsent(deviceId, id -> new DeviceState());
+    }
+
+    private static long currentDay() {
+        return Math.floorDiv(System.currentTimeMillis(), DAY_MILLIS);
+    }
+
+    /**
+     * 单个设备的累计状态
+     * 近90天故障数用按天环形数组维护，推进窗口时只清理过期的槽位
+     */
+    private static final class DeviceState {
+        private int failures;
+        private int resolved;
+        private double repairHours;
+        private double usageHours;
+
+        private final int[] dailyFailures = new int[WINDOW_DAYS];
+        private long headDay = Long.MIN_VALUE;  // 窗口最新一天
+        private int windowFailures;
+
+        synchronized void recordFailure(long time) {
+            failures++;
+            long day = Math.floorDiv(time, DAY_MILLIS);
+            advanceTo(day);
+            if (day > headDay - WINDOW_DAYS) {
+                dailyFailures[(int) Math.floorMod(day, (long) WINDOW_DAYS)]++;
+                windowFailures++;
+            }
+        }
+
+        synchronized int failureCount() {
+            return failures;
+        }
+
+        synchronized void recordRepair(double hours) {
+            resolved++;
+            repairHours += hours;
+        }
+
+        synchronized void addUsage(double hours) {
+            usageHours += hours;
+        }
+
+        synchronized void setUsage(double hours) {
+            usageHours = hours;
+        }
+
+        private void advanceTo(long day) {
+            if (headDay != Long.MIN_VALUE && day <= headDay) return;
+            if (headDay == Long.MIN_VALUE || day - headDay >= WINDOW_DAYS) {
+                Arrays.fill(dailyFailures, 0);
+                windowFailures = 0;
+                headDay = day;
+                return;
+            }
+            while (headDay < day) {
+                headDay++;
+                int slot = (int) Math.floorMod(headDay, (long) WINDOW_DAYS);
+                windowFailures -= dailyFailures[slot];
+                dailyFailures[slot] = 0;
+            }
+        }
+
+        synchronized statisticData.DeviceReliability snapshot(int deviceId, long today) {
+            advanceTo(today);
+
+            statisticData.DeviceReliability data = new statisticData.DeviceReliability();
+            data.setDeviceId(deviceId);
+            data.setFailureCount(failures);
+            data.setResolvedCount(resolved);
+            data.setUsageHours(usageHours);
+            data.setMtbfHours(failures > 0 ? usageHours / failures : null);
+            data.setMttrHours(resolved > 0 ? repairHours / resolved : null);
+            data.setFailuresPerUsageHour(usageHours > 0 ? failures / usageHours : 0.0);
+            data.setRecentFailures(windowFailures);
+            data.setRecentFailureRate((double) windowFailures / WINDOW_DAYS);
+            return data;
+        }
+    }
+}
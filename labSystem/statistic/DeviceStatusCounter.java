@@ -0,0 +1,54 @@
+package labSystem.statistic;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 设备状态计数
+ * 以 DeviceDao.countByStatus 为初值，之后按设备状态变化事件增量加减
+ */
+public class DeviceStatusCounter implements StatisticEventListener {
+
+    private final Map<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        if (event.getType() != StatisticEvent.Type.DEVICE_STATUS_CHANGED) return;
+        if (event.getOldStatus() != null) {
+            counts.computeIfAbsent(event.getOldStatus(), s -> new AtomicInteger()).decrementAndGet();
+        }
+        if (event.getNewStatus() != null) {
+            counts.computeIfAbsent(event.getNewStatus(), s -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    /** 用数据库统计结果重置计数 */
+    public void reset(Map<String, Integer> initialCounts) {
+        counts.clear();
+        if (initialCounts == null) return;
+        for (Map.Entry<String, Integer> entry : initialCounts.entrySet()) {
+            counts.put(entry.getKey(), new AtomicInteger(entry.getValue() != null ? entry.getValue() : 0));
+        }
+    }
+
+    public int get(String status) {
+        AtomicInteger count = counts.get(status);
+        return count != null ? count.get() : 0;
+    }
+
+    public int total() {
+        int total = 0;
+        for (AtomicInteger count : counts.values()) {
+            total += count.get();
+        }
+        return total;
+    }
+
+    public Map<String, Integer> snapshot() {
+        Map<String, Integer> result = new HashMap<>();
+        counts.forEach((status, count) -> result.put(status, count.get()));
+        return result;
+    }
+}
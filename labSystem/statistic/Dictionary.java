@@ -0,0 +1,48 @@
+package labSystem.statistic;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字符串字典编码
+ * 把状态、分类、角色等低基数字符串映射为连续的小整数编码
+ */
+final class Dictionary {
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final int maxSize;
+
+    Dictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /** 编码，新值自动分配编码 */
+    int encode(String value) {
+        String key = value != null ? value : "unknown";
+        Integer code = codes.get(key);
+        if (code != null) return code;
+        if (values.size() >= maxSize) {
+            throw new IllegalStateException("字典已满: " + maxSize);
+        }
+        values.add(key);
+        codes.put(key, values.size() - 1);
+        return values.size() - 1;
+    }
+
+    /** 查找编码，不存在返回-1 */
+    int find(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    String decode(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,174 @@
+package labSystem.statistic;
+
+import labSystem.entity.Device;
+import labSystem.entity.Repair;
+import labSystem.entity.Reservation;
+import labSystem.entity.statisticData;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 时长分位数摘要
+ * 按 天 x 设备 保存 t-digest：预约使用时长、超时时长（实际结束 - 计划结束，提前结束为负）、报修解决时长，
+ * 预约完成和报修解决时增量更新；任意区间、设备或分类的分位数由对应摘要合并得出，不需要排序原始记录
+ */
+public class DurationPercentileStore implements StatisticEventListener {
+
+    public enum Metric {
+        DURATION,   // 预约实际使用时长
+        OVERRUN,    // 预约超时时长
+        REPAIR      // 报修解决时长
+    }
+
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    // 单个摘要只服务一天一台设备，数据量小，用较低的压缩参数节省内存
+    private static final double COMPRESSION = 50;
+
+    private final ZoneId zone;
+    private volatile ConcurrentSkipListMap<Long, Map<Integer, TDigest[]>> days = new ConcurrentSkipListMap<>();
+    private volatile Map<Integer, String> deviceCategories = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public DurationPercentileStore() {
+        this(ZoneId.systemDefault());
+    }
+
+    public DurationPercentileStore(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // === 维护 ===
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        switch (event.getType()) {
+            case RESERVATION_CHANGED:
+                registerDevice(event.getDevice());
+                if ("completed".equals(event.getNewStatus()) && !"completed".equals(event.getOldStatus())) {
+                    recordReservation(event.getReservation());
+                }
+                break;
+            case REPAIR_RESOLVED:
+                recordRepair(event.getRepair());
+                break;
+            case DEVICE_STATUS_CHANGED:
+                registerDevice(event.getDevice());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void registerDevice(Device device) {
+        if (device != null && device.getDeviceId() != null && device.getCategoryName() != null) {
+            deviceCategories.put(device.getDeviceId(), device.getCategoryName());
+        }
+    }
+
+    /** 记录一条已完成预约的使用时长和超时时长（按开始时间所在日期归档） */
+    public void recordReservation(Reservation reservation) {
+        if (reservation == null || reservation.getDeviceId() == null || reservation.getActualEndTime() == null) return;
+        Date start = reservation.getActualStartTime() != null ? reservation.getActualStartTime() : reservation.getStartTime();
+        if (start == null) return;
+        long end = reservation.getActualEndTime().getTime();
+        long day = dayStart(start.getTime());
+        if (end >= start.getTime()) {
+            record(day, reservation.getDeviceId(), Metric.DURATION, (double) (end - start.getTime()) / HOUR_MILLIS);
+        }
+        if (reservation.getEndTime() != null) {
+            record(day, reservation.getDeviceId(), Metric.OVERRUN, (double) (end - reservation.getEndTime().getTime()) / HOUR_MILLIS);
+        }
+    }
+
+    /** 记录一条已解决报修的解决时长（按解决时间所在日期归档） */
+    public void recordRepair(Repair repair) {
+        if (repair == null || repair.getDeviceId() == null || repair.getCreatedAt() == null || repair.getResolvedAt() == null) return;
+        long millis = repair.getResolvedAt().getTime() - repair.getCreatedAt().getTime();
+        if (millis < 0) return;
+        record(dayStart(repair.getResolvedAt().getTime()), repair.getDeviceId(), Metric.REPAIR, (double) millis / HOUR_MILLIS);
+    }
+
+    private void record(long day, int deviceId, Metric metric, double hours) {
+        TDigest[] digests = days.computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(deviceId, id -> new TDigest[Metric.values().length]);
+        synchronized (digests) {
+            TDigest digest = digests[metric.ordinal()];
+            if (digest == null) {
+                digest = digests[metric.ordinal()] = new TDigest(COMPRESSION);
+            }
+            digest.add(hours);
+        }
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void clear() {
+        loaded = false;
+        days = new ConcurrentSkipListMap<>();
+    }
+
+    public void replaceWith(DurationPercentileStore rebuilt) {
+        this.days = rebuilt.days;
+        this.deviceCategories = rebuilt.deviceCategories;
+        this.loaded = true;
+    }
+
+    // === 查询 ===
+
+    /**
+     * 查询时长分位数（按天对齐）
+     * @param deviceId 设备ID，为空时按分类汇总
+     * @param category 设备分类，与 deviceId 都为空时汇总全部设备
+     */
+    public statisticData.DurationPercentiles percentiles(Metric metric, Integer deviceId, String category, Date startDate, Date endDate) {
+        TDigest merged = new TDigest();
+        for (Map<Integer, TDigest[]> day : days.subMap(dayStart(startDate.getTime()), true, endDate.getTime(), false).values()) {
+            for (Map.Entry<Integer, TDigest[]> entry : day.entrySet()) {
+                if (deviceId != null && !deviceId.equals(entry.getKey())) continue;
+                if (deviceId == null && category != null && !category.equals(deviceCategories.get(entry.getKey()))) continue;
+                TDigest[] digests = entry.getValue();
+                synchronized (digests) {
+                    if (digests[metric.ordinal()] != null) {
+                        merged.merge(digests[metric.ordinal()]);
+                    }
+                }
+            }
+        }
+
+        statisticData.DurationPercentiles result = new statisticData.DurationPercentiles();
+        result.setMetric(metric.name().toLowerCase());
+        result.setDeviceId(deviceId);
+        result.setCategoryName(deviceId == null ? category : null);
+        result.setCount(merged.count());
+        if (merged.count() > 0) {
+            result.setMeanHours(merged.mean());
+            result.setMinHours(merged.min());
+            result.setP50Hours(merged.quantile(0.5));
+            result.setP90Hours(merged.quantile(0.9));
+            result.setP99Hours(merged.quantile(0.99));
+            result.setMaxHours(merged.max());
+        }
+        return result;
+    }
+
+    private long dayStart(long epochMillis) {
+        long offset = zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(epochMillis + offset, DAY_MILLIS) * DAY_MILLIS - offset;
+    }
+}
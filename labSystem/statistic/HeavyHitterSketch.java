@@ -0,0 +1,91 @@
+package labSystem.statistic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 频繁项摘要
+ * Space-Saving 提供候选项，Count-Min 提供独立的计数上界，两者取小作为估计值，
+ * 可以收紧多次合并后 Space-Saving 累积的误差
+ */
+public final class HeavyHitterSketch {
+
+    public static final int DEFAULT_CAPACITY = 128;
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_WIDTH = 512;
+
+    private final SpaceSaving candidates;
+    private final CountMinSketch frequencies;
+
+    public HeavyHitterSketch() {
+        this(DEFAULT_CAPACITY, DEFAULT_DEPTH, DEFAULT_WIDTH);
+    }
+
+    public HeavyHitterSketch(int capacity, int depth, int width) {
+        this(new SpaceSaving(capacity), new CountMinSketch(depth, width));
+    }
+
+    private HeavyHitterSketch(SpaceSaving candidates, CountMinSketch frequencies) {
+        this.candidates = candidates;
+        this.frequencies = frequencies;
+    }
+
+    public synchronized void offer(int item) {
+        candidates.offer(item);
+        frequencies.add(item, 1);
+    }
+
+    public synchronized void merge(HeavyHitterSketch other) {
+        synchronized (other) {
+            candidates.merge(other.candidates);
+            frequencies.merge(other.frequencies);
+        }
+    }
+
+    public synchronized HeavyHitterSketch copy() {
+        return new HeavyHitterSketch(candidates.copy(), frequencies.copy());
+    }
+
+    public synchronized long total() {
+        return candidates.total();
+    }
+
+    /**
+     * 计数最高的前 n 项
+     * 误差为估计值与 Space-Saving 下界之差
+     */
+    public synchronized List<HeavyHitter> top(int n) {
+        int[] items = candidates.top(candidates.size());
+        List<HeavyHitter> resultList = new ArrayList<>(items.length);
+        for (int item : items) {
+            long upper = Math.min(candidates.estimate(item), frequencies.estimate(item));
+            long lower = Math.max(0, candidates.estimate(item) - candidates.error(item));
+            resultList.add(new HeavyHitter(item, upper, upper - Math.min(lower, upper)));
+        }
+        resultList.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return resultList.size() > n ? new ArrayList<>(resultList.subList(0, n)) : resultList;
+    }
+
+    /** 频繁项查询结果 */
+    public static final class HeavyHitter {
+        private final int item;
+        private final long count;
+        private final long error;
+
+        public HeavyHitter(int item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        public int getItem() { return item; }
+        public long getCount() { return count; }
+        /** 计数可能的最大高估量，精确计数时为0 */
+        public long getError() { return error; }
+
+        @Override
+        public String toString() {
+            return item + ": " + count + (error > 0 ? " (±" + error + ")" : "");
+        }
+    }
+}
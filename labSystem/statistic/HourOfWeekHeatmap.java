@@ -0,0 +1,100 @@
+package labSystem.statistic;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+
+/**
+ * 周几 x 小时（7x24）占用热力图累加器
+ * 以168个槽位的 long[] 累计占用毫秒数和预约开始次数，区间按本地整点切分到各个槽位，
+ * 槽位下标 = 周几(周一为0) * 24 + 小时
+ */
+public final class HourOfWeekHeatmap {
+
+    public static final int DAYS = 7;
+    public static final int HOURS = 24;
+    public static final int SLOTS = DAYS * HOURS;
+
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final ZoneRules rules;
+    private final long fixedOffsetMillis;   // 固定偏移时区的快速路径，否则为 Long.MIN_VALUE
+    private final long[] occupiedMillis = new long[SLOTS];
+    private final long[] starts = new long[SLOTS];
+
+    public HourOfWeekHeatmap(ZoneId zone) {
+        this.rules = zone.getRules();
+        this.fixedOffsetMillis = rules.isFixedOffset()
+                ? rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L : Long.MIN_VALUE;
+    }
+
+    /** 记一次在该时刻开始的预约 */
+    public void addStart(long epochMillis) {
+        starts[slotOf(epochMillis + offsetMillis(epochMillis))]++;
+    }
+
+    /** 累加占用区间 [start, end)，跨整点的部分分别计入各自的槽位 */
+    public void addInterval(long start, long end) {
+        long t = start;
+        while (t < end) {
+            long offset = offsetMillis(t);
+            long local = t + offset;
+            long next = Math.min(end, Math.floorDiv(local, HOUR_MILLIS) * HOUR_MILLIS + HOUR_MILLIS - offset);
+            occupiedMillis[slotOf(local)] += next - t;
+            t = next;
+        }
+    }
+
+    public long getOccupiedMillis(int day, int hour) {
+        return occupiedMillis[day * HOURS + hour];
+    }
+
+    public long getStarts(int day, int hour) {
+        return starts[day * HOURS + hour];
+    }
+
+    /** 占用小时数，[7][24] */
+    public double[][] toOccupiedHours() {
+        double[][] result = new double[DAYS][HOURS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            result[slot / HOURS][slot % HOURS] = (double) occupiedMillis[slot] / HOUR_MILLIS;
+        }
+        return result;
+    }
+
+    /**
+     * 占用率，[7][24]
+     * @param capacity 同一时间范围按 addInterval 累加得到的时段容量
+     * @param deviceCount 参与统计的设备数
+     */
+    public double[][] toOccupancyRate(HourOfWeekHeatmap capacity, int deviceCount) {
+        double[][] result = new double[DAYS][HOURS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long available = capacity.occupiedMillis[slot] * Math.max(1, deviceCount);
+            result[slot / HOURS][slot % HOURS] = available > 0 ? (double) occupiedMillis[slot] / available : 0.0;
+        }
+        return result;
+    }
+
+    /** 预约开始次数，[7][24] */
+    public long[][] toStarts() {
+        long[][] result = new long[DAYS][HOURS];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            result[slot / HOURS][slot % HOURS] = starts[slot];
+        }
+        return result;
+    }
+
+    private long offsetMillis(long epochMillis) {
+        if (fixedOffsetMillis != Long.MIN_VALUE) return fixedOffsetMillis;
+        return rules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+    }
+
+    // 1970-01-01 是周四，+3 后周一为0
+    private static int slotOf(long localMillis) {
+        int day = (int) Math.floorMod(Math.floorDiv(localMillis, DAY_MILLIS) + 3, (long) DAYS);
+        int hour = (int) (Math.floorMod(localMillis, DAY_MILLIS) / HOUR_MILLIS);
+        return day * HOURS + hour;
+    }
+}
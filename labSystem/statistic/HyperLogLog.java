@@ -0,0 +1,170 @@
+package labSystem.statistic;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog 去重计数摘要（p=10，1024个寄存器，标准误差约3.3%）
+ * 元素较少时以稀疏形式保存（每个非零寄存器一个int），超过阈值再转为稠密的 byte[1024]，
+ * 这样大量只有几个用户的"设备-天"摘要只占几十字节。
+ * 合并即逐寄存器取最大值；序列化时稠密寄存器按6位打包，固定768字节
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 10;
+    public static final int REGISTERS = 1 << PRECISION;
+
+    private static final int SPARSE_LIMIT = 128;        // 超过后转稠密（稀疏512字节 vs 稠密1024字节）
+    private static final int PACKED_BYTES = REGISTERS * 6 / 8;
+    private static final byte FORMAT_SPARSE = 1;
+    private static final byte FORMAT_DENSE = 2;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private int[] sparse = new int[4];    // 每项 (寄存器下标 << 8) | 值，按下标有序
+    private int sparseSize;
+    private byte[] dense;
+
+    public void add(int value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        update(index, rank);
+    }
+
+    /** 估计去重元素数 */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (dense != null) {
+            for (byte register : dense) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) zeros++;
+            }
+        } else {
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xFF));
+            }
+        }
+        double raw = ALPHA * REGISTERS * REGISTERS / sum;
+        // 小基数用线性计数修正
+        if (raw <= 2.5 * REGISTERS && zeros > 0) {
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    /** 合并另一个摘要（逐寄存器取最大值） */
+    public void merge(HyperLogLog other) {
+        if (other.dense != null) {
+            toDense();
+            for (int i = 0; i < REGISTERS; i++) {
+                if (other.dense[i] > dense[i]) dense[i] = other.dense[i];
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                update(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return dense == null && sparseSize == 0;
+    }
+
+    /**
+     * 序列化
+     * 稀疏：[1][个数(2字节)][每项 下标(2字节) 值(1字节)]；稠密：[2][768字节，每个寄存器6位]
+     */
+    public byte[] toBytes() {
+        if (dense == null) {
+            byte[] bytes = new byte[3 + sparseSize * 3];
+            bytes[0] = FORMAT_SPARSE;
+            bytes[1] = (byte) (sparseSize >>> 8);
+            bytes[2] = (byte) sparseSize;
+            for (int i = 0; i < sparseSize; i++) {
+                int index = sparse[i] >>> 8;
+                bytes[3 + i * 3] = (byte) (index >>> 8);
+                bytes[4 + i * 3] = (byte) index;
+                bytes[5 + i * 3] = (byte) sparse[i];
+            }
+            return bytes;
+        }
+        byte[] bytes = new byte[1 + PACKED_BYTES];
+        bytes[0] = FORMAT_DENSE;
+        for (int i = 0; i < REGISTERS; i += 4) {
+            // 4个6位寄存器打包为3字节
+            int packed = (dense[i] << 18) | (dense[i + 1] << 12) | (dense[i + 2] << 6) | dense[i + 3];
+            int offset = 1 + i / 4 * 3;
+            bytes[offset] = (byte) (packed >>> 16);
+            bytes[offset + 1] = (byte) (packed >>> 8);
+            bytes[offset + 2] = (byte) packed;
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hll = new HyperLogLog();
+        if (bytes[0] == FORMAT_SPARSE) {
+            int size = ((bytes[1] & 0xFF) << 8) | (bytes[2] & 0xFF);
+            for (int i = 0; i < size; i++) {
+                int index = ((bytes[3 + i * 3] & 0xFF) << 8) | (bytes[4 + i * 3] & 0xFF);
+                hll.update(index, bytes[5 + i * 3] & 0xFF);
+            }
+            return hll;
+        }
+        if (bytes[0] != FORMAT_DENSE || bytes.length != 1 + PACKED_BYTES) {
+            throw new IllegalArgumentException("无法识别的 HyperLogLog 序列化数据");
+        }
+        hll.dense = new byte[REGISTERS];
+        for (int i = 0; i < REGISTERS; i += 4) {
+            int offset = 1 + i / 4 * 3;
+            int packed = ((bytes[offset] & 0xFF) << 16) | ((bytes[offset + 1] & 0xFF) << 8) | (bytes[offset + 2] & 0xFF);
+            hll.dense[i] = (byte) ((packed >>> 18) & 0x3F);
+            hll.dense[i + 1] = (byte) ((packed >>> 12) & 0x3F);
+            hll.dense[i + 2] = (byte) ((packed >>> 6) & 0x3F);
+            hll.dense[i + 3] = (byte) (packed & 0x3F);
+        }
+        return hll;
+    }
+
+    private void update(int index, int rank) {
+        if (dense != null) {
+            if (rank > dense[index]) dense[index] = (byte) rank;
+            return;
+        }
+        int pos = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+        if (pos < 0) pos = -pos - 1;
+        if (pos < sparseSize && sparse[pos] >>> 8 == index) {
+            if (rank > (sparse[pos] & 0xFF)) sparse[pos] = (index << 8) | rank;
+            return;
+        }
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            update(index, rank);
+            return;
+        }
+        if (sparseSize == sparse.length) sparse = Arrays.copyOf(sparse, sparseSize * 2);
+        System.arraycopy(sparse, pos, sparse, pos + 1, sparseSize - pos);
+        sparse[pos] = (index << 8) | rank;
+        sparseSize++;
+    }
+
+    private void toDense() {
+        if (dense != null) return;
+        dense = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    // SplitMix64 终混，把连续的整数ID打散到64位
+    private static long mix(int value) {
+        long z = value * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
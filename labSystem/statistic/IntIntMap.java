@@ -0,0 +1,71 @@
+package labSystem.statistic;
+
+import java.util.Arrays;
+
+/**
+ * int -> int 开放寻址哈希表
+ * 供列式存储按主键定位行号，避免 Integer 装箱
+ */
+final class IntIntMap {
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /** 查找，不存在返回 missingValue */
+    int get(int key, int missingValue) {
+        int slot = mix(key) & mask;
+        while (true) {
+            int k = keys[slot];
+            if (k == key) return values[slot];
+            if (k == EMPTY) return missingValue;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    void put(int key, int value) {
+        if (key == EMPTY) throw new IllegalArgumentException("不支持的键: " + key);
+        if ((size + 1) * 2 > keys.length) rehash(keys.length << 1);
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) size++;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,114 @@
+package labSystem.statistic;
+
+import labSystem.dao.DeviceDao;
+import labSystem.dao.RepairDao;
+import labSystem.dao.ReservationDao;
+import labSystem.entity.Device;
+import labSystem.entity.Repair;
+import labSystem.entity.Reservation;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 时长分位数摘要回填任务
+ * 分页扫描已完成的预约和已解决的报修，构建新摘要后整体替换；
+ * 给定重建事件记录时，替换前补放回填期间的事件，已读到的完成预约和已解决报修按ID跳过
+ */
+public class PercentileBackfillJob implements Runnable {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final ReservationDao reservationDao;
+    private final RepairDao repairDao;
+    private final DeviceDao deviceDao;
+    private final DurationPercentileStore target;
+    private final RebuildEventLog events;
+
+    public PercentileBackfillJob(ReservationDao reservationDao, RepairDao repairDao, DeviceDao deviceDao, DurationPercentileStore target) {
+        this(reservationDao, repairDao, deviceDao, target, null);
+    }
+
+    public PercentileBackfillJob(ReservationDao reservationDao, RepairDao repairDao, DeviceDao deviceDao, DurationPercentileStore target,
+                                 RebuildEventLog events) {
+        this.reservationDao = reservationDao;
+        this.repairDao = repairDao;
+        this.deviceDao = deviceDao;
+        this.target = target;
+        this.events = events;
+    }
+
+    @Override
+    public void run() {
+        DurationPercentileStore rebuilt = new DurationPercentileStore(target.getZone());
+
+        BitSet completed = new BitSet();
+        BitSet resolved = new BitSet();
+
+        int page = 1;
+        List<Device> devices;
+        do {
+            devices = deviceDao.findByPage(page++, PAGE_SIZE);
+            devices.forEach(rebuilt::registerDevice);
+        } while (devices.size() == PAGE_SIZE);
+
+        page = 1;
+        List<Reservation> reservations;
+        do {
+            reservations = reservationDao.findByPage(page++, PAGE_SIZE);
+            for (Reservation reservation : reservations) {
+                if ("completed".equals(reservation.getStatus())) {
+                    rebuilt.recordReservation(reservation);
+                    mark(completed, reservation.getReservationId());
+                }
+            }
+        } while (reservations.size() == PAGE_SIZE);
+
+        page = 1;
+        List<Repair> repairs;
+        do {
+            repairs = repairDao.findByPage(page++, PAGE_SIZE);
+            for (Repair repair : repairs) {
+                rebuilt.recordRepair(repair);
+                if (repair.getResolvedAt() != null) {
+                    mark(resolved, repair.getRepairId());
+                }
+            }
+        } while (repairs.size() == PAGE_SIZE);
+
+        if (events == null) {
+            target.replaceWith(rebuilt);
+            return;
+        }
+        events.replayAndSwap((position, event) -> {
+            switch (event.getType()) {
+                // 没有ID的事件无法与已读取的记录去重，只登记设备，不计入
+                case RESERVATION_CHANGED:
+                    if (!hasId(event.getReservation().getReservationId())
+                            || isMarked(completed, event.getReservation().getReservationId())) {
+                        rebuilt.registerDevice(event.getDevice());
+                        return;
+                    }
+                    break;
+                case REPAIR_RESOLVED:
+                    if (!hasId(event.getRepair().getRepairId()) || isMarked(resolved, event.getRepair().getRepairId())) return;
+                    break;
+                default:
+                    break;
+            }
+            rebuilt.onEvent(event);
+        }, () -> target.replaceWith(rebuilt));
+    }
+
+    private static void mark(BitSet ids, Integer id) {
+        if (id != null && id >= 0) ids.set(id);
+    }
+
+    private static boolean hasId(Integer id) {
+        return id != null && id >= 0;
+    }
+
+    private static boolean isMarked(BitSet ids, Integer id) {
+        return id != null && id >= 0 && ids.get(id);
+    }
+}
@@ -0,0 +1,80 @@
+package labSystem.statistic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 重建期间的事件记录
+ * 回填任务分页读库期间发布的事件仍作用在旧聚合上，替换后就会丢失；
+ * 这里按发布顺序记下这些事件，回填结果在替换前补放一遍，
+ * 最后一段补放和替换一起在事件总线的独占区内完成，替换前后不漏事件。
+ * 回填读到的数据可能已包含其中一部分事件，由各回填任务按ID或位置标记跳过已读到的部分
+ */
+public class RebuildEventLog implements StatisticEventListener {
+
+    /** 补放回调，position 为事件在记录中的序号 */
+    public interface Replay {
+        void apply(int position, StatisticEvent event);
+    }
+
+    private final StatisticEventBus bus;
+    private final List<StatisticEvent> events = new ArrayList<>();
+
+    private RebuildEventLog(StatisticEventBus bus) {
+        this.bus = bus;
+    }
+
+    /** 开始记录总线上发布的事件 */
+    public static RebuildEventLog start(StatisticEventBus bus) {
+        RebuildEventLog log = new RebuildEventLog(bus);
+        bus.register(log);
+        return log;
+    }
+
+    /** 停止记录 */
+    public void stop() {
+        bus.unregister(this);
+    }
+
+    @Override
+    public synchronized void onEvent(StatisticEvent event) {
+        events.add(event);
+    }
+
+    /**
+     * 当前已记录的事件数
+     * 回填任务在读某页数据前取一次，序号小于它的事件在读库前已发布，其结果已包含在读到的数据中
+     */
+    public synchronized int position() {
+        return events.size();
+    }
+
+    /**
+     * 按顺序补放全部记录的事件，然后执行替换
+     * 先在总线外补放已有的事件，再在独占区内补放剩余事件并替换，独占区只覆盖很短的一段
+     */
+    public void replayAndSwap(Replay replay, Runnable swap) {
+        int next = replayFrom(0, replay);
+        bus.runExclusive(() -> {
+            replayFrom(next, replay);
+            swap.run();
+        });
+    }
+
+    private int replayFrom(int from, Replay replay) {
+        int position = from;
+        while (true) {
+            StatisticEvent event;
+            synchronized (this) {
+                if (position >= events.size()) return position;
+                event = events.get(position);
+            }
+            try {
+                replay.apply(position, event);
+            } catch (RuntimeException e) {
+                bus.recordFailure(event, e);
+            }
+            position++;
+        }
+    }
+}
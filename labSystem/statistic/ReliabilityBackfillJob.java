@@ -0,0 +1,112 @@
+package labSystem.statistic;
+
+import labSystem.dao.DeviceDao;
+import labSystem.dao.RepairDao;
+import labSystem.entity.Device;
+import labSystem.entity.Repair;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 可靠性模型回填任务
+ * 分页流式扫描一遍历史报修记录和设备使用时长，构建完整模型后整体替换目标模型；
+ * 给定重建事件记录时，替换前补放回填期间的事件：已读到的报修按ID跳过，
+ * 使用时长事件只补放读取该设备那一页之后发布的
+ */
+public class ReliabilityBackfillJob implements Runnable {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final RepairDao repairDao;
+    private final DeviceDao deviceDao;
+    private final DeviceReliabilityModel target;
+    private final RebuildEventLog events;
+
+    public ReliabilityBackfillJob(RepairDao repairDao, DeviceDao deviceDao, DeviceReliabilityModel target) {
+        this(repairDao, deviceDao, target, null);
+    }
+
+    public ReliabilityBackfillJob(RepairDao repairDao, DeviceDao deviceDao, DeviceReliabilityModel target, RebuildEventLog events) {
+        this.repairDao = repairDao;
+        this.deviceDao = deviceDao;
+        this.target = target;
+        this.events = events;
+    }
+
+    @Override
+    public void run() {
+        DeviceReliabilityModel rebuilt = new DeviceReliabilityModel();
+
+        Map<Integer, Integer> deviceMarks = new HashMap<>();  // 设备ID -> 读取该页前的事件位置
+        BitSet created = new BitSet();
+        BitSet resolved = new BitSet();
+
+        // 设备累计使用时长
+        int page = 1;
+        List<Device> devices;
+        do {
+            int mark = events != null ? events.position() : 0;
+            devices = deviceDao.findByPage(page++, PAGE_SIZE);
+            for (Device device : devices) {
+                if (device.getDeviceId() != null && device.getTotalUsageHours() != null) {
+                    rebuilt.setUsageHours(device.getDeviceId(), device.getTotalUsageHours());
+                    deviceMarks.put(device.getDeviceId(), mark);
+                }
+            }
+        } while (devices.size() == PAGE_SIZE);
+
+        // 报修记录：每条记一次故障，已解决的再累计修复时长
+        page = 1;
+        List<Repair> repairs;
+        do {
+            repairs = repairDao.findByPage(page++, PAGE_SIZE);
+            for (Repair repair : repairs) {
+                if (repair.getDeviceId() == null) continue;
+                rebuilt.onRepairCreated(repair.getDeviceId(), repair.getCreatedAt());
+                mark(created, repair.getRepairId());
+                if (repair.getResolvedAt() != null) {
+                    rebuilt.onRepairResolved(repair.getDeviceId(), repair.getCreatedAt(), repair.getResolvedAt());
+                    mark(resolved, repair.getRepairId());
+                }
+            }
+        } while (repairs.size() == PAGE_SIZE);
+
+        if (events == null) {
+            target.replaceWith(rebuilt);
+            return;
+        }
+        events.replayAndSwap((position, event) -> {
+            switch (event.getType()) {
+                // 没有ID的事件无法与已读取的记录去重，宁可漏计也不重复计数，留给下次漂移检测
+                case REPAIR_CREATED:
+                    if (!hasId(event.getRepair().getRepairId()) || isMarked(created, event.getRepair().getRepairId())) return;
+                    break;
+                case REPAIR_RESOLVED:
+                    if (!hasId(event.getRepair().getRepairId()) || isMarked(resolved, event.getRepair().getRepairId())) return;
+                    break;
+                case DEVICE_USAGE:
+                    Integer mark = deviceMarks.get(event.getDeviceId());
+                    if (mark != null && position < mark) return;
+                    break;
+                default:
+                    break;
+            }
+            rebuilt.onEvent(event);
+        }, () -> target.replaceWith(rebuilt));
+    }
+
+    private static void mark(BitSet ids, Integer id) {
+        if (id != null && id >= 0) ids.set(id);
+    }
+
+    private static boolean hasId(Integer id) {
+        return id != null && id >= 0;
+    }
+
+    private static boolean isMarked(BitSet ids, Integer id) {
+        return id != null && id >= 0 && ids.get(id);
+    }
+}
@@ -0,0 +1,165 @@
+package labSystem.statistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 报表并行执行器
+ * 一份报表拆成若干互不依赖的子查询，在有界线程池中并发执行后合并，
+ * 报表耗时约等于最慢的子查询；超过时限未完成或执行失败的部分记为缺失，其余结果照常返回
+ */
+public class ReportExecutor {
+
+    public static final int DEFAULT_THREADS = 8;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMillis;
+
+    public ReportExecutor() {
+        this(DEFAULT_THREADS, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param threads 最大并发子查询数（应不超过数据库连接数）
+     * @param timeoutMillis 单份报表的默认时限
+     */
+    public ReportExecutor(int threads, long timeoutMillis) {
+        AtomicInteger sequence = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-worker-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 队列满时由调用线程自己执行，退化为串行而不是拒绝报表
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /** 开始一份新报表 */
+    public Batch newBatch() {
+        return new Batch();
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 一份报表的子查询集合
+     * 先 add 所有部分，再 await，之后从各 Part 取结果
+     */
+    public final class Batch {
+        private final Map<String, Part<?>> parts = new LinkedHashMap<>();
+        private final List<String> missingParts = new ArrayList<>();
+        private boolean awaited;
+
+        /** 添加并立即提交一个子查询 */
+        public <T> Part<T> add(String name, Callable<T> query) {
+            if (awaited) {
+                throw new IllegalStateException("报表已执行完毕，不能再添加子查询");
+            }
+            Future<T> future;
+            try {
+                future = pool.submit(query);
+            } catch (RejectedExecutionException e) {
+                future = null;  // 执行器已关闭
+            }
+            Part<T> part = new Part<>(name, future);
+            parts.put(name, part);
+            return part;
+        }
+
+        /** 按默认时限等待所有子查询 */
+        public Batch await() {
+            return await(timeoutMillis);
+        }
+
+        /**
+         * 等待所有子查询，整份报表共用一个截止时间
+         * 到期未完成的子查询被取消并记为缺失
+         */
+        public Batch await(long timeoutMillis) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            for (Part<?> part : parts.values()) {
+                if (!part.collect(deadline)) {
+                    missingParts.add(part.name);
+                }
+            }
+            awaited = true;
+            return this;
+        }
+
+        public boolean isComplete() {
+            return missingParts.isEmpty();
+        }
+
+        /** 超时或失败的子查询名称 */
+        public List<String> getMissingParts() {
+            return Collections.unmodifiableList(missingParts);
+        }
+    }
+
+    /**
+     * 单个子查询结果
+     * 超时或失败时 get 返回null，失败原因可由 getError 取得
+     */
+    public static final class Part<T> {
+        private final String name;
+        private final Future<T> future;
+        private T value;
+        private Throwable error;
+
+        private Part(String name, Future<T> future) {
+            this.name = name;
+            this.future = future;
+        }
+
+        private boolean collect(long deadline) {
+            if (future == null) {
+                error = new RejectedExecutionException("报表执行器已关闭");
+                return false;
+            }
+            try {
+                value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                error = e;
+            } catch (ExecutionException e) {
+                error = e.getCause();
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                error = e;
+            }
+            return false;
+        }
+
+        public String getName() { return name; }
+        public T get() { return value; }
+        public boolean isAvailable() { return error == null; }
+        public Throwable getError() { return error; }
+    }
+}
@@ -0,0 +1,116 @@
+package labSystem.statistic;
+
+import labSystem.entity.statisticData;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 报表快照回填任务
+ * 为起始年份至今所有已结束的月份和年份并行生成快照，已有快照的周期跳过。
+ * 使用独立的小线程池：每份报告内部的子查询仍由 ReportExecutor 执行，两者分开避免互相等待
+ */
+public class ReportSnapshotBackfillJob implements Runnable {
+
+    public static final int DEFAULT_THREADS = 2;
+
+    /** 报告生成方式（不经过快照，直接实时计算） */
+    public interface ReportSource {
+        statisticData monthly(int year, int month);
+
+        statisticData yearly(int year);
+    }
+
+    private final ReportSnapshotStore store;
+    private final ReportSource source;
+    private final int fromYear;
+    private final int threads;
+
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public ReportSnapshotBackfillJob(ReportSnapshotStore store, ReportSource source, int fromYear) {
+        this(store, source, fromYear, DEFAULT_THREADS);
+    }
+
+    public ReportSnapshotBackfillJob(ReportSnapshotStore store, ReportSource source, int fromYear, int threads) {
+        this.store = store;
+        this.source = source;
+        this.fromYear = fromYear;
+        this.threads = threads;
+    }
+
+    @Override
+    public void run() {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            Calendar cal = Calendar.getInstance();
+            int currentYear = cal.get(Calendar.YEAR);
+            for (int year = fromYear; year <= currentYear; year++) {
+                for (int month = 1; month <= 12; month++) {
+                    cal.clear();
+                    cal.set(year, month, 1);    // 下月1日即本月结束时间
+                    if (!store.isClosed(cal.getTime())) break;
+                    int y = year, m = month;
+                    tasks.add(pool.submit(() -> generate(ReportSnapshotStore.monthlyKey(y, m), () -> source.monthly(y, m))));
+                }
+                cal.clear();
+                cal.set(year + 1, Calendar.JANUARY, 1);
+                if (store.isClosed(cal.getTime())) {
+                    int y = year;
+                    tasks.add(pool.submit(() -> generate(ReportSnapshotStore.yearlyKey(y), () -> source.yearly(y))));
+                }
+            }
+            for (Future<?> task : tasks) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    failed.incrementAndGet();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void generate(String key, Supplier<statisticData> report) {
+        if (store.exists(key)) {
+            skipped.incrementAndGet();
+            return;
+        }
+        try {
+            if (store.save(key, report.get())) {
+                generated.incrementAndGet();
+            } else {
+                failed.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("报表快照生成失败: " + key + " - " + e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    /** 本次新生成的快照数 */
+    public int getGenerated() { return generated.get(); }
+
+    /** 已存在而跳过的快照数 */
+    public int getSkipped() { return skipped.get(); }
+
+    /** 生成失败或报告不完整而未保存的周期数 */
+    public int getFailed() { return failed.get(); }
+}
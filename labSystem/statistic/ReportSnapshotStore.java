@@ -0,0 +1,160 @@
+package labSystem.statistic;
+
+import labSystem.config.DBconfig;
+import labSystem.entity.statisticData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 报表快照存储
+ * 已结束（超过宽限期）的月份和年份不会再变化，其报告计算一次后以 gzip 压缩的序列化文件保存在配置目录下，
+ * 之后直接读取快照；仍在进行中的周期每次实时计算。
+ * 文件先写临时文件再原子替换，读取失败（损坏或实体类已变更）时删除快照，由下次请求重新生成。
+ * 读取时只允许统计实体、行集和它们用到的JDK基础类型，文件被替换成其他序列化内容也不会实例化别的类
+ */
+public class ReportSnapshotStore {
+
+    public static final String DIR_KEY = "statistic.snapshot.dir";
+    public static final String GRACE_DAYS_KEY = "statistic.snapshot.grace.days";
+
+    private static final String SUFFIX = ".snap.gz";
+    private static final ObjectInputFilter SNAPSHOT_FILTER = ObjectInputFilter.Config.createFilter(
+            "labSystem.entity.statisticData;labSystem.entity.statisticData$*;labSystem.dao.StatisticRows$*;"
+                    + "java.lang.Object;java.lang.String;java.lang.Number;java.lang.Integer;java.lang.Long;java.lang.Double;java.lang.Boolean;"
+                    + "java.util.Date;java.sql.Date;java.sql.Timestamp;"
+                    + "java.util.ArrayList;java.util.Arrays$ArrayList;java.util.Collections$*;java.util.HashMap;java.util.LinkedHashMap;"
+                    + "maxdepth=20;!*");
+
+    private final Path directory;
+    private final long graceMillis;
+
+    public ReportSnapshotStore(Path directory, long graceMillis) {
+        this.directory = directory;
+        this.graceMillis = graceMillis;
+    }
+
+    /**
+     * 按配置创建
+     * @return 未配置快照目录时返回null（不启用快照）
+     */
+    public static ReportSnapshotStore fromConfig() {
+        String dir = DBconfig.getProperty(DIR_KEY, "");
+        if (dir.trim().isEmpty()) return null;
+        int graceDays = Integer.parseInt(DBconfig.getProperty(GRACE_DAYS_KEY, "7").trim());
+        return new ReportSnapshotStore(Paths.get(dir.trim()), TimeUnit.DAYS.toMillis(graceDays));
+    }
+
+    public static String monthlyKey(int year, int month) {
+        return String.format("monthly-%04d-%02d", year, month);
+    }
+
+    public static String yearlyKey(int year) {
+        return String.format("yearly-%04d", year);
+    }
+
+    /** 周期是否已结束（结束时间加宽限期早于当前时间），只有已结束的周期才保存快照 */
+    public boolean isClosed(Date periodEnd) {
+        return periodEnd.getTime() + graceMillis <= System.currentTimeMillis();
+    }
+
+    public boolean exists(String key) {
+        return Files.isRegularFile(pathOf(key));
+    }
+
+    /**
+     * 读取快照
+     * @return 快照不存在或无法读取时返回null
+     */
+    public statisticData load(String key) {
+        Path path = pathOf(key);
+        if (!Files.isRegularFile(path)) return null;
+        try (InputStream file = Files.newInputStream(path);
+             ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(file)))) {
+            in.setObjectInputFilter(SNAPSHOT_FILTER);
+            return (statisticData) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            System.err.println("报表快照读取失败，将重新生成: " + path + " - " + e.getMessage());
+            delete(path);
+            return null;
+        }
+    }
+
+    /**
+     * 保存快照
+     * 不完整的报告（有缺失部分）不保存；写入失败只记录日志，不影响本次报告返回
+     * @return 是否已保存
+     */
+    public boolean save(String key, statisticData report) {
+        if (report == null || report.isPartial()) return false;
+        Path path = pathOf(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream file = Files.newOutputStream(temp);
+                 ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(file)))) {
+                out.writeObject(report);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("报表快照保存失败: " + path + " - " + e.getMessage());
+            if (temp != null) delete(temp);
+            return false;
+        }
+    }
+
+    /**
+     * 删除全部快照（历史数据被修正后使用）
+     * @return 删除的快照数
+     */
+    public int clear() {
+        if (!Files.isDirectory(directory)) return 0;
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                if (delete(file)) deleted++;
+            }
+        } catch (IOException e) {
+            System.err.println("清理报表快照失败: " + directory + " - " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private Path pathOf(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static boolean delete(Path path) {
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package labSystem.statistic;
+
+import labSystem.dao.DeviceDao;
+import labSystem.dao.ReservationDao;
+import labSystem.dao.UserDao;
+import labSystem.entity.Device;
+import labSystem.entity.Reservation;
+import labSystem.entity.User;
+
+import java.util.List;
+
+/**
+ * 预约事实表加载任务
+ * 先分页加载设备分类和用户角色字典，再流式扫描一遍历史预约追加到新事实表，完成后整体替换；
+ * 给定重建事件记录时，替换前按顺序补放回填期间的事件（按预约ID覆盖写入，重复补放无副作用）
+ */
+public class ReservationFactBackfillJob implements Runnable {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final ReservationDao reservationDao;
+    private final DeviceDao deviceDao;
+    private final UserDao userDao;
+    private final ReservationFactStore target;
+    private final RebuildEventLog events;
+
+    public ReservationFactBackfillJob(ReservationDao reservationDao, DeviceDao deviceDao, UserDao userDao, ReservationFactStore target) {
+        this(reservationDao, deviceDao, userDao, target, null);
+    }
+
+    public ReservationFactBackfillJob(ReservationDao reservationDao, DeviceDao deviceDao, UserDao userDao, ReservationFactStore target,
+                                      RebuildEventLog events) {
+        this.reservationDao = reservationDao;
+        this.deviceDao = deviceDao;
+        this.userDao = userDao;
+        this.target = target;
+        this.events = events;
+    }
+
+    @Override
+    public void run() {
+        ReservationFactStore rebuilt = new ReservationFactStore(target.getZone());
+
+        int page = 1;
+        List<Device> devices;
+        do {
+            devices = deviceDao.findByPage(page++, PAGE_SIZE);
+            devices.forEach(rebuilt::registerDevice);
+        } while (devices.size() == PAGE_SIZE);
+
+        page = 1;
+        List<User> users;
+        do {
+            users = userDao.findByPage(page++, PAGE_SIZE);
+            for (User user : users) {
+                rebuilt.registerUserRole(user.getUserId(), user.getUserRole());
+            }
+        } while (users.size() == PAGE_SIZE);
+
+        page = 1;
+        List<Reservation> reservations;
+        do {
+            reservations = reservationDao.findByPage(page++, PAGE_SIZE);
+            reservations.forEach(rebuilt::upsert);
+        } while (reservations.size() == PAGE_SIZE);
+
+        if (events == null) {
+            target.replaceWith(rebuilt);
+        } else {
+            events.replayAndSwap((position, event) -> rebuilt.onEvent(event), () -> target.replaceWith(rebuilt));
+        }
+    }
+}
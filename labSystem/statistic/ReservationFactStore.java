@@ -0,0 +1,570 @@
+package labSystem.statistic;
+
+import labSystem.entity.Device;
+import labSystem.entity.Reservation;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 预约事实表（列式内存存储）
+ * 每条预约占一行，按列存放在基本类型数组中：设备/用户ID为 int[]，起止时间为 long[] 毫秒，
+ * 状态、分类、角色做字典编码；每行约32字节，远小于 Reservation 对象。
+ * 加载一次后随预约事件追加或原地更新，扫描/过滤/分组都是对数组的紧凑循环
+ */
+public class ReservationFactStore implements StatisticEventListener {
+
+    /** 可分组的字典列 */
+    public enum Column { STATUS, CATEGORY, ROLE }
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    // 分类、角色字典中 "unknown" 固定占用编码0
+    private static final int UNKNOWN_CODE = 0;
+
+    private final ZoneId zone;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns data = new Columns(INITIAL_CAPACITY);
+    private volatile boolean loaded;
+
+    public ReservationFactStore() {
+        this(ZoneId.systemDefault());
+    }
+
+    public ReservationFactStore(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // === 维护 ===
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        switch (event.getType()) {
+            case RESERVATION_CHANGED:
+                registerDevice(event.getDevice());
+                registerUserRole(event.getReservation().getUserId(), event.getUserRole());
+                upsert(event.getReservation());
+                break;
+            case DEVICE_STATUS_CHANGED:
+                registerDevice(event.getDevice());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** 登记设备分类 */
+    public void registerDevice(Device device) {
+        if (device == null || device.getDeviceId() == null) return;
+        lock.writeLock().lock();
+        try {
+            data.deviceCategories.put(device.getDeviceId(), (short) data.categoryDict.encode(device.getCategoryName()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 登记用户角色 */
+    public void registerUserRole(Integer userId, String userRole) {
+        if (userId == null || userRole == null) return;
+        lock.writeLock().lock();
+        try {
+            data.userRoles.put(userId, (byte) data.roleDict.encode(userRole));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 追加新预约，已存在则原地更新状态和结束时间 */
+    public void upsert(Reservation reservation) {
+        if (reservation == null || reservation.getReservationId() == null || reservation.getStartTime() == null) return;
+        lock.writeLock().lock();
+        try {
+            data.upsert(reservation);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            loaded = false;
+            data = new Columns(INITIAL_CAPACITY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** 用重新加载的事实表整体替换当前数据 */
+    public void replaceWith(ReservationFactStore rebuilt) {
+        lock.writeLock().lock();
+        try {
+            data = rebuilt.data;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return data.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === 扫描/过滤 ===
+
+    /**
+     * 按开始时间过滤
+     * @return 开始时间落在 [from, to) 的行号
+     */
+    public int[] selectByStart(Date from, Date to) {
+        long lo = from.getTime();
+        long hi = to.getTime();
+        lock.readLock().lock();
+        try {
+            long[] starts = data.startEpochs;
+            int n = data.size;
+            int[] rows = new int[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                long s = starts[i];
+                rows[count] = i;
+                count += (s >= lo & s < hi) ? 1 : 0;
+            }
+            return Arrays.copyOf(rows, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按时间重叠过滤
+     * @return 占用区间与 [from, to) 有交集的行号（含开始早于 from 的跨界预约）
+     */
+    public int[] selectOverlapping(Date from, Date to) {
+        long lo = from.getTime();
+        long hi = to.getTime();
+        lock.readLock().lock();
+        try {
+            long[] starts = data.startEpochs;
+            long[] ends = data.endEpochs;
+            int n = data.size;
+            int[] rows = new int[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                rows[count] = i;
+                count += (starts[i] < hi & ends[i] > lo) ? 1 : 0;
+            }
+            return Arrays.copyOf(rows, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 在已选行中按字典列的取值再过滤 */
+    public int[] filter(int[] rows, Column column, String value) {
+        lock.readLock().lock();
+        try {
+            int code = dictionary(column).find(value);
+            if (code < 0) return new int[0];
+            int[] result = new int[rows.length];
+            int count = 0;
+            for (int row : rows) {
+                result[count] = row;
+                count += codeAt(column, row) == code ? 1 : 0;
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 在已选行中按设备过滤 */
+    public int[] filterDevice(int[] rows, int deviceId) {
+        lock.readLock().lock();
+        try {
+            int[] deviceIds = data.deviceIds;
+            int[] result = new int[rows.length];
+            int count = 0;
+            for (int row : rows) {
+                result[count] = row;
+                count += deviceIds[row] == deviceId ? 1 : 0;
+            }
+            return Arrays.copyOf(result, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === 分组 ===
+
+    /** 按字典列分组计数，返回以编码为下标的计数数组 */
+    public long[] countBy(Column column, int[] rows) {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[dictionary(column).size()];
+            for (int row : rows) {
+                counts[codeAt(column, row)]++;
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 精确 Top-N：按设备或用户统计行数，取计数最高的前 n 项
+     * 先排序ID做游程计数，再把 (计数, ID) 打包成 long 排序，全程不装箱
+     */
+    public List<HeavyHitterSketch.HeavyHitter> topN(int[] rows, boolean byUser, int n) {
+        int[] ids = new int[rows.length];
+        lock.readLock().lock();
+        try {
+            int[] column = byUser ? data.userIds : data.deviceIds;
+            for (int i = 0; i < rows.length; i++) {
+                ids[i] = column[rows[i]];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(ids);
+
+        long[] packed = new long[ids.length];
+        int groups = 0;
+        for (int i = 0; i < ids.length; ) {
+            int j = i;
+            while (j < ids.length && ids[j] == ids[i]) j++;
+            packed[groups++] = ((long) (j - i) << 32) | (ids[i] & 0xFFFFFFFFL);
+            i = j;
+        }
+        Arrays.sort(packed, 0, groups);
+
+        List<HeavyHitterSketch.HeavyHitter> resultList = new ArrayList<>(Math.min(n, groups));
+        for (int i = groups - 1; i >= 0 && resultList.size() < n; i--) {
+            resultList.add(new HeavyHitterSketch.HeavyHitter((int) packed[i], packed[i] >>> 32, 0));
+        }
+        return resultList;
+    }
+
+    /** 逐行访问 (预约ID, 设备ID, 用户ID, 开始时间, 结束时间)，用于从事实表派生其他聚合 */
+    public void forEach(RowVisitor visitor) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < data.size; row++) {
+                visitor.visit(data.reservationIds[row], data.deviceIds[row], data.userIds[row], data.startEpochs[row], data.endEpochs[row]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public interface RowVisitor {
+        void visit(int reservationId, int deviceId, int userId, long startEpoch, long endEpoch);
+    }
+
+    /** 字典编码还原为字符串 */
+    public String decode(Column column, int code) {
+        lock.readLock().lock();
+        try {
+            return dictionary(column).decode(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 按开始时间的小时（0-23，本地时区）统计行数 */
+    public long[] countByStartHour(int[] rows) {
+        long[] counts = new long[24];
+        lock.readLock().lock();
+        try {
+            long[] starts = data.startEpochs;
+            ZoneOffset fixed = zone.getRules().isFixedOffset() ? zone.getRules().getOffset(Instant.EPOCH) : null;
+            for (int row : rows) {
+                long offsetMillis = fixed != null ? fixed.getTotalSeconds() * 1000L
+                        : zone.getRules().getOffset(Instant.ofEpochMilli(starts[row])).getTotalSeconds() * 1000L;
+                counts[(int) (Math.floorMod(starts[row] + offsetMillis, DAY_MILLIS) / HOUR_MILLIS)]++;
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 一次扫描构建周几 x 小时热力图
+     * 所有行计入开始次数；只有占用状态的行计入占用时长，且区间裁剪到 [from, to)
+     * @param occupyingStatuses 视为占用设备的预约状态
+     */
+    public HourOfWeekHeatmap hourOfWeek(int[] rows, Collection<String> occupyingStatuses, Date from, Date to) {
+        long lo = from.getTime();
+        long hi = to.getTime();
+        HourOfWeekHeatmap heatmap = new HourOfWeekHeatmap(zone);
+        lock.readLock().lock();
+        try {
+            boolean[] occupying = new boolean[data.statusDict.size()];
+            for (String status : occupyingStatuses) {
+                int code = data.statusDict.find(status);
+                if (code >= 0) occupying[code] = true;
+            }
+            long[] starts = data.startEpochs;
+            long[] ends = data.endEpochs;
+            byte[] statuses = data.statusCodes;
+            for (int row : rows) {
+                heatmap.addStart(starts[row]);
+                if (occupying[statuses[row]]) {
+                    heatmap.addInterval(Math.max(starts[row], lo), Math.min(ends[row], hi));
+                }
+            }
+            return heatmap;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按设备分组取出占用区间
+     * 只取占用状态的行，区间裁剪到 [from, to)，裁剪后为空的丢弃；两遍扫描（计数、填充），不装箱
+     */
+    public DeviceIntervals occupiedIntervals(int[] rows, Collection<String> occupyingStatuses, Date from, Date to) {
+        long lo = from.getTime();
+        long hi = to.getTime();
+        lock.readLock().lock();
+        try {
+            boolean[] occupying = new boolean[data.statusDict.size()];
+            for (String status : occupyingStatuses) {
+                int code = data.statusDict.find(status);
+                if (code >= 0) occupying[code] = true;
+            }
+
+            IntIntMap groupOf = new IntIntMap(64);
+            int[] groupDevices = new int[16];
+            int[] groupSizes = new int[16];
+            int groups = 0;
+            int total = 0;
+            for (int row : rows) {
+                if (!occupying[data.statusCodes[row]]) continue;
+                if (Math.max(data.startEpochs[row], lo) >= Math.min(data.endEpochs[row], hi)) continue;
+                int group = groupOf.get(data.deviceIds[row], -1);
+                if (group < 0) {
+                    if (groups == groupDevices.length) {
+                        groupDevices = Arrays.copyOf(groupDevices, groups * 2);
+                        groupSizes = Arrays.copyOf(groupSizes, groups * 2);
+                    }
+                    group = groups++;
+                    groupOf.put(data.deviceIds[row], group);
+                    groupDevices[group] = data.deviceIds[row];
+                }
+                groupSizes[group]++;
+                total++;
+            }
+
+            int[] offsets = new int[groups + 1];
+            for (int g = 0; g < groups; g++) {
+                offsets[g + 1] = offsets[g] + groupSizes[g];
+            }
+            int[] cursor = Arrays.copyOf(offsets, groups);
+            long[] starts = new long[total];
+            long[] ends = new long[total];
+            for (int row : rows) {
+                if (!occupying[data.statusCodes[row]]) continue;
+                long start = Math.max(data.startEpochs[row], lo);
+                long end = Math.min(data.endEpochs[row], hi);
+                if (start >= end) continue;
+                int pos = cursor[groupOf.get(data.deviceIds[row], -1)]++;
+                starts[pos] = start;
+                ends[pos] = end;
+            }
+            return new DeviceIntervals(Arrays.copyOf(groupDevices, groups), offsets, starts, ends);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 已登记的设备数，category 为空表示全部分类 */
+    public int deviceCount(String category) {
+        lock.readLock().lock();
+        try {
+            if (category == null) return data.deviceCategories.size();
+            int code = data.categoryDict.find(category);
+            int count = 0;
+            for (Short deviceCategory : data.deviceCategories.values()) {
+                if (deviceCategory == code) count++;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按用户角色统计用户行为
+     * @return 以角色编码为下标，每项为 [有预约的用户数, 用户-设备去重组合数, 预约数]
+     */
+    public long[][] userActivityByRole(int[] rows) {
+        lock.readLock().lock();
+        try {
+            long[][] result = new long[data.roleDict.size()][3];
+            long[] pairs = new long[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                int row = rows[i];
+                pairs[i] = ((long) data.userIds[row] << 32) | (data.deviceIds[row] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(pairs);
+
+            // 排序后同一用户的行相邻，角色按用户当前登记的角色归类
+
+            long lastPair = 0;
+            int lastUser = 0;
+            int roleCode = 0;
+            for (int i = 0; i < pairs.length; i++) {
+                long pair = pairs[i];
+                int userId = (int) (pair >>> 32);
+                if (i == 0 || userId != lastUser) {
+                    Byte code = data.userRoles.get(userId);
+                    roleCode = code != null ? code : UNKNOWN_CODE;
+                    result[roleCode][0]++;
+                    lastUser = userId;
+                }
+                if (i == 0 || pair != lastPair) {
+                    result[roleCode][1]++;
+                    lastPair = pair;
+                }
+                result[roleCode][2]++;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 已登记用户按角色计数，以角色编码为下标 */
+    public long[] registeredUsersByRole() {
+        lock.readLock().lock();
+        try {
+            long[] counts = new long[data.roleDict.size()];
+            for (Byte code : data.userRoles.values()) {
+                counts[code]++;
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Dictionary dictionary(Column column) {
+        switch (column) {
+            case STATUS: return data.statusDict;
+            case CATEGORY: return data.categoryDict;
+            default: return data.roleDict;
+        }
+    }
+
+    private int codeAt(Column column, int row) {
+        switch (column) {
+            case STATUS: return data.statusCodes[row];
+            case CATEGORY: return data.categoryCodes[row];
+            default: return data.roleCodes[row];
+        }
+    }
+
+    /**
+     * 列数据本体
+     * 整体替换时只需切换一个引用
+     */
+    private static final class Columns {
+        int size;
+        int[] reservationIds;
+        int[] deviceIds;
+        int[] userIds;
+        long[] startEpochs;
+        long[] endEpochs;       // 已完成的取实际结束时间
+        byte[] statusCodes;
+        short[] categoryCodes;
+        byte[] roleCodes;
+
+        final IntIntMap rowIndex;
+        final Dictionary statusDict = new Dictionary(Byte.MAX_VALUE);
+        final Dictionary categoryDict = new Dictionary(Short.MAX_VALUE);
+        final Dictionary roleDict = new Dictionary(Byte.MAX_VALUE);
+        final Map<Integer, Short> deviceCategories = new HashMap<>();
+        final Map<Integer, Byte> userRoles = new HashMap<>();
+
+        Columns(int capacity) {
+            reservationIds = new int[capacity];
+            deviceIds = new int[capacity];
+            userIds = new int[capacity];
+            startEpochs = new long[capacity];
+            endEpochs = new long[capacity];
+            statusCodes = new byte[capacity];
+            categoryCodes = new short[capacity];
+            roleCodes = new byte[capacity];
+            rowIndex = new IntIntMap(capacity);
+            categoryDict.encode(null);
+            roleDict.encode(null);
+        }
+
+        void upsert(Reservation reservation) {
+            int row = rowIndex.get(reservation.getReservationId(), -1);
+            if (row < 0) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowIndex.put(reservation.getReservationId(), row);
+                reservationIds[row] = reservation.getReservationId();
+            }
+            int deviceId = reservation.getDeviceId() != null ? reservation.getDeviceId() : 0;
+            int userId = reservation.getUserId() != null ? reservation.getUserId() : 0;
+            deviceIds[row] = deviceId;
+            userIds[row] = userId;
+            startEpochs[row] = reservation.getStartTime().getTime();
+            Date end = reservation.getActualEndTime() != null ? reservation.getActualEndTime() : reservation.getEndTime();
+            endEpochs[row] = end != null ? end.getTime() : startEpochs[row];
+            statusCodes[row] = (byte) statusDict.encode(reservation.getStatus());
+
+            Short category = deviceCategories.get(deviceId);
+            categoryCodes[row] = category != null ? category : UNKNOWN_CODE;
+            Byte role = userRoles.get(userId);
+            roleCodes[row] = role != null ? role : UNKNOWN_CODE;
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= reservationIds.length) return;
+            int capacity = Math.max(required, reservationIds.length + (reservationIds.length >> 1));
+            reservationIds = Arrays.copyOf(reservationIds, capacity);
+            deviceIds = Arrays.copyOf(deviceIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            startEpochs = Arrays.copyOf(startEpochs, capacity);
+            endEpochs = Arrays.copyOf(endEpochs, capacity);
+            statusCodes = Arrays.copyOf(statusCodes, capacity);
+            categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+            roleCodes = Arrays.copyOf(roleCodes, capacity);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package labSystem.statistic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 频繁项摘要
+ * 固定保留 capacity 个计数器：已跟踪的项直接累加；新项在满员时顶替计数最小的项，并继承其计数作为误差上界。
+ * 真实计数落在 [count - error, count] 内，任何真实计数超过 总数/capacity 的项都一定在摘要中。
+ * 多个摘要可合并，合并结果仍满足同样的误差保证
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Integer, Integer> slots;   // 项 -> 下标
+    private final int[] items;
+    private final long[] counts;
+    private final long[] errors;
+    private int size;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.slots = new HashMap<>(capacity * 2);
+        this.items = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    public void offer(int item) {
+        offer(item, 1);
+    }
+
+    public void offer(int item, long weight) {
+        total += weight;
+        Integer slot = slots.get(item);
+        if (slot != null) {
+            counts[slot] += weight;
+            return;
+        }
+        if (size < capacity) {
+            put(size++, item, weight, 0);
+            return;
+        }
+        int min = minSlot();
+        slots.remove(items[min]);
+        put(min, item, counts[min] + weight, counts[min]);
+    }
+
+    /** 估计计数（上界），未跟踪的项返回当前最小计数（满员时）或0 */
+    public long estimate(int item) {
+        Integer slot = slots.get(item);
+        if (slot != null) return counts[slot];
+        return size < capacity ? 0 : counts[minSlot()];
+    }
+
+    /** 估计的误差上界 */
+    public long error(int item) {
+        Integer slot = slots.get(item);
+        if (slot != null) return errors[slot];
+        return size < capacity ? 0 : counts[minSlot()];
+    }
+
+    /** 摘要中计数最高的前 n 项，按计数降序 */
+    public int[] top(int n) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Long.compare(counts[b], counts[a]));
+        int[] result = new int[Math.min(n, size)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = items[order[i]];
+        }
+        return result;
+    }
+
+    /** 已处理的总权重 */
+    public long total() {
+        return total;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 合并另一个摘要
+     * 某项只在一侧被跟踪时，另一侧按其最小计数（满员时）补计数和误差，最后保留计数最高的 capacity 项
+     */
+    public void merge(SpaceSaving other) {
+        long thisMin = size < capacity ? 0 : counts[minSlot()];
+        long otherMin = other.size < other.capacity ? 0 : other.counts[other.minSlot()];
+
+        Map<Integer, long[]> union = new HashMap<>((size + other.size) * 2);
+        for (int i = 0; i < size; i++) {
+            union.put(items[i], new long[]{counts[i] + otherMin, errors[i] + otherMin});
+        }
+        for (int i = 0; i < other.size; i++) {
+            long[] merged = union.get(other.items[i]);
+            if (merged != null) {
+                merged[0] += other.counts[i] - otherMin;
+                merged[1] += other.errors[i] - otherMin;
+            } else {
+                union.put(other.items[i], new long[]{other.counts[i] + thisMin, other.errors[i] + thisMin});
+            }
+        }
+
+        List<Map.Entry<Integer, long[]>> entries = new ArrayList<>(union.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        slots.clear();
+        size = 0;
+        for (Map.Entry<Integer, long[]> entry : entries) {
+            if (size == capacity) break;
+            put(size++, entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+        total += other.total;
+    }
+
+    public SpaceSaving copy() {
+        SpaceSaving copy = new SpaceSaving(capacity);
+        copy.merge(this);
+        return copy;
+    }
+
+    private void put(int slot, int item, long count, long error) {
+        items[slot] = item;
+        counts[slot] = count;
+        errors[slot] = error;
+        slots.put(item, slot);
+    }
+
+    // 容量通常只有一两百，线性查找最小值比维护堆更省
+    private int minSlot() {
+        int min = 0;
+        for (int i = 1; i < size; i++) {
+            if (counts[i] < counts[min]) min = i;
+        }
+        return min;
+    }
+}
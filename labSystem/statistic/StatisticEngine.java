@@ -0,0 +1,118 @@
+package labSystem.statistic;
+
+import labSystem.dao.DeviceDao;
+import labSystem.dao.RepairDao;
+import labSystem.dao.ReservationDao;
+import labSystem.dao.UserDao;
+
+import java.util.Arrays;
+
+/**
+ * 统计引擎
+ * 持有事件总线和各类内存聚合，业务服务发布增量事件，统计服务从聚合读取结果；
+ * 全量重建只在首次加载、手动触发或检测到偏差时执行
+ */
+public class StatisticEngine {
+
+    private final ReservationDao reservationDao;
+    private final RepairDao repairDao;
+    private final DeviceDao deviceDao;
+    private final UserDao userDao;
+
+    private final StatisticEventBus eventBus = new StatisticEventBus();
+    private final DeviceReliabilityModel reliabilityModel = new DeviceReliabilityModel();
+    private final UsageRollupStore rollupStore = new UsageRollupStore();
+    private final DeviceStatusCounter deviceStatusCounter = new DeviceStatusCounter();
+    private final ReservationFactStore factStore = new ReservationFactStore();
+    private final TopNStore topNStore = new TopNStore(factStore);
+    private final DurationPercentileStore percentileStore = new DurationPercentileStore();
+    private final StatisticResultCache resultCache = StatisticResultCache.fromConfig();
+
+    private volatile long lastRebuildAt;
+
+    public StatisticEngine(ReservationDao reservationDao, RepairDao repairDao, DeviceDao deviceDao, UserDao userDao) {
+        this.reservationDao = reservationDao;
+        this.repairDao = repairDao;
+        this.deviceDao = deviceDao;
+        this.userDao = userDao;
+
+        eventBus.register(reliabilityModel);
+        eventBus.register(rollupStore);
+        eventBus.register(deviceStatusCounter);
+        eventBus.register(factStore);
+        eventBus.register(topNStore);
+        eventBus.register(percentileStore);
+        // 最后注册：聚合先应用事件，结果缓存再失效，避免按新版本缓存旧结果
+        eventBus.register(resultCache);
+    }
+
+    /**
+     * 全量重建所有内存聚合
+     * 重建期间汇总表保持旧数据可读，完成后整体替换；期间发布的事件先记下，替换前补放到新聚合中
+     */
+    public synchronized void rebuild() {
+        eventBus.resetFailures();
+        RebuildEventLog events = RebuildEventLog.start(eventBus);
+        try {
+            new ReliabilityBackfillJob(repairDao, deviceDao, reliabilityModel, events).run();
+            new RollupBackfillJob(reservationDao, deviceDao, userDao, rollupStore, events).run();
+            new ReservationFactBackfillJob(reservationDao, deviceDao, userDao, factStore, events).run();
+            new TopNBackfillJob(deviceDao, userDao, topNStore, events).run();
+            new PercentileBackfillJob(reservationDao, repairDao, deviceDao, percentileStore, events).run();
+            deviceStatusCounter.reset(deviceDao.countByStatus());
+        } finally {
+            events.stop();
+        }
+        resultCache.clear();
+        lastRebuildAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 检测内存聚合是否偏离数据库
+     * 比对预约总数、报修总数，以及是否有事件处理失败；
+     * 数据库计数按聚合的计入口径过滤（汇总表不计开始时间或设备为空、状态不在统计范围内的预约，
+     * 可靠性模型不计未关联设备的报修），否则这类记录会让每次检测都判为偏差
+     */
+    public boolean detectDrift() {
+        if (!rollupStore.isLoaded()) return true;
+        if (eventBus.getFailedCount() > 0) return true;
+        if (rollupStore.totalReservations() != reservationDao.countWithStartAndDevice(Arrays.asList(UsageRollupStore.STATUSES))) return true;
+        return reliabilityModel.totalFailures() != repairDao.countWithDevice();
+    }
+
+    /**
+     * 定时任务入口：仅在检测到偏差时重建
+     * @return 是否执行了重建
+     */
+    public boolean refreshIfDrifted() {
+        if (!detectDrift()) return false;
+        rebuild();
+        return true;
+    }
+
+    /** 清空内存聚合，之后统计查询回退到数据库，直到下次重建 */
+    public synchronized void clear() {
+        reliabilityModel.clear();
+        rollupStore.clear();
+        factStore.clear();
+        topNStore.clear();
+        percentileStore.clear();
+        deviceStatusCounter.reset(null);
+        resultCache.clear();
+    }
+
+    /** 聚合是否可用 */
+    public boolean isLoaded() {
+        return rollupStore.isLoaded();
+    }
+
+    public StatisticEventBus getEventBus() { return eventBus; }
+    public DeviceReliabilityModel getReliabilityModel() { return reliabilityModel; }
+    public UsageRollupStore getRollupStore() { return rollupStore; }
+    public DeviceStatusCounter getDeviceStatusCounter() { return deviceStatusCounter; }
+    public ReservationFactStore getFactStore() { return factStore; }
+    public TopNStore getTopNStore() { return topNStore; }
+    public StatisticResultCache getResultCache() { return resultCache; }
+    public DurationPercentileStore getPercentileStore() { return percentileStore; }
+    public long getLastRebuildAt() { return lastRebuildAt; }
+}
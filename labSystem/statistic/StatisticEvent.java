@@ -0,0 +1,108 @@
+package labSystem.statistic;
+
+import labSystem.entity.Device;
+import labSystem.entity.Repair;
+import labSystem.entity.Reservation;
+
+/**
+ * 统计增量事件
+ * 由业务服务在预约、报修、设备状态变化后发布，统计层据此增量更新各类聚合
+ */
+public class StatisticEvent {
+
+    public enum Type {
+        RESERVATION_CHANGED,    // 预约状态变化（含新建）
+        REPAIR_CREATED,         // 新建报修
+        REPAIR_RESOLVED,        // 报修已解决
+        DEVICE_USAGE,           // 设备使用时长累计
+        DEVICE_STATUS_CHANGED,  // 设备状态变化（含新增）
+        USER_CHANGED            // 用户新增、资料/角色/状态变化或删除
+    }
+
+    private final Type type;
+    private Reservation reservation;
+    private Repair repair;
+    private Device device;          // 可选：事件相关设备的最新信息
+    private Integer deviceId;
+    private String oldStatus;       // 变化前状态，新建时为null
+    private String newStatus;
+    private String userRole;        // 可选：预约用户角色
+    private Integer userId;
+    private double usageHours;
+    private final long occurredAt;
+
+    private StatisticEvent(Type type) {
+        this.type = type;
+        this.occurredAt = System.currentTimeMillis();
+    }
+
+    // === 工厂方法 ===
+
+    public static StatisticEvent reservationChanged(Reservation reservation, String oldStatus, Device device, String userRole) {
+        StatisticEvent event = new StatisticEvent(Type.RESERVATION_CHANGED);
+        event.reservation = reservation;
+        event.deviceId = reservation.getDeviceId();
+        event.oldStatus = oldStatus;
+        event.newStatus = reservation.getStatus();
+        event.device = device;
+        event.userRole = userRole;
+        return event;
+    }
+
+    public static StatisticEvent repairCreated(Repair repair) {
+        StatisticEvent event = new StatisticEvent(Type.REPAIR_CREATED);
+        event.repair = repair;
+        event.deviceId = repair.getDeviceId();
+        event.newStatus = repair.getStatus();
+        return event;
+    }
+
+    public static StatisticEvent repairResolved(Repair repair) {
+        StatisticEvent event = new StatisticEvent(Type.REPAIR_RESOLVED);
+        event.repair = repair;
+        event.deviceId = repair.getDeviceId();
+        event.newStatus = repair.getStatus();
+        return event;
+    }
+
+    public static StatisticEvent deviceUsage(int deviceId, double usageHours) {
+        StatisticEvent event = new StatisticEvent(Type.DEVICE_USAGE);
+        event.deviceId = deviceId;
+        event.usageHours = usageHours;
+        return event;
+    }
+
+    public static StatisticEvent deviceStatusChanged(Device device, String oldStatus) {
+        StatisticEvent event = new StatisticEvent(Type.DEVICE_STATUS_CHANGED);
+        event.device = device;
+        event.deviceId = device.getDeviceId();
+        event.oldStatus = oldStatus;
+        event.newStatus = device.getStatus();
+        return event;
+    }
+
+    public static StatisticEvent userChanged(Integer userId, String userRole) {
+        StatisticEvent event = new StatisticEvent(Type.USER_CHANGED);
+        event.userId = userId;
+        event.userRole = userRole;
+        return event;
+    }
+
+    // === Getter ===
+    public Type getType() { return type; }
+    public Reservation getReservation() { return reservation; }
+    public Repair getRepair() { return repair; }
+    public Device getDevice() { return device; }
+    public Integer getDeviceId() { return deviceId; }
+    public String getOldStatus() { return oldStatus; }
+    public String getNewStatus() { return newStatus; }
+    public String getUserRole() { return userRole; }
+    public Integer getUserId() { return userId; }
+    public double getUsageHours() { return usageHours; }
+    public long getOccurredAt() { return occurredAt; }
+
+    @Override
+    public String toString() {
+        return String.format("%s[device=%s, %s -> %s]", type, deviceId, oldStatus, newStatus);
+    }
+}
@@ -0,0 +1,76 @@
+package labSystem.statistic;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 统计事件总线
+ * 同步分发事件给所有监听器；监听器异常不影响业务操作，只记为一次失败，
+ * 统计引擎据此判断聚合是否可能已偏离数据库。
+ * 各线程的发布可以并发进行；重建替换聚合时通过 runExclusive 暂停分发，保证替换前后不漏事件
+ */
+public class StatisticEventBus {
+
+    private final List<StatisticEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final ReadWriteLock dispatchLock = new ReentrantReadWriteLock();
+
+    public void register(StatisticEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unregister(StatisticEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /** 发布事件 */
+    public void publish(StatisticEvent event) {
+        if (event == null) return;
+        publishedCount.incrementAndGet();
+        dispatchLock.readLock().lock();
+        try {
+            for (StatisticEventListener listener : listeners) {
+                try {
+                    listener.onEvent(event);
+                } catch (RuntimeException e) {
+                    recordFailure(event, e);
+                }
+            }
+        } finally {
+            dispatchLock.readLock().unlock();
+        }
+    }
+
+    /** 在没有事件分发的间隙执行 action，执行期间新的发布等待 */
+    public void runExclusive(Runnable action) {
+        dispatchLock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            dispatchLock.writeLock().unlock();
+        }
+    }
+
+    /** 记一次事件处理失败（含重建时补放失败） */
+    void recordFailure(StatisticEvent event, RuntimeException e) {
+        failedCount.incrementAndGet();
+        System.err.println("统计事件处理失败: " + event + " - " + e.getMessage());
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /** 重建完成后清零失败计数 */
+    public void resetFailures() {
+        failedCount.set(0);
+    }
+}
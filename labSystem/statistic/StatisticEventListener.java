@@ -0,0 +1,10 @@
+package labSystem.statistic;
+
+/**
+ * 统计事件监听器
+ * 实现类在发布线程内同步执行，应只做内存中的增量计算，不得访问数据库
+ */
+public interface StatisticEventListener {
+
+    void onEvent(StatisticEvent event);
+}
@@ -0,0 +1,225 @@
+package labSystem.statistic;
+
+import labSystem.config.DBconfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 统计查询结果缓存
+ * 每张业务表一个版本号，收到对应的统计事件时加一；缓存项记录计算时所依赖各表的版本，
+ * 读取时版本不一致即视为失效。区间结束时间早于宽限期的纯历史查询不再随写入失效，只受容量淘汰和手动清空影响。
+ * 容量按条数限制，超出时淘汰最久未访问的项；按方法统计命中率
+ */
+public class StatisticResultCache implements StatisticEventListener {
+
+    public enum Table { RESERVATION, REPAIR, DEVICE, USER }
+
+    public static final String MAX_ENTRIES_KEY = "statistic.cache.max.entries";
+    public static final String HISTORY_GRACE_DAYS_KEY = "statistic.cache.history.grace.days";
+
+    private final int maxEntries;
+    private final long historyGraceMillis;
+    private final AtomicLongArray versions = new AtomicLongArray(Table.values().length);
+    private final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LinkedHashMap<Key, Entry> entries;
+
+    public StatisticResultCache(int maxEntries, long historyGraceMillis) {
+        this.maxEntries = maxEntries;
+        this.historyGraceMillis = historyGraceMillis;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > StatisticResultCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** 按配置创建（默认1000条，历史宽限7天） */
+    public static StatisticResultCache fromConfig() {
+        int maxEntries = Integer.parseInt(DBconfig.getProperty(MAX_ENTRIES_KEY, "1000").trim());
+        int graceDays = Integer.parseInt(DBconfig.getProperty(HISTORY_GRACE_DAYS_KEY, "7").trim());
+        return new StatisticResultCache(maxEntries, TimeUnit.DAYS.toMillis(graceDays));
+    }
+
+    // === 失效 ===
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        switch (event.getType()) {
+            case RESERVATION_CHANGED:
+                invalidate(Table.RESERVATION);
+                break;
+            case REPAIR_CREATED:
+            case REPAIR_RESOLVED:
+                invalidate(Table.REPAIR);
+                break;
+            case DEVICE_USAGE:
+            case DEVICE_STATUS_CHANGED:
+                invalidate(Table.DEVICE);
+                break;
+            case USER_CHANGED:
+                invalidate(Table.USER);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** 表数据已变化，依赖该表的非历史缓存项失效 */
+    public void invalidate(Table table) {
+        versions.incrementAndGet(table.ordinal());
+    }
+
+    /** 清空全部缓存项（含历史查询），统计聚合重建或清空后调用 */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    // === 读取 ===
+
+    /**
+     * 读取缓存，未命中或已失效时计算并缓存
+     * @param method 方法名，用于区分缓存项和统计命中率
+     * @param rangeEnd 查询区间结束时间，早于宽限期时视为历史查询；无区间时传null
+     * @param tables 结果依赖的表
+     * @param keyParts 归一化后的查询参数
+     * @param loader 实际查询
+     */
+    public <T> T get(String method, Date rangeEnd, EnumSet<Table> tables, List<?> keyParts, Supplier<T> loader) {
+        Key key = new Key(method, keyParts);
+        // 先取版本再查询：查询期间发生的写入会使版本前进，下次读取时重新计算
+        long[] current = snapshot(tables);
+        MethodStats counter = stats.computeIfAbsent(method, MethodStats::new);
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && (entry.historical || Arrays.equals(entry.versions, current))) {
+            counter.hits.increment();
+            @SuppressWarnings("unchecked")
+            T value = (T) entry.value;
+            return value;
+        }
+
+        counter.misses.increment();
+        T value = loader.get();
+        if (value != null) {
+            boolean historical = rangeEnd != null && rangeEnd.getTime() + historyGraceMillis <= System.currentTimeMillis();
+            synchronized (entries) {
+                entries.put(key, new Entry(value, current, historical));
+            }
+        }
+        return value;
+    }
+
+    private long[] snapshot(EnumSet<Table> tables) {
+        long[] snapshot = new long[Table.values().length];
+        for (Table table : tables) {
+            snapshot[table.ordinal()] = versions.get(table.ordinal());
+        }
+        return snapshot;
+    }
+
+    // === 指标 ===
+
+    /** 各方法的命中情况 */
+    public List<MethodStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public static final class MethodStats {
+        private final String method;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private MethodStats(String method) {
+            this.method = method;
+        }
+
+        public String getMethod() { return method; }
+        public long getHits() { return hits.sum(); }
+        public long getMisses() { return misses.sum(); }
+
+        public double getHitRate() {
+            long h = hits.sum();
+            long total = h + misses.sum();
+            return total > 0 ? (double) h / total : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s：命中 %d，未命中 %d，命中率 %.1f%%", method, getHits(), getMisses(), getHitRate() * 100);
+        }
+    }
+
+    private static final class Key {
+        private final String method;
+        private final List<?> parts;
+        private final int hash;
+
+        Key(String method, List<?> parts) {
+            this.method = method;
+            this.parts = parts;
+            this.hash = 31 * method.hashCode() + parts.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && method.equals(other.method) && parts.equals(other.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long[] versions;
+        final boolean historical;
+
+        Entry(Object value, long[] versions, boolean historical) {
+            this.value = value;
+            this.versions = versions;
+            this.historical = historical;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package labSystem.statistic;
+
+import java.util.Arrays;
+
+/**
+ * t-digest 分位数摘要（合并式实现）
+ * 新数据先进入缓冲区，缓冲区满时与已有质心一起按均值排序，再按 k1 尺度函数合并相邻质心：
+ * 两端（q接近0或1）的质心很小，中间的较大，因此 p99 等尾部分位数也有较高精度。
+ * 两个摘要合并只需把对方的质心当作带权数据加入，结果与直接摘要全部数据的精度相当
+ */
+public final class TDigest {
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double totalWeight;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(compression) + 8;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[capacity * 4];
+        this.bufferWeights = new double[capacity * 4];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || weight <= 0) return;
+        if (buffered == bufferMeans.length) compress();
+        bufferMeans[buffered] = value;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        totalWeight += weight;
+        sum += value * weight;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /** 合并另一个摘要 */
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.centroids; i++) {
+            if (buffered == bufferMeans.length) compress();
+            bufferMeans[buffered] = other.means[i];
+            bufferWeights[buffered] = other.weights[i];
+            buffered++;
+        }
+        totalWeight += other.totalWeight;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * 分位数
+     * @param q 0到1之间，如0.99
+     * @return 估计值，无数据时返回NaN
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) return Double.NaN;
+        if (centroids == 1) return means[0];
+        q = Math.max(0, Math.min(1, q));
+
+        double index = q * totalWeight;
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double cumulative = weights[0] / 2;   // 当前质心中心的累计权重
+        for (int i = 0; i < centroids - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (index < cumulative + gap) {
+                return means[i] + (means[i + 1] - means[i]) * (index - cumulative) / gap;
+            }
+            cumulative += gap;
+        }
+        int last = centroids - 1;
+        double tail = totalWeight - cumulative;
+        return tail > 0 ? means[last] + (max - means[last]) * (index - cumulative) / tail : means[last];
+    }
+
+    public long count() {
+        return Math.round(totalWeight);
+    }
+
+    public double mean() {
+        return totalWeight > 0 ? sum / totalWeight : Double.NaN;
+    }
+
+    public double min() {
+        return totalWeight > 0 ? min : Double.NaN;
+    }
+
+    public double max() {
+        return totalWeight > 0 ? max : Double.NaN;
+    }
+
+    /** 把缓冲区与已有质心合并排序后按尺度函数重新压缩 */
+    private void compress() {
+        if (buffered == 0) return;
+        int n = centroids + buffered;
+        double[] allMeans = new double[n];
+        double[] allWeights = new double[n];
+        System.arraycopy(means, 0, allMeans, 0, centroids);
+        System.arraycopy(weights, 0, allWeights, 0, centroids);
+        System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+        System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+        sortByMean(allMeans, allWeights, 0, n - 1);
+
+        double total = 0;
+        for (int i = 0; i < n; i++) total += allWeights[i];
+
+        int count = 0;
+        double currentMean = allMeans[0];
+        double currentWeight = allWeights[0];
+        double weightSoFar = 0;
+        for (int i = 1; i < n; i++) {
+            double proposed = currentWeight + allWeights[i];
+            if (scale((weightSoFar + proposed) / total) - scale(weightSoFar / total) <= 1) {
+                currentMean += (allMeans[i] - currentMean) * allWeights[i] / proposed;
+                currentWeight = proposed;
+            } else {
+                count = emit(count, currentMean, currentWeight);
+                weightSoFar += currentWeight;
+                currentMean = allMeans[i];
+                currentWeight = allWeights[i];
+            }
+        }
+        count = emit(count, currentMean, currentWeight);
+        centroids = count;
+        buffered = 0;
+    }
+
+    private int emit(int index, double mean, double weight) {
+        if (index == means.length) {
+            means = Arrays.copyOf(means, index * 2);
+            weights = Arrays.copyOf(weights, index * 2);
+        }
+        means[index] = mean;
+        weights[index] = weight;
+        return index + 1;
+    }
+
+    // k1 尺度函数：k(q) = δ/(2π) * asin(2q - 1)
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    // 按均值排序，权重随之交换
+    private static void sortByMean(double[] keys, double[] values, int lo, int hi) {
+        while (hi - lo > 16) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(keys, values, i++, j--);
+                }
+            }
+            if (j - lo < hi - i) {
+                sortByMean(keys, values, lo, j);
+                lo = i;
+            } else {
+                sortByMean(keys, values, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && keys[j - 1] > keys[j]; j--) {
+                swap(keys, values, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] keys, double[] values, int a, int b) {
+        double k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+        double v = values[a];
+        values[a] = values[b];
+        values[b] = v;
+    }
+}
@@ -0,0 +1,79 @@
+package labSystem.statistic;
+
+import labSystem.dao.DeviceDao;
+import labSystem.dao.UserDao;
+import labSystem.entity.Device;
+import labSystem.entity.User;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Top-N 摘要回填任务
+ * 设备和用户信息分页加载，预约直接从已加载的预约事实表派生，不再重复扫描预约表；
+ * 须在事实表回填之后执行。给定重建事件记录时，替换前补放回填期间的事件，
+ * 已从事实表读到的预约不再重复计数
+ */
+public class TopNBackfillJob implements Runnable {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final DeviceDao deviceDao;
+    private final UserDao userDao;
+    private final TopNStore target;
+    private final RebuildEventLog events;
+
+    public TopNBackfillJob(DeviceDao deviceDao, UserDao userDao, TopNStore target) {
+        this(deviceDao, userDao, target, null);
+    }
+
+    public TopNBackfillJob(DeviceDao deviceDao, UserDao userDao, TopNStore target, RebuildEventLog events) {
+        this.deviceDao = deviceDao;
+        this.userDao = userDao;
+        this.target = target;
+        this.events = events;
+    }
+
+    @Override
+    public void run() {
+        TopNStore rebuilt = new TopNStore(target.getFacts());
+
+        int page = 1;
+        List<Device> devices;
+        do {
+            devices = deviceDao.findByPage(page++, PAGE_SIZE);
+            devices.forEach(rebuilt::registerDevice);
+        } while (devices.size() == PAGE_SIZE);
+
+        page = 1;
+        List<User> users;
+        do {
+            users = userDao.findByPage(page++, PAGE_SIZE);
+            users.forEach(rebuilt::registerUser);
+        } while (users.size() == PAGE_SIZE);
+
+        BitSet recorded = new BitSet();
+        target.getFacts().forEach((reservationId, deviceId, userId, startEpoch, endEpoch) -> {
+            rebuilt.record(deviceId, userId, startEpoch);
+            if (reservationId >= 0) recorded.set(reservationId);
+        });
+
+        if (events == null) {
+            target.replaceWith(rebuilt);
+            return;
+        }
+        events.replayAndSwap((position, event) -> {
+            if (event.getType() != StatisticEvent.Type.RESERVATION_CHANGED) {
+                rebuilt.onEvent(event);
+                return;
+            }
+            // 已读取的或没有ID（无法去重）的预约只登记设备，不再计数
+            Integer reservationId = event.getReservation().getReservationId();
+            if (reservationId == null || reservationId < 0 || recorded.get(reservationId)) {
+                rebuilt.registerDevice(event.getDevice());
+            } else {
+                rebuilt.onEvent(event);
+            }
+        }, () -> target.replaceWith(rebuilt));
+    }
+}
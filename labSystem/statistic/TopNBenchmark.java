@@ -0,0 +1,129 @@
+package labSystem.statistic;
+
+import labSystem.entity.Reservation;
+
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Top-N 摘要基准测试
+ * 用 Zipf 分布生成一年的模拟预约，分别以精确分组计数（相当于 SQL 的 GROUP BY + ORDER BY）
+ * 和按天摘要合并求 Top-N，对比耗时、召回率和计数误差。
+ * 用法：java labSystem.statistic.TopNBenchmark [预约数] [设备数] [用户数] [N]
+ */
+public class TopNBenchmark {
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        int reservations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int deviceCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int userCount = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        int topN = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        ReservationFactStore facts = new ReservationFactStore(ZoneId.systemDefault());
+        TopNStore sketches = new TopNStore(facts);
+        long origin = System.currentTimeMillis() - 365 * DAY_MILLIS;
+        Random random = new Random(42);
+        int[] deviceZipf = zipfTable(deviceCount, 1.1, random);
+        int[] userZipf = zipfTable(userCount, 1.0, random);
+
+        long loadStart = System.nanoTime();
+        for (int i = 1; i <= reservations; i++) {
+            Reservation reservation = new Reservation();
+            reservation.setReservationId(i);
+            reservation.setDeviceId(1 + deviceZipf[random.nextInt(deviceZipf.length)]);
+            reservation.setUserId(1 + userZipf[random.nextInt(userZipf.length)]);
+            long start = origin + (long) (random.nextDouble() * 365 * DAY_MILLIS);
+            reservation.setStartTime(new Date(start));
+            reservation.setEndTime(new Date(start + 2 * 60 * 60 * 1000));
+            reservation.setStatus("completed");
+            facts.upsert(reservation);
+            sketches.record(reservation.getDeviceId(), reservation.getUserId(), start);
+        }
+        facts.markLoaded();
+        System.out.printf("加载 %d 条预约：%d ms，摘要 %d 天%n", reservations,
+                (System.nanoTime() - loadStart) / 1_000_000, sketches.bucketCount());
+
+        for (int rangeDays : new int[]{7, 90, 365}) {
+            Date end = new Date(origin + 365 * DAY_MILLIS);
+            Date start = new Date(end.getTime() - rangeDays * DAY_MILLIS);
+            for (boolean byUser : new boolean[]{false, true}) {
+                List<HeavyHitterSketch.HeavyHitter> exact = null;
+                long exactNanos = 0;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t = System.nanoTime();
+                    exact = facts.topN(facts.selectByStart(start, end), byUser, topN);
+                    exactNanos += System.nanoTime() - t;
+                }
+
+                List<HeavyHitterSketch.HeavyHitter> approx = null;
+                long sketchNanos = 0;
+                for (int r = 0; r < ROUNDS; r++) {
+                    long t = System.nanoTime();
+                    approx = mergeSketches(sketches, start, end, topN, byUser);
+                    sketchNanos += System.nanoTime() - t;
+                }
+
+                System.out.printf("%3d天 %s Top%d：精确 %.2f ms，摘要 %.2f ms，召回率 %.2f，最大相对误差 %.3f%n",
+                        rangeDays, byUser ? "用户" : "设备", topN,
+                        exactNanos / 1e6 / ROUNDS, sketchNanos / 1e6 / ROUNDS,
+                        recall(exact, approx), maxRelativeError(exact, approx));
+            }
+        }
+    }
+
+    // 绕过小范围精确回退，始终走摘要合并，便于对比
+    private static List<HeavyHitterSketch.HeavyHitter> mergeSketches(TopNStore store, Date start, Date end, int n, boolean byUser) {
+        ReservationFactStore empty = new ReservationFactStore();
+        TopNStore sketchOnly = new TopNStore(empty);
+        sketchOnly.replaceWith(store);
+        return byUser ? sketchOnly.topUsers(start, end, n) : sketchOnly.topDevices(start, end, n);
+    }
+
+    private static double recall(List<HeavyHitterSketch.HeavyHitter> exact, List<HeavyHitterSketch.HeavyHitter> approx) {
+        Set<Integer> expected = new HashSet<>();
+        exact.forEach(h -> expected.add(h.getItem()));
+        long hits = approx.stream().filter(h -> expected.contains(h.getItem())).count();
+        return exact.isEmpty() ? 1.0 : (double) hits / exact.size();
+    }
+
+    private static double maxRelativeError(List<HeavyHitterSketch.HeavyHitter> exact, List<HeavyHitterSketch.HeavyHitter> approx) {
+        Map<Integer, Long> truth = new HashMap<>();
+        exact.forEach(h -> truth.put(h.getItem(), h.getCount()));
+        double max = 0;
+        for (HeavyHitterSketch.HeavyHitter h : approx) {
+            Long actual = truth.get(h.getItem());
+            if (actual != null && actual > 0) {
+                max = Math.max(max, Math.abs(h.getCount() - actual) / (double) actual);
+            }
+        }
+        return max;
+    }
+
+    // 预先展开的 Zipf 抽样表：下标 i 出现的次数与 1/(i+1)^s 成正比
+    private static int[] zipfTable(int n, double s, Random random) {
+        double[] weights = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1.0 / Math.pow(i + 1, s);
+            sum += weights[i];
+        }
+        int size = 1 << 20;
+        int[] table = new int[size];
+        int pos = 0;
+        for (int i = 0; i < n && pos < size; i++) {
+            int copies = (int) Math.round(weights[i] / sum * size);
+            for (int c = 0; c < copies && pos < size; c++) table[pos++] = i;
+        }
+        while (pos < size) table[pos++] = random.nextInt(n);
+        return table;
+    }
+}
@@ -0,0 +1,171 @@
+package labSystem.statistic;
+
+import labSystem.entity.Device;
+import labSystem.entity.Reservation;
+import labSystem.entity.User;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 最常用设备/最活跃用户 Top-N 摘要
+ * 每天一个桶，分别保存设备和用户的频繁项摘要，预约创建时累加；
+ * 任意时间范围的 Top-N 由范围内各天的摘要合并得出，误差有界。
+ * 范围不超过 EXACT_RANGE_DAYS 天且预约事实表已加载时，改为精确计数
+ */
+public class TopNStore implements StatisticEventListener {
+
+    // 小范围精确计数的上限（天）
+    public static final int EXACT_RANGE_DAYS = 31;
+
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private final ZoneId zone;
+    private final ReservationFactStore facts;
+
+    private volatile ConcurrentSkipListMap<Long, DayBucket> days = new ConcurrentSkipListMap<>();
+    private volatile Map<Integer, Device> devices = new ConcurrentHashMap<>();
+    private volatile Map<Integer, User> users = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public TopNStore(ReservationFactStore facts) {
+        this.facts = facts;
+        this.zone = facts.getZone();
+    }
+
+    public ReservationFactStore getFacts() {
+        return facts;
+    }
+
+    // === 维护 ===
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        switch (event.getType()) {
+            case RESERVATION_CHANGED:
+                registerDevice(event.getDevice());
+                // 摘要只能累加，按创建计数；之后的状态变化不影响预约次数
+                if (event.getOldStatus() == null) {
+                    Reservation reservation = event.getReservation();
+                    registerUser(reservation, event.getUserRole());
+                    if (reservation.getDeviceId() != null && reservation.getUserId() != null && reservation.getStartTime() != null) {
+                        record(reservation.getDeviceId(), reservation.getUserId(), reservation.getStartTime().getTime());
+                    }
+                }
+                break;
+            case DEVICE_STATUS_CHANGED:
+                registerDevice(event.getDevice());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** 记一次预约 */
+    public void record(int deviceId, int userId, long startEpoch) {
+        DayBucket bucket = days.computeIfAbsent(dayStart(startEpoch), d -> new DayBucket());
+        bucket.devices.offer(deviceId);
+        bucket.users.offer(userId);
+    }
+
+    public void registerDevice(Device device) {
+        if (device != null && device.getDeviceId() != null) {
+            devices.put(device.getDeviceId(), device);
+        }
+    }
+
+    public void registerUser(User user) {
+        if (user != null && user.getUserId() != null) {
+            users.put(user.getUserId(), user);
+        }
+    }
+
+    // 事件中只有预约上关联的用户名，未登记过的用户用它补一条
+    private void registerUser(Reservation reservation, String userRole) {
+        Integer userId = reservation.getUserId();
+        if (userId == null || users.containsKey(userId)) return;
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(reservation.getUserName());
+        user.setRealName(reservation.getUserRealName());
+        user.setUserRole(userRole);
+        users.put(userId, user);
+    }
+
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void clear() {
+        loaded = false;
+        days = new ConcurrentSkipListMap<>();
+    }
+
+    public void replaceWith(TopNStore rebuilt) {
+        this.days = rebuilt.days;
+        this.devices = rebuilt.devices;
+        this.users = rebuilt.users;
+        this.loaded = true;
+    }
+
+    // === 查询 ===
+
+    /** 使用次数最多的设备 */
+    public List<HeavyHitterSketch.HeavyHitter> topDevices(Date startDate, Date endDate, int n) {
+        return top(startDate, endDate, n, false);
+    }
+
+    /** 预约次数最多的用户 */
+    public List<HeavyHitterSketch.HeavyHitter> topUsers(Date startDate, Date endDate, int n) {
+        return top(startDate, endDate, n, true);
+    }
+
+    /** 该范围是否走精确计数 */
+    public boolean isExact(Date startDate, Date endDate) {
+        return facts.isLoaded() && endDate.getTime() - startDate.getTime() <= EXACT_RANGE_DAYS * DAY_MILLIS;
+    }
+
+    public Device getDevice(int deviceId) {
+        return devices.get(deviceId);
+    }
+
+    public User getUser(int userId) {
+        return users.get(userId);
+    }
+
+    /** 已保存摘要的天数 */
+    public int bucketCount() {
+        return days.size();
+    }
+
+    private List<HeavyHitterSketch.HeavyHitter> top(Date startDate, Date endDate, int n, boolean byUser) {
+        if (isExact(startDate, endDate)) {
+            return facts.topN(facts.selectByStart(startDate, endDate), byUser, n);
+        }
+        // 按天对齐：起止所在的整天都计入
+        HeavyHitterSketch merged = new HeavyHitterSketch();
+        for (DayBucket bucket : days.subMap(dayStart(startDate.getTime()), true, endDate.getTime(), false).values()) {
+            merged.merge(byUser ? bucket.users : bucket.devices);
+        }
+        return merged.top(n);
+    }
+
+    private long dayStart(long epochMillis) {
+        long offset = zone.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(epochMillis + offset, DAY_MILLIS) * DAY_MILLIS - offset;
+    }
+
+    private static final class DayBucket {
+        final HeavyHitterSketch devices = new HeavyHitterSketch();
+        final HeavyHitterSketch users = new HeavyHitterSketch();
+    }
+}
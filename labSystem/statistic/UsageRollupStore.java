@@ -0,0 +1,494 @@
+package labSystem.statistic;
+
+import labSystem.dao.StatisticRows;
+import labSystem.entity.Device;
+import labSystem.entity.Reservation;
+import labSystem.entity.statisticData;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 预约使用量汇总表（小时/天/月三级粒度）
+ * 以预约开始时间分桶，按 设备+分类+用户角色 维度累计各状态预约数和已完成使用时长，
+ * 随预约状态变化增量维护；查询时按请求区间选取能覆盖的最粗粒度桶，
+ * 多年区间也只需遍历几十个桶。
+ * 另按天保存 设备->用户、用户->设备 的 HyperLogLog 摘要，独立用户数/使用设备数由区间内各天摘要合并得出
+ */
+public class UsageRollupStore implements StatisticEventListener {
+
+    public enum Grain { HOUR, DAY, MONTH }
+
+    // 统计的预约状态，下标即计数数组下标
+    static final String[] STATUSES = {"pending", "approved", "rejected", "completed", "cancelled", "expired"};
+    static final int PENDING = 0, APPROVED = 1, REJECTED = 2, COMPLETED = 3;
+
+    private static final long HOUR_MILLIS = 60L * 60 * 1000;
+    private static final String UNKNOWN = "unknown";
+    // 跟踪表中低4位存状态下标+1（0表示不在统计范围内的状态），其余位存维度编号
+    private static final int STATUS_BITS = 4;
+    private static final int STATUS_MASK = (1 << STATUS_BITS) - 1;
+
+    private final ZoneId zone;
+    private volatile Map<Grain, ConcurrentSkipListMap<Long, Map<CellKey, Cell>>> tables;
+
+    // 天 -> 设备ID -> 预约过该设备的用户；天 -> 用户ID -> 该用户预约过的设备
+    private volatile ConcurrentSkipListMap<Long, Map<Integer, HyperLogLog>> deviceDayUsers = new ConcurrentSkipListMap<>();
+    private volatile ConcurrentSkipListMap<Long, Map<Integer, HyperLogLog>> userDayDevices = new ConcurrentSkipListMap<>();
+
+    // 维度信息缓存（来自事件和回填），避免增量维护时回查数据库
+    private volatile Map<Integer, Device> devices = new ConcurrentHashMap<>();
+    private volatile Map<Integer, String> userRoles = new ConcurrentHashMap<>();
+
+    // 每条预约计入时的汇总维度和当前状态；之后的状态变化沿用计入时的维度，
+    // 设备分类或用户角色中途变化也不会把减量记到别的单元里
+    private volatile Tracking tracking = new Tracking();
+
+    private volatile boolean loaded;
+
+    public UsageRollupStore() {
+        this(ZoneId.systemDefault());
+    }
+
+    public UsageRollupStore(ZoneId zone) {
+        this.zone = zone;
+        this.tables = newTables();
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // === 维护 ===
+
+    /** 登记设备信息（编号、名称、分类） */
+    public void registerDevice(Device device) {
+        if (device != null && device.getDeviceId() != null) {
+            devices.put(device.getDeviceId(), device);
+        }
+    }
+
+    /** 登记用户角色 */
+    public void registerUserRole(Integer userId, String userRole) {
+        if (userId != null && userRole != null) {
+            userRoles.put(userId, userRole);
+        }
+    }
+
+    @Override
+    public void onEvent(StatisticEvent event) {
+        switch (event.getType()) {
+            case RESERVATION_CHANGED:
+                registerDevice(event.getDevice());
+                registerUserRole(event.getReservation().getUserId(), event.getUserRole());
+                onReservationChanged(event.getReservation(), event.getOldStatus(), event.getNewStatus());
+                break;
+            case DEVICE_STATUS_CHANGED:
+                registerDevice(event.getDevice());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 应用一次预约状态变化
+     * 有预约ID时以汇总表记下的状态为准：未记录过的按新建计入，状态未变的忽略，
+     * 因此同一事件重复应用不会重复计数
+     * @param reservation 变化后的预约
+     * @param oldStatus 原状态（新建时为null），仅在预约没有ID时使用
+     * @param newStatus 新状态
+     */
+    public void onReservationChanged(Reservation reservation, String oldStatus, String newStatus) {
+        if (reservation == null || reservation.getStartTime() == null || reservation.getDeviceId() == null) {
+            return;
+        }
+        int newIndex = statusIndex(newStatus);
+        CellKey key;
+        int oldIndex;
+        boolean created;
+        Integer reservationId = reservation.getReservationId();
+        if (reservationId == null) {
+            if (Objects.equals(oldStatus, newStatus)) return;
+            key = keyOf(reservation);
+            oldIndex = statusIndex(oldStatus);
+            created = oldStatus == null;
+        } else {
+            Tracking current = tracking;
+            synchronized (current) {
+                int packed = current.reservations.get(reservationId, -1);
+                created = packed < 0;
+                if (created) {
+                    key = keyOf(reservation);
+                    oldIndex = -1;
+                } else {
+                    key = current.keys.get(packed >>> STATUS_BITS);
+                    oldIndex = (packed & STATUS_MASK) - 1;
+                    if (oldIndex == newIndex) return;
+                }
+                current.reservations.put(reservationId, (current.idOf(key) << STATUS_BITS) | (newIndex + 1));
+            }
+        }
+        long start = reservation.getStartTime().getTime();
+        long usage = newIndex == COMPLETED ? usageMillis(reservation) : 0;
+        long usageRemoved = oldIndex == COMPLETED ? usageMillis(reservation) : 0;
+
+        for (Grain grain : Grain.values()) {
+            Cell cell = tables.get(grain)
+                    .computeIfAbsent(bucketStart(grain, start), b -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(key, k -> new Cell());
+            cell.apply(oldIndex, newIndex, usage - usageRemoved);
+        }
+
+        // 去重计数只在预约创建时记录一次
+        if (created && reservation.getUserId() != null) {
+            long day = bucketStart(Grain.DAY, start);
+            addDistinct(deviceDayUsers, day, reservation.getDeviceId(), reservation.getUserId());
+            addDistinct(userDayDevices, day, reservation.getUserId(), reservation.getDeviceId());
+        }
+    }
+
+    /** 回填完成或重建后标记为可用 */
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    /** 汇总表是否已完整加载，未加载时统计查询应回退到数据库 */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /** 清空汇总数据 */
+    public void clear() {
+        loaded = false;
+        tables = newTables();
+        deviceDayUsers = new ConcurrentSkipListMap<>();
+        userDayDevices = new ConcurrentSkipListMap<>();
+        tracking = new Tracking();
+    }
+
+    /** 用重建好的汇总表整体替换当前数据 */
+    public void replaceWith(UsageRollupStore rebuilt) {
+        this.tables = rebuilt.tables;
+        this.deviceDayUsers = rebuilt.deviceDayUsers;
+        this.userDayDevices = rebuilt.userDayDevices;
+        this.devices = rebuilt.devices;
+        this.userRoles = rebuilt.userRoles;
+        this.tracking = rebuilt.tracking;
+        this.loaded = true;
+    }
+
+    // === 查询 ===
+
+    /** 汇总表中记录的预约总数（用于与数据库预约数比对） */
+    public long totalReservations() {
+        long[] total = new long[1];
+        for (Map<CellKey, Cell> cells : tables.get(Grain.MONTH).values()) {
+            for (Map.Entry<CellKey, Cell> entry : cells.entrySet()) {
+                entry.getValue().visit(0, entry.getKey(), (bucket, key, counts, usageMillis) -> total[0] += sum(counts, counts.length));
+            }
+        }
+        return total[0];
+    }
+
+    /** 已登记的设备数 */
+    public int deviceCount() {
+        return devices.size();
+    }
+
+    /** 设备使用统计 */
+    public StatisticRows.DeviceUsageRows deviceUsage(Date startDate, Date endDate) {
+        Map<Integer, long[]> perDevice = new LinkedHashMap<>();  // [总预约, 完成数, 使用毫秒]
+        scan(startDate.getTime(), endDate.getTime(), Grain.MONTH, (bucket, key, counts, usageMillis) -> {
+            long[] acc = perDevice.computeIfAbsent(key.deviceId, id -> new long[3]);
+            acc[0] += sum(counts, counts.length);
+            acc[1] += counts[COMPLETED];
+            acc[2] += usageMillis;
+        });
+
+        Map<Integer, Integer> uniqueUsers = uniqueUsersByDevice(startDate, endDate);
+
+        double rangeHours = Math.max(1, (endDate.getTime() - startDate.getTime()) / (double) HOUR_MILLIS);
+        double rangeDays = Math.max(1, rangeHours / 24);
+        StatisticRows.DeviceUsageRows rows = new StatisticRows.DeviceUsageRows(perDevice.size());
+        for (Map.Entry<Integer, long[]> entry : perDevice.entrySet()) {
+            long[] acc = entry.getValue();
+            double hours = acc[2] / (double) HOUR_MILLIS;
+            Device device = devices.get(entry.getKey());
+
+            int row = rows.add(entry.getKey(),
+                    device != null ? device.getDeviceCode() : null,
+                    device != null ? device.getDeviceName() : null,
+                    device != null && device.getCategoryName() != null ? device.getCategoryName() : UNKNOWN,
+                    (int) acc[0], hours);
+            rows.setUniqueUsers(row, uniqueUsers.getOrDefault(entry.getKey(), 0));
+            rows.setAvgHoursPerUse(row, acc[1] > 0 ? hours / acc[1] : 0.0);
+            rows.setUsageRate(row, hours / rangeHours);
+            rows.setUsagePerDay(row, acc[1] / rangeDays);
+        }
+        return rows;
+    }
+
+    /**
+     * 预约趋势
+     * @param period day/week/month，决定可使用的最粗粒度
+     */
+    public StatisticRows.TrendRows trend(String period, Date startDate, Date endDate) {
+        Grain maxGrain = "month".equals(period) ? Grain.MONTH : Grain.DAY;
+        Map<Long, long[]> perPeriod = new TreeMap<>();  // 周期起点 -> [各状态计数..., 使用毫秒]
+        scan(startDate.getTime(), endDate.getTime(), maxGrain, (bucket, key, counts, usageMillis) -> {
+            long[] acc = perPeriod.computeIfAbsent(periodStart(period, bucket), p -> new long[STATUSES.length + 1]);
+            for (int i = 0; i < counts.length; i++) acc[i] += counts[i];
+            acc[STATUSES.length] += usageMillis;
+        });
+
+        StatisticRows.TrendRows rows = new StatisticRows.TrendRows(perPeriod.size());
+        for (Map.Entry<Long, long[]> entry : perPeriod.entrySet()) {
+            long[] acc = entry.getValue();
+            ZonedDateTime begin = Instant.ofEpochMilli(entry.getKey()).atZone(zone);
+            ZonedDateTime finish = "month".equals(period) ? begin.plusMonths(1)
+                    : "week".equals(period) ? begin.plusWeeks(1) : begin.plusDays(1);
+
+            int approved = (int) (acc[APPROVED] + acc[COMPLETED]);
+            rows.add(periodLabel(period, begin), begin.toInstant().toEpochMilli(), finish.toInstant().toEpochMilli(),
+                    (int) sum(acc, STATUSES.length), approved, (int) acc[REJECTED], (int) acc[PENDING],
+                    acc[COMPLETED] > 0 ? acc[STATUSES.length] / (double) HOUR_MILLIS / acc[COMPLETED] : 0.0);
+        }
+        return rows;
+    }
+
+    /**
+     * 资源利用率：总容量（设备数×区间小时）、已用小时和利用率
+     * 汇总表只有已完成预约的使用时长，不含重叠合并、空闲段和并发峰值
+     */
+    public statisticData.UtilizationReport resourceUtilization(Date startDate, Date endDate) {
+        long[] usage = new long[1];
+        scan(startDate.getTime(), endDate.getTime(), Grain.MONTH, (bucket, key, counts, usageMillis) -> usage[0] += usageMillis);
+
+        statisticData.UtilizationReport report = new statisticData.UtilizationReport();
+        report.setStartDate(startDate);
+        report.setEndDate(endDate);
+        report.setDeviceCount(devices.size());
+        report.setCapacityHours(devices.size() * ((endDate.getTime() - startDate.getTime()) / (double) HOUR_MILLIS));
+        report.setBusyHours(usage[0] / (double) HOUR_MILLIS);
+        return report;
+    }
+
+    /** 区间内各设备的独立用户数（HyperLogLog 估计，按天对齐） */
+    public Map<Integer, Integer> uniqueUsersByDevice(Date startDate, Date endDate) {
+        return distinctCounts(deviceDayUsers, startDate, endDate);
+    }
+
+    /** 区间内各用户使用过的设备数（HyperLogLog 估计，按天对齐） */
+    public Map<Integer, Integer> devicesUsedByUser(Date startDate, Date endDate) {
+        return distinctCounts(userDayDevices, startDate, endDate);
+    }
+
+    private Map<Integer, Integer> distinctCounts(ConcurrentSkipListMap<Long, Map<Integer, HyperLogLog>> days, Date startDate, Date endDate) {
+        Map<Integer, HyperLogLog> merged = new HashMap<>();
+        long from = bucketStart(Grain.DAY, startDate.getTime());
+        for (Map<Integer, HyperLogLog> day : days.subMap(from, true, endDate.getTime(), false).values()) {
+            for (Map.Entry<Integer, HyperLogLog> entry : day.entrySet()) {
+                HyperLogLog target = merged.computeIfAbsent(entry.getKey(), id -> new HyperLogLog());
+                synchronized (entry.getValue()) {
+                    target.merge(entry.getValue());
+                }
+            }
+        }
+        Map<Integer, Integer> result = new HashMap<>(merged.size() * 2);
+        for (Map.Entry<Integer, HyperLogLog> entry : merged.entrySet()) {
+            result.put(entry.getKey(), (int) entry.getValue().estimate());
+        }
+        return result;
+    }
+
+    private static void addDistinct(ConcurrentSkipListMap<Long, Map<Integer, HyperLogLog>> days, long day, int key, int value) {
+        HyperLogLog sketch = days.computeIfAbsent(day, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new HyperLogLog());
+        synchronized (sketch) {
+            sketch.add(value);
+        }
+    }
+
+    /**
+     * 按区间遍历汇总单元
+     * 从起点开始，能放下整月就用月桶，能放下整天就用日桶，其余用小时桶；
+     * 精度为小时，起止时间分别向下/向上取整到整点
+     */
+    void scan(long start, long end, Grain maxGrain, CellVisitor visitor) {
+        ZonedDateTime cursor = Instant.ofEpochMilli(start).atZone(zone).truncatedTo(ChronoUnit.HOURS);
+        long endMillis = end;
+        while (cursor.toInstant().toEpochMilli() < endMillis) {
+            Grain grain = Grain.HOUR;
+            ZonedDateTime next = cursor.plusHours(1);
+            if (maxGrain != Grain.HOUR && cursor.toLocalTime().toSecondOfDay() == 0) {
+                ZonedDateTime nextDay = cursor.plusDays(1);
+                if (nextDay.toInstant().toEpochMilli() <= endMillis) {
+                    grain = Grain.DAY;
+                    next = nextDay;
+                    if (maxGrain == Grain.MONTH && cursor.getDayOfMonth() == 1) {
+                        ZonedDateTime nextMonth = cursor.plusMonths(1);
+                        if (nextMonth.toInstant().toEpochMilli() <= endMillis) {
+                            grain = Grain.MONTH;
+                            next = nextMonth;
+                        }
+                    }
+                }
+            }
+            long bucket = cursor.toInstant().toEpochMilli();
+            Map<CellKey, Cell> cells = tables.get(grain).get(bucket);
+            if (cells != null) {
+                for (Map.Entry<CellKey, Cell> entry : cells.entrySet()) {
+                    entry.getValue().visit(bucket, entry.getKey(), visitor);
+                }
+            }
+            cursor = next;
+        }
+    }
+
+    // === 辅助方法 ===
+
+    private static Map<Grain, ConcurrentSkipListMap<Long, Map<CellKey, Cell>>> newTables() {
+        Map<Grain, ConcurrentSkipListMap<Long, Map<CellKey, Cell>>> newTables = new EnumMap<>(Grain.class);
+        for (Grain grain : Grain.values()) {
+            newTables.put(grain, new ConcurrentSkipListMap<>());
+        }
+        return newTables;
+    }
+
+    private CellKey keyOf(Reservation reservation) {
+        Device device = devices.get(reservation.getDeviceId());
+        String category = device != null && device.getCategoryName() != null ? device.getCategoryName() : UNKNOWN;
+        String role = reservation.getUserId() != null ? userRoles.getOrDefault(reservation.getUserId(), UNKNOWN) : UNKNOWN;
+        return new CellKey(reservation.getDeviceId(), category, role);
+    }
+
+    private long bucketStart(Grain grain, long time) {
+        ZonedDateTime t = Instant.ofEpochMilli(time).atZone(zone);
+        switch (grain) {
+            case HOUR: return t.truncatedTo(ChronoUnit.HOURS).toInstant().toEpochMilli();
+            case DAY: return t.toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+            default: return t.toLocalDate().withDayOfMonth(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    private long periodStart(String period, long bucket) {
+        ZonedDateTime t = Instant.ofEpochMilli(bucket).atZone(zone);
+        if ("month".equals(period)) {
+            return t.toLocalDate().withDayOfMonth(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        if ("week".equals(period)) {
+            return t.toLocalDate().minusDays(t.getDayOfWeek().getValue() - 1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return t.toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private static String periodLabel(String period, ZonedDateTime begin) {
+        if ("month".equals(period)) {
+            return String.format("%d-%02d", begin.getYear(), begin.getMonthValue());
+        }
+        if ("week".equals(period)) {
+            return String.format("%d-W%02d", begin.get(IsoFields.WEEK_BASED_YEAR), begin.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        }
+        return begin.toLocalDate().toString();
+    }
+
+    private static long usageMillis(Reservation reservation) {
+        Date start = reservation.getActualStartTime() != null ? reservation.getActualStartTime() : reservation.getStartTime();
+        Date end = reservation.getActualEndTime() != null ? reservation.getActualEndTime() : reservation.getEndTime();
+        if (start == null || end == null || !end.after(start)) return 0;
+        return end.getTime() - start.getTime();
+    }
+
+    private static int statusIndex(String status) {
+        if (status == null) return -1;
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) return i;
+        }
+        return -1;
+    }
+
+    private static long sum(long[] values, int length) {
+        long total = 0;
+        for (int i = 0; i < length; i++) total += values[i];
+        return total;
+    }
+
+    /** 汇总单元访问器（计数数组仅在回调内有效） */
+    interface CellVisitor {
+        void visit(long bucketStart, CellKey key, long[] statusCounts, long usageMillis);
+    }
+
+    /** 汇总维度：设备 + 分类 + 用户角色 */
+    static final class CellKey {
+        final int deviceId;
+        final String categoryName;
+        final String userRole;
+
+        CellKey(int deviceId, String categoryName, String userRole) {
+            this.deviceId = deviceId;
+            this.categoryName = categoryName;
+            this.userRole = userRole;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CellKey)) return false;
+            CellKey other = (CellKey) o;
+            return deviceId == other.deviceId && categoryName.equals(other.categoryName) && userRole.equals(other.userRole);
+        }
+
+        @Override
+        public int hashCode() {
+            return (deviceId * 31 + categoryName.hashCode()) * 31 + userRole.hashCode();
+        }
+    }
+
+    /** 预约ID -> 维度编号和状态；维度按出现顺序编号，同一维度只保存一份 */
+    private static final class Tracking {
+        final IntIntMap reservations = new IntIntMap(1024);
+        final List<CellKey> keys = new ArrayList<>();
+        final Map<CellKey, Integer> keyIds = new HashMap<>();
+
+        int idOf(CellKey key) {
+            Integer id = keyIds.get(key);
+            if (id == null) {
+                id = keys.size();
+                keys.add(key);
+                keyIds.put(key, id);
+            }
+            return id;
+        }
+    }
+
+    /** 汇总单元：各状态预约数 + 已完成使用毫秒数 */
+    static final class Cell {
+        private final long[] statusCounts = new long[STATUSES.length];
+        private long usageMillis;
+
+        synchronized void apply(int oldIndex, int newIndex, long usageDelta) {
+            if (oldIndex >= 0) statusCounts[oldIndex]--;
+            if (newIndex >= 0) statusCounts[newIndex]++;
+            usageMillis += usageDelta;
+        }
+
+        synchronized void visit(long bucket, CellKey key, CellVisitor visitor) {
+            visitor.visit(bucket, key, statusCounts, usageMillis);
+        }
+    }
+}
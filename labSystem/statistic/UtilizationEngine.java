@@ -0,0 +1,195 @@
+package labSystem.statistic;
+
+import labSystem.entity.statisticData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 设备利用率计算（区间并集 + 扫描线）
+ * 第一步按设备独立计算：组内起点、终点分别排序后一次扫描，重叠和首尾相接的预约合并为连续占用段，
+ * 得到占用时长和最长空闲；设备之间互不依赖，区间多时按设备并行。
+ * 第二步把各设备的占用段再做一次扫描，得到同时在用的峰值设备数和整体最长空闲
+ */
+public final class UtilizationEngine {
+
+    // 区间总数超过该值时按设备并行
+    private static final int PARALLEL_THRESHOLD = 20_000;
+    private static final double HOUR_MILLIS = 60.0 * 60 * 1000;
+
+    private UtilizationEngine() {
+    }
+
+    /**
+     * 计算利用率报告
+     * @param intervals 按设备分组、已裁剪到区间内的占用区间
+     * @param deviceId 单个设备时传入设备ID，全部设备时为null
+     * @param deviceCount 参与统计的设备数（含区间内无预约的设备）
+     */
+    public static statisticData.UtilizationReport compute(DeviceIntervals intervals, Integer deviceId, int deviceCount, Date from, Date to) {
+        long lo = from.getTime();
+        long hi = to.getTime();
+        IntStream groups = IntStream.range(0, intervals.groupCount());
+        if (intervals.size() > PARALLEL_THRESHOLD) {
+            groups = groups.parallel();
+        }
+        List<DeviceUnion> unions = groups.mapToObj(g -> union(intervals, g, lo, hi)).collect(Collectors.toList());
+
+        statisticData.UtilizationReport report = newReport(deviceId, Math.max(deviceCount, unions.size()), from, to);
+        if (deviceId != null) {
+            DeviceUnion union = unions.stream().filter(u -> u.deviceId == deviceId).findFirst().orElse(null);
+            fillDevice(report, union, lo, hi);
+            return report;
+        }
+
+        // 各设备占用段汇总扫描：终点先于同一时刻的起点处理，交接班不算同时在用
+        int total = unions.stream().mapToInt(u -> u.count).sum();
+        long[] starts = new long[total];
+        long[] ends = new long[total];
+        int pos = 0;
+        long busyMillis = 0;
+        for (DeviceUnion union : unions) {
+            System.arraycopy(union.starts, 0, starts, pos, union.count);
+            System.arraycopy(union.ends, 0, ends, pos, union.count);
+            pos += union.count;
+            busyMillis += union.busyMillis;
+        }
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+
+        int active = 0, peak = 0;
+        long peakAt = lo;
+        long idleFrom = lo, longestIdle = 0, longestIdleStart = lo;
+        int i = 0, j = 0;
+        while (i < total) {
+            if (starts[i] < ends[j]) {
+                if (active == 0 && starts[i] - idleFrom > longestIdle) {
+                    longestIdle = starts[i] - idleFrom;
+                    longestIdleStart = idleFrom;
+                }
+                active++;
+                if (active > peak) {
+                    peak = active;
+                    peakAt = starts[i];
+                }
+                i++;
+            } else {
+                active--;
+                if (active == 0) idleFrom = ends[j];
+                j++;
+            }
+        }
+        if (total > 0) idleFrom = ends[total - 1];
+        if (hi - idleFrom > longestIdle) {
+            longestIdle = hi - idleFrom;
+            longestIdleStart = idleFrom;
+        }
+
+        report.setBusyHours(busyMillis / HOUR_MILLIS);
+        report.setPeakConcurrentDevices(peak);
+        report.setPeakAt(peak > 0 ? new Date(peakAt) : null);
+        report.setLongestIdleHours(longestIdle / HOUR_MILLIS);
+        report.setLongestIdleStart(longestIdle > 0 ? new Date(longestIdleStart) : null);
+
+        List<statisticData.UtilizationReport> deviceReports = new ArrayList<>(unions.size());
+        for (DeviceUnion union : unions) {
+            statisticData.UtilizationReport deviceReport = newReport(union.deviceId, 1, from, to);
+            fillDevice(deviceReport, union, lo, hi);
+            deviceReports.add(deviceReport);
+        }
+        report.setDeviceReports(deviceReports);
+        return report;
+    }
+
+    /** 单台设备：组内起点、终点分别排序，扫描得到占用段；起点先于同一时刻的终点处理，首尾相接的预约合并 */
+    private static DeviceUnion union(DeviceIntervals intervals, int group, long lo, long hi) {
+        int from = intervals.offsets[group];
+        int to = intervals.offsets[group + 1];
+        int n = to - from;
+        long[] starts = Arrays.copyOfRange(intervals.starts, from, to);
+        long[] ends = Arrays.copyOfRange(intervals.ends, from, to);
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+
+        DeviceUnion union = new DeviceUnion(intervals.deviceIds[group], n);
+        int active = 0;
+        long segmentStart = 0;
+        long idleFrom = lo;
+        int i = 0, j = 0;
+        while (j < n) {
+            if (i < n && starts[i] <= ends[j]) {
+                if (active++ == 0) {
+                    segmentStart = starts[i];
+                    union.recordIdle(idleFrom, segmentStart);
+                }
+                i++;
+            } else {
+                if (--active == 0) {
+                    union.addSegment(segmentStart, ends[j]);
+                    idleFrom = ends[j];
+                }
+                j++;
+            }
+        }
+        union.recordIdle(idleFrom, hi);
+        return union;
+    }
+
+    private static statisticData.UtilizationReport newReport(Integer deviceId, int deviceCount, Date from, Date to) {
+        statisticData.UtilizationReport report = new statisticData.UtilizationReport();
+        report.setDeviceId(deviceId);
+        report.setStartDate(from);
+        report.setEndDate(to);
+        report.setDeviceCount(deviceCount);
+        report.setCapacityHours(deviceCount * ((to.getTime() - from.getTime()) / HOUR_MILLIS));
+        return report;
+    }
+
+    private static void fillDevice(statisticData.UtilizationReport report, DeviceUnion union, long lo, long hi) {
+        if (union == null) {
+            report.setLongestIdleHours((hi - lo) / HOUR_MILLIS);
+            report.setLongestIdleStart(new Date(lo));
+            return;
+        }
+        report.setBusyHours(union.busyMillis / HOUR_MILLIS);
+        report.setLongestIdleHours(union.longestIdle / HOUR_MILLIS);
+        report.setLongestIdleStart(union.longestIdle > 0 ? new Date(union.longestIdleStart) : null);
+        report.setPeakConcurrentDevices(union.count > 0 ? 1 : 0);
+        report.setPeakAt(union.count > 0 ? new Date(union.starts[0]) : null);
+    }
+
+    /** 单台设备合并后的占用段 */
+    private static final class DeviceUnion {
+        final int deviceId;
+        final long[] starts;
+        final long[] ends;
+        int count;
+        long busyMillis;
+        long longestIdle;
+        long longestIdleStart;
+
+        DeviceUnion(int deviceId, int capacity) {
+            this.deviceId = deviceId;
+            this.starts = new long[capacity];
+            this.ends = new long[capacity];
+        }
+
+        void addSegment(long start, long end) {
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+            busyMillis += end - start;
+        }
+
+        void recordIdle(long from, long to) {
+            if (to - from > longestIdle) {
+                longestIdle = to - from;
+                longestIdleStart = from;
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package labSystem.util;
 
 import labSystem.config.DBconfig;
+
+import java.io.IOException;
 import java.sql.*;
 
 
@@ -201,6 +203,29 @@ public class DButil {
         }
     }
     
+    /**
+     * 流式查询：只进、只读游标，逐行回调，不在内存中累积结果
+     * MySQL驱动只有在 fetchSize 为 Integer.MIN_VALUE 时才真正逐行读取，否则会把整个结果集读入内存；
+     * 读取期间该连接不能执行其他语句，调用方应使用独立连接
+     */
+    public static void forEachRow(Connection conn, String sql, RowCallback callback, Object... params)
+            throws SQLException, IOException {
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(Integer.MIN_VALUE);
+            setParameters(pstmt, params);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                callback.handle(rs);
+            }
+        } finally {
+            close(rs);
+            close(pstmt);
+        }
+    }
+    
     /**
      * 检查表是否存在
      */
@@ -218,4 +243,11 @@ public class DButil {
     public interface ResultSetHandler<T> {
         T handle(ResultSet rs) throws SQLException;
     }
+    
+    /**
+     * 流式查询逐行回调接口
+     */
+    public interface RowCallback {
+        void handle(ResultSet rs) throws SQLException, IOException;
+    }
 }
\ No newline at end of file
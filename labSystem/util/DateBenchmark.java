@@ -0,0 +1,99 @@
+package labSystem.util;
+
+import java.lang.management.ManagementFactory;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * DateUtil 基准测试
+ * 对比改写前的实现（每次新建 SimpleDateFormat、每次新建 Calendar）与当前实现的单次耗时和单次分配字节数。
+ * 分配量取自当前线程的累计分配计数（HotSpot 的 com.sun.management.ThreadMXBean）。
+ * 用法：java labSystem.util.DateBenchmark [每轮次数]
+ */
+public class DateBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        // 一批分散在前后一年内的时间，模拟逐行格式化的预约记录
+        Date[] dates = new Date[1024];
+        String[] texts = new String[dates.length];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = new Date(now + (i * 7_919_000_003L) % (365L * 24 * 3600 * 1000));
+            texts[i] = DateUtil.formatDateTime(dates[i]);
+        }
+        int mask = dates.length - 1;
+
+        measure("旧 formatDateTime", iterations, i -> legacyFormat(dates[i & mask]).length());
+        measure("新 formatDateTime", iterations, i -> DateUtil.formatDateTime(dates[i & mask]).length());
+        measure("旧 formatDate", iterations, i -> new SimpleDateFormat(DateUtil.DATE_FORMAT).format(dates[i & mask]).length());
+        measure("新 formatDate", iterations, i -> DateUtil.formatDate(dates[i & mask]).length());
+        measure("旧 parseDateTime", iterations, i -> (int) legacyParse(texts[i & mask]).getTime());
+        measure("新 parseDateTime", iterations, i -> (int) DateUtil.parseDateTime(texts[i & mask]).getTime());
+        measure("旧 addDays", iterations, i -> (int) legacyAddDays(dates[i & mask], i & 31).getTime());
+        measure("新 addDays", iterations, i -> (int) DateUtil.addDays(dates[i & mask], i & 31).getTime());
+        measure("新 addDays(long)", iterations, i -> (int) DateUtil.addDays(dates[i & mask].getTime(), i & 31));
+        measure("旧 isSameDay", iterations, i -> legacyIsSameDay(dates[i & mask], dates[(i + 1) & mask]) ? 1 : 0);
+        measure("新 isSameDay", iterations, i -> DateUtil.isSameDay(dates[i & mask], dates[(i + 1) & mask]) ? 1 : 0);
+    }
+
+    private interface Operation {
+        int run(int i);
+    }
+
+    // 预热一轮后取其余各轮的平均值；累加返回值防止被优化掉
+    private static void measure(String name, int iterations, Operation operation) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) sink += operation.run(i);
+        long nanos = 0;
+        long bytes = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) sink += operation.run(i);
+            nanos += System.nanoTime() - start;
+            bytes += allocatedBytes() - allocated;
+        }
+        long calls = (long) iterations * ROUNDS;
+        System.out.printf("%-18s %8.1f ns/次 %8.1f 字节/次 (%d)%n", name, (double) nanos / calls, (double) bytes / calls, sink & 1);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // === 改写前的实现，作为对照 ===
+
+    private static String legacyFormat(Date date) {
+        return new SimpleDateFormat(DateUtil.DATE_TIME_FORMAT).format(date);
+    }
+
+    private static Date legacyParse(String text) {
+        try {
+            return new SimpleDateFormat(DateUtil.DATE_TIME_FORMAT).parse(text);
+        } catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Date legacyAddDays(Date date, int days) {
+        Calendar cal = Calendar.getInstance();
+        cal.setTime(date);
+        cal.add(Calendar.DAY_OF_MONTH, days);
+        return cal.getTime();
+    }
+
+    private static boolean legacyIsSameDay(Date date1, Date date2) {
+        Calendar cal1 = Calendar.getInstance();
+        Calendar cal2 = Calendar.getInstance();
+        cal1.setTime(date1);
+        cal2.setTime(date2);
+        return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR) &&
+               cal1.get(Calendar.MONTH) == cal2.get(Calendar.MONTH) &&
+               cal1.get(Calendar.DAY_OF_MONTH) == cal2.get(Calendar.DAY_OF_MONTH);
+    }
+}
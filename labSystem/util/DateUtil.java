@@ -2,11 +2,26 @@ package labSystem.util;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
 
 /**
  * 日期工具类（精简版）
+ * 日期计算直接在毫秒数上进行；yyyy-MM-dd HH:mm:ss 及其日期、时间部分走快速路径，直接读写字符数组中的数字。
+ * 快速路径只处理严格符合定长格式且年份在1970-9999之间的输入，其余输入（位数不足、首尾空白、日期越界等）
+ * 和其他格式交给每个线程缓存的宽松 SimpleDateFormat，结果与原先每次新建 SimpleDateFormat 相同。
+ * 时区取类加载时的默认时区（假定运行期间不修改默认时区）。
+ * 以 Date 为参数的方法保留原有签名，内部转为毫秒数处理
  */
 public class DateUtil {
     
@@ -15,6 +30,21 @@ public class DateUtil {
     public static final String TIME_FORMAT = "HH:mm:ss";
     public static final String DATE_TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
     
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+    
+    private static final TimeZone TIME_ZONE = TimeZone.getDefault();
+    private static final ZoneRules RULES = TIME_ZONE.toZoneId().getRules();
+    // 早于此时刻的偏移按 TimeZone 计算，与 Calendar 一致（早期的地方平时两者换算不同）
+    private static final long RULES_FROM_MILLIS = 0L;
+    // 快速路径的年份范围：更早的日期涉及儒略历和早期时区规则，java.time 与 SimpleDateFormat 的换算可能不同
+    private static final int MIN_FAST_YEAR = 1970;
+    private static final int MAX_FAST_YEAR = 9999;
+    
+    // 每个线程按格式缓存的 SimpleDateFormat（非线程安全，不能跨线程共用）；格式串都是代码里的常量，数量有限
+    private static final ThreadLocal<Map<String, SimpleDateFormat>> FORMATS = ThreadLocal.withInitial(HashMap::new);
+    
     private DateUtil() {}
     
     // === 核心方法 ===
@@ -22,7 +52,21 @@ public class DateUtil {
     /** 格式化日期 */
     public static String format(Date date, String pattern) {
         if (date == null) return "";
-        return new SimpleDateFormat(pattern).format(date);
+        return format(date.getTime(), pattern);
+    }
+    
+    /** 格式化毫秒时间戳 */
+    public static String format(long millis, String pattern) {
+        String text = null;
+        if (DATE_TIME_FORMAT.equals(pattern)) {
+            text = formatFixed(millis, 0, 19);
+        } else if (DATE_FORMAT.equals(pattern)) {
+            text = formatFixed(millis, 0, 10);
+        } else if (TIME_FORMAT.equals(pattern)) {
+            text = formatFixed(millis, 11, 19);
+        }
+        if (text != null) return text;
+        return dateFormat(pattern).format(new Date(millis));
     }
     
     /** 格式化为 yyyy-MM-dd */
@@ -30,16 +74,43 @@ public class DateUtil {
         return format(date, DATE_FORMAT);
     }
     
+    /** 格式化为 yyyy-MM-dd */
+    public static String formatDate(long millis) {
+        return format(millis, DATE_FORMAT);
+    }
+    
     /** 格式化为 yyyy-MM-dd HH:mm:ss */
     public static String formatDateTime(Date date) {
         return format(date, DATE_TIME_FORMAT);
     }
     
+    /** 格式化为 yyyy-MM-dd HH:mm:ss */
+    public static String formatDateTime(long millis) {
+        return format(millis, DATE_TIME_FORMAT);
+    }
+    
     /** 解析字符串为日期 */
     public static Date parse(String dateStr, String pattern) {
         if (dateStr == null || dateStr.trim().isEmpty()) return null;
+        return new Date(parseMillis(dateStr, pattern));
+    }
+    
+    /**
+     * 解析字符串为毫秒时间戳
+     * 规则与宽松模式的 SimpleDateFormat 相同：只要求开头部分符合格式，其后的内容忽略；
+     * 越界的日期时间顺延（如2024-02-30为3月1日）
+     */
+    public static long parseMillis(String dateStr, String pattern) {
+        if (dateStr == null) throw new RuntimeException("日期格式错误: null");
+        long local = Long.MIN_VALUE;
+        if (DATE_TIME_FORMAT.equals(pattern)) {
+            local = parseFixed(dateStr, true);
+        } else if (DATE_FORMAT.equals(pattern)) {
+            local = parseFixed(dateStr, false);
+        }
+        if (local != Long.MIN_VALUE) return toUtcMillis(local);
         try {
-            return new SimpleDateFormat(pattern).parse(dateStr);
+            return dateFormat(pattern).parse(dateStr).getTime();
         } catch (ParseException e) {
             throw new RuntimeException("日期格式错误: " + dateStr, e);
         }
@@ -55,30 +126,144 @@ public class DateUtil {
         return parse(dateStr, DATE_TIME_FORMAT);
     }
     
+    private static SimpleDateFormat dateFormat(String pattern) {
+        return FORMATS.get().computeIfAbsent(pattern, SimpleDateFormat::new);
+    }
+    
+    // === 固定格式的快速路径 ===
+    
+    // 按 yyyy-MM-dd HH:mm:ss 写出全部数字后截取 [begin, end)；年份超出快速路径范围时返回null，交给 SimpleDateFormat
+    private static String formatFixed(long millis, int begin, int end) {
+        long local = millis + offsetMillis(millis);
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(local, DAY_MILLIS));
+        int year = date.getYear();
+        if (year < MIN_FAST_YEAR || year > MAX_FAST_YEAR) return null;
+        int seconds = (int) (Math.floorMod(local, DAY_MILLIS) / 1000);
+        char[] text = new char[19];
+        putDigits(text, 0, year, 4);
+        text[4] = '-';
+        putDigits(text, 5, date.getMonthValue(), 2);
+        text[7] = '-';
+        putDigits(text, 8, date.getDayOfMonth(), 2);
+        text[10] = ' ';
+        putDigits(text, 11, seconds / 3600, 2);
+        text[13] = ':';
+        putDigits(text, 14, seconds / 60 % 60, 2);
+        text[16] = ':';
+        putDigits(text, 17, seconds % 60, 2);
+        return new String(text, begin, end - begin);
+    }
+    
+    private static void putDigits(char[] text, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+    
+    // 按 yyyy-MM-dd[ HH:mm:ss] 直接读取数字，返回本地时间的毫秒数；
+    // 长度、分隔符、位数或取值不完全符合时返回 Long.MIN_VALUE，交给 SimpleDateFormat 按宽松规则处理
+    private static long parseFixed(String text, boolean withTime) {
+        if (text.length() != (withTime ? 19 : 10)) return Long.MIN_VALUE;
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < MIN_FAST_YEAR || month < 1 || month > 12 || day < 1 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || day > Month.of(month).length(Year.isLeap(year))) {
+            return Long.MIN_VALUE;
+        }
+        long local = LocalDate.of(year, month, day).toEpochDay() * DAY_MILLIS;
+        if (!withTime) return local;
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            return Long.MIN_VALUE;
+        }
+        return local + hour * HOUR_MILLIS + minute * MINUTE_MILLIS + second * 1000L;
+    }
+    
+    // 读取定长数字，含非数字字符时返回-1
+    private static int digits(String text, int offset, int width) {
+        int value = 0;
+        for (int i = offset; i < offset + width; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    // === 时区换算 ===
+    
+    // 某一时刻在默认时区的偏移毫秒数
+    private static long offsetMillis(long utcMillis) {
+        if (utcMillis < RULES_FROM_MILLIS) return TIME_ZONE.getOffset(utcMillis);
+        return RULES.getOffset(Instant.ofEpochMilli(utcMillis)).getTotalSeconds() * 1000L;
+    }
+    
+    // 本地时间的毫秒数换算为时间戳；前后一天内偏移不变时直接相减。
+    // 附近有夏令时切换时按 SimpleDateFormat 的规则：跳过的时刻按切换前的偏移换算，重复的时刻取切换后的偏移
+    private static long toUtcMillis(long localMillis) {
+        long offset = offsetMillis(localMillis);
+        long utc = localMillis - offset;
+        if (offsetMillis(utc) == offset && offsetMillis(utc - DAY_MILLIS) == offset && offsetMillis(utc + DAY_MILLIS) == offset) {
+            return utc;
+        }
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(localMillis, 1000L),
+                (int) Math.floorMod(localMillis, 1000L) * 1_000_000, ZoneOffset.UTC);
+        ZoneOffsetTransition transition = RULES.getTransition(dateTime);
+        ZoneOffset actual = transition == null ? RULES.getOffset(dateTime)
+                : transition.isGap() ? transition.getOffsetBefore() : transition.getOffsetAfter();
+        return localMillis - actual.getTotalSeconds() * 1000L;
+    }
+    
+    // 本地日期对应的天数（自1970-01-01起）
+    private static long localDay(long utcMillis) {
+        return Math.floorDiv(utcMillis + offsetMillis(utcMillis), DAY_MILLIS);
+    }
+    
     // === 日期计算 ===
     
-    /** 添加天数 */
+    /** 添加天数（保持当地的时分秒不变） */
     public static Date addDays(Date date, int days) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        cal.add(Calendar.DAY_OF_MONTH, days);
-        return cal.getTime();
+        return new Date(addDays(date.getTime(), days));
+    }
+    
+    /**
+     * 添加天数（保持当地的时分秒不变）
+     * 与 Calendar.add 相同：先按原偏移计算，偏移变化后补上差值，补差跨过了日期则不补
+     */
+    public static long addDays(long millis, int days) {
+        long offset = offsetMillis(millis);
+        long targetDay = Math.floorDiv(millis + offset, DAY_MILLIS) + days;
+        long result = millis + days * DAY_MILLIS;
+        long change = offset - offsetMillis(result);
+        if (change != 0 && localDay(result + change) == targetDay) {
+            result += change;
+        }
+        return result;
     }
     
     /** 添加小时 */
     public static Date addHours(Date date, int hours) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        cal.add(Calendar.HOUR_OF_DAY, hours);
-        return cal.getTime();
+        return new Date(addHours(date.getTime(), hours));
+    }
+    
+    /** 添加小时 */
+    public static long addHours(long millis, int hours) {
+        return millis + hours * HOUR_MILLIS;
     }
     
     /** 添加分钟 */
     public static Date addMinutes(Date date, int minutes) {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        cal.add(Calendar.MINUTE, minutes);
-        return cal.getTime();
+        return new Date(addMinutes(date.getTime(), minutes));
+    }
+    
+    /** 添加分钟 */
+    public static long addMinutes(long millis, int minutes) {
+        return millis + minutes * MINUTE_MILLIS;
     }
     
     // === 日期比较 ===
@@ -86,13 +271,7 @@ public class DateUtil {
     /** 检查是否为同一天 */
     public static boolean isSameDay(Date date1, Date date2) {
         if (date1 == null || date2 == null) return false;
-        Calendar cal1 = Calendar.getInstance();
-        Calendar cal2 = Calendar.getInstance();
-        cal1.setTime(date1);
-        cal2.setTime(date2);
-        return cal1.get(Calendar.YEAR) == cal2.get(Calendar.YEAR) &&
-               cal1.get(Calendar.MONTH) == cal2.get(Calendar.MONTH) &&
-               cal1.get(Calendar.DAY_OF_MONTH) == cal2.get(Calendar.DAY_OF_MONTH);
+        return localDay(date1.getTime()) == localDay(date2.getTime());
     }
     
     /** 是否为今天 */
@@ -104,7 +283,7 @@ public class DateUtil {
     public static long hoursBetween(Date start, Date end) {
         if (start == null || end == null) return 0;
         long diff = end.getTime() - start.getTime();
-        return diff / (1000 * 60 * 60);
+        return diff / HOUR_MILLIS;
     }
     
     // === 数据库转换 ===
@@ -154,6 +333,6 @@ public class DateUtil {
     
     /** 获取当前时间字符串（用于日志） */
     public static String getCurrentTimeString() {
-        return formatDateTime(new Date());
+        return formatDateTime(System.currentTimeMillis());
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package labSystem.util;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * MD5Util 基准测试
+ * 对比改写前的实现（每次新建 MessageDigest、平台默认编码、逐字节 toHexString + StringBuilder）
+ * 与当前实现的单次耗时和单次分配字节数，并测一个临时大文件的流式校验。
+ * 分配量取自当前线程的累计分配计数（HotSpot 的 com.sun.management.ThreadMXBean）。
+ * 用法：java labSystem.util.MD5Benchmark [每轮次数] [文件MB]
+ */
+public class MD5Benchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int fileMegabytes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        String[] inputs = {"admin123", "student2024", "teacher_pw_01", "abc123456"};
+        String stored = MD5Util.encrypt(inputs[0]);
+
+        measure("旧 encrypt", iterations, i -> legacyEncrypt(inputs[i & 3]).length());
+        measure("新 encrypt", iterations, i -> MD5Util.encrypt(inputs[i & 3]).length());
+        measure("旧 verify", iterations, i -> legacyEncrypt(inputs[i & 3]).equals(stored) ? 1 : 0);
+        measure("新 verify", iterations, i -> MD5Util.verify(inputs[i & 3], stored) ? 1 : 0);
+        measure("旧 getChecksum", iterations, i -> {
+            String md5 = legacyEncrypt(inputs[i & 3]);
+            return (md5.substring(0, 8) + md5.substring(md5.length() - 8)).length();
+        });
+        measure("新 getChecksum", iterations, i -> MD5Util.getChecksum(inputs[i & 3]).length());
+
+        Path file = Files.createTempFile("md5-benchmark", ".bin");
+        try {
+            byte[] block = new byte[1024 * 1024];
+            for (int i = 0; i < block.length; i++) block[i] = (byte) (i * 31);
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < fileMegabytes; i++) out.write(ByteBuffer.wrap(block));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MD5Util.getChecksum(channel);
+                long start = System.nanoTime();
+                long allocated = allocatedBytes();
+                String checksum = MD5Util.getChecksum(channel);
+                allocated = allocatedBytes() - allocated;
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("文件校验 %d MB：%.0f MB/s，分配 %d 字节，%s%n",
+                        fileMegabytes, fileMegabytes / seconds, allocated, checksum);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private interface Operation {
+        int run(int i);
+    }
+
+    // 预热一轮后取其余各轮的平均值；累加返回值防止被优化掉
+    private static void measure(String name, int iterations, Operation operation) {
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) sink += operation.run(i);
+        long nanos = 0;
+        long bytes = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) sink += operation.run(i);
+            nanos += System.nanoTime() - start;
+            bytes += allocatedBytes() - allocated;
+        }
+        long calls = (long) iterations * ROUNDS;
+        System.out.printf("%-14s %8.1f ns/次 %8.1f 字节/次 (%d)%n", name, (double) nanos / calls, (double) bytes / calls, sink & 1);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    // 改写前的实现，作为对照
+    private static String legacyEncrypt(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] digest = md.digest(input.getBytes());
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : digest) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+            return hexString.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -1,18 +1,44 @@
 package labSystem.util;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 /**
  * MD5加密工具类
- * 用于用户密码加密存储
+ * 用于用户密码加密存储（旧格式）和文件校验。
+ * 每个线程复用各自的 MessageDigest 和缓冲区，字符串统一按 UTF-8 编码；
+ * 除返回的字符串外，一次摘要不再产生其他临时对象
  */
 public class MD5Util {
-    
+
+    private static final int DIGEST_LENGTH = 16;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    // 超过此长度的字符串不放入复用数组，避免每个线程长期占着大数组
+    private static final int MAX_REUSED_INPUT = 4096;
+
+    private static final char[] HEX_LOWER = "0123456789abcdef".toCharArray();
+    private static final char[] HEX_UPPER = "0123456789ABCDEF".toCharArray();
+
+    // 每个线程一份的摘要实例和缓冲区，MessageDigest 不是线程安全的
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     // 私有构造，防止实例化
     private MD5Util() {}
-    
+
+    // 取本线程的摘要实例并清空状态（上次流式计算中途出错时可能残留数据）
+    private static Scratch begin() {
+        Scratch scratch = SCRATCH.get();
+        scratch.digest.reset();
+        return scratch;
+    }
+
     /**
      * MD5加密（32位小写）
      */
@@ -20,39 +46,23 @@ public class MD5Util {
         if (input == null || input.isEmpty()) {
             return "";
         }
-        
-        try {
-            // 获取MD5加密实例
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            
-            // 计算MD5值
-            byte[] digest = md.digest(input.getBytes());
-            
-            // 转换为16进制字符串
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : digest) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-            
-        } catch (NoSuchAlgorithmException e) {
-            // 不应该发生，MD5是所有Java版本都支持的
-            throw new RuntimeException("MD5加密失败", e);
-        }
+        Scratch scratch = begin();
+        scratch.update(input);
+        return scratch.finish(HEX_LOWER);
     }
-    
+
     /**
      * MD5加密（32位大写）
      */
     public static String encryptUpperCase(String input) {
-        return encrypt(input).toUpperCase();
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        Scratch scratch = begin();
+        scratch.update(input);
+        return scratch.finish(HEX_UPPER);
     }
-    
+
     /**
      * 加盐MD5加密
      * @param input 原始字符串
@@ -65,12 +75,17 @@ public class MD5Util {
         if (salt == null) {
             salt = "";
         }
-        // 使用固定格式：salt + password + salt
-        return encrypt(salt + input + salt);
+        // 使用固定格式：salt + password + salt（分段送入摘要，不拼接字符串）
+        Scratch scratch = begin();
+        scratch.update(salt);
+        scratch.update(input);
+        scratch.update(salt);
+        return scratch.finish(HEX_LOWER);
     }
-    
+
     /**
      * 验证密码
+     * 直接与摘要字节逐位比较，不生成中间字符串
      * @param input 用户输入的密码
      * @param encrypted 数据库中存储的加密密码
      */
@@ -78,9 +93,14 @@ public class MD5Util {
         if (input == null || encrypted == null) {
             return false;
         }
-        return encrypt(input).equals(encrypted);
+        if (input.isEmpty()) {
+            return encrypted.isEmpty();
+        }
+        Scratch scratch = begin();
+        scratch.update(input);
+        return scratch.finishAndCompare(encrypted);
     }
-    
+
     /**
      * 验证加盐密码
      */
@@ -91,9 +111,13 @@ public class MD5Util {
         if (salt == null) {
             salt = "";
         }
-        return encrypt(salt + input + salt).equals(encrypted);
+        Scratch scratch = begin();
+        scratch.update(salt);
+        scratch.update(input);
+        scratch.update(salt);
+        return scratch.finishAndCompare(encrypted);
     }
-    
+
     /**
      * 生成随机盐值（16位）
      */
@@ -106,37 +130,168 @@ public class MD5Util {
         }
         return salt.toString();
     }
-    
+
     /**
      * 获取MD5特征值（用于快速比较）
+     * 取摘要十六进制形式的前8位和后8位
      */
     public static String getChecksum(String input) {
         if (input == null || input.isEmpty()) {
             return "";
         }
-        String md5 = encrypt(input);
-        // 取前8位和后8位作为特征值
-        return md5.substring(0, 8) + md5.substring(md5.length() - 8);
+        Scratch scratch = begin();
+        scratch.update(input);
+        return scratch.finishShort();
+    }
+
+    /**
+     * 计算流内容的MD5（32位小写），按块读取，适用于大文件；不关闭流
+     */
+    public static String getChecksum(InputStream in) throws IOException {
+        Scratch scratch = begin();
+        byte[] buffer = scratch.streamBuffer();
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            scratch.digest.update(buffer, 0, read);
+        }
+        return scratch.finish(HEX_LOWER);
     }
-    
+
+    /**
+     * 计算文件内容的MD5（32位小写）
+     * 从文件开头按位置读取到结尾，不改变通道的当前位置
+     */
+    public static String getChecksum(FileChannel channel) throws IOException {
+        Scratch scratch = begin();
+        ByteBuffer buffer = scratch.directBuffer();
+        long position = 0;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read == -1) break;
+            position += read;
+            buffer.flip();
+            scratch.digest.update(buffer);
+        }
+        return scratch.finish(HEX_LOWER);
+    }
+
+    // 每个线程的摘要实例和可复用缓冲区
+    private static final class Scratch {
+        final MessageDigest digest;
+        final byte[] result = new byte[DIGEST_LENGTH];
+        final char[] hex = new char[DIGEST_LENGTH * 2];
+        byte[] encoded = new byte[64];
+        byte[] stream;
+        ByteBuffer direct;
+
+        Scratch() {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                // 不应该发生，MD5是所有Java版本都支持的
+                throw new RuntimeException("MD5加密失败", e);
+            }
+        }
+
+        // 按 UTF-8 编码送入摘要：纯ASCII直接写入复用的字节数组，其余字符走标准编码
+        void update(String input) {
+            int length = input.length();
+            if (length > MAX_REUSED_INPUT) {
+                digest.update(input.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (encoded.length < length) {
+                encoded = new byte[Math.max(length, encoded.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                char c = input.charAt(i);
+                if (c >= 0x80) {
+                    digest.update(input.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                encoded[i] = (byte) c;
+            }
+            digest.update(encoded, 0, length);
+        }
+
+        String finish(char[] table) {
+            complete();
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                hex[i * 2] = table[(result[i] >> 4) & 0x0f];
+                hex[i * 2 + 1] = table[result[i] & 0x0f];
+            }
+            return new String(hex);
+        }
+
+        // 前4个字节和后4个字节，即十六进制的前8位和后8位
+        String finishShort() {
+            complete();
+            for (int i = 0; i < 4; i++) {
+                int tail = DIGEST_LENGTH - 4 + i;
+                hex[i * 2] = HEX_LOWER[(result[i] >> 4) & 0x0f];
+                hex[i * 2 + 1] = HEX_LOWER[result[i] & 0x0f];
+                hex[8 + i * 2] = HEX_LOWER[(result[tail] >> 4) & 0x0f];
+                hex[8 + i * 2 + 1] = HEX_LOWER[result[tail] & 0x0f];
+            }
+            return new String(hex, 0, 16);
+        }
+
+        // 与32位小写十六进制比较，比较时间与不一致的位置无关
+        boolean finishAndCompare(String expected) {
+            complete();
+            if (expected.length() != DIGEST_LENGTH * 2) {
+                return false;
+            }
+            int diff = 0;
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                diff |= expected.charAt(i * 2) ^ HEX_LOWER[(result[i] >> 4) & 0x0f];
+                diff |= expected.charAt(i * 2 + 1) ^ HEX_LOWER[result[i] & 0x0f];
+            }
+            return diff == 0;
+        }
+
+        private void complete() {
+            try {
+                digest.digest(result, 0, DIGEST_LENGTH);
+            } catch (DigestException e) {
+                throw new RuntimeException("MD5加密失败", e);
+            }
+        }
+
+        byte[] streamBuffer() {
+            if (stream == null) {
+                stream = new byte[STREAM_BUFFER_SIZE];
+            }
+            return stream;
+        }
+
+        ByteBuffer directBuffer() {
+            if (direct == null) {
+                direct = ByteBuffer.allocateDirect(STREAM_BUFFER_SIZE);
+            }
+            return direct;
+        }
+    }
+
     /**
      * 测试方法
      */
     public static void main(String[] args) {
         System.out.println("=== MD5加密测试 ===");
-        
+
         // 测试普通加密
         String password = "admin123";
         String encrypted = encrypt(password);
         System.out.println("原始密码: " + password);
         System.out.println("MD5加密: " + encrypted);
         System.out.println("长度: " + encrypted.length());
-        
+
         // 测试验证
         System.out.println("\n验证测试:");
         System.out.println("正确密码验证: " + verify("admin123", encrypted));
         System.out.println("错误密码验证: " + verify("wrongpass", encrypted));
-        
+
         // 测试加盐加密
         String salt = generateSalt();
         String saltedEncrypted = encryptWithSalt(password, salt);
@@ -144,11 +299,12 @@ public class MD5Util {
         System.out.println("盐值: " + salt);
         System.out.println("加盐MD5: " + saltedEncrypted);
         System.out.println("验证: " + verifyWithSalt(password, salt, saltedEncrypted));
-        
+
         // 常见测试用例
         System.out.println("\n常见测试用例:");
         System.out.println("空字符串: \"" + encrypt("") + "\"");
         System.out.println("123456: " + encrypt("123456"));
         System.out.println("test: " + encrypt("test"));
+        System.out.println("特征值: " + getChecksum("test"));
     }
-}
\ No newline at end of file
+}